@@ -0,0 +1,53 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import com.vdurmont.semver4j.Semver;
+import org.technologybrewery.habushu.InstallDependenciesMojo;
+import org.technologybrewery.habushu.PackageDefinition;
+import org.technologybrewery.habushu.util.TomlReplacementTuple;
+
+import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exposes the dependency management logic of {@link InstallDependenciesMojo} with the defaults that Maven would
+ * otherwise inject, and without invoking Poetry.
+ */
+class BenchmarkInstallDependenciesMojo extends InstallDependenciesMojo {
+
+    private static final Semver POETRY_VERSION = new Semver("1.8.3");
+
+    private final File pyProjectTomlFile;
+
+    BenchmarkInstallDependenciesMojo(File pyProjectTomlFile, List<PackageDefinition> managedDependencies) {
+        this.pyProjectTomlFile = pyProjectTomlFile;
+        this.managedDependencies = managedDependencies;
+
+        // mimic defaults in Mojo:
+        this.updateManagedDependenciesWhenFound = true;
+        this.overridePackageVersion = true;
+        setLog(new SilentLog());
+    }
+
+    void processManagedDependencies() {
+        processManagedDependencyMismatches();
+    }
+
+    void performReplacements(Map<String, TomlReplacementTuple> replacements) {
+        performPendingDependencyReplacements(replacements);
+    }
+
+    static String pythonPackageVersion(String pomVersion, boolean addSnapshotNumber, String datePattern) {
+        return getPythonPackageVersion(pomVersion, addSnapshotNumber, datePattern);
+    }
+
+    @Override
+    protected File getPoetryPyProjectTomlFile() {
+        return pyProjectTomlFile;
+    }
+
+    @Override
+    protected Semver getPoetryVersion() {
+        return POETRY_VERSION;
+    }
+}
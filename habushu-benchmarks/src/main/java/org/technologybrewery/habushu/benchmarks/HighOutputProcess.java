@@ -0,0 +1,34 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stands in for a verbose Poetry or behave process by writing the requested number of log-like lines to stdout and
+ * every hundredth line to stderr.
+ */
+public final class HighOutputProcess {
+
+    private static final String[] LINES = {
+            "  - Installing package-%d (1.2.%d)",
+            "Resolving dependencies... (%d.%ds)",
+            "Warning: package-%d does not declare a license (%d)",
+            "[DEBUG] checking wheel cache for package-%d (%d)"
+    };
+
+    private HighOutputProcess() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int lineCount = Integer.parseInt(args[0]);
+        try (BufferedWriter stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+             BufferedWriter stderr = new BufferedWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8))) {
+            for (int i = 0; i < lineCount; i++) {
+                BufferedWriter target = i % 100 == 0 ? stderr : stdout;
+                target.write(String.format(LINES[i % LINES.length], i, i % 10));
+                target.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.technologybrewery.habushu.util.TomlReplacementTuple;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures managed dependency processing against large synthetic pyproject.toml files: the full check (parse,
+ * compare, and rewrite) as well as the rewrite of pending replacements in isolation. The pyproject.toml is restored
+ * before each invocation, as both operations update it in place.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManagedDependencyBenchmarks {
+
+    @Param({"100", "1000", "5000"})
+    public int dependencyCount;
+
+    private Path directory;
+    private Path pyProjectToml;
+    private String originalContent;
+    private Map<String, TomlReplacementTuple> replacements;
+    private BenchmarkInstallDependenciesMojo mojo;
+
+    @Setup(Level.Trial)
+    public void createProject() throws IOException {
+        directory = Files.createTempDirectory("habushu-benchmarks");
+        pyProjectToml = directory.resolve("pyproject.toml");
+        originalContent = SyntheticPyProject.render(dependencyCount);
+        replacements = SyntheticPyProject.replacements(dependencyCount);
+        mojo = new BenchmarkInstallDependenciesMojo(pyProjectToml.toFile(),
+                SyntheticPyProject.managedDependencies(dependencyCount));
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreProject() {
+        SyntheticPyProject.write(pyProjectToml, originalContent);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProject() throws IOException {
+        Files.deleteIfExists(pyProjectToml);
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void processManagedDependencyMismatches() {
+        mojo.processManagedDependencies();
+    }
+
+    @Benchmark
+    public void performPendingDependencyReplacements() {
+        mojo.performReplacements(replacements);
+    }
+}
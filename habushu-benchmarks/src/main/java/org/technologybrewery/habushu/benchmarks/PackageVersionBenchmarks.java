@@ -0,0 +1,40 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the mapping of POM versions to Python package versions for release, SNAPSHOT, and SemVer 2 pre-release
+ * versions, with and without timestamped snapshot numbers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PackageVersionBenchmarks {
+
+    @Param({"1.2.3", "1.2.3-SNAPSHOT", "1.2.3-rc.1"})
+    public String pomVersion;
+
+    @Benchmark
+    public String getPythonPackageVersion() {
+        return BenchmarkInstallDependenciesMojo.pythonPackageVersion(pomVersion, false, null);
+    }
+
+    @Benchmark
+    public String getPythonPackageVersionWithSnapshotNumber() {
+        return BenchmarkInstallDependenciesMojo.pythonPackageVersion(pomVersion, true, "YYYYMMddHHmm");
+    }
+}
@@ -0,0 +1,71 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.helpers.NOPLogger;
+import org.technologybrewery.habushu.exec.Platform;
+import org.technologybrewery.habushu.exec.ProcessExecutor;
+
+import java.io.File;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures how quickly {@link ProcessExecutor} pumps, classifies, and captures the output of a process that writes
+ * a large number of lines (see {@link HighOutputProcess}). Each invocation includes the startup of the fake process,
+ * which is constant across line counts, so the difference between line counts reflects the cost of line pumping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ProcessOutputBenchmarks {
+
+    private static final Logger LOGGER = NOPLogger.NOP_LOGGER;
+
+    @Param({"1000", "200000"})
+    public int lineCount;
+
+    private List<String> command;
+
+    @Setup
+    public void createCommand() {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        // the fake process runs from another directory, so the class path must not be relative:
+        String classPath = Arrays.stream(System.getProperty("java.class.path").split(File.pathSeparator))
+                .map(entry -> Paths.get(entry).toAbsolutePath().toString())
+                .collect(Collectors.joining(File.pathSeparator));
+        command = new ArrayList<>(Arrays.asList(java, "-cp", classPath, HighOutputProcess.class.getName(),
+                String.valueOf(lineCount)));
+    }
+
+    @Benchmark
+    public int executeAndRedirectOutput() {
+        return createExecutor().executeAndRedirectOutput(LOGGER);
+    }
+
+    @Benchmark
+    public String executeAndGetResult() {
+        return createExecutor().executeAndGetResult(LOGGER);
+    }
+
+    private ProcessExecutor createExecutor() {
+        return new ProcessExecutor(new File(System.getProperty("java.io.tmpdir")), command, Platform.guess(), null);
+    }
+}
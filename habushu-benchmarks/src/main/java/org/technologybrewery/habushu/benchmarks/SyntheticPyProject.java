@@ -0,0 +1,142 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import org.technologybrewery.habushu.PackageDefinition;
+import org.technologybrewery.habushu.util.TomlReplacementTuple;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates large, realistic pyproject.toml files along with managed dependencies that disagree with a portion of
+ * the declared versions, so that dependency management benchmarks exercise both matching and rewriting.
+ */
+final class SyntheticPyProject {
+
+    /**
+     * Number of custom dependency groups, in addition to the main and dev dependencies.
+     */
+    static final int GROUPS = 4;
+
+    /**
+     * Every n-th dependency is managed with a version other than the one declared.
+     */
+    static final int MISMATCH_INTERVAL = 10;
+
+    private SyntheticPyProject() {
+    }
+
+    /**
+     * Renders a pyproject.toml with the given number of dependencies spread across the main, dev, and custom groups,
+     * mixing simple version strings, inline tables with extras, and local path dependencies.
+     *
+     * @param dependencyCount total number of dependencies
+     * @return pyproject.toml content
+     */
+    static String render(int dependencyCount) {
+        StringBuilder toml = new StringBuilder(dependencyCount * 48);
+        toml.append("[tool.poetry]\n")
+                .append("name = \"synthetic-benchmark\"\n")
+                .append("version = \"1.0.0.dev\"\n")
+                .append("description = \"Synthetic project used by habushu-benchmarks\"\n")
+                .append("authors = [\"Habushu <habushu@example.com>\"]\n\n");
+
+        int sections = GROUPS + 2;
+        for (int section = 0; section < sections; section++) {
+            if (section == 0) {
+                toml.append("[tool.poetry.dependencies]\n").append("python = \"^3.11\"\n");
+            } else if (section == 1) {
+                toml.append("\n[tool.poetry.dev-dependencies]\n");
+            } else {
+                toml.append("\n[tool.poetry.group.group").append(section - 2).append(".dependencies]\n");
+            }
+
+            for (int i = section; i < dependencyCount; i += sections) {
+                String name = packageName(i);
+                if (i % 7 == 0) {
+                    toml.append(name).append(" = {version = \"^").append(version(i))
+                            .append("\", extras = [\"all\"]}\n");
+                } else if (i % 13 == 0) {
+                    toml.append(name).append(" = {path = \"../").append(name).append("\", develop = true}\n");
+                } else {
+                    toml.append(name).append(" = \"^").append(version(i)).append("\"\n");
+                }
+            }
+        }
+
+        toml.append("\n[build-system]\n")
+                .append("requires = [\"poetry-core>=1.6.0\"]\n")
+                .append("build-backend = \"poetry.core.masonry.api\"\n");
+        return toml.toString();
+    }
+
+    /**
+     * Returns managed dependencies for every simple version dependency, a portion of which do not match.
+     *
+     * @param dependencyCount total number of dependencies
+     * @return managed dependencies
+     */
+    static List<PackageDefinition> managedDependencies(int dependencyCount) {
+        List<PackageDefinition> managedDependencies = new ArrayList<>();
+        for (int i = 0; i < dependencyCount; i++) {
+            if (i % 7 == 0 || i % 13 == 0) {
+                continue;
+            }
+            PackageDefinition definition = new PackageDefinition();
+            definition.setPackageName(packageName(i));
+            definition.setOperatorAndVersion("^" + (i % MISMATCH_INTERVAL == 0 ? updatedVersion(i) : version(i)));
+            definition.setActive(true);
+            managedDependencies.add(definition);
+        }
+        return managedDependencies;
+    }
+
+    /**
+     * Returns the replacements that dependency management stages for the mismatched dependencies.
+     *
+     * @param dependencyCount total number of dependencies
+     * @return pending replacements keyed by package name
+     */
+    static Map<String, TomlReplacementTuple> replacements(int dependencyCount) {
+        Map<String, TomlReplacementTuple> replacements = new HashMap<>();
+        for (PackageDefinition definition : managedDependencies(dependencyCount)) {
+            int i = Integer.parseInt(definition.getPackageName().substring("package-".length()));
+            if (i % MISMATCH_INTERVAL == 0) {
+                replacements.put(definition.getPackageName(), new TomlReplacementTuple(definition.getPackageName(),
+                        "^" + version(i), definition.getOperatorAndVersion()));
+            }
+        }
+        return replacements;
+    }
+
+    /**
+     * Writes the given content to the given file.
+     *
+     * @param file    destination
+     * @param content pyproject.toml content
+     */
+    static void write(Path file, String content) {
+        try {
+            Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write " + file, e);
+        }
+    }
+
+    private static String packageName(int i) {
+        return "package-" + i;
+    }
+
+    private static String version(int i) {
+        return (i % 5) + "." + (i % 17) + "." + (i % 3);
+    }
+
+    private static String updatedVersion(int i) {
+        return ((i % 5) + 1) + ".0.0";
+    }
+}
@@ -0,0 +1,66 @@
+package org.technologybrewery.habushu.benchmarks;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.toml.TomlParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.technologybrewery.habushu.util.TomlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link TomlUtils#convertCommentedConfigToToml(CommentedConfig)} for every inline table dependency (with
+ * versions, extras, and local paths) of a large synthetic pyproject.toml.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TomlConversionBenchmarks {
+
+    @Param({"1000", "10000"})
+    public int dependencyCount;
+
+    private List<CommentedConfig> inlineTables;
+
+    @Setup
+    public void parseProject() {
+        CommentedConfig pyProject = new TomlParser().parse(SyntheticPyProject.render(dependencyCount));
+        inlineTables = new ArrayList<>();
+        collectInlineTables(pyProject, inlineTables);
+    }
+
+    @Benchmark
+    public void convertCommentedConfigToToml(Blackhole blackhole) {
+        for (CommentedConfig inlineTable : inlineTables) {
+            blackhole.consume(TomlUtils.convertCommentedConfigToToml(inlineTable));
+        }
+    }
+
+    private static void collectInlineTables(CommentedConfig config, List<CommentedConfig> inlineTables) {
+        for (Object value : config.valueMap().values()) {
+            if (value instanceof CommentedConfig) {
+                CommentedConfig table = (CommentedConfig) value;
+                if (table.contains(TomlUtils.VERSION) || table.contains(TomlUtils.PATH)) {
+                    inlineTables.add(table);
+                } else {
+                    collectInlineTables(table, inlineTables);
+                }
+            }
+        }
+    }
+}
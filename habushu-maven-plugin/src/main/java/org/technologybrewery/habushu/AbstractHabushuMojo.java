@@ -1,19 +1,21 @@
 package org.technologybrewery.habushu;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -23,8 +25,19 @@ import org.apache.maven.settings.Settings;
 import org.sonatype.plexus.components.cipher.PlexusCipherException;
 import org.sonatype.plexus.components.sec.dispatcher.SecDispatcherException;
 import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.exec.ProcessLogContext;
 import org.technologybrewery.habushu.exec.PyenvCommandHelper;
+import org.technologybrewery.habushu.exec.ToolchainProbeCache;
+import org.technologybrewery.habushu.telemetry.BuildMetrics;
+import org.technologybrewery.habushu.telemetry.ModuleMetrics;
+import org.technologybrewery.habushu.telemetry.MojoMetric;
 import org.technologybrewery.habushu.util.MavenPasswordDecoder;
+import org.technologybrewery.habushu.util.PyProjectDocument;
+import org.technologybrewery.habushu.wheels.DirectoryWheelCacheBackend;
+import org.technologybrewery.habushu.wheels.HttpWheelCacheBackend;
+import org.technologybrewery.habushu.wheels.WheelCacheBackend;
+import org.technologybrewery.habushu.wheels.WheelCacheEvictionPolicy;
+import org.technologybrewery.habushu.wheels.WheelStore;
 
 /**
  * Contains logic common across the various Habushu mojos.
@@ -143,6 +156,81 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
     @Parameter(defaultValue = "${project}", readonly = true, required = true)
     protected MavenProject project;
 
+    /**
+     * The current Maven session, used to determine whether modules are being built concurrently.
+     */
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
+    /**
+     * The current mojo execution, used to identify the goal being executed in build metrics.
+     */
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    protected MojoExecution mojoExecution;
+
+    /**
+     * Whether to record how long each Habushu goal, and each external process
+     * (i.e. Poetry command) launched on its behalf, takes within
+     * {@code target/habushu-metrics.json}. A summary of all modules is logged at
+     * the end of the build.
+     */
+    @Parameter(defaultValue = "true", property = "habushu.recordBuildMetrics")
+    protected boolean recordBuildMetrics;
+
+    /**
+     * Maximum total size, in megabytes, of the wheels held in the wheel cache
+     * (see {@link CacheWheelsMojo}). When exceeded, the least recently cached or
+     * retrieved wheels are evicted. {@code 0} leaves the size unbounded.
+     */
+    @Parameter(defaultValue = "0", property = "habushu.wheelCacheMaxSizeMb")
+    protected long wheelCacheMaxSizeMb;
+
+    /**
+     * Maximum number of days since a wheel in the wheel cache was last cached or
+     * retrieved before it is evicted. {@code 0} leaves the age unbounded.
+     */
+    @Parameter(defaultValue = "0", property = "habushu.wheelCacheMaxAgeDays")
+    protected long wheelCacheMaxAgeDays;
+
+    /**
+     * Location of a wheel cache shared across machines (i.e. CI agents), which
+     * may be either the URL of an HTTP server supporting {@code GET} and
+     * {@code PUT} (i.e. a raw repository of an artifact server) or a directory
+     * (i.e. on a network file system). Wheels are published to it when cached
+     * and fetched from it when they are missing from the local wheel cache.
+     */
+    @Parameter(property = "habushu.wheelCacheRemoteUrl")
+    protected String wheelCacheRemoteUrl;
+
+    /**
+     * Id of the server within Maven's settings.xml whose credentials are used
+     * to authenticate with an HTTP {@link #wheelCacheRemoteUrl}.
+     */
+    @Parameter(property = "habushu.wheelCacheRemoteServerId")
+    protected String wheelCacheRemoteServerId;
+
+    /**
+     * Whether to only fetch wheels from the {@link #wheelCacheRemoteUrl},
+     * rather than also publishing the wheels cached by this build to it.
+     */
+    @Parameter(defaultValue = "false", property = "habushu.wheelCacheRemoteReadOnly")
+    protected boolean wheelCacheRemoteReadOnly;
+
+    /**
+     * Maximum number of seconds to wait to connect to an HTTP
+     * {@link #wheelCacheRemoteUrl}.
+     */
+    @Parameter(defaultValue = "10", property = "habushu.wheelCacheRemoteConnectTimeoutSeconds")
+    protected int wheelCacheRemoteConnectTimeoutSeconds = 10;
+
+    /**
+     * Maximum number of seconds to wait for each request to an HTTP
+     * {@link #wheelCacheRemoteUrl}, including transferring the wheel, to
+     * complete.
+     */
+    @Parameter(defaultValue = "300", property = "habushu.wheelCacheRemoteRequestTimeoutSeconds")
+    protected int wheelCacheRemoteRequestTimeoutSeconds = 300;
+
     /**
      * Indicates whether Habushu should leverage the
      * {@code poetry-monorepo-dependency-plugin} to rewrite any local path
@@ -162,6 +250,30 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
     @Parameter(defaultValue = "false", property = "habushu.rewriteLocalPathDepsInArchives")
     protected boolean rewriteLocalPathDepsInArchives;
 
+    /**
+     * Enables caching of the results of toolchain probes (i.e. {@code pyenv --version},
+     * {@code python --version}, and {@code poetry --version}) across modules and builds. Cached results are
+     * automatically invalidated when the underlying executables, relevant environment variables, or pyenv version
+     * selection files change.
+     */
+    @Parameter(defaultValue = "true", property = "habushu.useToolchainProbeCache")
+    protected boolean useToolchainProbeCache;
+
+    /**
+     * File in which cached toolchain probe results are persisted between builds.
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/habushu/toolchain-probe-cache.properties", property = "habushu.toolchainProbeCacheFile")
+    protected File toolchainProbeCacheFile;
+
+    /**
+     * Executes Poetry commands (i.e. {@code lock}, {@code install}, {@code show}) within a long-lived Python process
+     * that imports Poetry once per build, rather than starting a new Poetry process for each command. Commands are
+     * re-run with the Poetry CLI if the daemon cannot be started or fails. Requires that the {@code poetry}
+     * executable is a Python script (i.e. installed via pipx or the official installer).
+     */
+    @Parameter(defaultValue = "false", property = "habushu.usePoetryDaemon")
+    protected boolean usePoetryDaemon;
+
     /**
      * Find the username for a given server in Maven's user settings.
      *
@@ -229,11 +341,85 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Find the directory of the content-addressed wheel store within the poetry cache directory.
+     *
+     * @return the wheel store directory path as a FILE object.
+     */
+    protected File getWheelStoreDirectory() {
+        try {
+            PoetryCommandHelper poetryHelper = createPoetryCommandHelper();
+            String poetryCacheDirectoryPath = poetryHelper.getPoetryCacheDirectoryPath();
+            return new File(String.format("%s/habushu/wheel-store", poetryCacheDirectoryPath));
+        } catch (Exception e) {
+            throw new HabushuException("Could not get the Habushu wheel store directory!", e);
+        }
+    }
+
+    protected WheelStore getWheelStore() {
+        return new WheelStore(getWheelStoreDirectory());
+    }
+
+    /**
+     * Returns the wheel cache shared across machines, if one is configured.
+     *
+     * @return the shared wheel cache, or {@code null} if {@link #wheelCacheRemoteUrl} is not set
+     */
+    protected WheelCacheBackend getRemoteWheelCache() {
+        if (StringUtils.isBlank(wheelCacheRemoteUrl)) {
+            return null;
+        }
+        String location = wheelCacheRemoteUrl.trim();
+        if (location.startsWith("http://") || location.startsWith("https://")) {
+            String username = null;
+            String password = null;
+            if (StringUtils.isNotBlank(wheelCacheRemoteServerId)) {
+                Server server = settings.getServer(wheelCacheRemoteServerId);
+                if (server == null) {
+                    throw new HabushuException("Could not find server " + wheelCacheRemoteServerId
+                            + " within settings.xml!");
+                }
+                username = server.getUsername();
+                try {
+                    password = decryptPassword
+                            ? MavenPasswordDecoder.decryptPasswordForServer(settings, wheelCacheRemoteServerId)
+                            : server.getPassword();
+                } catch (PlexusCipherException | SecDispatcherException e) {
+                    throw new HabushuException("Unable to decrypt stored passwords.", e);
+                }
+            }
+            return new HttpWheelCacheBackend(URI.create(location),
+                    Duration.ofSeconds(wheelCacheRemoteConnectTimeoutSeconds),
+                    Duration.ofSeconds(wheelCacheRemoteRequestTimeoutSeconds), username, password);
+        }
+        File directory = location.startsWith("file:") ? new File(URI.create(location)) : new File(location);
+        return new DirectoryWheelCacheBackend(directory);
+    }
+
+    protected WheelCacheEvictionPolicy getWheelCacheEvictionPolicy() {
+        return new WheelCacheEvictionPolicy(wheelCacheMaxSizeMb * 1024 * 1024, Duration.ofDays(wheelCacheMaxAgeDays));
+    }
+
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         if ("habushu".equals(packaging)) {
-            doExecute();
+            // attribute process output to this module when it may be interleaved with that of other modules:
+            boolean attributeOutput = session != null && session.isParallel();
+            if (attributeOutput) {
+                ProcessLogContext.setModule(project.getArtifactId());
+            }
+            try {
+                if (recordBuildMetrics && project != null) {
+                    executeAndRecordMetrics();
+                } else {
+                    doExecute();
+                }
+            } finally {
+                if (attributeOutput) {
+                    ProcessLogContext.clear();
+                }
+            }
         } else {
             getLog().info("Skipping execution - packaging type is not 'habushu'");
         }
@@ -241,6 +427,30 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
 
     protected abstract void doExecute() throws MojoExecutionException, MojoFailureException;
 
+    private void executeAndRecordMetrics() throws MojoExecutionException, MojoFailureException {
+        ModuleMetrics moduleMetrics = BuildMetrics.getModule(project.getId(),
+                new File(project.getBuild().getDirectory(), "habushu-metrics.json"));
+        String goal = mojoExecution != null ? mojoExecution.getGoal() : getClass().getSimpleName();
+        long startEpochMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        moduleMetrics.setAttribute(BuildMetrics.ARTIFACT_ID_ATTRIBUTE, project.getArtifactId());
+        String spanId = BuildMetrics.startGoal(moduleMetrics, goal);
+        try {
+            doExecute();
+            succeeded = true;
+        } finally {
+            BuildMetrics.endGoal();
+            moduleMetrics.recordGoal(new MojoMetric(spanId, goal, startEpochMillis,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), succeeded));
+            try {
+                moduleMetrics.write();
+            } catch (IOException e) {
+                getLog().warn("Could not write build metrics to " + moduleMetrics.getMetricsFile(), e);
+            }
+        }
+    }
+
     /**
      * Gets the canonical path for a file without having to deal w/ checked
      * exceptions.
@@ -264,7 +474,7 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
      * @return
      */
     protected PyenvCommandHelper createPyenvCommandHelper() {
-        return new PyenvCommandHelper(getPoetryProjectBaseDir());
+        return new PyenvCommandHelper(getPoetryProjectBaseDir(), getToolchainProbeCache());
     }
 
     /**
@@ -274,7 +484,21 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
      * @return
      */
     protected PoetryCommandHelper createPoetryCommandHelper() {
-        return new PoetryCommandHelper(getPoetryProjectBaseDir());
+        PoetryCommandHelper poetryHelper = new PoetryCommandHelper(getPoetryProjectBaseDir(), getToolchainProbeCache());
+        poetryHelper.setUseDaemon(usePoetryDaemon);
+        return poetryHelper;
+    }
+
+    /**
+     * Returns the {@link ToolchainProbeCache} that should be used by command helpers, or {@code null} if toolchain
+     * probe caching is disabled.
+     *
+     * @return
+     */
+    protected ToolchainProbeCache getToolchainProbeCache() {
+        return useToolchainProbeCache && toolchainProbeCacheFile != null
+                ? ToolchainProbeCache.forFile(toolchainProbeCacheFile)
+                : null;
     }
 
     /**
@@ -367,26 +591,6 @@ public abstract class AbstractHabushuMojo extends AbstractMojo {
      * @return list of custom tool poetry groups.
      */
     protected List<String> findCustomToolPoetryGroups() {
-        List<String> toolPoetryGroupSections = new ArrayList<>();
-
-        File pyProjectTomlFile = getPoetryPyProjectTomlFile();
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(pyProjectTomlFile))) {
-            String line = reader.readLine();
-
-            while (line != null) {
-                line = line.strip();
-
-                if (line.startsWith("[tool.poetry.group")) {
-                    toolPoetryGroupSections.add(line.replace("[", StringUtils.EMPTY).replace("]", StringUtils.EMPTY));
-                }
-
-                line = reader.readLine();
-            }
-        } catch (IOException e) {
-            throw new HabushuException("Problem reading pyproject.toml to search for custom dependency groups!", e);
-        }
-
-        return toolPoetryGroupSections;
+        return PyProjectDocument.load(getPoetryPyProjectTomlFile()).getCustomToolPoetryGroups();
     }
 }
@@ -1,5 +1,6 @@
 package org.technologybrewery.habushu;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -7,7 +8,19 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.technologybrewery.habushu.behave.BehaveHistory;
+import org.technologybrewery.habushu.behave.BehaveImpactAnalysis;
+import org.technologybrewery.habushu.behave.BehaveLocation;
+import org.technologybrewery.habushu.behave.BehaveRerunFile;
+import org.technologybrewery.habushu.behave.BehaveShardPlanner;
+import org.technologybrewery.habushu.behave.BehaveTestCache;
+import org.technologybrewery.habushu.behave.CucumberReportMerger;
+import org.technologybrewery.habushu.behave.FeatureFile;
+import org.technologybrewery.habushu.exec.GitCommandHelper;
 import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.exec.ProcessLogContext;
+import org.technologybrewery.habushu.util.PyProjectDocument;
+import org.technologybrewery.habushu.util.TomlUtils;
 
 import java.io.File;
 import java.io.IOException;
@@ -15,6 +28,13 @@ import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * Leverages the behave package to execute BDD scenarios that are defined in the
@@ -24,12 +44,37 @@ import java.util.List;
  * command line options via {@link #behaveOptions} to apply when running behave.
  * If {@link #behaveOptions} are provided, {@link #behaveExcludeManualTag} is
  * effectively overridden and ignored.
+ * <p>
+ * Features may be split across several concurrently executing behave processes
+ * via {@link #behaveShards}, in which case the Cucumber report written by each
+ * process is merged into a single report.
+ * <p>
+ * The duration and outcome of each scenario are recorded in
+ * {@link #behaveHistoryFile} after every run, which balances shards by how long
+ * their features take and, via {@link #behaveOrderByHistory}, runs features
+ * that recently failed or changed first.
+ * <p>
+ * Unless {@link #rerunTests} is enabled, the Cucumber report of a passing run
+ * is restored rather than running behave again when none of its inputs
+ * changed since that run, as per {@link #useBehaveTestCache}.
+ * <p>
+ * The scenarios that failed are recorded in {@link #RERUN_FILE}, so that
+ * {@link #rerunFailed} may run only those scenarios, while
+ * {@link #behaveRetryFailed} retries them once within the same build.
+ * <p>
+ * With {@link #behaveImpactAnalysis}, only the features affected by the files
+ * changed since {@link #behaveImpactBaseRef} (or the last successful run) are
+ * run.
  */
-@Mojo(name = "behave-bdd-test", defaultPhase = LifecyclePhase.TEST, requiresDependencyResolution = ResolutionScope.TEST)
+@Mojo(name = "behave-bdd-test", defaultPhase = LifecyclePhase.TEST, requiresDependencyResolution = ResolutionScope.TEST, threadSafe = true)
 public class BehaveBddTestMojo extends AbstractHabushuMojo {
 
     protected static final String BEHAVE_PACKAGE = "behave";
     protected static final String BEHAVE_CUCUMBER_FORMATTER = "behave-cucumber-formatter";
+    protected static final String CUCUMBER_REPORTS_DIRECTORY = "target/cucumber-reports";
+    protected static final String CUCUMBER_REPORT = CUCUMBER_REPORTS_DIRECTORY + "/cucumber.json";
+    protected static final String RETRY_CUCUMBER_REPORT = CUCUMBER_REPORTS_DIRECTORY + "/retry/cucumber.json";
+    protected static final String RERUN_FILE = "target/behave-rerun-failing.features";
 
     /**
      * Options that should be passed to the behave command. <b>NOTE:</b> If this
@@ -74,6 +119,116 @@ public class BehaveBddTestMojo extends AbstractHabushuMojo {
     @Parameter(property = "habushu.disableOutputCapture", defaultValue = "true")
     protected boolean disableOutputCapture;
 
+    /**
+     * Number of behave processes across which to split the feature files, which
+     * are run concurrently. {@code 1} runs every feature in a single behave
+     * process, while {@code 0} runs one process per available processor.
+     */
+    @Parameter(property = "habushu.behaveShards", defaultValue = "1")
+    protected int behaveShards = 1;
+
+    /**
+     * Whether to split individual scenarios, rather than whole feature files,
+     * across {@link #behaveShards}. This balances shards more evenly when a few
+     * features hold most scenarios, at the cost of running each feature's
+     * {@code before_feature}/{@code after_feature} hooks in several processes.
+     */
+    @Parameter(property = "habushu.behaveShardByScenario", defaultValue = "false")
+    protected boolean behaveShardByScenario;
+
+    /**
+     * Whether to pass behave an explicit ordering of the feature files based on
+     * {@link #behaveHistoryFile}: features that failed within the last few runs
+     * first, followed by new or changed features, and then the remainder from
+     * the fastest to the slowest.
+     */
+    @Parameter(property = "habushu.behaveOrderByHistory", defaultValue = "false")
+    protected boolean behaveOrderByHistory;
+
+    /**
+     * Whether behave stops running tests at the first failure. When features are
+     * split across {@link #behaveShards}, each shard stops at its own first
+     * failure.
+     */
+    @Parameter(property = "habushu.behaveFailFast", defaultValue = "false")
+    protected boolean behaveFailFast;
+
+    /**
+     * File in which the duration and pass/fail history of each scenario is
+     * persisted between builds. History is recorded from the Cucumber report, and
+     * thus only when {@link #outputCucumberStyleTestReports} is enabled.
+     */
+    @Parameter(property = "habushu.behaveHistoryFile",
+            defaultValue = "${user.home}/.m2/habushu/behave-history/${project.groupId}/${project.artifactId}.json")
+    protected File behaveHistoryFile;
+
+    /**
+     * Whether to cache the Cucumber report of each passing run, keyed by a
+     * fingerprint of the {@link #sourceDirectory}, {@link #testDirectory},
+     * pyproject.toml, poetry.lock, the sources of local path dependencies, the
+     * virtual environment's interpreter, and the options passed to behave. When
+     * none of these changed since the previous passing run, its report is
+     * restored without running behave. Failed runs are never cached. Tests
+     * relying on anything else (i.e. external services) may need
+     * {@link #rerunTests}.
+     */
+    @Parameter(property = "habushu.useBehaveTestCache", defaultValue = "true")
+    protected boolean useBehaveTestCache = true;
+
+    /**
+     * Set this to "true" to run behave even if the results of a previous run with
+     * the same inputs are cached, replacing the cached results.
+     */
+    @Parameter(property = "habushu.rerunTests", defaultValue = "false")
+    protected boolean rerunTests;
+
+    /**
+     * Directory in which the results of the latest behave run of this module are
+     * cached between builds.
+     */
+    @Parameter(property = "habushu.behaveTestCacheDirectory",
+            defaultValue = "${user.home}/.m2/habushu/behave-test-cache/${project.groupId}/${project.artifactId}")
+    protected File behaveTestCacheDirectory;
+
+    /**
+     * Set this to "true" to only run the scenarios that failed in the previous
+     * run, as recorded in {@value #RERUN_FILE}. Nothing is run if no scenario
+     * failed, while every scenario is run if no run was recorded.
+     */
+    @Parameter(property = "habushu.rerunFailed", defaultValue = "false")
+    protected boolean rerunFailed;
+
+    /**
+     * Whether to run the scenarios that failed once more within the same build,
+     * passing the build if they all pass when retried. The results of the retry
+     * replace those of the original run within the Cucumber report. Retried
+     * scenarios are recorded from the Cucumber report, and thus only when
+     * {@link #outputCucumberStyleTestReports} is enabled.
+     */
+    @Parameter(property = "habushu.behaveRetryFailed", defaultValue = "false")
+    protected boolean behaveRetryFailed;
+
+    /**
+     * Whether to only run the features affected by the files changed since
+     * {@link #behaveImpactBaseRef}, as determined via git. Python modules are
+     * mapped to the features whose step implementations (transitively) import
+     * them by statically parsing the modules within the features' steps
+     * directory. Changes that may affect any feature, such as to poetry.lock or
+     * environment.py, run every feature.
+     */
+    @Parameter(property = "habushu.behaveImpactAnalysis", defaultValue = "false")
+    protected boolean behaveImpactAnalysis;
+
+    /**
+     * Git ref (i.e. {@code origin/main}) against which changed files are
+     * determined for {@link #behaveImpactAnalysis}, comparing against the commit
+     * at which the current branch forked from it. If unset, changes are
+     * determined against the commit at which the tests last passed, as recorded
+     * in {@link #behaveHistoryFile}.
+     */
+    @Parameter(property = "habushu.behaveImpactBaseRef")
+    protected String behaveImpactBaseRef;
+
 
     @Override
     public void doExecute() throws MojoExecutionException, MojoFailureException {
@@ -95,49 +250,511 @@ public class BehaveBddTestMojo extends AbstractHabushuMojo {
         if (hasTests) {
             PoetryCommandHelper poetryHelper = createPoetryCommandHelper();
 
-            if (!poetryHelper.isDependencyInstalled(BEHAVE_PACKAGE)) {
-                getLog().info(String.format("%s dependency not specified in pyproject.toml - installing now...",
-                        BEHAVE_PACKAGE));
-                poetryHelper.installDevelopmentDependency(BEHAVE_PACKAGE);
+            List<BehaveLocation> failedScenarios = null;
+            if (rerunFailed) {
+                failedScenarios = BehaveRerunFile.read(new File(getPoetryProjectBaseDir(), RERUN_FILE),
+                        getPoetryProjectBaseDir());
+                if (failedScenarios == null) {
+                    getLog().info(String.format("No previous run recorded in %s - running every scenario", RERUN_FILE));
+                } else if (failedScenarios.isEmpty()) {
+                    getLog().info("No scenarios failed in the previous run - nothing to rerun");
+                    return;
+                }
             }
 
-            List<String> executeBehaveTestArgs = new ArrayList<>();
-            executeBehaveTestArgs
-                    .addAll(Arrays.asList("run", BEHAVE_PACKAGE, getCanonicalPathForFile(behaveDirectory)));
-
-            if (outputCucumberStyleTestReports) {
-                poetryHelper.installDevelopmentDependency(BEHAVE_CUCUMBER_FORMATTER);
-                executeBehaveTestArgs.add("--format=behave_cucumber_formatter:PrettyCucumberJSONFormatter");
-                executeBehaveTestArgs.add("--outfile=target/cucumber-reports/cucumber.json");
+            // results of a partial run must not be replayed for (nor replay those of) a full run:
+            BehaveTestCache testCache = getBehaveTestCache();
+            String fingerprint = null;
+            if (testCache != null && failedScenarios != null) {
+                testCache.invalidate();
+                testCache = null;
+            } else if (testCache != null) {
+                fingerprint = computeTestFingerprint(poetryHelper);
+                if (fingerprint != null && !rerunTests && restoreCachedResults(testCache, fingerprint)) {
+                    return;
+                }
             }
 
-            if (omitSkippedTests) {
-                executeBehaveTestArgs.add("--no-skipped");
+            List<String> requiredPackages = new ArrayList<>();
+            requiredPackages.add(BEHAVE_PACKAGE);
+            if (outputCucumberStyleTestReports) {
+                requiredPackages.add(BEHAVE_CUCUMBER_FORMATTER);
             }
-
-            if (disableOutputCapture) {
-                executeBehaveTestArgs.add("--no-capture");
-                executeBehaveTestArgs.add("--no-capture-stderr");
-                executeBehaveTestArgs.add("--no-logcapture");
+            List<String> missingPackages = poetryHelper.getMissingDependencies(requiredPackages);
+            if (!missingPackages.isEmpty()) {
+                getLog().info(String.format("%s dependencies not specified in pyproject.toml - installing now...",
+                        StringUtils.join(missingPackages, ", ")));
+                poetryHelper.installDevelopmentDependencies(missingPackages);
             }
 
-            if (StringUtils.isNotEmpty(behaveOptions)) {
-                executeBehaveTestArgs.addAll(Arrays.asList(StringUtils.split(behaveOptions)));
-            } else {
-                if (behaveExcludeManualTag) {
-                    executeBehaveTestArgs.add("--tags=-manual");
+            BehaveHistory history = behaveHistoryFile != null ? BehaveHistory.load(behaveHistoryFile) : null;
+            List<BehaveLocation> locations = failedScenarios != null
+                    ? orderByHistory(failedScenarios, behaveDirectory, history)
+                    : getLocations(behaveDirectory, history);
+            // behave is given the features directory unless only some of its features are to run (or in order):
+            boolean runLocations = behaveOrderByHistory || failedScenarios != null;
+            if (behaveImpactAnalysis && failedScenarios == null) {
+                int locationCount = locations.size();
+                locations = selectAffectedLocations(behaveDirectory, locations, history);
+                if (locations.isEmpty()) {
+                    recordSuccessfulCommit(history);
+                    return;
                 }
+                runLocations |= locations.size() < locationCount;
             }
+            List<List<BehaveLocation>> shards = planShards(behaveDirectory, locations, history);
 
             getLog().info(String.format("Executing behave tests in %s...", getCanonicalPathForFile(behaveDirectory)));
+            if (failedScenarios != null) {
+                getLog().info(String.format("Rerunning the %s scenarios that failed in the previous run",
+                        failedScenarios.size()));
+            }
             getLog().info("-------------------------------------------------------");
             getLog().info("T E S T S");
             getLog().info("-------------------------------------------------------");
-            poetryHelper.executeAndLogOutput(executeBehaveTestArgs);
+            long runTime = System.currentTimeMillis();
+            boolean passed = false;
+            try {
+                try {
+                    if (shards.size() > 1) {
+                        executeShards(poetryHelper, shards);
+                    } else {
+                        List<String> executeBehaveTestArgs = new ArrayList<>(Arrays.asList("run", BEHAVE_PACKAGE));
+                        if (runLocations) {
+                            locations.forEach(location -> executeBehaveTestArgs.add(location.toArgument()));
+                        } else {
+                            executeBehaveTestArgs.add(getCanonicalPathForFile(behaveDirectory));
+                        }
+                        executeBehaveTestArgs.addAll(getBehaveOptions(CUCUMBER_REPORT));
+                        poetryHelper.executeAndLogOutput(executeBehaveTestArgs);
+                    }
+                } catch (HabushuException e) {
+                    if (!behaveRetryFailed || !retryFailedScenarios(poetryHelper, runTime)) {
+                        throw e;
+                    }
+                }
+                passed = true;
+            } finally {
+                recordHistory(history, behaveDirectory, runTime);
+                if (passed && failedScenarios == null && behaveImpactAnalysis) {
+                    recordSuccessfulCommit(history);
+                }
+                recordFailedScenarios(runTime);
+                if (testCache != null) {
+                    cacheResults(testCache, fingerprint, passed, runTime);
+                }
+            }
         } else {
             getLog().warn(String.format("No tests found in %s", getCanonicalPathForFile(behaveDirectory)));
         }
 
     }
 
+    private BehaveTestCache getBehaveTestCache() {
+        return useBehaveTestCache && behaveTestCacheDirectory != null
+                ? new BehaveTestCache(behaveTestCacheDirectory)
+                : null;
+    }
+
+    /**
+     * Fingerprints the inputs that determine the results of running behave, or
+     * returns {@code null} if no virtual environment exists yet.
+     */
+    private String computeTestFingerprint(PoetryCommandHelper poetryHelper) {
+        File virtualEnvDirectory = poetryHelper.getVirtualEnvironmentDirectory();
+        if (virtualEnvDirectory == null) {
+            return null;
+        }
+        File baseDirectory = getPoetryProjectBaseDir();
+        List<File> inputs = Arrays.asList(sourceDirectory, testDirectory, new File(baseDirectory, "pyproject.toml"),
+                new File(baseDirectory, "poetry.lock"), new File(virtualEnvDirectory, "pyvenv.cfg"));
+        List<File> pathDependencies = new ArrayList<>();
+        File pyProjectTomlFile = getPoetryPyProjectTomlFile();
+        if (pyProjectTomlFile.isFile()) {
+            pathDependencies.addAll(TomlUtils.findPathDependencyDirectories(
+                    PyProjectDocument.load(pyProjectTomlFile).getConfig(), baseDirectory));
+        }
+        List<String> settings = new ArrayList<>(getBehaveOptions(CUCUMBER_REPORT));
+        settings.add("venv=" + virtualEnvDirectory.getAbsolutePath());
+        settings.add("impactAnalysis=" + behaveImpactAnalysis);
+        return BehaveTestCache.computeFingerprint(baseDirectory, inputs, pathDependencies, settings);
+    }
+
+    /**
+     * Restores the results of a passing run cached for the given fingerprint,
+     * if any.
+     *
+     * @return whether results were restored
+     */
+    private boolean restoreCachedResults(BehaveTestCache testCache, String fingerprint) {
+        if (!testCache.restore(fingerprint, new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT))) {
+            return false;
+        }
+        getLog().info("Behave tests passed in the previous run with the same inputs - restored its results");
+        getLog().info("Set <rerunTests>true</rerunTests> (or -Dhabushu.rerunTests) to run behave anyway");
+        return true;
+    }
+
+    /**
+     * Caches the results of the run that started at the given time if it
+     * passed, and otherwise removes any cached results so that failures are
+     * always run again. A failure to cache is logged rather than masking the
+     * outcome of the tests.
+     */
+    private void cacheResults(BehaveTestCache testCache, String fingerprint, boolean passed, long runTime) {
+        try {
+            if (fingerprint == null || !passed) {
+                testCache.invalidate();
+            } else {
+                File cucumberReport = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT);
+                boolean hasReport = outputCucumberStyleTestReports && isWrittenSince(cucumberReport, runTime);
+                testCache.store(fingerprint, hasReport ? cucumberReport : null);
+            }
+        } catch (HabushuException e) {
+            getLog().warn("Could not cache the behave results of this run", e);
+        }
+    }
+
+    /**
+     * Whether the given report was written by the run that started at the given
+     * time, rather than being left behind by a previous run (i.e. as behave
+     * failed to start), allowing for coarse file system timestamps.
+     */
+    private static boolean isWrittenSince(File report, long runTime) {
+        return report.isFile() && report.length() > 0 && report.lastModified() >= runTime - 1000;
+    }
+
+    /**
+     * Returns the options passed to each behave process.
+     *
+     * @param cucumberReport path of the Cucumber report to write, relative to the project's base directory
+     */
+    private List<String> getBehaveOptions(String cucumberReport) {
+        List<String> options = new ArrayList<>();
+        if (outputCucumberStyleTestReports) {
+            options.add("--format=behave_cucumber_formatter:PrettyCucumberJSONFormatter");
+            options.add("--outfile=" + cucumberReport);
+        }
+
+        if (omitSkippedTests) {
+            options.add("--no-skipped");
+        }
+
+        if (behaveFailFast) {
+            options.add("--stop");
+        }
+
+        if (disableOutputCapture) {
+            options.add("--no-capture");
+            options.add("--no-capture-stderr");
+            options.add("--no-logcapture");
+        }
+
+        if (StringUtils.isNotEmpty(behaveOptions)) {
+            options.addAll(Arrays.asList(StringUtils.split(behaveOptions)));
+        } else {
+            if (behaveExcludeManualTag) {
+                options.add("--tags=-manual");
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Returns the features (or, when sharding by scenario, the scenarios) within
+     * the given directory, ordered by their history if
+     * {@link #behaveOrderByHistory} is enabled.
+     */
+    private List<BehaveLocation> getLocations(File behaveDirectory, BehaveHistory history) {
+        List<BehaveLocation> locations = new ArrayList<>();
+        boolean byScenario = behaveShardByScenario && getShardCount() > 1;
+        for (FeatureFile featureFile : FeatureFile.discover(behaveDirectory)) {
+            if (byScenario) {
+                for (int line : featureFile.getScenarioLines()) {
+                    locations.add(BehaveLocation.ofScenario(featureFile, line));
+                }
+            } else {
+                locations.add(BehaveLocation.ofFeature(featureFile));
+            }
+        }
+        return orderByHistory(locations, behaveDirectory, history);
+    }
+
+    private List<BehaveLocation> orderByHistory(List<BehaveLocation> locations, File behaveDirectory,
+                                                BehaveHistory history) {
+        return behaveOrderByHistory && history != null ? history.order(locations, behaveDirectory) : locations;
+    }
+
+    /**
+     * Returns the given locations whose feature may be affected by the files
+     * changed since {@link #behaveImpactBaseRef} or, if unset, since the last
+     * successful run. Every location is returned if the changed files cannot be
+     * determined or may affect every feature.
+     */
+    private List<BehaveLocation> selectAffectedLocations(File behaveDirectory, List<BehaveLocation> locations,
+                                                         BehaveHistory history) {
+        boolean sinceForkPoint = StringUtils.isNotBlank(behaveImpactBaseRef);
+        String base = sinceForkPoint ? behaveImpactBaseRef
+                : history != null ? history.getLastSuccessfulCommit() : null;
+        if (base == null) {
+            getLog().info("No successful run recorded to compare changes against - running every feature");
+            return locations;
+        }
+
+        File baseDirectory = getPoetryProjectBaseDir();
+        List<File> changedFiles;
+        try {
+            // the recorded commit may be on another branch (history is shared by every checkout of the module), so
+            // compare directly against it so that files only changed by that branch's commits are included:
+            GitCommandHelper git = new GitCommandHelper(baseDirectory);
+            changedFiles = (sinceForkPoint ? git.getChangedFilesSinceForkPoint(base) : git.getChangedFiles(base))
+                    .stream()
+                    .map(path -> new File(baseDirectory, path))
+                    .collect(Collectors.toList());
+        } catch (HabushuException e) {
+            getLog().warn(String.format("Could not determine the files changed since %s - running every feature",
+                    base), e);
+            return locations;
+        }
+
+        BehaveImpactAnalysis impactAnalysis = new BehaveImpactAnalysis(behaveDirectory,
+                Arrays.asList(sourceDirectory, testDirectory),
+                Arrays.asList(new File(baseDirectory, "pyproject.toml"), new File(baseDirectory, "poetry.lock")));
+        File globalChange = impactAnalysis.findGlobalChange(changedFiles);
+        if (globalChange != null) {
+            getLog().info(String.format("%s changed since %s, which may affect every feature - running every feature",
+                    getCanonicalPathForFile(globalChange), base));
+            return locations;
+        }
+
+        List<FeatureFile> featureFiles = FeatureFile.discover(behaveDirectory);
+        Set<File> affected = impactAnalysis.getAffectedFeatures(featureFiles, changedFiles).stream()
+                .map(FeatureFile::getFile)
+                .collect(Collectors.toSet());
+        List<BehaveLocation> selected = locations.stream()
+                .filter(location -> affected.contains(location.getFeatureFile()))
+                .collect(Collectors.toList());
+        if (selected.isEmpty()) {
+            getLog().info(String.format("None of the %s files changed since %s affect any feature - skipping behave",
+                    changedFiles.size(), base));
+        } else {
+            getLog().info(String.format("Running the %s of %s features affected by the %s files changed since %s",
+                    affected.size(), featureFiles.size(), changedFiles.size(), base));
+        }
+        return selected;
+    }
+
+    /**
+     * Records the commit checked out when the tests passed, against which
+     * {@link #behaveImpactAnalysis} compares changes if no
+     * {@link #behaveImpactBaseRef} is configured.
+     */
+    private void recordSuccessfulCommit(BehaveHistory history) {
+        String commit = history != null ? new GitCommandHelper(getPoetryProjectBaseDir()).getHeadCommit() : null;
+        if (commit == null) {
+            return;
+        }
+        try {
+            history.setLastSuccessfulCommit(commit);
+            history.save(behaveHistoryFile);
+        } catch (HabushuException e) {
+            getLog().warn("Could not record the commit at which behave tests passed", e);
+        }
+    }
+
+    /**
+     * Runs the scenarios that failed within the Cucumber report of the run that
+     * started at the given time once more, replacing their results within the
+     * report with those of the retry.
+     *
+     * @return whether every failed scenario passed when retried
+     */
+    private boolean retryFailedScenarios(PoetryCommandHelper poetryHelper, long runTime)
+            throws MojoExecutionException {
+        File cucumberReport = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT);
+        if (!outputCucumberStyleTestReports || !isWrittenSince(cucumberReport, runTime)) {
+            return false;
+        }
+        List<BehaveLocation> failedScenarios = BehaveRerunFile.getFailedScenarios(cucumberReport,
+                this::getFeatureFile);
+        // nothing to retry if behave failed without failing a scenario (i.e. as a hook raised an error):
+        if (failedScenarios.isEmpty()) {
+            return false;
+        }
+
+        getLog().warn(String.format("Retrying the %s failed scenarios once: %s", failedScenarios.size(),
+                StringUtils.join(failedScenarios, ", ")));
+        File retryReport = new File(getPoetryProjectBaseDir(), RETRY_CUCUMBER_REPORT);
+        try {
+            Files.deleteIfExists(retryReport.toPath());
+        } catch (IOException e) {
+            throw new HabushuException("Could not clear the previous Cucumber report of retried scenarios!", e);
+        }
+        List<String> executeBehaveTestArgs = new ArrayList<>(Arrays.asList("run", BEHAVE_PACKAGE));
+        failedScenarios.forEach(location -> executeBehaveTestArgs.add(location.toArgument()));
+        executeBehaveTestArgs.addAll(getBehaveOptions(RETRY_CUCUMBER_REPORT));
+        boolean passed;
+        try {
+            poetryHelper.executeAndLogOutput(executeBehaveTestArgs);
+            passed = true;
+        } catch (HabushuException e) {
+            passed = false;
+        }
+
+        if (retryReport.isFile() && retryReport.length() > 0) {
+            CucumberReportMerger.replaceScenarios(cucumberReport, retryReport, getPoetryProjectBaseDir());
+        }
+        if (passed) {
+            getLog().warn(String.format("The %s failed scenarios passed when retried - they may be flaky",
+                    failedScenarios.size()));
+        } else {
+            getLog().error("Failed scenarios still failed when retried");
+        }
+        return passed;
+    }
+
+    /**
+     * Records the scenarios that failed within the Cucumber report of the run
+     * that started at the given time into {@link #RERUN_FILE}.
+     */
+    private void recordFailedScenarios(long runTime) {
+        File cucumberReport = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT);
+        if (!outputCucumberStyleTestReports || !isWrittenSince(cucumberReport, runTime)) {
+            return;
+        }
+        try {
+            List<BehaveLocation> failedScenarios = BehaveRerunFile.getFailedScenarios(cucumberReport,
+                    this::getFeatureFile);
+            BehaveRerunFile.write(new File(getPoetryProjectBaseDir(), RERUN_FILE), failedScenarios,
+                    getPoetryProjectBaseDir());
+            if (!failedScenarios.isEmpty()) {
+                getLog().info(String.format("Recorded %s failed scenarios in %s - run them again via "
+                        + "-Dhabushu.rerunFailed", failedScenarios.size(), RERUN_FILE));
+            }
+        } catch (HabushuException e) {
+            getLog().warn("Could not record the failed scenarios of this run", e);
+        }
+    }
+
+    /**
+     * Resolves the {@code uri} of a feature within a Cucumber report, which is
+     * relative to the directory from which behave is run unless behave was
+     * passed an absolute path.
+     */
+    private File getFeatureFile(String uri) {
+        File featureFile = new File(uri);
+        return featureFile.isAbsolute() ? featureFile : new File(getPoetryProjectBaseDir(), uri);
+    }
+
+    /**
+     * Splits the given locations into at most {@link #behaveShards} shards that
+     * take a similar time to run, as estimated from their history or, without
+     * history, from their number of scenarios.
+     */
+    private List<List<BehaveLocation>> planShards(File behaveDirectory, List<BehaveLocation> locations,
+                                                  BehaveHistory history) {
+        int shardCount = getShardCount();
+        if (shardCount <= 1) {
+            return new ArrayList<>();
+        }
+        if (history == null || history.isEmpty()) {
+            return BehaveShardPlanner.plan(locations, shardCount, BehaveLocation::getScenarioCount);
+        }
+        return BehaveShardPlanner.plan(locations, shardCount,
+                location -> history.estimateMillis(location, behaveDirectory));
+    }
+
+    private int getShardCount() {
+        return behaveShards > 0 ? behaveShards : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Records the results held in the Cucumber report of the run that started
+     * at the given time into {@link #behaveHistoryFile}. A failure to do so is
+     * logged rather than masking the outcome of the tests.
+     */
+    private void recordHistory(BehaveHistory history, File behaveDirectory, long runTime) {
+        File cucumberReport = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT);
+        if (history == null || !outputCucumberStyleTestReports || !isWrittenSince(cucumberReport, runTime)) {
+            return;
+        }
+        try {
+            history.record(cucumberReport, uri -> BehaveHistory.getKey(behaveDirectory, getFeatureFile(uri)),
+                    runTime);
+            history.save(behaveHistoryFile);
+        } catch (HabushuException e) {
+            getLog().warn("Could not record the behave history of this run", e);
+        }
+    }
+
+    /**
+     * Runs each shard within its own behave process, concurrently, and merges
+     * the Cucumber report of each shard into {@link #CUCUMBER_REPORT}.
+     */
+    private void executeShards(PoetryCommandHelper poetryHelper, List<List<BehaveLocation>> shards) {
+        File reportsDirectory = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORTS_DIRECTORY);
+        File shardReportsDirectory = new File(reportsDirectory, "shards");
+        try {
+            FileUtils.deleteDirectory(shardReportsDirectory);
+        } catch (IOException e) {
+            throw new HabushuException("Could not clear the previous Cucumber reports of behave shards!", e);
+        }
+        getLog().info(String.format("Splitting behave tests across %s shards...", shards.size()));
+
+        String module = ProcessLogContext.getModule();
+        List<Callable<Boolean>> executions = new ArrayList<>();
+        List<File> shardReports = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            String shardName = String.format("shard %s/%s", i + 1, shards.size());
+            String shardReport = String.format("%s/shards/cucumber-%s.json", CUCUMBER_REPORTS_DIRECTORY, i + 1);
+            shardReports.add(new File(getPoetryProjectBaseDir(), shardReport));
+
+            List<String> executeBehaveTestArgs = new ArrayList<>(Arrays.asList("run", BEHAVE_PACKAGE));
+            shards.get(i).forEach(location -> executeBehaveTestArgs.add(location.toArgument()));
+            executeBehaveTestArgs.addAll(getBehaveOptions(shardReport));
+            executions.add(() -> {
+                ProcessLogContext.setModule(StringUtils.isNotEmpty(module) ? module + " " + shardName : shardName);
+                try {
+                    poetryHelper.executeAndLogOutput(executeBehaveTestArgs);
+                    return true;
+                } catch (HabushuException e) {
+                    getLog().error(String.format("Behave %s failed", shardName));
+                    return false;
+                }
+            });
+        }
+
+        List<Integer> failedShards = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(shards.size(), runnable -> {
+            Thread thread = new Thread(runnable, "habushu-behave-shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Boolean>> results = executor.invokeAll(executions);
+            for (int i = 0; i < results.size(); i++) {
+                if (!results.get(i).get()) {
+                    failedShards.add(i + 1);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HabushuException("Interrupted while executing behave shards!", e);
+        } catch (ExecutionException e) {
+            throw new HabushuException("Could not execute behave shards!", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (outputCucumberStyleTestReports) {
+            File cucumberReport = new File(getPoetryProjectBaseDir(), CUCUMBER_REPORT);
+            int features = CucumberReportMerger.merge(shardReports, cucumberReport);
+            getLog().info(String.format("Merged the results of %s features into %s", features, CUCUMBER_REPORT));
+        }
+        if (!failedShards.isEmpty()) {
+            throw new HabushuException(String.format("Behave shard(s) %s of %s failed! See output above.",
+                    StringUtils.join(failedShards, ", "), shards.size()));
+        }
+    }
+
 }
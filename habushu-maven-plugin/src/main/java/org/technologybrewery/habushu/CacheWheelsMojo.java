@@ -1,6 +1,8 @@
 package org.technologybrewery.habushu;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -10,18 +12,26 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
-import org.technologybrewery.habushu.util.HabushuUtil;
+import org.technologybrewery.habushu.wheels.CachedWheel;
+import org.technologybrewery.habushu.wheels.WheelCacheBackend;
+import org.technologybrewery.habushu.wheels.WheelCacheEvictionPolicy;
+import org.technologybrewery.habushu.wheels.WheelCachePruneResult;
+import org.technologybrewery.habushu.wheels.WheelFileName;
+import org.technologybrewery.habushu.wheels.WheelStore;
 
 /**
  * Helper mojo that handles caching of a wheel dependency,
  * into Poetry cache during the {@link LifecyclePhase#INSTALL} build phase. 
+ * Wheels are held in a content-addressed {@link WheelStore}, so identical
+ * wheels are only stored once, and are also published to the remote wheel
+ * cache (see {@link WheelCacheBackend}) if one is configured.
  *
  * @param cacheWheels       A boolean that when implemented will cache a project's 
  *                          wheel files in poetry.
  * 
  * @throws HabushuException
  */
-@Mojo(name = "cache-wheels", defaultPhase = LifecyclePhase.INSTALL)
+@Mojo(name = "cache-wheels", defaultPhase = LifecyclePhase.INSTALL, threadSafe = true)
 public class CacheWheelsMojo extends AbstractHabushuMojo {
     /**
      * A boolean that when implemented will cache a project's wheel files in poetry.
@@ -40,22 +50,59 @@ public class CacheWheelsMojo extends AbstractHabushuMojo {
         getLog().info("Processing Cache Wheels..");
         try {
             File wheelSourceDirectory = getProjectBuildDirectory();
-            File poetryWheelCacheDirectory = getCachedWheelDirectory(project.getArtifactId());
-            // conditional will throw an error if cache directory isn't created
-            if (poetryWheelCacheDirectory.exists() || poetryWheelCacheDirectory.mkdirs()) {
-                List<File> wheelFiles = Stream.of(wheelSourceDirectory.listFiles())
-                        .filter(file -> file.getAbsolutePath().endsWith(".whl"))
-                        .map(File::getAbsoluteFile)
-                        .collect(Collectors.toList());
-                for (File file : wheelFiles) {
-                    HabushuUtil.copyFile(file.getPath(),
-                            String.format("%s/%s", poetryWheelCacheDirectory.toPath().toString(), file.getName()));
-                    getLog().info(String.format("Cached the %s file", file.getName()));
-                }
+            WheelStore wheelStore = getWheelStore();
+            List<File> wheelFiles = Stream.of(wheelSourceDirectory.listFiles())
+                    .filter(file -> WheelFileName.isWheel(file.getName()))
+                    .map(File::getAbsoluteFile)
+                    .collect(Collectors.toList());
+            List<CachedWheel> cachedWheels = new ArrayList<>();
+            for (File file : wheelFiles) {
+                CachedWheel cachedWheel = wheelStore.put(project.getArtifactId(), file);
+                cachedWheels.add(cachedWheel);
+                getLog().info(String.format("Cached the %s file (sha256 %s)", file.getName(), cachedWheel.getSha256()));
             }
+            publishToRemoteWheelCache(wheelStore, cachedWheels);
         } catch (Exception e) {
             throw new HabushuException("Could not cache the " + project.getArtifactId() + " wheel file(s)!", e);
         }
+        pruneWheelCache();
+    }
+
+    /**
+     * Publishes the given cached wheels to the remote wheel cache, if one is
+     * configured. As the wheels remain available locally, failing to publish
+     * them is logged rather than failing the build.
+     */
+    private void publishToRemoteWheelCache(WheelStore wheelStore, List<CachedWheel> cachedWheels) {
+        WheelCacheBackend remoteCache = getRemoteWheelCache();
+        if (remoteCache == null || wheelCacheRemoteReadOnly) {
+            return;
+        }
+        for (CachedWheel cachedWheel : cachedWheels) {
+            try {
+                remoteCache.publish(project.getArtifactId(), cachedWheel, wheelStore.getBlob(cachedWheel.getSha256()));
+                getLog().info(String.format("Published the %s file to %s", cachedWheel.getFileName(), remoteCache));
+            } catch (IOException | HabushuException e) {
+                getLog().warn(String.format("Could not publish the %s file to %s", cachedWheel.getFileName(),
+                        remoteCache), e);
+            }
+        }
+    }
+
+    /**
+     * Opportunistically prunes the wheel cache if its size or age is bounded, skipping pruning if another build is
+     * using the cache rather than waiting for it.
+     */
+    private void pruneWheelCache() {
+        WheelCacheEvictionPolicy policy = getWheelCacheEvictionPolicy();
+        if (policy.isBounded()) {
+            WheelCachePruneResult result = getWheelStore().tryPrune(policy);
+            if (result == null) {
+                getLog().info("Skipping wheel cache pruning - the wheel cache is in use by another build");
+            } else {
+                getLog().info("Pruned wheel cache: " + result);
+            }
+        }
     }
 
     protected File getProjectBuildDirectory() {
@@ -16,13 +16,14 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.clean.CleanMojo;
 import org.apache.maven.plugins.clean.Fileset;
 import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.exec.ToolchainProbeCache;
 
 /**
  * Overrides the default {@link CleanMojo} behavior to additionally delete the
  * virtual environment that is created/managed by Poetry if the
  * {@link #deleteVirtualEnv} option is enabled.
  */
-@Mojo(name = "clean-habushu", defaultPhase = LifecyclePhase.CLEAN)
+@Mojo(name = "clean-habushu", defaultPhase = LifecyclePhase.CLEAN, threadSafe = true)
 public class CleanHabushuMojo extends CleanMojo {
 
     /**
@@ -97,6 +98,46 @@ public class CleanHabushuMojo extends CleanMojo {
     @Parameter(defaultValue = "false", property = "habushu.rewriteLocalPathDepsInArchives")
     protected boolean rewriteLocalPathDepsInArchives;
 
+    /**
+     * Enables caching of the results of toolchain probes (i.e. {@code poetry --version}) across modules and builds.
+     */
+    @Parameter(defaultValue = "true", property = "habushu.useToolchainProbeCache")
+    protected boolean useToolchainProbeCache;
+
+    /**
+     * File in which cached toolchain probe results are persisted between builds.
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/habushu/toolchain-probe-cache.properties", property = "habushu.toolchainProbeCacheFile")
+    protected File toolchainProbeCacheFile;
+
+    /**
+     * Version of the {@code poetry-monorepo-dependency-plugin} that Habushu installs into Poetry. When set to
+     * {@code latest}, Habushu checks for plugin updates at most once per
+     * {@link #poetryPluginUpdateCheckIntervalHours}; when pinned to a specific version, the plugin is only installed
+     * when it is missing or a different version is installed.
+     */
+    @Parameter(defaultValue = "latest", property = "habushu.monorepoDependencyPluginVersion")
+    protected String monorepoDependencyPluginVersion;
+
+    /**
+     * Minimum number of hours between checks for updates to required Poetry plugins. Set to {@code 0} to check once
+     * per build.
+     */
+    @Parameter(defaultValue = "24", property = "habushu.poetryPluginUpdateCheckIntervalHours")
+    protected long poetryPluginUpdateCheckIntervalHours;
+
+    /**
+     * File in which the time of the last check for Poetry plugin updates is recorded between builds.
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/habushu/poetry-plugin-state.properties", property = "habushu.poetryPluginStateFile")
+    protected File poetryPluginStateFile;
+
+    /**
+     * Whether Maven is running in offline mode.
+     */
+    @Parameter(defaultValue = "${settings.offline}", readonly = true)
+    protected boolean offline;
+
     @Override
     public void execute() throws MojoExecutionException {
         if ("habushu".equals(packaging)) {
@@ -111,12 +152,15 @@ public class CleanHabushuMojo extends CleanMojo {
             try {
                 PyenvAndPoetrySetup configureTools = new PyenvAndPoetrySetup(pythonVersion, usePyenv,
                         patchInstallScript, workingDirectory, rewriteLocalPathDepsInArchives, getLog());
+                configureTools.setToolchainProbeCache(getToolchainProbeCache());
+                configureTools.setPoetryPluginOptions(monorepoDependencyPluginVersion,
+                        poetryPluginUpdateCheckIntervalHours, poetryPluginStateFile, offline);
                 configureTools.execute();
             } catch (MojoFailureException e) {
                 throw new MojoExecutionException("Could not configure Pyenv or Poetry in the clean plugin!", e);
             }
 
-            PoetryCommandHelper poetryHelper = new PoetryCommandHelper(this.workingDirectory);
+            PoetryCommandHelper poetryHelper = new PoetryCommandHelper(this.workingDirectory, getToolchainProbeCache());
 
             String virtualEnvFullPath = null;
             try {
@@ -158,6 +202,10 @@ public class CleanHabushuMojo extends CleanMojo {
         super.execute();
     }
 
+    private ToolchainProbeCache getToolchainProbeCache() {
+        return useToolchainProbeCache ? ToolchainProbeCache.forFile(toolchainProbeCacheFile) : null;
+    }
+
     /**
      * Creates a new {@link Fileset} that may be used to identify a set of files
      * that are targeted for deletion by the {@link CleanMojo}.
@@ -2,7 +2,6 @@ package org.technologybrewery.habushu;
 
 import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.Config;
-import com.electronwill.nightconfig.core.file.FileConfig;
 import com.vdurmont.semver4j.Semver;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
@@ -15,18 +14,18 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.util.ManagedDependencyReport;
+import org.technologybrewery.habushu.util.PoetryInstallFingerprint;
+import org.technologybrewery.habushu.util.PoetryLockDigest;
+import org.technologybrewery.habushu.util.PoetryUtil;
+import org.technologybrewery.habushu.util.PyProjectDocument;
+import org.technologybrewery.habushu.util.TomlLineRewriter;
 import org.technologybrewery.habushu.util.TomlReplacementTuple;
 import org.technologybrewery.habushu.util.TomlUtils;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
 import java.net.URISyntaxException;
-import java.nio.file.Files;
-import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -46,7 +45,7 @@ import java.util.concurrent.TimeUnit;
  * the module's pyproject.toml configuration as a supplemental source of
  * dependencies, if it is not already configured in the pyproject.toml
  */
-@Mojo(name = "install-dependencies", defaultPhase = LifecyclePhase.COMPILE)
+@Mojo(name = "install-dependencies", defaultPhase = LifecyclePhase.COMPILE, threadSafe = true)
 public class InstallDependenciesMojo extends AbstractHabushuMojo {
 
     private static final String EQUALS = "=";
@@ -77,6 +76,23 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
     @Parameter(defaultValue = "false", property = "habushu.skipPoetryLockUpdate")
     private boolean skipPoetryLockUpdate;
 
+    /**
+     * Configures whether updates to pyproject.toml are forced to disk (i.e.
+     * fsync'd) before continuing, so that they survive a crash of the machine
+     * running the build rather than just the build itself.
+     */
+    @Parameter(defaultValue = "false", property = "habushu.forcePyProjectTomlToDisk")
+    private boolean forcePyProjectTomlToDisk;
+
+    /**
+     * Enables skipping {@code poetry lock} when neither the dependency-relevant sections of pyproject.toml (including
+     * package sources and local path dependencies), the configured {@link #managedDependencies} and
+     * {@link AbstractHabushuMojo#pypiRepoUrl}, nor poetry.lock itself have changed since the last successful lock.
+     * The digests used to make this determination are recorded in a hidden file next to poetry.lock.
+     */
+    @Parameter(defaultValue = "false", property = "habushu.incrementalPoetryLock")
+    private boolean incrementalPoetryLock;
+
     /**
      * Path within a Poetry project's pyproject.toml configuration at which private
      * PyPi repositories may be specified as sources from which dependencies may be
@@ -102,6 +118,15 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
     @Parameter(defaultValue = "false", property = "habushu.forceSync")
     private boolean forceSync;
 
+    /**
+     * Forces {@code poetry install} to run even when the virtual environment's
+     * install fingerprint (poetry.lock and pyproject.toml contents, selected
+     * groups, interpreter version, and virtual environment path) indicates that it
+     * is already up to date.
+     */
+    @Parameter(defaultValue = "false", property = "habushu.forceInstall")
+    private boolean forceInstall;
+
     /**
      * The set of managed dependencies to monitor for conformance.  These can result in:
      * * direct changes to your pyproject.toml file (default behavior)
@@ -123,11 +148,26 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
     @Parameter(defaultValue = "false", property = "habushu.failOnManagedDependenciesMismatches")
     protected boolean failOnManagedDependenciesMismatches;
 
+    /**
+     * File to which a JSON report of any managed dependency mismatches (and how
+     * they were handled) is written whenever {@link #managedDependencies} are
+     * configured.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/habushu/managed-dependency-report.json",
+            property = "habushu.managedDependencyReportFile")
+    protected File managedDependencyReportFile;
+
+    private ManagedDependencyReport managedDependencyReport;
+
+    private Semver resolvedPoetryVersion;
+
     @Override
     public void doExecute() throws MojoExecutionException, MojoFailureException {
         PoetryCommandHelper poetryHelper = createPoetryCommandHelper();
 
-        processManagedDependencyMismatches();
+        // all edits to pyproject.toml are made in memory and written back at most once:
+        PyProjectDocument pyProject = PyProjectDocument.load(getPoetryPyProjectTomlFile());
+        processManagedDependencyMismatches(pyProject);
 
         if (StringUtils.isNotEmpty(this.pypiRepoUrl) && this.addPypiRepoAsPackageSources) {
             String pypiRepoSimpleIndexUrl;
@@ -141,15 +181,10 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
             // NB later version of Poetry will support retrieving and configuring package
             // source repositories via the "poetry source" command in future releases, but
             // for now we need to manually inspect and modify the package's pyproject.toml
-            Config matchingPypiRepoSourceConfig;
-            try (FileConfig pyProjectConfig = FileConfig.of(getPoetryPyProjectTomlFile())) {
-                pyProjectConfig.load();
-
-                Optional<List<Config>> packageSources = pyProjectConfig.getOptional(PYPROJECT_PACKAGE_SOURCES_PATH);
-                matchingPypiRepoSourceConfig = packageSources.orElse(Collections.emptyList()).stream()
-                        .filter(packageSource -> pypiRepoSimpleIndexUrl.equals(packageSource.get("url"))).findFirst()
-                        .orElse(Config.inMemory());
-            }
+            Optional<List<Config>> packageSources = pyProject.getConfig().getOptional(PYPROJECT_PACKAGE_SOURCES_PATH);
+            Config matchingPypiRepoSourceConfig = packageSources.orElse(Collections.emptyList()).stream()
+                    .filter(packageSource -> pypiRepoSimpleIndexUrl.equals(packageSource.get("url"))).findFirst()
+                    .orElse(Config.inMemory());
 
             if (!matchingPypiRepoSourceConfig.isEmpty()) {
                 if (getLog().isDebugEnabled()) {
@@ -176,20 +211,19 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
                 getLog().info(String.format(
                         "Adding %s to pyproject.toml as supplemental repository from which dependencies may be installed",
                         pypiRepoSimpleIndexUrl));
-                try {
-                    Files.write(getPoetryPyProjectTomlFile().toPath(), newPypiRepoSourceConfig,
-                            StandardOpenOption.APPEND);
-                } catch (IOException e) {
-                    throw new MojoExecutionException(String.format(
-                            "Could not write new [[%s]] element to pyproject.toml", PYPROJECT_PACKAGE_SOURCES_PATH), e);
+                StringBuilder updatedContent = new StringBuilder(pyProject.getContent());
+                for (String line : newPypiRepoSourceConfig) {
+                    updatedContent.append(line).append(System.lineSeparator());
                 }
+                pyProject.setContent(updatedContent.toString());
             }
 
         }
 
+        pyProject.save(forcePyProjectTomlToDisk);
+
         if (!this.skipPoetryLockUpdate) {
-            getLog().info("Locking dependencies specified in pyproject.toml...");
-            poetryHelper.executePoetryCommandAndLogAfterTimeout(Arrays.asList("lock"), 2, TimeUnit.MINUTES);
+            lockDependencies(poetryHelper);
         }
 
         List<String> installCommand = new ArrayList<>();
@@ -207,8 +241,92 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
             installCommand.add("--sync");
         }
 
+        installDependencies(poetryHelper, installCommand);
+    }
+
+    /**
+     * Runs {@code poetry install}, unless the virtual environment is intact and
+     * its install fingerprint matches the current inputs (and
+     * {@link #forceInstall} is not enabled).
+     *
+     * @param poetryHelper   Poetry command helper
+     * @param installCommand full {@code poetry install} command arguments
+     */
+    protected void installDependencies(PoetryCommandHelper poetryHelper, List<String> installCommand) {
+        File virtualEnvDirectory = poetryHelper.getVirtualEnvironmentDirectory();
+        if (!forceInstall && virtualEnvDirectory != null) {
+            PoetryInstallFingerprint fingerprint = new PoetryInstallFingerprint(getPoetryProjectBaseDir(),
+                    virtualEnvDirectory);
+            if (fingerprint.isInstallCurrent(fingerprint.computeFingerprint(installCommand))) {
+                getLog().info("Virtual environment is up to date with poetry.lock - skipping dependency installation");
+                getLog().info("Set <forceInstall>true</forceInstall> (or -Dhabushu.forceInstall) to install anyway");
+                return;
+            }
+            fingerprint.invalidate();
+        }
+
         getLog().info("Installing dependencies...");
-        poetryHelper.executePoetryCommandAndLogAfterTimeout(installCommand, 2, TimeUnit.MINUTES);
+        Integer exitCode = poetryHelper.executePoetryCommandAndLogAfterTimeout(installCommand, 2, TimeUnit.MINUTES);
+        if (exitCode == null || exitCode != 0) {
+            return;
+        }
+
+        // the virtual environment may have been created by the install, in which case it is resolved again:
+        if (virtualEnvDirectory == null || !virtualEnvDirectory.isDirectory()) {
+            virtualEnvDirectory = poetryHelper.getVirtualEnvironmentDirectory();
+        }
+        if (virtualEnvDirectory != null && virtualEnvDirectory.isDirectory()) {
+            PoetryInstallFingerprint fingerprint = new PoetryInstallFingerprint(getPoetryProjectBaseDir(),
+                    virtualEnvDirectory);
+            fingerprint.record(fingerprint.computeFingerprint(installCommand));
+        }
+    }
+
+    /**
+     * Runs {@code poetry lock}, unless {@link #incrementalPoetryLock} is enabled and poetry.lock is already current
+     * with respect to its inputs.
+     *
+     * @param poetryHelper Poetry command helper
+     */
+    protected void lockDependencies(PoetryCommandHelper poetryHelper) {
+        if (!incrementalPoetryLock) {
+            getLog().info("Locking dependencies specified in pyproject.toml...");
+            poetryHelper.executePoetryCommandAndLogAfterTimeout(Arrays.asList("lock"), 2, TimeUnit.MINUTES);
+            return;
+        }
+
+        PoetryLockDigest lockDigest = new PoetryLockDigest(getPoetryProjectBaseDir());
+        String inputDigest = lockDigest.computeInputDigest(getAdditionalLockInputs());
+        if (lockDigest.isLockCurrent(inputDigest)) {
+            getLog().info("poetry.lock is current with pyproject.toml - skipping dependency locking");
+            return;
+        }
+
+        // remove the previous digest first so that a failed lock is always retried:
+        lockDigest.invalidate();
+        getLog().info("Locking dependencies specified in pyproject.toml...");
+        Integer exitCode = poetryHelper.executePoetryCommandAndLogAfterTimeout(Arrays.asList("lock"), 2,
+                TimeUnit.MINUTES);
+        if (exitCode != null && exitCode == 0) {
+            lockDigest.record(inputDigest);
+        }
+    }
+
+    /**
+     * Returns build configuration, beyond pyproject.toml itself, that influences the contents of poetry.lock.
+     *
+     * @return lock inputs
+     */
+    protected List<String> getAdditionalLockInputs() {
+        List<String> inputs = new ArrayList<>();
+        inputs.add("pypiRepoUrl=" + StringUtils.defaultString(pypiRepoUrl));
+        if (managedDependencies != null) {
+            for (PackageDefinition def : managedDependencies) {
+                inputs.add(String.format("managed=%s %s %s", def.getPackageName(), def.getOperatorAndVersion(),
+                        def.isActive()));
+            }
+        }
+        return inputs;
     }
 
     /**
@@ -245,48 +363,118 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
         return StringUtils.appendIfMissing(pypiRepoUriBuilder.build().toString(), "/");
     }
 
+    /**
+     * Updates (or reports) any dependencies in pyproject.toml that do not match
+     * their {@link #managedDependencies} and immediately saves the result.
+     */
     protected void processManagedDependencyMismatches() {
+        PyProjectDocument pyProject = PyProjectDocument.load(getPoetryPyProjectTomlFile());
+        processManagedDependencyMismatches(pyProject);
+        pyProject.save();
+    }
+
+    /**
+     * Updates (or reports) any dependencies in the given pyproject.toml document
+     * that do not match their {@link #managedDependencies}. Updates are only made
+     * in memory - the caller is responsible for saving the document.
+     *
+     * @param pyProject pyproject.toml document
+     */
+    protected void processManagedDependencyMismatches(PyProjectDocument pyProject) {
         if (!managedDependencies.isEmpty()) {
+            Map<String, PackageDefinition> managedDependencyIndex = indexManagedDependencies();
             Map<String, TomlReplacementTuple> replacements = new HashMap<>();
+            ManagedDependencyReport report = new ManagedDependencyReport(pyProject.getFile());
+            Config pyProjectConfig = pyProject.getConfig();
+
+            // Look for the standard Poetry dependency groups:
+            executeDetailedManagedDependencyMismatchActions(replacements, report, managedDependencyIndex,
+                    pyProjectConfig, "tool.poetry.dependencies");
+            executeDetailedManagedDependencyMismatchActions(replacements, report, managedDependencyIndex,
+                    pyProjectConfig, "tool.poetry.dev-dependencies");
+
+            // Search for custom Poetry dependency groups:
+            List<String> toolPoetryGroupSections = pyProject.getCustomToolPoetryGroups();
+            for (String toolPoetryGroupSection : toolPoetryGroupSections) {
+                executeDetailedManagedDependencyMismatchActions(replacements, report, managedDependencyIndex,
+                        pyProjectConfig, toolPoetryGroupSection);
+            }
 
-            try (FileConfig pyProjectConfig = FileConfig.of(getPoetryPyProjectTomlFile())) {
-                pyProjectConfig.load();
-
-                // Look for the standard Poetry dependency groups:
-                executeDetailedManagedDependencyMismatchActions(replacements, pyProjectConfig, "tool.poetry.dependencies");
-                executeDetailedManagedDependencyMismatchActions(replacements, pyProjectConfig, "tool.poetry.dev-dependencies");
-
-                // Search for custom Poetry dependency groups:
-                List<String> toolPoetryGroupSections = findCustomToolPoetryGroups();
-                for (String toolPoetryGroupSection : toolPoetryGroupSections) {
-                    executeDetailedManagedDependencyMismatchActions(replacements, pyProjectConfig, toolPoetryGroupSection);
+            // Log replacements, if appropriate:
+            if (failOnManagedDependenciesMismatches || !updateManagedDependenciesWhenFound) {
+                for (TomlReplacementTuple replacement : replacements.values()) {
+                    logPackageMismatch(replacement.getPackageName(), replacement.getOriginalOperatorAndVersion(),
+                            replacement.getUpdatedOperatorAndVersion());
                 }
+            }
 
-                // Log replacements, if appropriate:
-                if (failOnManagedDependenciesMismatches || !updateManagedDependenciesWhenFound) {
-                    for (TomlReplacementTuple replacement : replacements.values()) {
-                        logPackageMismatch(replacement.getPackageName(), replacement.getOriginalOperatorAndVersion(),
-                                replacement.getUpdatedOperatorAndVersion());
-                    }
+            if (report.hasActiveMismatches()) {
+                if (failOnManagedDependenciesMismatches) {
+                    report.setOutcome(ManagedDependencyReport.Outcome.FAILED);
+                } else if (updateManagedDependenciesWhenFound) {
+                    report.setOutcome(ManagedDependencyReport.Outcome.UPDATED);
+                } else {
+                    report.setOutcome(ManagedDependencyReport.Outcome.REPORTED);
                 }
+            }
+            writeManagedDependencyReport(report);
 
-                performPendingDependencyReplacements(replacements);
+            performPendingDependencyReplacements(pyProject, replacements);
+        }
+    }
+
+    /**
+     * Indexes the {@link #managedDependencies} by their normalized package name
+     * (see {@link PoetryUtil#normalizePackageName(String)}) so that each
+     * dependency in pyproject.toml can be matched with a single lookup. If the
+     * same package is managed more than once, the last definition wins.
+     *
+     * @return managed dependencies keyed by normalized package name
+     */
+    private Map<String, PackageDefinition> indexManagedDependencies() {
+        Map<String, PackageDefinition> index = new HashMap<>();
+        for (PackageDefinition def : managedDependencies) {
+            index.put(PoetryUtil.normalizePackageName(def.getPackageName()), def);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the most recently produced managed dependency report, if any.
+     *
+     * @return managed dependency report
+     */
+    protected ManagedDependencyReport getManagedDependencyReport() {
+        return managedDependencyReport;
+    }
+
+    private void writeManagedDependencyReport(ManagedDependencyReport report) {
+        managedDependencyReport = report;
+        if (managedDependencyReportFile != null) {
+            try {
+                report.write(managedDependencyReportFile);
+            } catch (IOException e) {
+                throw new HabushuException("Could not write managed dependency report to "
+                        + managedDependencyReportFile, e);
             }
         }
     }
 
     private void executeDetailedManagedDependencyMismatchActions(Map<String, TomlReplacementTuple> replacements,
-                                                                 FileConfig pyProjectConfig, String tomlSection) {
+                                                                 ManagedDependencyReport report,
+                                                                 Map<String, PackageDefinition> managedDependencyIndex,
+                                                                 Config pyProjectConfig, String tomlSection) {
 
         Optional<Config> toolPoetryDependencies = pyProjectConfig.getOptional(tomlSection);
         if (toolPoetryDependencies.isPresent()) {
             Config foundDependencies = toolPoetryDependencies.get();
             Map<String, Object> dependencyMap = foundDependencies.valueMap();
 
-            for (PackageDefinition def : managedDependencies) {
-                String packageName = def.getPackageName();
-                if (dependencyMap.containsKey(packageName)) {
-                    Object packageRhs = dependencyMap.get(packageName);
+            for (Map.Entry<String, Object> dependency : dependencyMap.entrySet()) {
+                PackageDefinition def = managedDependencyIndex.get(PoetryUtil.normalizePackageName(dependency.getKey()));
+                if (def != null) {
+                    String packageName = dependency.getKey();
+                    Object packageRhs = dependency.getValue();
 
                     if (TomlUtils.representsLocalDevelopmentVersion(packageRhs)) {
                         getLog().info(String.format("%s does not have a specific version to manage - skipping", packageName));
@@ -294,22 +482,23 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
                         continue;
                     }
 
-                    performComparisonAndStageNeededChanges(replacements, def, packageRhs);
+                    performComparisonAndStageNeededChanges(replacements, report, tomlSection, packageName, def,
+                            packageRhs);
                 }
             }
         }
     }
 
-    private void performComparisonAndStageNeededChanges(Map<String, TomlReplacementTuple> replacements, PackageDefinition def, Object packageRhs) {
+    private void performComparisonAndStageNeededChanges(Map<String, TomlReplacementTuple> replacements,
+                                                        ManagedDependencyReport report, String tomlSection,
+                                                        String packageName, PackageDefinition def, Object packageRhs) {
         String originalOperatorAndVersion = getOperatorAndVersion(packageRhs);
         String updatedOperatorAndVersion = def.getOperatorAndVersion();
 
-        String packageName = def.getPackageName();
-
         if (overridePackageVersion && updatedOperatorAndVersion.contains(SNAPSHOT)) {
             //NB: remove this once #27 is committed; in the meantime, this allows older versions to still work as they
             //    did in Habushu 2.5.0 and earlier:
-            Semver version = getPoetryVersion();
+            Semver version = getResolvedPoetryVersion();
 
             if (version.isGreaterThanOrEqualTo("1.5.0") && !updatedOperatorAndVersion.contains("^")) {
                 updatedOperatorAndVersion = replaceSnapshotWithWildcard(updatedOperatorAndVersion);
@@ -322,6 +511,8 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
         boolean mismatch = !originalOperatorAndVersion.equals(updatedOperatorAndVersion);
 
         if (mismatch) {
+            report.addMismatch(new ManagedDependencyReport.Mismatch(tomlSection, packageName, def.getPackageName(),
+                    originalOperatorAndVersion, updatedOperatorAndVersion, def.isActive()));
             if (def.isActive()) {
                 TomlReplacementTuple tuple = new TomlReplacementTuple(packageName, originalOperatorAndVersion, updatedOperatorAndVersion);
                 replacements.put(packageName, tuple);
@@ -332,6 +523,20 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
         }
     }
 
+    /**
+     * Returns the version of Poetry, which is only resolved the first time it is
+     * needed by this mojo (and is itself served from the toolchain probe cache
+     * across the modules of a build, where enabled).
+     *
+     * @return Poetry version
+     */
+    private Semver getResolvedPoetryVersion() {
+        if (resolvedPoetryVersion == null) {
+            resolvedPoetryVersion = getPoetryVersion();
+        }
+        return resolvedPoetryVersion;
+    }
+
     protected Semver getPoetryVersion() {
         PoetryCommandHelper poetryHelper = createPoetryCommandHelper();
         Pair<Boolean, String> poetryStatus = poetryHelper.getIsPoetryInstalledAndVersion();
@@ -345,6 +550,13 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
     }
 
     protected void performPendingDependencyReplacements(Map<String, TomlReplacementTuple> replacements) {
+        PyProjectDocument pyProject = PyProjectDocument.load(getPoetryPyProjectTomlFile());
+        performPendingDependencyReplacements(pyProject, replacements);
+        pyProject.save();
+    }
+
+    protected void performPendingDependencyReplacements(PyProjectDocument pyProject,
+                                                        Map<String, TomlReplacementTuple> replacements) {
         if (MapUtils.isNotEmpty(replacements)) {
             if (failOnManagedDependenciesMismatches) {
                 if (updateManagedDependenciesWhenFound) {
@@ -356,53 +568,34 @@ public class InstallDependenciesMojo extends AbstractHabushuMojo {
             }
 
             if (updateManagedDependenciesWhenFound) {
-                File pyProjectTomlFile = getPoetryPyProjectTomlFile();
-                String fileContent = StringUtils.EMPTY;
-
-                try (BufferedReader reader = new BufferedReader(new FileReader(pyProjectTomlFile))) {
-                    String line = reader.readLine();
-
-                    while (line != null) {
-                        if (line.contains(StringUtils.SPACE) || line.contains(EQUALS)) {
-                            String key = line.substring(0, line.indexOf(StringUtils.SPACE));
+                TomlLineRewriter.rewrite(pyProject, (originalLine, output) -> {
+                    String line = originalLine;
+                    if (line.contains(StringUtils.SPACE) || line.contains(EQUALS)) {
+                        String key = line.substring(0, line.indexOf(StringUtils.SPACE));
 
-                            if (key == null) {
-                                key = line.substring(0, line.indexOf(EQUALS));
-                            }
+                        if (key == null) {
+                            key = line.substring(0, line.indexOf(EQUALS));
+                        }
 
-                            if (key != null) {
-                                key = key.strip();
+                        if (key != null) {
+                            key = key.strip();
 
-                                TomlReplacementTuple matchedTuple = replacements.get(key);
-                                if (matchedTuple != null) {
-                                    String original = TomlUtils.escapeTomlRightHandSide(matchedTuple.getOriginalOperatorAndVersion());
-                                    String updated =  TomlUtils.escapeTomlRightHandSide(matchedTuple.getUpdatedOperatorAndVersion());
+                            TomlReplacementTuple matchedTuple = replacements.get(key);
+                            if (matchedTuple != null) {
+                                String original = TomlUtils.escapeTomlRightHandSide(matchedTuple.getOriginalOperatorAndVersion());
+                                String updated =  TomlUtils.escapeTomlRightHandSide(matchedTuple.getUpdatedOperatorAndVersion());
 
-                                    if (line.endsWith(original)) {
-                                        line = line.replace(original, updated);
-                                        getLog().info(String.format("Updated %s: %s --> %s", matchedTuple.getPackageName(),
-                                                original, updated));
-                                    }
+                                if (line.endsWith(original)) {
+                                    line = line.replace(original, updated);
+                                    getLog().info(String.format("Updated %s: %s --> %s", matchedTuple.getPackageName(),
+                                            original, updated));
                                 }
                             }
                         }
-
-                        fileContent += line + "\n";
-
-                        line = reader.readLine();
                     }
 
-                } catch (IOException e) {
-                    throw new HabushuException("Problem reading pyproject.toml to update with managed dependencies!", e);
-                }
-
-                try {
-                    TomlUtils.writeTomlFile(pyProjectTomlFile, fileContent);
-
-                } catch (IOException e) {
-                    throw new HabushuException("Problem writing pyproject.toml with managed dependency updates!", e);
-                }
-
+                    output.writeLine(line);
+                });
             }
         }
     }
@@ -0,0 +1,38 @@
+package org.technologybrewery.habushu;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.technologybrewery.habushu.wheels.WheelCacheEvictionPolicy;
+import org.technologybrewery.habushu.wheels.WheelCachePruneResult;
+import org.technologybrewery.habushu.wheels.WheelStore;
+
+/**
+ * Evicts wheels from the wheel cache populated by {@link CacheWheelsMojo} per the
+ * configured {@code wheelCacheMaxSizeMb} and {@code wheelCacheMaxAgeDays}, and
+ * deletes any cached wheel content that is no longer referenced. Waits for other
+ * builds using the wheel cache to finish before pruning it.
+ * <p>
+ * Intended to be invoked directly (i.e. {@code mvn habushu:prune-wheel-cache})
+ * on long-lived build agents, and so may be executed in non-habushu projects.
+ */
+@Mojo(name = "prune-wheel-cache", threadSafe = true)
+public class PruneWheelCacheMojo extends AbstractHabushuMojo {
+
+    /**
+     * Overriding to allow execution in non-habushu projects
+     */
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        doExecute();
+    }
+
+    @Override
+    protected void doExecute() throws MojoExecutionException, MojoFailureException {
+        WheelStore wheelStore = getWheelStore();
+        WheelCacheEvictionPolicy policy = getWheelCacheEvictionPolicy();
+        getLog().info(String.format("Pruning wheel cache %s (%s)..", wheelStore.getStoreDirectory(), policy));
+        WheelCachePruneResult result = wheelStore.prune(policy);
+        getLog().info("Pruned wheel cache: " + result);
+    }
+}
@@ -2,20 +2,28 @@ package org.technologybrewery.habushu;
 
 import com.vdurmont.semver4j.Semver;
 import com.vdurmont.semver4j.Semver.SemverType;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.exec.PoetryPluginManager;
 import org.technologybrewery.habushu.exec.PyenvCommandHelper;
 import org.technologybrewery.habushu.exec.PythonVersionHelper;
+import org.technologybrewery.habushu.exec.ToolchainProbeCache;
+import org.technologybrewery.habushu.telemetry.BuildMetrics;
+import org.technologybrewery.habushu.util.InterProcessLock;
 import org.technologybrewery.habushu.util.PoetryUtil;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Common class that ensures pre-requisite tools that Habushu leverages are installed and available on the
@@ -26,7 +34,7 @@ import java.util.List;
  * <li>Required Poetry plugins (currently only {@code poetry-monorepo-dependency-plugin})</li>
  * </ul>
  */
-class PyenvAndPoetrySetup {
+public class PyenvAndPoetrySetup {
 
     /**
      * Specifies the semver compliant requirement for the default version of Python that
@@ -34,6 +42,13 @@ class PyenvAndPoetrySetup {
      */
     static final String PYTHON_DEFAULT_VERSION_REQUIREMENT = "3.11.4";
 
+    private static final String POETRY_CONFIG_LOCK = "poetry-config";
+
+    /**
+     * Repository credentials that have already been written to Poetry's global configuration during this build.
+     */
+    private static final Set<String> CONFIGURED_CREDENTIALS = ConcurrentHashMap.newKeySet();
+
     /**
      * The desired version of Python to use.
      */
@@ -85,6 +100,32 @@ class PyenvAndPoetrySetup {
 
     protected String pypiRepoId;
 
+    /**
+     * Cache of toolchain probe results to reuse, or {@code null} if probes should always be executed.
+     */
+    protected ToolchainProbeCache probeCache;
+
+    /**
+     * Version of {@code poetry-monorepo-dependency-plugin} to install, or {@code latest}.
+     */
+    protected String monorepoDependencyPluginVersion = PoetryPluginManager.LATEST;
+
+    /**
+     * Minimum number of hours between checks for updates to required Poetry plugins.
+     */
+    protected long pluginUpdateCheckIntervalHours;
+
+    /**
+     * File in which the time of the last Poetry plugin update check is recorded, or {@code null} to check once per
+     * build.
+     */
+    protected File pluginStateFile;
+
+    /**
+     * Whether Maven is running in offline mode, in which case Poetry plugins are not installed.
+     */
+    protected boolean offline;
+
     /**
      * New instance - these values are typically passed in from Maven-enabled parameters in the calling Mojo.
      *
@@ -135,6 +176,33 @@ class PyenvAndPoetrySetup {
         this.pypiRepoId = null;
     }
 
+    /**
+     * Configures the cache of toolchain probe results (i.e. {@code poetry --version}) that should be reused when
+     * validating the installed toolchain.
+     *
+     * @param probeCache cache to use, or {@code null} to always execute probes
+     */
+    public void setToolchainProbeCache(ToolchainProbeCache probeCache) {
+        this.probeCache = probeCache;
+    }
+
+    /**
+     * Configures how required Poetry plugins are verified and installed.
+     *
+     * @param monorepoDependencyPluginVersion version of {@code poetry-monorepo-dependency-plugin} to install, or
+     *                                        {@code latest}
+     * @param pluginUpdateCheckIntervalHours  minimum number of hours between checks for plugin updates
+     * @param pluginStateFile                 file in which the time of the last update check is recorded
+     * @param offline                         whether Maven is running in offline mode
+     */
+    public void setPoetryPluginOptions(String monorepoDependencyPluginVersion, long pluginUpdateCheckIntervalHours,
+                                       File pluginStateFile, boolean offline) {
+        this.monorepoDependencyPluginVersion = monorepoDependencyPluginVersion;
+        this.pluginUpdateCheckIntervalHours = pluginUpdateCheckIntervalHours;
+        this.pluginStateFile = pluginStateFile;
+        this.offline = offline;
+    }
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         List<String> missingRequiredToolMsgs = new ArrayList<>();
         String currentPythonVersion = "";
@@ -165,6 +233,8 @@ class PyenvAndPoetrySetup {
                         poetryInstallStatusAndVersion.getRight(), PoetryUtil.POETRY_VERSION_REQUIREMENT));
             } else {
                 log.info("Found Poetry " + poetryInstallStatusAndVersion.getRight());
+                BuildMetrics.setModuleAttribute(BuildMetrics.POETRY_VERSION_ATTRIBUTE,
+                        poetryInstallStatusAndVersion.getRight());
             }
         }
 
@@ -178,16 +248,49 @@ class PyenvAndPoetrySetup {
             poetryHelper.executeAndLogOutput(Arrays.asList("config", "--local", "virtualenvs.prefer-active-python", "true"));
         }
 
-        log.info("Checking for updates to poetry-monorepo-dependency-plugin...");
-        poetryHelper.installPoetryPlugin("poetry-monorepo-dependency-plugin@latest");
+        PoetryPluginManager pluginManager = new PoetryPluginManager(poetryHelper, pluginStateFile,
+                pluginUpdateCheckIntervalHours, offline);
+        pluginManager.ensurePluginInstalled("poetry-monorepo-dependency-plugin", monorepoDependencyPluginVersion);
 
         if (StringUtils.isEmpty(username) || StringUtils.isEmpty(password)) {
             log.info(String.format("Did not find username and password for the server with <id> %s. Will use existing configuration.", pypiRepoId));
         }
         else {
+            configureRepositoryCredentials(poetryHelper);
+        }
+    }
+
+    /**
+     * Forgets the repository credentials configured during this build, such as at the end of a build, as another
+     * build may since have overwritten them.
+     */
+    public static void clear() {
+        CONFIGURED_CREDENTIALS.clear();
+    }
+
+    /**
+     * Writes the server credentials into Poetry's global configuration. As this configuration is shared by every
+     * module (and every build) on the machine, writes are serialized and only performed once per build for each
+     * distinct set of credentials.
+     *
+     * @param poetryHelper Poetry command helper
+     * @throws MojoExecutionException
+     */
+    void configureRepositoryCredentials(PoetryCommandHelper poetryHelper) throws MojoExecutionException {
+        String credentialsKey = pypiRepoId + ":" + DigestUtils.sha256Hex(username + ":" + password);
+        if (CONFIGURED_CREDENTIALS.contains(credentialsKey)) {
+            log.debug(String.format("Username and password configuration for %s already added during this build", pypiRepoId));
+            return;
+        }
+
+        try (InterProcessLock lock = InterProcessLock.acquire(POETRY_CONFIG_LOCK)) {
             log.info(String.format("Adding username and password configuration for %s", pypiRepoId));
-            poetryHelper.execute(
-                    Arrays.asList("config", String.format("http-basic.%s", pypiRepoId), username, password));
+            poetryHelper.executeWithSensitiveArgs(Arrays.asList(
+                    new ImmutablePair<>("config", false),
+                    new ImmutablePair<>(String.format("http-basic.%s", pypiRepoId), false),
+                    new ImmutablePair<>(username, false),
+                    new ImmutablePair<>(password, true)));
+            CONFIGURED_CREDENTIALS.add(credentialsKey);
         }
     }
 
@@ -200,12 +303,13 @@ class PyenvAndPoetrySetup {
 
             String sourceMessage = usePyenv ? "(managed by pyenv)" : "(managed by the operating system)";
             log.info(String.format("Using Python %s %s", currentPythonVersion, sourceMessage));
+            BuildMetrics.setModuleAttribute(BuildMetrics.PYTHON_VERSION_ATTRIBUTE, currentPythonVersion);
         }
     }
 
     private String validateAndConfigureStraightPython() throws MojoExecutionException {
         String currentPythonVersion;
-        PythonVersionHelper pythonVersionHelper = new PythonVersionHelper(baseDir, pythonVersion);
+        PythonVersionHelper pythonVersionHelper = new PythonVersionHelper(baseDir, pythonVersion, probeCache);
         try {
             currentPythonVersion = pythonVersionHelper.getCurrentPythonVersion();
         } catch (MojoExecutionException mojoExecutionException) {
@@ -229,7 +333,7 @@ class PyenvAndPoetrySetup {
             }
 
             // Check for misconfigured pyenv that looks right, but is actually not "taking" due to missing PATH setup:
-            PythonVersionHelper pythonVersionHelper = new PythonVersionHelper(baseDir, pythonVersion);
+            PythonVersionHelper pythonVersionHelper = new PythonVersionHelper(baseDir, pythonVersion, probeCache);
             String postPyenvActivatedPythonVersion = pythonVersionHelper.getCurrentPythonVersion();
             if (!pythonVersion.equals(postPyenvActivatedPythonVersion)) {
                 missingRequiredToolMsgs.add(String.format("Expected 'pyenv' to set Python to %s but instead found %s!",
@@ -251,7 +355,7 @@ class PyenvAndPoetrySetup {
      * @return
      */
     protected PyenvCommandHelper createPyenvCommandHelper() {
-        return new PyenvCommandHelper(baseDir);
+        return new PyenvCommandHelper(baseDir, probeCache);
     }
 
     /**
@@ -261,7 +365,7 @@ class PyenvAndPoetrySetup {
      * @return
      */
     protected PoetryCommandHelper createPoetryCommandHelper() {
-        return new PoetryCommandHelper(baseDir);
+        return new PoetryCommandHelper(baseDir, probeCache);
     }
 
 }
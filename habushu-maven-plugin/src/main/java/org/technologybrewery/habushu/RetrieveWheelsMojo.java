@@ -1,7 +1,20 @@
 package org.technologybrewery.habushu;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -11,6 +24,11 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.technologybrewery.habushu.util.HabushuUtil;
+import org.technologybrewery.habushu.util.InterProcessLock;
+import org.technologybrewery.habushu.wheels.CachedWheel;
+import org.technologybrewery.habushu.wheels.WheelCacheBackend;
+import org.technologybrewery.habushu.wheels.WheelSelector;
+import org.technologybrewery.habushu.wheels.WheelStore;
 
 /**
  * Helper mojo that handles the retrieving of wheel artifacts from poetry
@@ -24,7 +42,7 @@ import org.technologybrewery.habushu.util.HabushuUtil;
  *                          the requested wheel to have first been cached prior to setting this config
  * @throws HabushuException
  */
-@Mojo(name = "retrieve-wheels", defaultPhase = LifecyclePhase.VALIDATE)
+@Mojo(name = "retrieve-wheels", defaultPhase = LifecyclePhase.VALIDATE, threadSafe = true)
 public class RetrieveWheelsMojo extends AbstractHabushuMojo {
     /**
     * A List of Wheel Dependencies to retrieve from poetry cache. 
@@ -32,6 +50,13 @@ public class RetrieveWheelsMojo extends AbstractHabushuMojo {
     @Parameter(property = "habushu.wheelDependencies", required = false)
     protected List<WheelDependency> wheelDependencies;
 
+    /**
+    * Maximum number of wheels to retrieve from poetry cache, or to download
+    * from the remote wheel cache, concurrently.
+    */
+    @Parameter(property = "habushu.wheelRetrievalThreads", defaultValue = "4")
+    protected int wheelRetrievalThreads = 4;
+
     /**
     * Overriding to allow execution in non-habushu projects
     */      
@@ -50,35 +75,190 @@ public class RetrieveWheelsMojo extends AbstractHabushuMojo {
     protected void processWheelDependencies() {
         getLog().info(String.format("Processing %s Wheel Dependencies..", wheelDependencies.size()));
         try {
-            for (WheelDependency wd : wheelDependencies) {
-                File poetryCacheWheelDirectory = getCachedWheelDirectory(wd.getArtifactId());
-                String targetDirectory = wd.getTargetDirectory();
-
-                if(poetryCacheWheelDirectory.exists()){
-                    List<File> wheelFiles = Stream.of(poetryCacheWheelDirectory.listFiles())
-                            .filter(file -> file.getAbsolutePath().endsWith(".whl"))
-                            .map(File::getAbsoluteFile)
-                            .collect(Collectors.toList());
-
-                    if(wheelFiles.size()==0){
-                        getLog().warn(String.format("Did not find any %s wheels in poetry cache.", wd.getArtifactId()));
-                        getLog().warn("Consider using the `cacheWheel` configuration to cache the wheel artifact before depending on it.");
+            WheelStore wheelStore = getWheelStore();
+            WheelCacheBackend remoteCache = getRemoteWheelCache();
+            if (remoteCache != null) {
+                fetchFromRemoteWheelCache(wheelStore, remoteCache);
+            }
+            // the lock is only held to select the wheels and mark them as retrieved, which protects them from being
+            // evicted while they are retrieved, so that other modules and builds may retrieve wheels concurrently:
+            Map<WheelDependency, List<CachedWheel>> selectedWheels = new LinkedHashMap<>();
+            List<WheelDependency> legacyWheelDependencies = new ArrayList<>();
+            try (InterProcessLock lock = wheelStore.lock()) {
+                for (WheelDependency wd : wheelDependencies) {
+                    List<CachedWheel> cachedWheels = wheelStore.getWheels(wd.getArtifactId());
+                    if (cachedWheels.isEmpty()) {
+                        legacyWheelDependencies.add(wd);
+                        continue;
+                    }
+                    WheelSelector selector = wd.getSelector();
+                    List<CachedWheel> selected = selector.select(cachedWheels, CachedWheel::getFileName);
+                    if (selected.isEmpty()) {
+                        getLog().warn(String.format("None of the %s %s wheels in poetry cache match %s.",
+                                cachedWheels.size(), wd.getArtifactId(), selector));
                     } else {
-                        for (File file : wheelFiles) {
-                            HabushuUtil.copyFile(file.getPath(), String.format("%s/%s", targetDirectory, file.getName()));
-                            getLog().info(String.format("Retrieved the cached %s file", file.getName()));
-                        }
-                    }         
-                } else{
-                    getLog().warn(String.format("Could not locate %s in poetry cache.", wd.getArtifactId()));
-                    getLog().warn("Consider using the `cacheWheel` configuration to cache the wheel artifact before depending on it.");
+                        selectedWheels.put(wd, selected);
+                    }
                 }
+                selectedWheels.forEach((wd, wheels) -> wheelStore.markRetrieved(wd.getArtifactId(), wheels));
             }
+            legacyWheelDependencies.forEach(this::retrieveLegacyCachedWheels);
+            retrieveInParallel(wheelStore, selectedWheels);
         } catch (Exception e) {
             throw new HabushuException("Could not process Wheel Dependencies!", e);
         }
     }
 
+    /**
+     * Places the selected wheels into their target directories using a bounded
+     * pool of {@link #wheelRetrievalThreads} threads.
+     */
+    private void retrieveInParallel(WheelStore wheelStore, Map<WheelDependency, List<CachedWheel>> selectedWheels)
+            throws InterruptedException {
+        List<Callable<Void>> retrievals = new ArrayList<>();
+        selectedWheels.forEach((wd, wheels) -> {
+            File targetDirectory = new File(wd.getTargetDirectory());
+            for (CachedWheel cachedWheel : wheels) {
+                retrievals.add(() -> {
+                    if (wheelStore.retrieve(cachedWheel, targetDirectory)) {
+                        getLog().info(String.format("Retrieved the cached %s file", cachedWheel.getFileName()));
+                    } else {
+                        getLog().info(String.format("%s is already up to date", cachedWheel.getFileName()));
+                    }
+                    return null;
+                });
+            }
+        });
+        runInParallel(retrievals, "habushu-wheel-retrieval");
+    }
+
+    /**
+     * Populates the local wheel store with the selected wheels that are only
+     * held in the remote wheel cache, downloading them using a bounded pool of
+     * {@link #wheelRetrievalThreads} threads and verifying their digests before
+     * they are added to the local store. As wheels may have been cached locally,
+     * failing to fetch them is logged rather than failing the build.
+     */
+    private void fetchFromRemoteWheelCache(WheelStore wheelStore, WheelCacheBackend remoteCache)
+            throws InterruptedException {
+        List<Callable<Void>> downloads = new ArrayList<>();
+        Set<String> queued = new HashSet<>();
+        for (WheelDependency wd : wheelDependencies) {
+            String artifactId = wd.getArtifactId();
+            List<CachedWheel> remoteWheels;
+            try {
+                remoteWheels = remoteCache.getWheels(artifactId);
+            } catch (IOException | HabushuException e) {
+                getLog().warn(String.format("Could not read the %s wheels within %s", artifactId, remoteCache), e);
+                continue;
+            }
+
+            // select from every known wheel, so that newer local wheels take precedence over older remote ones:
+            Map<String, CachedWheel> candidates = new LinkedHashMap<>();
+            for (CachedWheel wheel : remoteWheels) {
+                try {
+                    WheelStore.validate(wheel);
+                    candidates.put(wheel.getFileName(), wheel);
+                } catch (HabushuException e) {
+                    getLog().warn(String.format("Ignoring an invalid %s wheel within %s: %s", artifactId,
+                            remoteCache, e.getMessage()));
+                }
+            }
+            Set<String> localFileNames = new HashSet<>();
+            for (CachedWheel wheel : wheelStore.getWheels(artifactId)) {
+                if (wheelStore.hasBlob(wheel.getSha256())) {
+                    candidates.put(wheel.getFileName(), wheel);
+                    localFileNames.add(wheel.getFileName());
+                }
+            }
+            List<CachedWheel> selected = wd.getSelector().select(new ArrayList<>(candidates.values()),
+                    CachedWheel::getFileName);
+            for (CachedWheel wheel : selected) {
+                String key = artifactId + "/" + wheel.getFileName();
+                if (!localFileNames.contains(wheel.getFileName()) && queued.add(key)) {
+                    downloads.add(() -> {
+                        fetchFromRemoteWheelCache(wheelStore, remoteCache, artifactId, wheel);
+                        return null;
+                    });
+                }
+            }
+        }
+        runInParallel(downloads, "habushu-wheel-download");
+    }
+
+    private void fetchFromRemoteWheelCache(WheelStore wheelStore, WheelCacheBackend remoteCache, String artifactId,
+                                           CachedWheel wheel) throws IOException {
+        Path download = null;
+        try {
+            // wheels sharing a blob with one already cached locally only need to be indexed:
+            if (!wheelStore.hasBlob(wheel.getSha256())) {
+                download = Files.createTempFile("habushu-wheel-", ".whl");
+                remoteCache.download(wheel, download);
+            }
+            wheelStore.importWheel(artifactId, wheel, download != null ? download.toFile() : null);
+            getLog().info(String.format("Fetched the %s file from %s", wheel.getFileName(), remoteCache));
+        } catch (IOException | HabushuException e) {
+            getLog().warn(String.format("Could not fetch the %s file from %s", wheel.getFileName(), remoteCache), e);
+        } finally {
+            if (download != null) {
+                Files.deleteIfExists(download);
+            }
+        }
+    }
+
+    private void runInParallel(List<Callable<Void>> tasks, String threadName) throws InterruptedException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        int threads = Math.max(1, Math.min(wheelRetrievalThreads, tasks.size()));
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Future<Void> task : executor.invokeAll(tasks)) {
+                try {
+                    task.get();
+                } catch (ExecutionException e) {
+                    throw new HabushuException("Could not retrieve a cached wheel!", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Retrieves wheels from the per-artifactId folder within poetry cache in which
+     * they were cached prior to the introduction of the {@link WheelStore}.
+     */
+    private void retrieveLegacyCachedWheels(WheelDependency wd) {
+        File poetryCacheWheelDirectory = getCachedWheelDirectory(wd.getArtifactId());
+        String targetDirectory = wd.getTargetDirectory();
+
+        if(poetryCacheWheelDirectory.exists()){
+            List<File> wheelFiles = Stream.of(poetryCacheWheelDirectory.listFiles())
+                    .filter(file -> file.getAbsolutePath().endsWith(".whl"))
+                    .map(File::getAbsoluteFile)
+                    .collect(Collectors.toList());
+
+            if(wheelFiles.size()==0){
+                getLog().warn(String.format("Did not find any %s wheels in poetry cache.", wd.getArtifactId()));
+                getLog().warn("Consider using the `cacheWheel` configuration to cache the wheel artifact before depending on it.");
+            } else {
+                for (File file : wd.getSelector().select(wheelFiles, File::getName)) {
+                    HabushuUtil.copyFile(file.getPath(), String.format("%s/%s", targetDirectory, file.getName()));
+                    getLog().info(String.format("Retrieved the cached %s file", file.getName()));
+                }
+            }         
+        } else{
+            getLog().warn(String.format("Could not locate %s in poetry cache.", wd.getArtifactId()));
+            getLog().warn("Consider using the `cacheWheel` configuration to cache the wheel artifact before depending on it.");
+        }
+    }
+
     protected File getProjectBuildDirectory() {
         return new File(project.getBuild().getDirectory());
     }
@@ -20,7 +20,7 @@ import org.apache.maven.plugins.annotations.Parameter;
  * {@code poetry-monorepo-dependency-plugin})</li>
  * </ul>
  */
-@Mojo(name = "validate-pyenv-and-poetry", defaultPhase = LifecyclePhase.VALIDATE)
+@Mojo(name = "validate-pyenv-and-poetry", defaultPhase = LifecyclePhase.VALIDATE, threadSafe = true)
 public class ValidatePyenvAndPoetryMojo extends AbstractHabushuMojo {
 
     /**
@@ -43,6 +43,28 @@ public class ValidatePyenvAndPoetryMojo extends AbstractHabushuMojo {
     @Parameter(defaultValue = "${project.build.directory}/pyenv-patch-install-python-version.sh", readonly = true)
     private File patchInstallScript;
 
+    /**
+     * Version of the {@code poetry-monorepo-dependency-plugin} that Habushu installs into Poetry. When set to
+     * {@code latest}, Habushu checks for plugin updates at most once per
+     * {@link #poetryPluginUpdateCheckIntervalHours}; when pinned to a specific version, the plugin is only installed
+     * when it is missing or a different version is installed.
+     */
+    @Parameter(defaultValue = "latest", property = "habushu.monorepoDependencyPluginVersion")
+    protected String monorepoDependencyPluginVersion;
+
+    /**
+     * Minimum number of hours between checks for updates to required Poetry plugins. Set to {@code 0} to check once
+     * per build.
+     */
+    @Parameter(defaultValue = "24", property = "habushu.poetryPluginUpdateCheckIntervalHours")
+    protected long poetryPluginUpdateCheckIntervalHours;
+
+    /**
+     * File in which the time of the last check for Poetry plugin updates is recorded between builds.
+     */
+    @Parameter(defaultValue = "${user.home}/.m2/habushu/poetry-plugin-state.properties", property = "habushu.poetryPluginStateFile")
+    protected File poetryPluginStateFile;
+
     @Override
     public void doExecute() throws MojoExecutionException, MojoFailureException {
         String username = findUsernameForServer();
@@ -51,6 +73,9 @@ public class ValidatePyenvAndPoetryMojo extends AbstractHabushuMojo {
         PyenvAndPoetrySetup configureTools = new PyenvAndPoetrySetup(pythonVersion, usePyenv,
                 patchInstallScript, getPoetryProjectBaseDir(), rewriteLocalPathDepsInArchives,
                 username, password, pypiRepoId, getLog());
+        configureTools.setToolchainProbeCache(getToolchainProbeCache());
+        configureTools.setPoetryPluginOptions(monorepoDependencyPluginVersion, poetryPluginUpdateCheckIntervalHours,
+                poetryPluginStateFile, settings.isOffline());
         configureTools.execute();
     }
 
@@ -1,8 +1,14 @@
 package org.technologybrewery.habushu;
 
+import java.util.List;
+
+import org.technologybrewery.habushu.wheels.WheelSelector;
+
 public class WheelDependency {
     private String artifactId;
     private String targetDirectory;
+    private String version;
+    private List<String> tags;
 
     public WheelDependency() {
     }
@@ -22,4 +28,33 @@ public class WheelDependency {
     public void setTargetDirectory(String targetDirectory) {
         this.targetDirectory = targetDirectory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Version of the wheels to retrieve: {@code latest} (the default), an exact
+     * version (i.e. {@code 1.2.0}), or a PEP 440 specifier (i.e. {@code >=1.2,<2}).
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * Tags of the wheels to retrieve, each of which may be a complete
+     * {@code python-abi-platform} tag or only a platform tag (i.e. {@code any}).
+     * If not set, wheels are retrieved regardless of their tags.
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    public WheelSelector getSelector() {
+        return new WheelSelector(version, tags);
+    }
+}
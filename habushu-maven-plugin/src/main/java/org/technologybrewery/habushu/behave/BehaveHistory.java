@@ -0,0 +1,362 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Duration and pass/fail history of the scenarios within a module's feature files, recorded from the Cucumber report
+ * of each behave run, that is used to run recently failed and recently changed features first, followed by fast
+ * features and then slow ones, and to balance features across shards by how long they take.
+ * <p>
+ * Features are keyed by their path relative to the features directory, so that history is retained when the module
+ * is built from a different location.
+ */
+public class BehaveHistory {
+
+    /**
+     * Number of runs, including the latest one, for which a failed feature is still considered to have recently
+     * failed.
+     */
+    static final int RECENT_FAILURE_RUNS = 3;
+
+    /**
+     * Estimated duration of a scenario without history, if no other scenario has history either.
+     */
+    static final long DEFAULT_SCENARIO_MILLIS = 1000;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private int runs;
+    private String lastSuccessfulCommit;
+    private Map<String, FeatureHistory> features = new TreeMap<>();
+
+    /**
+     * Loads the history held in the given file. As history only affects the order in which features run, a missing
+     * or unreadable file is treated as an empty history.
+     *
+     * @param file file holding the history
+     * @return history held in the file
+     */
+    public static BehaveHistory load(File file) {
+        if (file.isFile()) {
+            try {
+                return MAPPER.readValue(file, BehaveHistory.class);
+            } catch (IOException e) {
+                // fall through to start over
+            }
+        }
+        return new BehaveHistory();
+    }
+
+    /**
+     * Writes this history to the given file, replacing it atomically so that concurrent builds never read a
+     * partially written file.
+     *
+     * @param file file in which to hold the history
+     */
+    public void save(File file) {
+        Path target = file.getAbsoluteFile().toPath();
+        try {
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                MAPPER.writeValue(temp.toFile(), this);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new HabushuException("Could not write behave history " + file, e);
+        }
+    }
+
+    /**
+     * Returns the key under which the history of the given feature file is held.
+     *
+     * @param featuresDirectory directory holding every feature file
+     * @param featureFile       feature file within the features directory
+     * @return path of the feature file relative to the features directory
+     */
+    public static String getKey(File featuresDirectory, File featureFile) {
+        Path directory = featuresDirectory.getAbsoluteFile().toPath().normalize();
+        Path file = featureFile.getAbsoluteFile().toPath().normalize();
+        Path relative = file.startsWith(directory) ? directory.relativize(file) : file;
+        return relative.toString().replace(File.separatorChar, '/');
+    }
+
+    /**
+     * Records the results of a behave run held in the given Cucumber report. Features that were not run (i.e. as
+     * behave stopped at the first failure) retain their previous history.
+     *
+     * @param report     Cucumber report written by the run
+     * @param featureKey maps the {@code uri} of each feature within the report to its key, as per
+     *                   {@link #getKey(File, File)}
+     * @param runTime    time at which the run started, in milliseconds since the epoch
+     * @return number of features whose results were recorded
+     */
+    public int record(File report, Function<String, String> featureKey, long runTime) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(report);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read Cucumber report " + report, e);
+        }
+
+        runs++;
+        int recorded = 0;
+        for (JsonNode feature : root) {
+            String uri = feature.path("uri").asText(null);
+            if (uri == null) {
+                continue;
+            }
+            FeatureHistory featureHistory = features.computeIfAbsent(featureKey.apply(uri),
+                    key -> new FeatureHistory());
+            long featureMillis = 0;
+            boolean featureFailed = false;
+            for (JsonNode element : feature.path("elements")) {
+                long scenarioNanos = 0;
+                boolean scenarioFailed = false;
+                for (JsonNode step : element.path("steps")) {
+                    JsonNode result = step.path("result");
+                    scenarioNanos += result.path("duration").asLong();
+                    scenarioFailed |= BehaveRerunFile.FAILED_STATUSES.contains(result.path("status").asText());
+                }
+                featureMillis += scenarioNanos / 1_000_000;
+                featureFailed |= scenarioFailed;
+                if (!"background".equals(element.path("type").asText())) {
+                    ScenarioHistory scenarioHistory = featureHistory.getScenarios()
+                            .computeIfAbsent(element.path("line").asInt(), line -> new ScenarioHistory());
+                    scenarioHistory.setDurationMillis(scenarioNanos / 1_000_000);
+                    if (scenarioFailed) {
+                        scenarioHistory.setLastFailedRun(runs);
+                    }
+                }
+            }
+            featureHistory.setDurationMillis(featureMillis);
+            featureHistory.setLastRunTime(runTime);
+            if (featureFailed) {
+                featureHistory.setLastFailedRun(runs);
+            }
+            recorded++;
+        }
+        return recorded;
+    }
+
+    /**
+     * Orders the given locations so that those that recently failed run first (most recent failures first),
+     * followed by those whose feature file is new or was changed since it last ran, and then the remainder from
+     * the fastest to the slowest. Locations otherwise retain their relative order.
+     *
+     * @param locations         locations to order
+     * @param featuresDirectory directory holding every feature file
+     * @return ordered locations
+     */
+    public List<BehaveLocation> order(List<BehaveLocation> locations, File featuresDirectory) {
+        Map<BehaveLocation, Integer> tiers = new HashMap<>();
+        Map<BehaveLocation, Integer> lastFailures = new HashMap<>();
+        for (BehaveLocation location : locations) {
+            FeatureHistory featureHistory = features.get(getKey(featuresDirectory, location.getFeatureFile()));
+            int lastFailedRun = getLastFailedRun(featureHistory, location.getLine());
+            lastFailures.put(location, lastFailedRun);
+            if (lastFailedRun > 0 && runs - lastFailedRun < RECENT_FAILURE_RUNS) {
+                tiers.put(location, 0);
+            } else if (featureHistory == null
+                    || location.getFeatureFile().lastModified() > featureHistory.getLastRunTime()) {
+                tiers.put(location, 1);
+            } else {
+                tiers.put(location, 2);
+            }
+        }
+
+        List<BehaveLocation> ordered = new ArrayList<>(locations);
+        ordered.sort(Comparator.<BehaveLocation>comparingInt(tiers::get)
+                .thenComparing(location -> tiers.get(location) == 0 ? -lastFailures.get(location) : 0)
+                .thenComparingLong(location -> estimateMillis(location, featuresDirectory)));
+        return ordered;
+    }
+
+    /**
+     * Estimates how long the given location takes to run from its history, falling back to the average duration of
+     * every scenario with history for locations without any.
+     *
+     * @param location          location to estimate
+     * @param featuresDirectory directory holding every feature file
+     * @return estimated duration in milliseconds, which is at least one
+     */
+    public long estimateMillis(BehaveLocation location, File featuresDirectory) {
+        FeatureHistory featureHistory = features.get(getKey(featuresDirectory, location.getFeatureFile()));
+        if (featureHistory != null) {
+            if (location.getLine() == null) {
+                return Math.max(1, featureHistory.getDurationMillis());
+            }
+            ScenarioHistory scenarioHistory = featureHistory.getScenarios().get(location.getLine());
+            if (scenarioHistory != null) {
+                return Math.max(1, scenarioHistory.getDurationMillis());
+            }
+        }
+        return Math.max(1, getAverageScenarioMillis() * location.getScenarioCount());
+    }
+
+    private long getAverageScenarioMillis() {
+        long total = 0;
+        int count = 0;
+        for (FeatureHistory featureHistory : features.values()) {
+            for (ScenarioHistory scenarioHistory : featureHistory.getScenarios().values()) {
+                total += scenarioHistory.getDurationMillis();
+                count++;
+            }
+        }
+        return count > 0 ? total / count : DEFAULT_SCENARIO_MILLIS;
+    }
+
+    private static int getLastFailedRun(FeatureHistory featureHistory, Integer line) {
+        if (featureHistory == null) {
+            return 0;
+        }
+        if (line == null) {
+            return featureHistory.getLastFailedRun();
+        }
+        ScenarioHistory scenarioHistory = featureHistory.getScenarios().get(line);
+        return scenarioHistory != null ? scenarioHistory.getLastFailedRun() : 0;
+    }
+
+    /**
+     * @return number of runs recorded
+     */
+    public int getRuns() {
+        return runs;
+    }
+
+    public void setRuns(int runs) {
+        this.runs = runs;
+    }
+
+    /**
+     * @return git commit checked out when the tests last passed, against which changes are compared when selecting
+     * the features affected by them
+     */
+    public String getLastSuccessfulCommit() {
+        return lastSuccessfulCommit;
+    }
+
+    public void setLastSuccessfulCommit(String lastSuccessfulCommit) {
+        this.lastSuccessfulCommit = lastSuccessfulCommit;
+    }
+
+    public Map<String, FeatureHistory> getFeatures() {
+        return features;
+    }
+
+    public void setFeatures(Map<String, FeatureHistory> features) {
+        this.features = new TreeMap<>(features);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return features.isEmpty();
+    }
+
+    /**
+     * History of a single feature file.
+     */
+    public static class FeatureHistory {
+
+        private long durationMillis;
+        private long lastRunTime;
+        private int lastFailedRun;
+        private Map<Integer, ScenarioHistory> scenarios = new TreeMap<>();
+
+        /**
+         * @return duration of the feature when it last ran, in milliseconds
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        /**
+         * @return time at which the feature last ran, in milliseconds since the epoch
+         */
+        public long getLastRunTime() {
+            return lastRunTime;
+        }
+
+        public void setLastRunTime(long lastRunTime) {
+            this.lastRunTime = lastRunTime;
+        }
+
+        /**
+         * @return number of the run in which the feature last failed, or {@code 0} if it never failed
+         */
+        public int getLastFailedRun() {
+            return lastFailedRun;
+        }
+
+        public void setLastFailedRun(int lastFailedRun) {
+            this.lastFailedRun = lastFailedRun;
+        }
+
+        /**
+         * @return history of each scenario within the feature, by the line on which it is defined
+         */
+        public Map<Integer, ScenarioHistory> getScenarios() {
+            return scenarios;
+        }
+
+        public void setScenarios(Map<Integer, ScenarioHistory> scenarios) {
+            this.scenarios = new TreeMap<>(scenarios);
+        }
+    }
+
+    /**
+     * History of a single scenario.
+     */
+    public static class ScenarioHistory {
+
+        private long durationMillis;
+        private int lastFailedRun;
+
+        /**
+         * @return duration of the scenario when it last ran, in milliseconds
+         */
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        /**
+         * @return number of the run in which the scenario last failed, or {@code 0} if it never failed
+         */
+        public int getLastFailedRun() {
+            return lastFailedRun;
+        }
+
+        public void setLastFailedRun(int lastFailedRun) {
+            this.lastFailedRun = lastFailedRun;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package org.technologybrewery.habushu.behave;
+
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Determines which feature files may be affected by a set of changed files by statically mapping Python modules to
+ * the features whose step implementations (transitively) import them.
+ * <p>
+ * Each step of a feature is matched against the patterns of the {@code @given}/{@code @when}/{@code @then}/{@code
+ * @step} decorators within the step modules, so that a feature depends on the step modules implementing its steps
+ * and on every module they import. The analysis errs on the side of running more features: steps that match no
+ * pattern depend on every step module, while changes to {@code environment.py} (or anything it imports), to global
+ * inputs such as poetry.lock, to non-Python files, or deletions of Python files affect every feature. Modules that
+ * are only imported dynamically (i.e. via {@code importlib}) are not detected.
+ */
+public class BehaveImpactAnalysis {
+
+    private static final Pattern IMPORT = Pattern.compile("^import\\s+(.+)$");
+    private static final Pattern FROM_IMPORT = Pattern.compile("^from\\s+(\\.*)([\\w.]*)\\s+import\\s+(.+)$");
+    private static final Pattern STEP_MATCHER = Pattern.compile(
+            "(?:use_step_matcher|step_matcher)\\s*\\(\\s*[\"'](\\w+)[\"']");
+    private static final Pattern STEP_DECORATOR = Pattern.compile(
+            "@(?:given|when|then|step|Given|When|Then|Step)\\s*\\(\\s*[uUrR]{0,2}([\"'])((?:\\\\.|(?!\\1).)*)\\1");
+    private static final Pattern FEATURE_STEP = Pattern.compile("^(?:Given|When|Then|And|But|\\*)\\s+(.+)$");
+    private static final Pattern MATCH_ANYTHING = Pattern.compile(".*");
+
+    private final File featuresDirectory;
+    private final List<File> importRoots;
+    private final Set<File> globalInputs;
+    private final Map<File, Set<File>> directImports = new HashMap<>();
+    private Map<File, List<Pattern>> stepPatterns;
+
+    /**
+     * @param featuresDirectory directory holding the feature files, their {@code steps} directory, and
+     *                          {@code environment.py}
+     * @param importRoots       directories against which absolute imports are resolved, i.e. the source directory
+     * @param globalInputs      files whose changes affect every feature, i.e. poetry.lock
+     */
+    public BehaveImpactAnalysis(File featuresDirectory, List<File> importRoots, List<File> globalInputs) {
+        this.featuresDirectory = normalize(featuresDirectory);
+        this.importRoots = new ArrayList<>();
+        this.importRoots.add(new File(this.featuresDirectory, "steps"));
+        this.importRoots.add(this.featuresDirectory);
+        importRoots.forEach(root -> this.importRoots.add(normalize(root)));
+        this.globalInputs = globalInputs.stream().map(BehaveImpactAnalysis::normalize).collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the first of the given changed files that may affect every feature.
+     *
+     * @param changedFiles changed files
+     * @return changed file affecting every feature, or {@code null} if there is none
+     */
+    public File findGlobalChange(Collection<File> changedFiles) {
+        Set<File> environment = getImportClosure(new File(featuresDirectory, "environment.py"));
+        for (File changedFile : changedFiles) {
+            File file = normalize(changedFile);
+            boolean python = file.getName().endsWith(".py");
+            if (globalInputs.contains(file) || environment.contains(file)) {
+                return changedFile;
+            }
+            if (!isWithinImportRoots(file) || file.getName().endsWith(".feature")) {
+                continue;
+            }
+            // deleted modules may leave steps unmatched, and non-Python files may be read by any module:
+            if (!python || !file.isFile()) {
+                return changedFile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the features that may be affected by the given changed files, which should first be checked via
+     * {@link #findGlobalChange(Collection)}.
+     *
+     * @param featureFiles feature files to consider
+     * @param changedFiles changed files
+     * @return affected features, in the order given
+     */
+    public List<FeatureFile> getAffectedFeatures(List<FeatureFile> featureFiles, Collection<File> changedFiles) {
+        Set<File> changed = changedFiles.stream().map(BehaveImpactAnalysis::normalize).collect(Collectors.toSet());
+        List<FeatureFile> affected = new ArrayList<>();
+        for (FeatureFile featureFile : featureFiles) {
+            Set<File> dependencies = getDependencies(featureFile.getFile());
+            if (dependencies.stream().anyMatch(changed::contains)) {
+                affected.add(featureFile);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Returns the files the given feature depends on: the feature file itself, the step modules implementing its
+     * steps, and every module they transitively import.
+     *
+     * @param featureFile feature file
+     * @return files the feature depends on
+     */
+    public Set<File> getDependencies(File featureFile) {
+        Map<File, List<Pattern>> patterns = getStepPatterns();
+        Set<File> stepModules = new LinkedHashSet<>();
+        for (String step : readSteps(featureFile)) {
+            Set<File> matching = new LinkedHashSet<>();
+            patterns.forEach((module, modulePatterns) -> {
+                if (modulePatterns.stream().anyMatch(pattern -> pattern.matcher(step).matches())) {
+                    matching.add(module);
+                }
+            });
+            stepModules.addAll(matching.isEmpty() ? patterns.keySet() : matching);
+        }
+
+        Set<File> dependencies = new LinkedHashSet<>();
+        dependencies.add(normalize(featureFile));
+        stepModules.forEach(module -> dependencies.addAll(getImportClosure(module)));
+        return dependencies;
+    }
+
+    /**
+     * Returns the given module and every module it transitively imports from within the import roots.
+     */
+    Set<File> getImportClosure(File module) {
+        Set<File> closure = new LinkedHashSet<>();
+        Deque<File> pending = new ArrayDeque<>();
+        pending.add(normalize(module));
+        while (!pending.isEmpty()) {
+            File current = pending.pop();
+            if (current.isFile() && closure.add(current)) {
+                pending.addAll(directImports.computeIfAbsent(current, this::parseImports));
+            }
+        }
+        return closure;
+    }
+
+    private Map<File, List<Pattern>> getStepPatterns() {
+        if (stepPatterns == null) {
+            stepPatterns = new HashMap<>();
+            for (File stepModule : listPythonFiles(new File(featuresDirectory, "steps"))) {
+                stepPatterns.put(stepModule, parseStepPatterns(stepModule));
+            }
+        }
+        return stepPatterns;
+    }
+
+    /**
+     * Parses the patterns of the step decorators within the given module, converting them from the step matcher in
+     * effect (behave's {@code parse} matcher by default) into regular expressions.
+     */
+    private static List<Pattern> parseStepPatterns(File stepModule) {
+        List<Pattern> patterns = new ArrayList<>();
+        String matcher = "parse";
+        for (String line : readLines(stepModule)) {
+            Matcher stepMatcher = STEP_MATCHER.matcher(line);
+            if (stepMatcher.find()) {
+                matcher = stepMatcher.group(1);
+            }
+            Matcher decorator = STEP_DECORATOR.matcher(line);
+            if (decorator.find()) {
+                String pattern = decorator.group(2).replaceAll("\\\\([\"'])", "$1");
+                patterns.add("re".equals(matcher) ? toRegex(pattern) : parsePatternToRegex(pattern));
+            }
+        }
+        return patterns;
+    }
+
+    private static Pattern toRegex(String pattern) {
+        try {
+            // Python's named groups use a different syntax:
+            return Pattern.compile(pattern.replace("(?P<", "(?<").replaceAll("\\(\\?P=(\\w+)\\)", "\\\\k<$1>"));
+        } catch (PatternSyntaxException e) {
+            return MATCH_ANYTHING;
+        }
+    }
+
+    /**
+     * Converts a {@code parse}/{@code cfparse} pattern into a regular expression in which every field matches
+     * anything, so that steps are never missed due to field types.
+     */
+    private static Pattern parsePatternToRegex(String pattern) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if ((c == '{' || c == '}') && i + 1 < pattern.length() && pattern.charAt(i + 1) == c) {
+                literal.append(c);
+                i++;
+            } else if (c == '{') {
+                int end = pattern.indexOf('}', i);
+                if (end < 0) {
+                    literal.append(pattern.substring(i));
+                    break;
+                }
+                regex.append(Pattern.quote(literal.toString())).append(".*?");
+                literal.setLength(0);
+                i = end;
+            } else {
+                literal.append(c);
+            }
+        }
+        regex.append(Pattern.quote(literal.toString()));
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * Reads the text of each step within a feature file, skipping doc strings and tables.
+     */
+    private static List<String> readSteps(File featureFile) {
+        List<String> steps = new ArrayList<>();
+        String docStringDelimiter = null;
+        for (String line : readLines(featureFile)) {
+            String trimmed = line.trim();
+            if (docStringDelimiter != null) {
+                if (trimmed.startsWith(docStringDelimiter)) {
+                    docStringDelimiter = null;
+                }
+                continue;
+            }
+            if (trimmed.startsWith("\"\"\"") || trimmed.startsWith("```")) {
+                docStringDelimiter = trimmed.substring(0, 3);
+                continue;
+            }
+            Matcher step = FEATURE_STEP.matcher(trimmed);
+            if (step.matches()) {
+                steps.add(step.group(1).trim());
+            }
+        }
+        return steps;
+    }
+
+    /**
+     * Parses the import statements within the given module, resolving them to modules within the import roots.
+     */
+    private Set<File> parseImports(File module) {
+        Set<File> imports = new LinkedHashSet<>();
+        for (String statement : readStatements(module)) {
+            Matcher importMatcher = IMPORT.matcher(statement);
+            Matcher fromMatcher = FROM_IMPORT.matcher(statement);
+            if (importMatcher.matches()) {
+                for (String name : StringUtils.split(importMatcher.group(1), ',')) {
+                    imports.addAll(resolveAbsolute(StringUtils.substringBefore(name.trim(), " ")));
+                }
+            } else if (fromMatcher.matches()) {
+                int level = fromMatcher.group(1).length();
+                String moduleName = fromMatcher.group(2);
+                List<String> names = new ArrayList<>();
+                for (String name : StringUtils.split(StringUtils.strip(fromMatcher.group(3), "() "), ',')) {
+                    names.add(StringUtils.substringBefore(name.trim(), " "));
+                }
+                List<File> bases = new ArrayList<>();
+                if (level > 0) {
+                    File base = module.getParentFile();
+                    for (int i = 1; i < level && base != null; i++) {
+                        base = base.getParentFile();
+                    }
+                    if (base != null) {
+                        bases.add(moduleName.isEmpty() ? base : new File(base, moduleName.replace('.', '/')));
+                    }
+                } else {
+                    imports.addAll(resolveAbsolute(moduleName));
+                    for (File root : importRoots) {
+                        bases.add(new File(root, moduleName.replace('.', '/')));
+                    }
+                }
+                for (File base : bases) {
+                    imports.addAll(resolveModule(base));
+                    // imported names may be submodules of the package:
+                    names.forEach(name -> imports.addAll(resolveModule(new File(base, name))));
+                }
+            }
+        }
+        return imports;
+    }
+
+    /**
+     * Resolves an absolute module name, including the {@code __init__.py} of each enclosing package, which Python
+     * executes when importing the module.
+     */
+    private List<File> resolveAbsolute(String moduleName) {
+        List<File> modules = new ArrayList<>();
+        if (moduleName.isEmpty()) {
+            return modules;
+        }
+        String[] parts = moduleName.split("\\.");
+        for (File root : importRoots) {
+            File current = root;
+            for (String part : parts) {
+                current = new File(current, part);
+                modules.addAll(resolveModule(current));
+            }
+        }
+        return modules;
+    }
+
+    private static List<File> resolveModule(File path) {
+        List<File> modules = new ArrayList<>();
+        File file = new File(path.getPath() + ".py");
+        if (file.isFile()) {
+            modules.add(normalize(file));
+        }
+        File init = new File(path, "__init__.py");
+        if (init.isFile()) {
+            modules.add(normalize(init));
+        }
+        return modules;
+    }
+
+    /**
+     * Reads the logical statements of a Python module, stripping comments and joining lines continued by a
+     * backslash or by unclosed parentheses.
+     */
+    private static List<String> readStatements(File module) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        int depth = 0;
+        for (String line : readLines(module)) {
+            String code = StringUtils.substringBefore(line, "#");
+            boolean continued = code.trim().endsWith("\\");
+            if (continued) {
+                code = StringUtils.removeEnd(code.trim(), "\\");
+            }
+            statement.append(' ').append(code.trim());
+            depth += StringUtils.countMatches(code, '(') - StringUtils.countMatches(code, ')');
+            if (!continued && depth <= 0) {
+                statements.add(statement.toString().trim());
+                statement.setLength(0);
+                depth = 0;
+            }
+        }
+        if (statement.length() > 0) {
+            statements.add(statement.toString().trim());
+        }
+        return statements;
+    }
+
+    private boolean isWithinImportRoots(File file) {
+        Path path = file.toPath();
+        return importRoots.stream().anyMatch(root -> path.startsWith(root.toPath()));
+    }
+
+    private static List<File> listPythonFiles(File directory) {
+        if (!directory.isDirectory()) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.walk(directory.toPath())) {
+            return files.filter(file -> file.toString().endsWith(".py"))
+                    .filter(Files::isRegularFile)
+                    .sorted()
+                    .map(file -> normalize(file.toFile()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new HabushuException("Could not list the step modules within " + directory, e);
+        }
+    }
+
+    private static List<String> readLines(File file) {
+        try {
+            return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read " + file, e);
+        }
+    }
+
+    private static File normalize(File file) {
+        return file.getAbsoluteFile().toPath().normalize().toFile();
+    }
+}
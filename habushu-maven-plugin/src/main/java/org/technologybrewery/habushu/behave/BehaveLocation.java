@@ -0,0 +1,90 @@
+package org.technologybrewery.habushu.behave;
+
+import java.io.File;
+import java.util.Objects;
+
+/**
+ * Feature file, or a single scenario within one, that may be passed to behave to run.
+ */
+public final class BehaveLocation {
+
+    private final File featureFile;
+    private final Integer line;
+    private final int scenarioCount;
+
+    private BehaveLocation(File featureFile, Integer line, int scenarioCount) {
+        this.featureFile = featureFile;
+        this.line = line;
+        this.scenarioCount = scenarioCount;
+    }
+
+    /**
+     * @param featureFile feature file
+     * @return location of every scenario within the feature file
+     */
+    public static BehaveLocation ofFeature(FeatureFile featureFile) {
+        return new BehaveLocation(featureFile.getFile(), null, featureFile.getScenarioLines().size());
+    }
+
+    /**
+     * @param featureFile feature file
+     * @param line        line on which the scenario is defined
+     * @return location of a single scenario
+     */
+    public static BehaveLocation ofScenario(FeatureFile featureFile, int line) {
+        return new BehaveLocation(featureFile.getFile(), line, 1);
+    }
+
+    /**
+     * @param featureFile path of the feature file
+     * @param line        line on which the scenario is defined
+     * @return location of a single scenario
+     */
+    public static BehaveLocation ofScenario(File featureFile, int line) {
+        return new BehaveLocation(featureFile.getAbsoluteFile(), line, 1);
+    }
+
+    public File getFeatureFile() {
+        return featureFile;
+    }
+
+    /**
+     * @return line on which the scenario is defined, or {@code null} if this is the location of a whole feature
+     */
+    public Integer getLine() {
+        return line;
+    }
+
+    /**
+     * @return number of scenarios at this location
+     */
+    public int getScenarioCount() {
+        return scenarioCount;
+    }
+
+    /**
+     * @return argument selecting this location when passed to behave (i.e. {@code /path/to/my.feature:12})
+     */
+    public String toArgument() {
+        return line != null ? featureFile.getPath() + ":" + line : featureFile.getPath();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof BehaveLocation)) {
+            return false;
+        }
+        BehaveLocation location = (BehaveLocation) other;
+        return featureFile.equals(location.featureFile) && Objects.equals(line, location.line);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(featureFile, line);
+    }
+
+    @Override
+    public String toString() {
+        return toArgument();
+    }
+}
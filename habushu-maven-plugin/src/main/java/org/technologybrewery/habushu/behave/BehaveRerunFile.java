@@ -0,0 +1,153 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Reads and writes the locations of failed scenarios in the format of behave's {@code rerun} formatter, i.e. one
+ * {@code path/to/my.feature:12} location per line, so that the file may also be passed to behave directly via
+ * {@code behave @file}.
+ */
+public final class BehaveRerunFile {
+
+    /**
+     * Cucumber step statuses that fail a scenario.
+     */
+    static final Set<String> FAILED_STATUSES = new HashSet<>(Arrays.asList("failed", "undefined"));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private BehaveRerunFile() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Returns the locations of the scenarios that failed within the given Cucumber report.
+     *
+     * @param report        Cucumber report
+     * @param featureFileOf maps the {@code uri} of each feature within the report to its feature file
+     * @return failed scenarios, in the order in which they are reported
+     */
+    public static List<BehaveLocation> getFailedScenarios(File report, Function<String, File> featureFileOf) {
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(report);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read Cucumber report " + report, e);
+        }
+
+        List<BehaveLocation> failed = new ArrayList<>();
+        for (JsonNode feature : root) {
+            String uri = feature.path("uri").asText(null);
+            if (uri == null) {
+                continue;
+            }
+            boolean backgroundFailed = false;
+            for (JsonNode element : feature.path("elements")) {
+                boolean elementFailed = false;
+                for (JsonNode step : element.path("steps")) {
+                    elementFailed |= FAILED_STATUSES.contains(step.path("result").path("status").asText());
+                }
+                if ("background".equals(element.path("type").asText())) {
+                    // a failed background fails the scenario that follows it:
+                    backgroundFailed = elementFailed;
+                } else {
+                    if (elementFailed || backgroundFailed) {
+                        BehaveLocation location = BehaveLocation.ofScenario(featureFileOf.apply(uri),
+                                element.path("line").asInt());
+                        if (!failed.contains(location)) {
+                            failed.add(location);
+                        }
+                    }
+                    backgroundFailed = false;
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Writes the given locations to the given file.
+     *
+     * @param rerunFile     file to write
+     * @param locations     locations of failed scenarios
+     * @param baseDirectory directory against which the paths of feature files are relativized, i.e. the directory
+     *                      from which behave is run
+     */
+    public static void write(File rerunFile, List<BehaveLocation> locations, File baseDirectory) {
+        Path base = baseDirectory.getAbsoluteFile().toPath().normalize();
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("# -- RERUN: %s failing scenarios during last test run.", locations.size()));
+        for (BehaveLocation location : locations) {
+            Path file = location.getFeatureFile().getAbsoluteFile().toPath().normalize();
+            String path = file.startsWith(base) ? base.relativize(file).toString() : file.toString();
+            String line = location.getLine() != null ? ":" + location.getLine() : "";
+            lines.add(path.replace(File.separatorChar, '/') + line);
+        }
+        try {
+            Files.createDirectories(rerunFile.getAbsoluteFile().getParentFile().toPath());
+            Files.write(rerunFile.toPath(), lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new HabushuException("Could not write the failed behave scenarios to " + rerunFile, e);
+        }
+    }
+
+    /**
+     * Reads the locations held in the given file, ignoring comments and blank lines.
+     *
+     * @param rerunFile     file to read
+     * @param baseDirectory directory against which relative paths of feature files are resolved
+     * @return locations held in the file, or {@code null} if the file does not exist
+     */
+    public static List<BehaveLocation> read(File rerunFile, File baseDirectory) {
+        if (!rerunFile.isFile()) {
+            return null;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(rerunFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read the failed behave scenarios in " + rerunFile, e);
+        }
+
+        List<BehaveLocation> locations = new ArrayList<>();
+        for (String line : lines) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            // only split on a trailing line number, so that Windows drive letters are retained:
+            String lineNumber = StringUtils.substringAfterLast(line, ":");
+            String path = StringUtils.isNumeric(lineNumber)
+                    ? StringUtils.substringBeforeLast(line, ":")
+                    : line;
+            File featureFile = new File(path);
+            if (!featureFile.isAbsolute()) {
+                featureFile = new File(baseDirectory, path);
+            }
+            if (path.equals(line)) {
+                if (featureFile.isFile()) {
+                    locations.add(BehaveLocation.ofFeature(FeatureFile.parse(featureFile)));
+                }
+            } else {
+                locations.add(BehaveLocation.ofScenario(featureFile, Integer.parseInt(lineNumber)));
+            }
+        }
+        return Collections.unmodifiableList(locations);
+    }
+}
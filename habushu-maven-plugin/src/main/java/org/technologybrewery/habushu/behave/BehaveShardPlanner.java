@@ -0,0 +1,60 @@
+package org.technologybrewery.habushu.behave;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Splits the locations to run into shards of roughly equal cost, each of which is run by a separate behave process.
+ */
+public final class BehaveShardPlanner {
+
+    private BehaveShardPlanner() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Assigns each item to a shard, placing the costliest items first, each onto the shard with the least total cost
+     * so far. Items retain their relative order within each shard, and no shard is empty.
+     *
+     * @param items      items to assign, in the order in which they should run
+     * @param shardCount maximum number of shards
+     * @param cost       estimated cost of running an item (i.e. its number of scenarios)
+     * @param <T>        item type
+     * @return shards, of which there are at most {@code shardCount}
+     */
+    public static <T> List<List<T>> plan(List<T> items, int shardCount, ToLongFunction<T> cost) {
+        int shards = Math.max(1, Math.min(shardCount, items.size()));
+        long[] shardCosts = new long[shards];
+        List<List<Integer>> assignments = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            assignments.add(new ArrayList<>());
+        }
+
+        List<Integer> costliestFirst = IntStream.range(0, items.size()).boxed()
+                .sorted(Comparator.comparingLong((Integer index) -> cost.applyAsLong(items.get(index))).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(Collectors.toList());
+        for (int index : costliestFirst) {
+            int cheapestShard = 0;
+            for (int shard = 1; shard < shards; shard++) {
+                if (shardCosts[shard] < shardCosts[cheapestShard]) {
+                    cheapestShard = shard;
+                }
+            }
+            assignments.get(cheapestShard).add(index);
+            shardCosts[cheapestShard] += Math.max(1, cost.applyAsLong(items.get(index)));
+        }
+
+        List<List<T>> plan = new ArrayList<>();
+        for (List<Integer> assignment : assignments) {
+            if (!assignment.isEmpty()) {
+                plan.add(assignment.stream().sorted().map(items::get).collect(Collectors.toList()));
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,203 @@
+package org.technologybrewery.habushu.behave;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.technologybrewery.habushu.HabushuException;
+import org.technologybrewery.habushu.util.SourceTreeDigest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Caches the Cucumber report of the latest passing behave run of a module, keyed by a fingerprint of its inputs, so
+ * that builds in which none of the inputs changed can restore the previous results rather than running every scenario
+ * again. Failed runs are never cached, so that failures (including flaky ones) are always run again.
+ * <p>
+ * Only a single result is held, so a cache directory should be dedicated to a single module. The result is recorded
+ * last when storing, so an interrupted build never leaves a result without its report.
+ */
+public class BehaveTestCache {
+
+    private static final String RESULT_FILE_NAME = "result.properties";
+    private static final String REPORT_FILE_NAME = "cucumber.json";
+    private static final String FINGERPRINT = "fingerprint";
+    private static final String PASSED = "passed";
+    private static final String HAS_REPORT = "hasReport";
+
+    private final File cacheDirectory;
+
+    /**
+     * New instance.
+     *
+     * @param cacheDirectory directory in which the result of the module is cached
+     */
+    public BehaveTestCache(File cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Computes the fingerprint of the given inputs. Directories are walked recursively, skipping Python bytecode
+     * caches, and files are identified by their path relative to the base directory so that the fingerprint does not
+     * depend on where the module is checked out.
+     *
+     * @param baseDirectory    directory against which the paths of inputs are relativized
+     * @param inputs           files and directories whose contents affect the results
+     * @param pathDependencies directories of local path dependencies, whose sources (as per {@link SourceTreeDigest})
+     *                         are installed into the virtual environment and so affect the results
+     * @param settings         other values that affect the results, i.e. options passed to behave and the
+     *                         interpreter version
+     * @return hex-encoded SHA-256 fingerprint
+     */
+    public static String computeFingerprint(File baseDirectory, List<File> inputs, List<File> pathDependencies,
+                                            List<String> settings) {
+        Path base = baseDirectory.getAbsoluteFile().toPath().normalize();
+        StringBuilder fingerprint = new StringBuilder();
+        for (File input : inputs) {
+            Path inputPath = input.getAbsoluteFile().toPath().normalize();
+            if (!Files.exists(inputPath)) {
+                fingerprint.append(getPath(base, inputPath)).append("=<missing>\n");
+            }
+            for (Path file : listFiles(inputPath)) {
+                fingerprint.append(getPath(base, file)).append('=').append(digestFile(file)).append('\n');
+            }
+        }
+        for (File pathDependency : pathDependencies) {
+            Path pathDependencyPath = pathDependency.getAbsoluteFile().toPath().normalize();
+            fingerprint.append("path:").append(getRelativePath(base, pathDependencyPath)).append('=')
+                    .append(SourceTreeDigest.compute(pathDependency)).append('\n');
+        }
+        settings.forEach(setting -> fingerprint.append(setting).append('\n'));
+        return DigestUtils.sha256Hex(fingerprint.toString());
+    }
+
+    /**
+     * Restores the result cached for the given fingerprint, copying its Cucumber report (if any) to the given file.
+     *
+     * @param fingerprint fingerprint of the current inputs
+     * @param report      file to which to restore the cached Cucumber report
+     * @return whether a passing result was cached for the fingerprint and restored
+     */
+    public boolean restore(String fingerprint, File report) {
+        Properties result = readResult();
+        // results cached before failures stopped being cached may record a failure, which is always run again:
+        if (result == null || !fingerprint.equals(result.getProperty(FINGERPRINT))
+                || !Boolean.parseBoolean(result.getProperty(PASSED))) {
+            return false;
+        }
+        if (Boolean.parseBoolean(result.getProperty(HAS_REPORT))) {
+            File cachedReport = new File(cacheDirectory, REPORT_FILE_NAME);
+            if (!cachedReport.isFile()) {
+                return false;
+            }
+            try {
+                FileUtils.copyFile(cachedReport, report);
+            } catch (IOException e) {
+                throw new HabushuException("Could not restore the cached Cucumber report to " + report, e);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Caches the result of a passing run, replacing any previously cached result.
+     *
+     * @param fingerprint fingerprint of the inputs of the run
+     * @param report      Cucumber report written by the run, or {@code null} if none was written
+     */
+    public void store(String fingerprint, File report) {
+        File resultFile = new File(cacheDirectory, RESULT_FILE_NAME);
+        try {
+            Files.createDirectories(cacheDirectory.toPath());
+            Files.deleteIfExists(resultFile.toPath());
+            File cachedReport = new File(cacheDirectory, REPORT_FILE_NAME);
+            Files.deleteIfExists(cachedReport.toPath());
+            if (report != null) {
+                FileUtils.copyFile(report, cachedReport);
+            }
+
+            Properties result = new Properties();
+            result.setProperty(FINGERPRINT, fingerprint);
+            result.setProperty(PASSED, Boolean.TRUE.toString());
+            result.setProperty(HAS_REPORT, Boolean.toString(report != null));
+            try (OutputStream outputStream = Files.newOutputStream(resultFile.toPath())) {
+                result.store(outputStream, "Generated by habushu-maven-plugin - safe to delete");
+            }
+        } catch (IOException e) {
+            throw new HabushuException("Could not cache behave results in " + cacheDirectory, e);
+        }
+    }
+
+    /**
+     * Removes any cached result, i.e. as a run failed or its inputs could not be fingerprinted.
+     */
+    public void invalidate() {
+        try {
+            Files.deleteIfExists(new File(cacheDirectory, RESULT_FILE_NAME).toPath());
+        } catch (IOException e) {
+            throw new HabushuException("Could not remove the cached behave results in " + cacheDirectory, e);
+        }
+    }
+
+    private Properties readResult() {
+        File resultFile = new File(cacheDirectory, RESULT_FILE_NAME);
+        if (!resultFile.isFile()) {
+            return null;
+        }
+        Properties result = new Properties();
+        try (InputStream inputStream = Files.newInputStream(resultFile.toPath())) {
+            result.load(inputStream);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+        return result;
+    }
+
+    private static String getPath(Path base, Path file) {
+        String path = file.startsWith(base) ? base.relativize(file).toString() : file.toString();
+        return path.replace(File.separatorChar, '/');
+    }
+
+    private static String getRelativePath(Path base, Path file) {
+        try {
+            // path dependencies are usually siblings of the module, i.e. ../common:
+            return base.relativize(file).toString().replace(File.separatorChar, '/');
+        } catch (IllegalArgumentException e) {
+            return getPath(base, file);
+        }
+    }
+
+    private static List<Path> listFiles(Path input) {
+        if (Files.isRegularFile(input)) {
+            return List.of(input);
+        }
+        if (!Files.isDirectory(input)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.walk(input)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> !file.toString().endsWith(".pyc"))
+                    .filter(file -> !input.relativize(file).toString().contains("__pycache__"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new HabushuException("Could not list the files within " + input, e);
+        }
+    }
+
+    private static String digestFile(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return DigestUtils.sha256Hex(inputStream);
+        } catch (IOException e) {
+            throw new HabushuException("Could not compute digest of " + file, e);
+        }
+    }
+}
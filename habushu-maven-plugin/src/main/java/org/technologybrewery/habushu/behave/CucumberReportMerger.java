@@ -0,0 +1,178 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges the Cucumber JSON reports written by several behave processes into the single report expected by
+ * {@code maven-cucumber-reporting}. Features whose scenarios were split across processes are combined into one
+ * feature, with their scenarios in the order in which they are defined.
+ */
+public final class CucumberReportMerger {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private CucumberReportMerger() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Merges the given reports into the target report, ignoring any that do not exist (i.e. because the behave
+     * process writing it failed to start).
+     *
+     * @param reports reports to merge
+     * @param target  report to write
+     * @return number of features within the merged report
+     */
+    public static int merge(List<File> reports, File target) {
+        Map<String, ObjectNode> features = new LinkedHashMap<>();
+        for (File report : reports) {
+            if (!report.isFile() || report.length() == 0) {
+                continue;
+            }
+            for (JsonNode feature : readReport(report)) {
+                if (!(feature instanceof ObjectNode)) {
+                    continue;
+                }
+                String key = getKey(feature);
+                ObjectNode merged = features.get(key);
+                if (merged == null) {
+                    features.put(key, ((ObjectNode) feature).deepCopy());
+                } else {
+                    ArrayNode elements = merged.withArray("elements");
+                    feature.path("elements").forEach(elements::add);
+                }
+            }
+        }
+
+        ArrayNode mergedReport = MAPPER.createArrayNode();
+        for (ObjectNode feature : features.values()) {
+            JsonNode elements = feature.get("elements");
+            if (elements instanceof ArrayNode) {
+                sortByLine((ArrayNode) elements);
+            }
+            mergedReport.add(feature);
+        }
+        try {
+            Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+            MAPPER.writeValue(target, mergedReport);
+        } catch (IOException e) {
+            throw new HabushuException("Could not write Cucumber report " + target, e);
+        }
+        return features.size();
+    }
+
+    /**
+     * Replaces the scenarios within the given report with those of the same feature and line within another report,
+     * i.e. to record the results of retrying failed scenarios in place of their original results.
+     *
+     * @param report        report to update
+     * @param retryReport   report holding the replacement scenarios
+     * @param baseDirectory directory against which relative feature uris are resolved, as features may be
+     *                      reported with relative or absolute uris depending on how they were passed to behave
+     * @return number of scenarios that were replaced
+     */
+    public static int replaceScenarios(File report, File retryReport, File baseDirectory) {
+        JsonNode root = readReport(report);
+        Map<String, ObjectNode> features = new LinkedHashMap<>();
+        for (JsonNode feature : root) {
+            if (feature instanceof ObjectNode) {
+                features.put(getFeaturePath(feature, baseDirectory), (ObjectNode) feature);
+            }
+        }
+
+        int replaced = 0;
+        for (JsonNode retryFeature : readReport(retryReport)) {
+            ObjectNode feature = features.get(getFeaturePath(retryFeature, baseDirectory));
+            if (feature == null) {
+                continue;
+            }
+            List<List<JsonNode>> retried = groupScenarios(retryFeature.path("elements"));
+            List<Integer> retriedLines = new ArrayList<>();
+            retried.forEach(scenario -> retriedLines.add(getLine(scenario)));
+
+            ArrayNode elements = feature.withArray("elements");
+            List<List<JsonNode>> scenarios = groupScenarios(elements);
+            int before = scenarios.size();
+            scenarios.removeIf(scenario -> retriedLines.contains(getLine(scenario)));
+            replaced += before - scenarios.size();
+            scenarios.addAll(retried);
+            scenarios.sort(Comparator.comparingInt(CucumberReportMerger::getLine));
+            elements.removeAll();
+            scenarios.forEach(elements::addAll);
+        }
+        try {
+            MAPPER.writeValue(report, root);
+        } catch (IOException e) {
+            throw new HabushuException("Could not write Cucumber report " + report, e);
+        }
+        return replaced;
+    }
+
+    private static JsonNode readReport(File report) {
+        try {
+            return MAPPER.readTree(report);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read Cucumber report " + report, e);
+        }
+    }
+
+    private static String getKey(JsonNode feature) {
+        return feature.path("uri").asText(feature.path("id").asText());
+    }
+
+    private static String getFeaturePath(JsonNode feature, File baseDirectory) {
+        File file = new File(getKey(feature));
+        if (!file.isAbsolute()) {
+            file = new File(baseDirectory, file.getPath());
+        }
+        return file.getAbsoluteFile().toPath().normalize().toString();
+    }
+
+    /**
+     * Sorts scenarios by the line on which they are defined, keeping any background element with the scenario that
+     * follows it.
+     */
+    private static void sortByLine(ArrayNode elements) {
+        List<List<JsonNode>> scenarios = groupScenarios(elements);
+        scenarios.sort(Comparator.comparingInt(CucumberReportMerger::getLine));
+        elements.removeAll();
+        scenarios.forEach(elements::addAll);
+    }
+
+    /**
+     * Groups elements into scenarios, each preceded by any background element that applies to it.
+     */
+    private static List<List<JsonNode>> groupScenarios(JsonNode elements) {
+        List<List<JsonNode>> scenarios = new ArrayList<>();
+        List<JsonNode> current = new ArrayList<>();
+        for (JsonNode element : elements) {
+            current.add(element);
+            if (!"background".equals(element.path("type").asText())) {
+                scenarios.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            scenarios.add(current);
+        }
+        return scenarios;
+    }
+
+    private static int getLine(List<JsonNode> scenario) {
+        return scenario.get(scenario.size() - 1).path("line").asInt();
+    }
+}
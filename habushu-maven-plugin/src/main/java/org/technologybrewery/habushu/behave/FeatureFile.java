@@ -0,0 +1,95 @@
+package org.technologybrewery.habushu.behave;
+
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Gherkin feature file within a behave features directory, along with the lines on which its scenarios are defined
+ * (i.e. so that they may be run individually via {@code behave path/to/my.feature:12}).
+ */
+public final class FeatureFile {
+
+    private static final String FEATURE_FILE_EXTENSION = ".feature";
+    private static final String[] SCENARIO_KEYWORDS = {"Scenario:", "Scenario Outline:", "Scenario Template:",
+            "Example:"};
+
+    private final File file;
+    private final List<Integer> scenarioLines;
+
+    private FeatureFile(File file, List<Integer> scenarioLines) {
+        this.file = file;
+        this.scenarioLines = scenarioLines;
+    }
+
+    /**
+     * Finds the feature files within the given directory and its sub-directories.
+     *
+     * @param featuresDirectory behave features directory
+     * @return feature files, ordered by path
+     */
+    public static List<FeatureFile> discover(File featuresDirectory) {
+        if (!featuresDirectory.isDirectory()) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(featuresDirectory.toPath())) {
+            return files.filter(Files::isRegularFile)
+                    .filter(path -> path.getFileName().toString().endsWith(FEATURE_FILE_EXTENSION))
+                    .sorted()
+                    .map(path -> parse(path.toFile()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new HabushuException("Could not discover feature files within " + featuresDirectory, e);
+        }
+    }
+
+    /**
+     * Reads the scenarios defined within the given feature file.
+     *
+     * @param file feature file
+     * @return parsed feature file
+     */
+    public static FeatureFile parse(File file) {
+        List<Integer> scenarioLines = new ArrayList<>();
+        try {
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i).trim();
+                for (String keyword : SCENARIO_KEYWORDS) {
+                    if (line.startsWith(keyword)) {
+                        scenarioLines.add(i + 1);
+                        break;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new HabushuException("Could not read feature file " + file, e);
+        }
+        return new FeatureFile(file.getAbsoluteFile(), Collections.unmodifiableList(scenarioLines));
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return 1-based lines on which scenarios (including scenario outlines) are defined
+     */
+    public List<Integer> getScenarioLines() {
+        return scenarioLines;
+    }
+
+    @Override
+    public String toString() {
+        return file.getPath();
+    }
+}
@@ -0,0 +1,65 @@
+package org.technologybrewery.habushu.exec;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Approximates the CPU time consumed by a child process and its descendants (i.e. the {@code pip} processes forked
+ * by {@code poetry install}). The JDK can only report the CPU time of a process while it is still running, so the
+ * process tree is periodically sampled from a single shared daemon thread and the last observed CPU time of each
+ * process is summed. CPU time used after the final sample of a process is therefore not included.
+ */
+final class ChildCpuSampler {
+
+    private static final long SAMPLE_INTERVAL_MILLIS = 100;
+
+    private static final ScheduledExecutorService SAMPLER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "habushu-cpu-sampler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ProcessHandle process;
+    private final Map<Long, Duration> cpuByPid = new ConcurrentHashMap<>();
+    private final ScheduledFuture<?> sampling;
+
+    private ChildCpuSampler(ProcessHandle process) {
+        this.process = process;
+        sample();
+        this.sampling = SAMPLER.scheduleAtFixedRate(this::sample, SAMPLE_INTERVAL_MILLIS, SAMPLE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts sampling the CPU time of the given process and its descendants.
+     *
+     * @param process process to sample
+     * @return sampler
+     */
+    static ChildCpuSampler start(Process process) {
+        return new ChildCpuSampler(process.toHandle());
+    }
+
+    /**
+     * Stops sampling and returns the CPU time observed.
+     *
+     * @return observed CPU time in milliseconds, or {@code null} if this platform does not report CPU time
+     */
+    Long stop() {
+        sampling.cancel(false);
+        sample();
+        return cpuByPid.isEmpty() ? null : cpuByPid.values().stream().mapToLong(Duration::toMillis).sum();
+    }
+
+    private void sample() {
+        Stream.concat(Stream.of(process), process.descendants()).forEach(handle ->
+                handle.info().totalCpuDuration().ifPresent(cpu -> cpuByPid.merge(handle.pid(), cpu,
+                        (previous, current) -> current.compareTo(previous) > 0 ? current : previous)));
+    }
+}
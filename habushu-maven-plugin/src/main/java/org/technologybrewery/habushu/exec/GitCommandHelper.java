@@ -0,0 +1,103 @@
+package org.technologybrewery.habushu.exec;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Facilitates the execution of git commands that determine which files of a module changed.
+ */
+public class GitCommandHelper {
+
+    private static final String GIT_COMMAND = "git";
+    private static final Logger logger = LoggerFactory.getLogger(GitCommandHelper.class);
+
+    private final File workingDirectory;
+
+    /**
+     * @param workingDirectory directory within the git work tree from which git commands are executed
+     */
+    public GitCommandHelper(File workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * Returns the commit checked out within the work tree.
+     *
+     * @return commit hash, or {@code null} if the working directory is not within a git work tree
+     */
+    public String getHeadCommit() {
+        try {
+            return StringUtils.trimToNull(execute(Arrays.asList("rev-parse", "HEAD")));
+        } catch (HabushuException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the files within the working directory that differ from the given commit, including both uncommitted
+     * changes and untracked files that are not ignored. As the comparison is made directly against the commit, files
+     * that only differ because the commit is on another branch are included too.
+     *
+     * @param ref commit hash or git ref to compare against
+     * @return changed files, relative to the working directory
+     */
+    public List<String> getChangedFiles(String ref) {
+        Set<String> changedFiles = new LinkedHashSet<>();
+        changedFiles.addAll(toLines(execute(Arrays.asList("-c", "core.quotePath=false", "diff", "--name-only",
+                "--relative", ref))));
+        changedFiles.addAll(toLines(execute(Arrays.asList("-c", "core.quotePath=false", "ls-files", "--others",
+                "--exclude-standard"))));
+        return new ArrayList<>(changedFiles);
+    }
+
+    /**
+     * Returns the files within the working directory that differ from the commit at which the current branch forked
+     * from the given git ref (i.e. as a pull request would), falling back to the ref itself if they share no history.
+     * Both uncommitted changes and untracked files that are not ignored are included, but changes made only on the
+     * ref since the fork point are not.
+     *
+     * @param ref git ref (i.e. {@code origin/main}) to compare against
+     * @return changed files, relative to the working directory
+     */
+    public List<String> getChangedFilesSinceForkPoint(String ref) {
+        String base;
+        try {
+            base = StringUtils.defaultIfBlank(execute(Arrays.asList("merge-base", "HEAD", ref)).trim(), ref);
+        } catch (HabushuException e) {
+            base = ref;
+        }
+        return getChangedFiles(base);
+    }
+
+    private static List<String> toLines(String output) {
+        List<String> lines = new ArrayList<>();
+        for (String line : StringUtils.split(StringUtils.defaultString(output), "\r\n")) {
+            // the result falls back to stderr when stdout is empty, so skip any diagnostics git wrote there:
+            if (StringUtils.isNotBlank(line) && !line.startsWith("warning:") && !line.startsWith("hint:")) {
+                lines.add(line.trim());
+            }
+        }
+        return lines;
+    }
+
+    private String execute(List<String> arguments) {
+        logger.debug("Executing git command: {} {}", GIT_COMMAND, StringUtils.join(arguments, " "));
+        return createGitExecutor(arguments).executeAndGetResult(logger);
+    }
+
+    protected ProcessExecutor createGitExecutor(List<String> arguments) {
+        List<String> fullCommandArgs = new ArrayList<>();
+        fullCommandArgs.add(GIT_COMMAND);
+        fullCommandArgs.addAll(arguments);
+        return new ProcessExecutor(workingDirectory, fullCommandArgs, Platform.guess(), null);
+    }
+}
@@ -0,0 +1,59 @@
+package org.technologybrewery.habushu.exec;
+
+import org.slf4j.event.Level;
+
+/**
+ * Determines the level at which a line of process output should be logged based on the level keywords it contains
+ * (i.e. {@code ERROR}, {@code WARNING}), matching them case-insensitively without allocating any intermediate strings
+ * so that very verbose processes (i.e. {@code poetry install -vvv}) may be logged cheaply.
+ */
+public final class OutputLineClassifier {
+
+    private static final String ERROR = "error";
+    private static final String CRITICAL = "critical";
+    private static final String WARNING = "warning";
+    private static final String DEBUG = "debug";
+
+    private OutputLineClassifier() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Classifies the given line of process output. Lines mentioning {@code error} or {@code critical} are errors,
+     * followed by {@code warning} and then {@code debug}; all other lines are informational.
+     *
+     * @param line line of process output
+     * @return level at which the line should be logged
+     */
+    public static Level classify(String line) {
+        if (containsIgnoreCase(line, ERROR) || containsIgnoreCase(line, CRITICAL)) {
+            return Level.ERROR;
+        } else if (containsIgnoreCase(line, WARNING)) {
+            return Level.WARN;
+        } else if (containsIgnoreCase(line, DEBUG)) {
+            return Level.DEBUG;
+        }
+        return Level.INFO;
+    }
+
+    /**
+     * Returns whether the given line contains the given lower-case ASCII keyword, ignoring case.
+     *
+     * @param line    text to search
+     * @param keyword lower-case ASCII keyword
+     * @return whether the keyword was found
+     */
+    static boolean containsIgnoreCase(String line, String keyword) {
+        int keywordLength = keyword.length();
+        int lastStart = line.length() - keywordLength;
+        char first = keyword.charAt(0);
+        char firstUpper = Character.toUpperCase(first);
+        for (int i = 0; i <= lastStart; i++) {
+            char c = line.charAt(i);
+            if ((c == first || c == firstUpper) && line.regionMatches(true, i + 1, keyword, 1, keywordLength - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
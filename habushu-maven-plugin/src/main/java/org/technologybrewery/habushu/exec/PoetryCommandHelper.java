@@ -1,15 +1,23 @@
 package org.technologybrewery.habushu.exec;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.io.InputStreamReader;
 
@@ -19,6 +27,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.util.PoetryUtil;
 
 /**
  * Facilitates the execution of Poetry commands.
@@ -30,10 +39,47 @@ public class PoetryCommandHelper {
 
     private static final String extractVersionRegex = "[^0-9\\.]";
 
+    /**
+     * Matches package lines within {@code poetry show} output, i.e.
+     * {@code black (!) 23.1.0 The uncompromising code formatter.}.
+     */
+    private static final Pattern SHOW_LINE_PATTERN = Pattern.compile("^([A-Za-z0-9][A-Za-z0-9._-]*)\\s+(?:\\(!\\)\\s+)?(\\S+)");
+
+    /**
+     * Dependency inventories listed during this build, keyed by project directory and poetry.lock state.
+     */
+    private static final Map<String, Map<String, String>> DEPENDENCY_INVENTORIES = new ConcurrentHashMap<>();
+
     private File workingDirectory;
 
+    private ToolchainProbeCache probeCache;
+
+    private boolean useDaemon;
+
     public PoetryCommandHelper(File workingDirectory) {
+        this(workingDirectory, null);
+    }
+
+    /**
+     * New instance that reuses cached toolchain probe results, such as {@code poetry --version}, where possible.
+     *
+     * @param workingDirectory directory from which Poetry commands are executed
+     * @param probeCache       cache of toolchain probe results, or {@code null} to always execute probes
+     */
+    public PoetryCommandHelper(File workingDirectory, ToolchainProbeCache probeCache) {
         this.workingDirectory = workingDirectory;
+        this.probeCache = probeCache;
+    }
+
+    /**
+     * Sets whether supported Poetry commands are executed by a long-lived {@link PoetryDaemon} rather than by
+     * starting a new Poetry process for each command. Commands fall back to the Poetry CLI whenever the daemon is
+     * unavailable.
+     *
+     * @param useDaemon whether to use a Poetry daemon
+     */
+    public void setUseDaemon(boolean useDaemon) {
+        this.useDaemon = useDaemon;
     }
 
     /**
@@ -46,8 +92,8 @@ public class PoetryCommandHelper {
      */
     public Pair<Boolean, String> getIsPoetryInstalledAndVersion() {
         try {
-            ProcessExecutor executor = createPoetryExecutor(Arrays.asList("--version"));
-            String versionResult = executor.executeAndGetResult(logger);
+            List<String> arguments = Arrays.asList("--version");
+            String versionResult = probe(arguments);
 
             // Extracts version number from output, whether it's "Poetry version 1.1.15" or
             // "Poetry (version 1.2.1)"
@@ -68,6 +114,22 @@ public class PoetryCommandHelper {
         return execute(Arrays.asList("config", "cache-dir"));
     }
 
+    /**
+     * Returns the directory of the virtual environment that Poetry uses for this
+     * project. This is equivalent to {@code poetry env info --path}.
+     *
+     * @return virtual environment directory, or {@code null} if no virtual
+     *         environment has been created yet
+     */
+    public File getVirtualEnvironmentDirectory() {
+        try {
+            String path = execute(Arrays.asList("env", "info", "--path"));
+            return StringUtils.isNotBlank(path) ? new File(path.trim()) : null;
+        } catch (Throwable e) {
+            return null;
+        }
+    }
+
     /**
      * Returns whether the specified dependency package is installed within this
      * Poetry project's virtual environment (and pyproject.toml).
@@ -76,13 +138,41 @@ public class PoetryCommandHelper {
      * @return
      */
     public boolean isDependencyInstalled(String packageName) {
-        try {
-            execute(Arrays.asList("show", packageName));
-        } catch (Throwable e) {
-            return false;
-        }
-        return true;
+        return getInstalledDependencies().containsKey(PoetryUtil.normalizePackageName(packageName));
+    }
+
+    /**
+     * Returns the packages that are known to this Poetry project, keyed by their
+     * normalized name (see {@link PoetryUtil#normalizePackageName(String)}), as
+     * listed by a single {@code poetry show} invocation. The inventory is cached
+     * for the remainder of the build and is refreshed whenever poetry.lock changes
+     * or dependencies are added via this helper.
+     *
+     * @return package versions keyed by normalized package name, which is empty if
+     *         the packages could not be listed (i.e. no poetry.lock exists yet)
+     */
+    public Map<String, String> getInstalledDependencies() {
+        return DEPENDENCY_INVENTORIES.computeIfAbsent(getDependencyInventoryKey(), key -> {
+            try {
+                return Collections.unmodifiableMap(parseDependencyInventory(execute(Arrays.asList("show", "--no-ansi"))));
+            } catch (Throwable e) {
+                logger.debug("Could not list the dependencies of {}", workingDirectory, e);
+                return Collections.emptyMap();
+            }
+        });
+    }
 
+    /**
+     * Returns the given packages that are not yet known to this Poetry project.
+     *
+     * @param packageNames names of the required packages
+     * @return required packages that are missing, in the given order
+     */
+    public List<String> getMissingDependencies(Collection<String> packageNames) {
+        Map<String, String> installedDependencies = getInstalledDependencies();
+        return packageNames.stream()
+                .filter(packageName -> !installedDependencies.containsKey(PoetryUtil.normalizePackageName(packageName)))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -92,7 +182,68 @@ public class PoetryCommandHelper {
      * @param packageName
      */
     public void installDevelopmentDependency(String packageName) throws MojoExecutionException {
-        execute(Arrays.asList("add", packageName, "--group", "dev"));
+        installDevelopmentDependencies(Collections.singletonList(packageName));
+    }
+
+    /**
+     * Installs the specified packages as development dependencies to this Poetry
+     * project's virtual environment and pyproject.toml specification using a
+     * single {@code poetry add --group dev} invocation.
+     *
+     * @param packageNames
+     */
+    public void installDevelopmentDependencies(Collection<String> packageNames) throws MojoExecutionException {
+        if (packageNames.isEmpty()) {
+            return;
+        }
+
+        List<String> arguments = new ArrayList<>();
+        arguments.add("add");
+        arguments.addAll(packageNames);
+        arguments.add("--group");
+        arguments.add("dev");
+        try {
+            execute(arguments);
+        } finally {
+            invalidateDependencyInventory();
+        }
+    }
+
+    /**
+     * Parses the output of {@code poetry show}, in which each line starts with a
+     * package name, optionally followed by {@code (!)} if the package is locked but
+     * not installed, and its version.
+     *
+     * @param output command output
+     * @return package versions keyed by normalized package name
+     */
+    static Map<String, String> parseDependencyInventory(String output) {
+        Map<String, String> dependencies = new HashMap<>();
+        for (String line : StringUtils.split(StringUtils.defaultString(output), "\r\n")) {
+            Matcher matcher = SHOW_LINE_PATTERN.matcher(line);
+            if (matcher.find()) {
+                dependencies.put(PoetryUtil.normalizePackageName(matcher.group(1)), matcher.group(2));
+            }
+        }
+        return dependencies;
+    }
+
+    private void invalidateDependencyInventory() {
+        String prefix = getCanonicalWorkingDirectory() + "|";
+        DEPENDENCY_INVENTORIES.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    private String getDependencyInventoryKey() {
+        File lockFile = new File(workingDirectory, "poetry.lock");
+        return getCanonicalWorkingDirectory() + "|" + lockFile.lastModified() + "|" + lockFile.length();
+    }
+
+    private String getCanonicalWorkingDirectory() {
+        try {
+            return workingDirectory.getCanonicalPath();
+        } catch (IOException e) {
+            return workingDirectory.getAbsolutePath();
+        }
     }
 
     /**
@@ -108,7 +259,7 @@ public class PoetryCommandHelper {
      */
     public String execute(List<String> arguments) throws MojoExecutionException {
         if (logger.isInfoEnabled()) {
-            logger.info("Executing Poetry command: {} {}", POETRY_COMMAND, StringUtils.join(arguments, " "));
+            logger.info("{}Executing Poetry command: {} {}", ProcessLogContext.getLinePrefix(), POETRY_COMMAND, StringUtils.join(arguments, " "));
         }
         ProcessExecutor executor = createPoetryExecutor(arguments);
         return executor.executeAndGetResult(logger);
@@ -127,7 +278,7 @@ public class PoetryCommandHelper {
      */
     public int executeAndLogOutput(List<String> arguments) throws MojoExecutionException {
         if (logger.isInfoEnabled()) {
-            logger.info("Executing Poetry command: {} {}", POETRY_COMMAND, StringUtils.join(arguments, " "));
+            logger.info("{}Executing Poetry command: {} {}", ProcessLogContext.getLinePrefix(), POETRY_COMMAND, StringUtils.join(arguments, " "));
         }
         ProcessExecutor executor = createPoetryExecutor(arguments);
         return executor.executeAndRedirectOutput(logger);
@@ -146,15 +297,31 @@ public class PoetryCommandHelper {
      */
     public int executeWithSensitiveArgsAndLogOutput(List<Pair<String, Boolean>> argAndIsSensitivePairs)
             throws MojoExecutionException {
-        if (logger.isInfoEnabled()) {
-            List<String> argsWithSensitiveArgsMasked = argAndIsSensitivePairs.stream()
-                    .map(pair -> pair.getRight() ? "XXXX" : pair.getLeft()).collect(Collectors.toList());
-            logger.info("Executing Poetry command: {} {}", POETRY_COMMAND,
-                    StringUtils.join(argsWithSensitiveArgsMasked, " "));
-        }
+        return createMaskedPoetryExecutor(argAndIsSensitivePairs).executeAndRedirectOutput(logger);
+    }
+
+    /**
+     * Similar to {@link #execute(List)}, except the executed Poetry command that
+     * is logged and recorded in build metrics obfuscates/masks any given command
+     * arguments that are marked as sensitive, such as passwords.
+     *
+     * @param argAndIsSensitivePairs
+     * @return
+     * @throws MojoExecutionException
+     */
+    public String executeWithSensitiveArgs(List<Pair<String, Boolean>> argAndIsSensitivePairs)
+            throws MojoExecutionException {
+        return createMaskedPoetryExecutor(argAndIsSensitivePairs).executeAndGetResult(logger);
+    }
+
+    private ProcessExecutor createMaskedPoetryExecutor(List<Pair<String, Boolean>> argAndIsSensitivePairs) {
+        String maskedCommand = POETRY_COMMAND + " " + argAndIsSensitivePairs.stream()
+                .map(pair -> pair.getRight() ? "XXXX" : pair.getLeft()).collect(Collectors.joining(" "));
+        logger.info("{}Executing Poetry command: {}", ProcessLogContext.getLinePrefix(), maskedCommand);
         ProcessExecutor executor = createPoetryExecutor(
                 argAndIsSensitivePairs.stream().map(Pair::getLeft).collect(Collectors.toList()));
-        return executor.executeAndRedirectOutput(logger);
+        executor.setCommandForMetrics(maskedCommand);
+        return executor;
     }
 
     /**
@@ -205,13 +372,35 @@ public class PoetryCommandHelper {
         args.add("self");
         args.add("add");
         args.add(name);
-        return this.executeAndLogOutput(args);
+        int exitCode = this.executeAndLogOutput(args);
+
+        // running daemons have already loaded the previous set of plugins:
+        PoetryDaemon.shutdownAll();
+        return exitCode;
+    }
+
+    private String probe(List<String> arguments) {
+        if (probeCache == null) {
+            return createPoetryExecutor(arguments).executeAndGetResult(logger);
+        }
+
+        List<String> fullCommandArgs = new ArrayList<>();
+        fullCommandArgs.add(POETRY_COMMAND);
+        fullCommandArgs.addAll(arguments);
+        return probeCache.probe(workingDirectory, fullCommandArgs,
+                () -> createPoetryExecutor(arguments).executeAndGetResult(logger));
     }
 
     protected ProcessExecutor createPoetryExecutor(List<String> arguments) {
         List<String> fullCommandArgs = new ArrayList<>();
         fullCommandArgs.add(POETRY_COMMAND);
         fullCommandArgs.addAll(arguments);
+        if (useDaemon && PoetryDaemon.supports(arguments)) {
+            List<String> launchCommand = PoetryDaemon.getDefaultLaunchCommand();
+            if (launchCommand != null) {
+                return new PoetryDaemonProcessExecutor(workingDirectory, arguments, fullCommandArgs, launchCommand);
+            }
+        }
         return new ProcessExecutor(workingDirectory, fullCommandArgs, Platform.guess(), null);
     }
 }
\ No newline at end of file
@@ -0,0 +1,362 @@
+package org.technologybrewery.habushu.exec;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent Python process that imports Poetry once and then executes Poetry commands in-process, which avoids
+ * paying Poetry's interpreter startup and import cost for every command that Habushu runs.
+ * <p>
+ * Commands are exchanged as single-line JSON documents over the daemon's stdin/stdout (see {@code poetry_daemon.py}).
+ * Daemons are pooled per launch command and environment, and each daemon executes one command at a time, so
+ * concurrently built modules each borrow their own daemon. Any protocol error disables the offending daemon and is
+ * reported to the caller as a {@link PoetryDaemonException}, upon which the command should be re-run with the Poetry
+ * CLI if the daemon had not yet received it. All daemons are stopped via {@link #shutdownAll()} at the end of the
+ * build, or when the JVM exits.
+ */
+public final class PoetryDaemon {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoetryDaemon.class);
+
+    private static final String DAEMON_SCRIPT = "poetry_daemon.py";
+    private static final long STARTUP_TIMEOUT_SECONDS = 60;
+    private static final long LIVENESS_CHECK_MILLIS = 1000;
+
+    /**
+     * Poetry commands that are safe to execute within a long-lived process. Commands such as {@code run} and
+     * {@code shell} replace or take over the calling process, and {@code self} commands modify Poetry's own
+     * environment, so those are always executed via the CLI.
+     */
+    private static final Set<String> SUPPORTED_COMMANDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            "add", "build", "check", "config", "env", "export", "install", "lock", "publish", "remove", "show",
+            "update", "version")));
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // keyed by launch command and environment, as a daemon executes every command with the environment it started in:
+    private static final Map<List<Object>, Deque<PoetryDaemon>> IDLE_DAEMONS = new ConcurrentHashMap<>();
+    private static final Set<PoetryDaemon> RUNNING_DAEMONS = ConcurrentHashMap.newKeySet();
+    private static final Map<List<Object>, String> UNAVAILABLE_DAEMONS = new ConcurrentHashMap<>();
+    private static final AtomicLong REQUEST_IDS = new AtomicLong();
+
+    private static volatile List<String> defaultLaunchCommand;
+    private static volatile boolean shutdownHookRegistered;
+
+    private final Process process;
+    private final Writer requests;
+    private final BlockingQueue<JsonNode> messages = new LinkedBlockingQueue<>();
+    private final Thread messageReader;
+    private final String poetryVersion;
+
+    private PoetryDaemon(List<String> launchCommand, Map<String, String> environment) throws PoetryDaemonException {
+        ProcessBuilder processBuilder = new ProcessBuilder(launchCommand);
+        processBuilder.environment().clear();
+        processBuilder.environment().putAll(environment);
+        try {
+            this.process = processBuilder.start();
+        } catch (IOException e) {
+            throw new PoetryDaemonException("Could not start Poetry daemon " + launchCommand, e);
+        }
+        this.requests = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        this.messageReader = startThread("stdout", () -> readMessages(process.getInputStream()));
+        startThread("stderr", () -> logDiagnostics(process.getErrorStream()));
+
+        JsonNode ready = nextMessage(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS, false);
+        if (ready == null || !ready.path("ready").asBoolean(false)) {
+            process.destroyForcibly();
+            String reason = ready != null ? ready.path("error").asText("unexpected handshake " + ready)
+                    : "no handshake within " + STARTUP_TIMEOUT_SECONDS + " seconds";
+            throw new PoetryDaemonException(reason);
+        }
+        this.poetryVersion = ready.path("poetry").asText();
+    }
+
+    /**
+     * Returns whether the given Poetry command may be executed by a daemon.
+     *
+     * @param arguments Poetry command arguments (excluding {@code poetry} itself)
+     * @return whether the command is supported
+     */
+    public static boolean supports(List<String> arguments) {
+        for (String argument : arguments) {
+            if (!argument.startsWith("-")) {
+                return SUPPORTED_COMMANDS.contains(argument);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Executes a Poetry command using an idle daemon started with the given launch command and environment, starting
+     * a new daemon if none is available. Each line of output is written to the given streams as it is produced.
+     *
+     * @param launchCommand    command that starts a daemon
+     * @param environment      environment variables of the daemon (and so of the Poetry command)
+     * @param workingDirectory directory from which the Poetry command is executed
+     * @param arguments        Poetry command arguments (excluding {@code poetry} itself)
+     * @param stdout           receives the command's stdout
+     * @param stderr           receives the command's stderr
+     * @return exit code of the Poetry command
+     * @throws PoetryDaemonException if the daemon is unavailable or a protocol error occurs
+     */
+    public static int execute(List<String> launchCommand, Map<String, String> environment, File workingDirectory,
+                              List<String> arguments, OutputStream stdout, OutputStream stderr)
+            throws PoetryDaemonException {
+        List<Object> key = Arrays.asList(launchCommand, environment);
+        String unavailableReason = UNAVAILABLE_DAEMONS.get(key);
+        if (unavailableReason != null) {
+            throw new PoetryDaemonException(unavailableReason);
+        }
+
+        PoetryDaemon daemon = borrow(key, launchCommand, environment);
+        boolean healthy = false;
+        try {
+            int exitCode = daemon.run(workingDirectory, arguments, stdout, stderr);
+            healthy = true;
+            return exitCode;
+        } finally {
+            if (healthy) {
+                IDLE_DAEMONS.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>()).push(daemon);
+            } else {
+                daemon.stop();
+            }
+        }
+    }
+
+    /**
+     * Returns the command that starts a daemon using the Python interpreter of the {@code poetry} executable on the
+     * PATH, as declared by its shebang line. The daemon script is extracted to a temporary file once per JVM.
+     *
+     * @return launch command, or {@code null} if Poetry's interpreter cannot be determined (i.e. on Windows, where
+     * Poetry is installed as an executable wrapper)
+     */
+    public static List<String> getDefaultLaunchCommand() {
+        if (defaultLaunchCommand == null) {
+            synchronized (PoetryDaemon.class) {
+                if (defaultLaunchCommand == null) {
+                    defaultLaunchCommand = createDefaultLaunchCommand();
+                }
+            }
+        }
+        return defaultLaunchCommand.isEmpty() ? null : defaultLaunchCommand;
+    }
+
+    /**
+     * Stops all daemons. Daemons are started again on demand, so this may also be used to discard daemons whose
+     * loaded state is stale, such as after a Poetry plugin is installed.
+     */
+    public static void shutdownAll() {
+        IDLE_DAEMONS.clear();
+        UNAVAILABLE_DAEMONS.clear();
+        for (PoetryDaemon daemon : new ArrayList<>(RUNNING_DAEMONS)) {
+            daemon.stop();
+        }
+    }
+
+    private static PoetryDaemon borrow(List<Object> key, List<String> launchCommand, Map<String, String> environment)
+            throws PoetryDaemonException {
+        Deque<PoetryDaemon> idle = IDLE_DAEMONS.computeIfAbsent(key, k -> new ConcurrentLinkedDeque<>());
+        PoetryDaemon daemon;
+        while ((daemon = idle.poll()) != null) {
+            if (daemon.messageReader.isAlive()) {
+                return daemon;
+            }
+            daemon.stop();
+        }
+
+        registerShutdownHook();
+        try {
+            daemon = new PoetryDaemon(launchCommand, environment);
+        } catch (PoetryDaemonException e) {
+            UNAVAILABLE_DAEMONS.put(key, e.getMessage());
+            throw e;
+        }
+        RUNNING_DAEMONS.add(daemon);
+        logger.debug("Started Poetry {} daemon", daemon.poetryVersion);
+        return daemon;
+    }
+
+    private int run(File workingDirectory, List<String> arguments, OutputStream stdout, OutputStream stderr)
+            throws PoetryDaemonException {
+        long requestId = REQUEST_IDS.incrementAndGet();
+        ObjectNode request = MAPPER.createObjectNode();
+        request.put("id", requestId);
+        request.put("cwd", workingDirectory.getAbsolutePath());
+        ArrayNode args = request.putArray("args");
+        arguments.forEach(args::add);
+
+        try {
+            requests.write(MAPPER.writeValueAsString(request));
+            requests.write('\n');
+            requests.flush();
+        } catch (IOException e) {
+            throw new PoetryDaemonException("Could not send request to Poetry daemon", e);
+        }
+
+        // from here on, the daemon may have acted upon the command:
+        while (true) {
+            JsonNode message = nextMessage(LIVENESS_CHECK_MILLIS, TimeUnit.MILLISECONDS, true);
+            if (message == null) {
+                // all output has been consumed once the reader reaches the end of the daemon's stdout:
+                if (!messageReader.isAlive() && messages.isEmpty()) {
+                    throw new PoetryDaemonException("Poetry daemon exited unexpectedly", true);
+                }
+                continue;
+            }
+            if (message.path("id").asLong(-1) != requestId) {
+                throw new PoetryDaemonException("Unexpected message from Poetry daemon: " + message, true);
+            }
+            if (message.has("error")) {
+                throw new PoetryDaemonException(message.path("error").asText(), true);
+            }
+            if (message.has("exit")) {
+                return message.path("exit").asInt();
+            }
+            if (message.has("line")) {
+                OutputStream target = "err".equals(message.path("stream").asText()) ? stderr : stdout;
+                writeLine(target, message.path("line").asText());
+            } else {
+                throw new PoetryDaemonException("Unexpected message from Poetry daemon: " + message, true);
+            }
+        }
+    }
+
+    private JsonNode nextMessage(long timeout, TimeUnit unit, boolean commandStarted) throws PoetryDaemonException {
+        try {
+            return messages.poll(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PoetryDaemonException("Interrupted while waiting for Poetry daemon", e, commandStarted);
+        }
+    }
+
+    private void readMessages(InputStream inputStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+                try {
+                    messages.add(MAPPER.readTree(line));
+                } catch (IOException e) {
+                    // surfaces as a protocol error on the waiting request:
+                    messages.add(MAPPER.createObjectNode().put("error", "Malformed message: " + line));
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Stopped reading from Poetry daemon", e);
+        }
+    }
+
+    private void logDiagnostics(InputStream inputStream) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                logger.debug("[poetry daemon] {}", line);
+            }
+        } catch (IOException e) {
+            logger.debug("Stopped reading diagnostics from Poetry daemon", e);
+        }
+    }
+
+    private void stop() {
+        RUNNING_DAEMONS.remove(this);
+        try {
+            // the daemon exits once its stdin is closed:
+            requests.close();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void writeLine(OutputStream target, String line) throws PoetryDaemonException {
+        try {
+            target.write((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new PoetryDaemonException("Could not write Poetry daemon output", e, true);
+        }
+    }
+
+    private static Thread startThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, "habushu-poetry-daemon-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    private static void registerShutdownHook() {
+        if (!shutdownHookRegistered) {
+            synchronized (PoetryDaemon.class) {
+                if (!shutdownHookRegistered) {
+                    Runtime.getRuntime().addShutdownHook(new Thread(PoetryDaemon::shutdownAll,
+                            "habushu-poetry-daemon-shutdown"));
+                    shutdownHookRegistered = true;
+                }
+            }
+        }
+    }
+
+    private static List<String> createDefaultLaunchCommand() {
+        File poetry = ToolchainProbeCache.resolveExecutable("poetry");
+        if (poetry == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> shebang = ToolchainProbeCache.readShebang(poetry);
+        if (!String.join(" ", shebang).contains("python")) {
+            logger.debug("{} is not a Python script - Poetry daemon is unavailable", poetry);
+            return Collections.emptyList();
+        }
+
+        List<String> command = new ArrayList<>(shebang);
+        try (InputStream script = PoetryDaemon.class.getResourceAsStream(DAEMON_SCRIPT)) {
+            Path scriptFile = Files.createTempFile("habushu-poetry-daemon", ".py");
+            scriptFile.toFile().deleteOnExit();
+            Files.copy(script, scriptFile, StandardCopyOption.REPLACE_EXISTING);
+            command.add(scriptFile.toString());
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not extract {} - Poetry daemon is unavailable", DAEMON_SCRIPT, e);
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(command);
+    }
+}
@@ -0,0 +1,41 @@
+package org.technologybrewery.habushu.exec;
+
+/**
+ * Indicates that a command could not be completed by a {@link PoetryDaemon}, either because no daemon could be
+ * started or because the daemon violated its protocol. Unless {@link #isCommandStarted() the command had started},
+ * it should be re-run with the Poetry CLI.
+ */
+public class PoetryDaemonException extends Exception {
+
+    private static final long serialVersionUID = -2286301873465513874L;
+
+    private final boolean commandStarted;
+
+    public PoetryDaemonException(String message) {
+        this(message, false);
+    }
+
+    public PoetryDaemonException(String message, Throwable cause) {
+        this(message, cause, false);
+    }
+
+    public PoetryDaemonException(String message, boolean commandStarted) {
+        super(message);
+        this.commandStarted = commandStarted;
+    }
+
+    public PoetryDaemonException(String message, Throwable cause, boolean commandStarted) {
+        super(message, cause);
+        this.commandStarted = commandStarted;
+    }
+
+    /**
+     * Returns whether the daemon failed after it received the command, in which case the command may have partially
+     * taken effect (i.e. some files were published or pyproject.toml was modified) and must not be re-run.
+     *
+     * @return whether the command had started
+     */
+    public boolean isCommandStarted() {
+        return commandStarted;
+    }
+}
@@ -0,0 +1,86 @@
+package org.technologybrewery.habushu.exec;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.exec.ExecuteException;
+import org.slf4j.Logger;
+import org.technologybrewery.habushu.HabushuException;
+
+/**
+ * {@link ProcessExecutor} that executes a Poetry command via a {@link PoetryDaemon}, re-running the command with the
+ * Poetry CLI if the daemon is unavailable or fails before receiving it. Output is streamed and logged exactly as it
+ * would be for the CLI, and commands that exit with a non-zero code fail just as they would with the CLI. As a command
+ * such as {@code publish} may have partially taken effect, it is never re-run if the daemon fails while executing it.
+ */
+public class PoetryDaemonProcessExecutor extends ProcessExecutor {
+
+    private static final AtomicBoolean FALLBACK_REPORTED = new AtomicBoolean();
+
+    private final File workingDirectory;
+    private final List<String> poetryArguments;
+    private final List<String> launchCommand;
+
+    /**
+     * New instance.
+     *
+     * @param workingDirectory directory from which the command is executed
+     * @param poetryArguments  Poetry command arguments (excluding {@code poetry} itself)
+     * @param cliCommand       equivalent CLI command (i.e. {@code poetry lock}), used when falling back to the CLI
+     * @param launchCommand    command that starts a {@link PoetryDaemon}
+     */
+    public PoetryDaemonProcessExecutor(File workingDirectory, List<String> poetryArguments, List<String> cliCommand,
+                                       List<String> launchCommand) {
+        this(workingDirectory, poetryArguments, cliCommand, null, launchCommand);
+    }
+
+    /**
+     * New instance.
+     *
+     * @param workingDirectory      directory from which the command is executed
+     * @param poetryArguments       Poetry command arguments (excluding {@code poetry} itself)
+     * @param cliCommand            equivalent CLI command (i.e. {@code poetry lock}), used when falling back to the CLI
+     * @param additionalEnvironment environment variables set for the command, whether executed by the daemon or CLI
+     * @param launchCommand         command that starts a {@link PoetryDaemon}
+     */
+    public PoetryDaemonProcessExecutor(File workingDirectory, List<String> poetryArguments, List<String> cliCommand,
+                                       Map<String, String> additionalEnvironment, List<String> launchCommand) {
+        super(workingDirectory, cliCommand, Platform.guess(), additionalEnvironment);
+        this.workingDirectory = workingDirectory;
+        this.poetryArguments = new ArrayList<>(poetryArguments);
+        this.launchCommand = launchCommand;
+    }
+
+    @Override
+    protected int execute(Logger logger, OutputStream stdout, OutputStream stderr) {
+        int exitValue;
+        try {
+            exitValue = PoetryDaemon.execute(launchCommand, getEnvironment(), workingDirectory, poetryArguments, stdout,
+                    stderr);
+            logger.debug("Exit value {} (Poetry daemon)", exitValue);
+
+        } catch (PoetryDaemonException e) {
+            if (e.isCommandStarted()) {
+                throw new HabushuException("Poetry daemon failed while executing command (" + e.getMessage()
+                        + ") - not re-running it with the Poetry CLI, as it may have partially taken effect", e);
+            }
+            if (FALLBACK_REPORTED.compareAndSet(false, true)) {
+                logger.warn("Poetry daemon could not execute command ({}) - falling back to the Poetry CLI",
+                        e.getMessage());
+            } else {
+                logger.debug("Poetry daemon could not execute command - falling back to the Poetry CLI", e);
+            }
+            return super.execute(logger, stdout, stderr);
+        }
+
+        if (exitValue != 0) {
+            // fail just as commons-exec does for the CLI, so that the exit value is reported in the same way:
+            throw new HabushuException(new ExecuteException("Process exited with an error: " + exitValue, exitValue));
+        }
+        return exitValue;
+    }
+}
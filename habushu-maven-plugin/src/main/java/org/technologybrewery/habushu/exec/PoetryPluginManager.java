@@ -0,0 +1,229 @@
+package org.technologybrewery.habushu.exec;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.util.InterProcessLock;
+import org.technologybrewery.habushu.util.PoetryUtil;
+
+/**
+ * Ensures that required Poetry plugins are installed without reaching out to the network on every module of every
+ * build. The installed plugins are inspected via {@code poetry self show plugins} once per build (per Poetry
+ * installation), and plugins are only installed when they are missing or do not match a pinned version.
+ * <p>
+ * When tracking the {@code latest} version of an installed plugin, Habushu checks for updates at most once per
+ * configured update check interval, which is tracked in a small state file so that it spans builds. When Maven is running in
+ * offline mode, no installation is attempted.
+ */
+public class PoetryPluginManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoetryPluginManager.class);
+
+    /**
+     * Version value that indicates the latest available version of a plugin should be used.
+     */
+    public static final String LATEST = "latest";
+
+    private static final String LAST_CHECKED_SUFFIX = ".lastChecked";
+    private static final String POETRY_SELF_LOCK = "poetry-self";
+
+    /**
+     * Matches plugin lines within {@code poetry self show plugins} output, i.e.
+     * {@code  • poetry-monorepo-dependency-plugin (1.2.1) Poetry plugin that...}.
+     */
+    private static final Pattern PLUGIN_LINE_PATTERN = Pattern.compile("^\\s*[\\u2022*-]\\s+([A-Za-z0-9._-]+)\\s+\\(([^)]+)\\)");
+
+    /**
+     * Plugins that have already been verified during this build.
+     */
+    private static final Set<String> VERIFIED_THIS_BUILD = ConcurrentHashMap.newKeySet();
+
+    private final PoetryCommandHelper poetryHelper;
+    private final File stateFile;
+    private final long updateCheckIntervalMillis;
+    private final boolean offline;
+
+    /**
+     * New instance.
+     *
+     * @param poetryHelper             helper used to invoke Poetry
+     * @param stateFile                file in which the time of the last update check is recorded, or {@code null}
+     *                                 to check once per build
+     * @param updateCheckIntervalHours minimum number of hours between checks for plugin updates
+     * @param offline                  whether Maven is running in offline mode
+     */
+    public PoetryPluginManager(PoetryCommandHelper poetryHelper, File stateFile, long updateCheckIntervalHours,
+                               boolean offline) {
+        this.poetryHelper = poetryHelper;
+        this.stateFile = stateFile;
+        this.updateCheckIntervalMillis = TimeUnit.HOURS.toMillis(Math.max(0, updateCheckIntervalHours));
+        this.offline = offline;
+    }
+
+    /**
+     * Ensures that the given Poetry plugin is installed at the requested version.
+     *
+     * @param pluginName       name of the plugin
+     * @param requestedVersion specific version of the plugin to install, or {@link #LATEST}
+     * @throws MojoExecutionException
+     */
+    public void ensurePluginInstalled(String pluginName, String requestedVersion) throws MojoExecutionException {
+        String version = StringUtils.defaultIfBlank(requestedVersion, LATEST);
+        String stateKey = ToolchainProbeCache.describeExecutable("poetry") + "|" + pluginName + "|" + version;
+
+        synchronized (PoetryPluginManager.class) {
+            if (VERIFIED_THIS_BUILD.contains(stateKey)) {
+                logger.debug("{} already verified during this build", pluginName);
+                return;
+            }
+
+            try (InterProcessLock lock = InterProcessLock.acquire(POETRY_SELF_LOCK)) {
+                verifyPlugin(pluginName, version, stateKey);
+            }
+        }
+    }
+
+    /**
+     * Forgets the plugins verified during this build, such as at the end of a build.
+     */
+    public static void clear() {
+        VERIFIED_THIS_BUILD.clear();
+    }
+
+    private void verifyPlugin(String pluginName, String version, String stateKey) throws MojoExecutionException {
+        // the plugin may have been removed (or Poetry reinstalled) since it was last verified, so always look:
+        String installedVersion = getInstalledPlugins().get(PoetryUtil.normalizePackageName(pluginName));
+        if (offline) {
+            if (installedVersion == null) {
+                logger.warn("{} is not installed, but Maven is offline - skipping installation!", pluginName);
+            } else {
+                logger.info("Maven is offline - using installed {} {}", pluginName, installedVersion);
+                VERIFIED_THIS_BUILD.add(stateKey);
+            }
+            return;
+        }
+
+        // state is loaded while holding the lock so that updates made by concurrent builds are observed:
+        Properties state = loadState();
+        if (LATEST.equals(version) && installedVersion != null && wasCheckedRecently(state, stateKey)) {
+            logger.info("Found {} {}, which was updated within the last {} hour(s) - skipping update check",
+                    pluginName, installedVersion, TimeUnit.MILLISECONDS.toHours(updateCheckIntervalMillis));
+            VERIFIED_THIS_BUILD.add(stateKey);
+            return;
+
+        } else if (LATEST.equals(version)) {
+            logger.info("Checking for updates to {}...", pluginName);
+            poetryHelper.installPoetryPlugin(pluginName + "@" + LATEST);
+
+        } else if (!version.equals(installedVersion)) {
+            logger.info("Installing {} {} (currently installed: {})...", pluginName, version,
+                    Objects.toString(installedVersion, "none"));
+            poetryHelper.installPoetryPlugin(pluginName + "==" + version);
+
+        } else {
+            logger.info("Found {} {}", pluginName, installedVersion);
+        }
+
+        state.setProperty(stateKey + LAST_CHECKED_SUFFIX, String.valueOf(System.currentTimeMillis()));
+        storeState(state);
+        VERIFIED_THIS_BUILD.add(stateKey);
+    }
+
+    /**
+     * Returns the Poetry plugins that are currently installed, keyed by their normalized name. If the installed
+     * plugins cannot be determined, an empty map is returned.
+     *
+     * @return installed plugin versions keyed by normalized plugin name
+     */
+    public Map<String, String> getInstalledPlugins() {
+        try {
+            return parseInstalledPlugins(poetryHelper.execute(Arrays.asList("self", "show", "plugins", "--no-ansi")));
+        } catch (Exception e) {
+            logger.debug("Could not list installed Poetry plugins", e);
+            return new HashMap<>();
+        }
+    }
+
+    /**
+     * Parses the output of {@code poetry self show plugins}.
+     *
+     * @param output command output
+     * @return installed plugin versions keyed by normalized plugin name
+     */
+    static Map<String, String> parseInstalledPlugins(String output) {
+        Map<String, String> plugins = new HashMap<>();
+        for (String line : StringUtils.split(StringUtils.defaultString(output), "\r\n")) {
+            Matcher matcher = PLUGIN_LINE_PATTERN.matcher(line);
+            if (matcher.find()) {
+                plugins.put(PoetryUtil.normalizePackageName(matcher.group(1)), matcher.group(2).trim());
+            }
+        }
+        return plugins;
+    }
+
+    private boolean wasCheckedRecently(Properties state, String stateKey) {
+        if (updateCheckIntervalMillis <= 0) {
+            return false;
+        }
+
+        long lastChecked = NumberUtils.toLong(state.getProperty(stateKey + LAST_CHECKED_SUFFIX));
+        return System.currentTimeMillis() - lastChecked < updateCheckIntervalMillis;
+    }
+
+    private Properties loadState() {
+        Properties state = new Properties();
+        if (stateFile != null && stateFile.isFile()) {
+            try (InputStream inputStream = Files.newInputStream(stateFile.toPath())) {
+                state.load(inputStream);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.debug("Could not read Poetry plugin state from {} - ignoring it", stateFile, e);
+                state.clear();
+            }
+        }
+        return state;
+    }
+
+    private void storeState(Properties state) {
+        if (stateFile == null) {
+            return;
+        }
+
+        Path directory = stateFile.getAbsoluteFile().getParentFile().toPath();
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, stateFile.getName(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                state.store(outputStream, "Habushu Poetry plugin state - safe to delete");
+            }
+            try {
+                Files.move(tempFile, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            logger.debug("Could not write Poetry plugin state to {}", stateFile, e);
+        }
+    }
+}
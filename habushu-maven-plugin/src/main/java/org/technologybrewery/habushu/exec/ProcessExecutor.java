@@ -4,10 +4,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
@@ -16,11 +19,15 @@ import org.apache.commons.exec.ExecuteStreamHandler;
 import org.apache.commons.exec.ExecuteWatchdog;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.LogOutputStream;
+import org.apache.commons.exec.ProcessDestroyer;
 import org.apache.commons.exec.PumpStreamHandler;
 import org.apache.commons.exec.ShutdownHookProcessDestroyer;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.technologybrewery.habushu.HabushuException;
+import org.technologybrewery.habushu.telemetry.BuildMetrics;
 import org.slf4j.Logger;
 
 /**
@@ -35,6 +42,9 @@ public class ProcessExecutor {
     private Map<String, String> environment;
     private CommandLine commandLine;
     private Executor executor;
+    private String logLinePrefix;
+    private String commandForMetrics;
+    private volatile ChildCpuSampler cpuSampler;
 
     public ProcessExecutor(File workingDirectory, List<String> command, Platform platform,
                            Map<String, String> additionalEnvironment) {
@@ -51,18 +61,39 @@ public class ProcessExecutor {
         this.environment = createEnvironment(paths, platform, additionalEnvironment);
         this.commandLine = createCommandLine(command);
         this.executor = createExecutor(workingDirectory, timeoutInSeconds);
+        this.logLinePrefix = ProcessLogContext.getLinePrefix();
+        this.commandForMetrics = String.join(" ", command);
+    }
+
+    /**
+     * Sets how this command is described in build metrics, such as to mask sensitive arguments.
+     *
+     * @param commandForMetrics command line to record
+     */
+    public void setCommandForMetrics(String commandForMetrics) {
+        this.commandForMetrics = commandForMetrics;
+    }
+
+    /**
+     * Returns the environment variables with which the command is executed.
+     *
+     * @return environment variables, including any additional PATH entries
+     */
+    protected Map<String, String> getEnvironment() {
+        return environment;
     }
 
     public String executeAndGetResult(final Logger logger) {
+        // stdout is the result of the command, but stderr is only used for error reporting, so just keep its tail:
         ByteArrayOutputStream stdout = new ByteArrayOutputStream();
-        ByteArrayOutputStream stderr = new ByteArrayOutputStream();
+        TailOutputStream stderr = new TailOutputStream();
 
         int exitValue = -1;
         try {
-            exitValue = execute(logger, stdout, stderr);
+            exitValue = executeAndRecordMetrics(logger, stdout, stderr);
         } catch (Throwable e) {
-            displayProcessOutputForException(stdout, logger);
-            displayProcessOutputForException(stderr, logger);
+            displayProcessOutputForException(tail(stdout), logger);
+            displayProcessOutputForException(stderr.toString(), logger);
             throw new HabushuException("Could not invoke command! See output above.", e);
         }
         if (exitValue == 0) {
@@ -72,16 +103,16 @@ public class ProcessExecutor {
             }
             return result;
         } else {
-            throw new HabushuException(stdout + " " + stderr);
+            throw new HabushuException(tail(stdout) + " " + stderr);
         }
     }
 
     public int executeAndRedirectOutput(final Logger logger) {
-        OutputStream stdout = new LoggerOutputStream(logger, 0);
-        OutputStream stderr = new LoggerOutputStream(logger, 0);
+        OutputStream stdout = new LoggerOutputStream(logger, 0, logLinePrefix);
+        OutputStream stderr = new LoggerOutputStream(logger, 0, logLinePrefix);
 
         try {
-            return execute(logger, stdout, stderr);
+            return executeAndRecordMetrics(logger, stdout, stderr);
 
         } catch (Throwable e) {
             throw new HabushuException("Could not invoke command! See output above.", e);
@@ -92,7 +123,42 @@ public class ProcessExecutor {
         }
     }
 
-    private int execute(final Logger logger, final OutputStream stdout, final OutputStream stderr) {
+    /**
+     * Executes the command while measuring its elapsed and CPU time, exit code, and output volume for the goal
+     * being executed on the current thread (see {@link BuildMetrics}).
+     */
+    private int executeAndRecordMetrics(final Logger logger, final OutputStream stdout, final OutputStream stderr) {
+        if (!BuildMetrics.isRecording()) {
+            return execute(logger, stdout, stderr);
+        }
+
+        CountingOutputStream countedStdout = new CountingOutputStream(stdout);
+        CountingOutputStream countedStderr = new CountingOutputStream(stderr);
+        long startEpochMillis = System.currentTimeMillis();
+        long start = System.nanoTime();
+        Integer exitValue = null;
+        try {
+            exitValue = execute(logger, countedStdout, countedStderr);
+            return exitValue;
+        } catch (HabushuException e) {
+            // non-zero exit values are reported by commons-exec as exceptions:
+            int executeExceptionIndex = ExceptionUtils.indexOfType(e, ExecuteException.class);
+            if (executeExceptionIndex >= 0) {
+                exitValue = ((ExecuteException) ExceptionUtils.getThrowableList(e).get(executeExceptionIndex))
+                        .getExitValue();
+            }
+            throw e;
+        } finally {
+            ChildCpuSampler sampler = cpuSampler;
+            cpuSampler = null;
+            Long cpuMillis = sampler != null ? sampler.stop() : null;
+            BuildMetrics.recordProcess(commandForMetrics, startEpochMillis,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), cpuMillis, exitValue,
+                    countedStdout.getByteCount(), countedStderr.getByteCount());
+        }
+    }
+
+    protected int execute(final Logger logger, final OutputStream stdout, final OutputStream stderr) {
         logger.debug("Executing command line {}", commandLine);
         logger.debug("Active PATH: {}", environment.get(PATH_ENV_VAR));
         try {
@@ -160,27 +226,50 @@ public class ProcessExecutor {
     }
 
     private Executor createExecutor(File workingDirectory, long timeoutInSeconds) {
-        DefaultExecutor executor = new DefaultExecutor();
-        executor.setWorkingDirectory(workingDirectory);
-        executor.setProcessDestroyer(new ShutdownHookProcessDestroyer()); // Fixes #41
+        DefaultExecutor executor = DefaultExecutor.builder().setWorkingDirectory(workingDirectory).get();
+        executor.setProcessDestroyer(new SamplingProcessDestroyer()); // Fixes #41
 
         if (timeoutInSeconds > 0) {
-            executor.setWatchdog(new ExecuteWatchdog(timeoutInSeconds * 1000));
+            executor.setWatchdog(ExecuteWatchdog.builder().setTimeout(Duration.ofSeconds(timeoutInSeconds)).get());
         }
 
         return executor;
     }
 
+    /**
+     * Destroys processes when the JVM exits, and starts sampling the CPU time of each process as soon as it is
+     * launched when build metrics are recorded (the executor hands launched processes to its destroyer).
+     */
+    private class SamplingProcessDestroyer implements ProcessDestroyer {
+        private final ShutdownHookProcessDestroyer delegate = new ShutdownHookProcessDestroyer();
+
+        @Override
+        public boolean add(Process process) {
+            if (BuildMetrics.isRecording()) {
+                cpuSampler = ChildCpuSampler.start(process);
+            }
+            return delegate.add(process);
+        }
+
+        @Override
+        public boolean remove(Process process) {
+            return delegate.remove(process);
+        }
+
+        @Override
+        public int size() {
+            return delegate.size();
+        }
+    }
+
     private static class LoggerOutputStream extends LogOutputStream {
         private final Logger logger;
-        private static final String DEBUG_LOG = "DEBUG";
-        private static final String WARNING_LOG = "WARNING";
-        private static final String ERROR_LOG = "ERROR";
-        private static final String CRITICAL_LOG = "CRITICAL";
+        private final String linePrefix;
 
-        LoggerOutputStream(Logger logger, int logLevel) {
+        LoggerOutputStream(Logger logger, int logLevel, String linePrefix) {
             super(logLevel);
             this.logger = logger;
+            this.linePrefix = linePrefix;
         }
 
         @Override
@@ -190,14 +279,18 @@ public class ProcessExecutor {
 
         @Override
         protected void processLine(final String line, final int logLevel) {
-            if (line.toUpperCase().contains(ERROR_LOG) || line.toUpperCase().contains(CRITICAL_LOG)) {
-                logger.error(line);
-            } else if (line.toUpperCase().contains(WARNING_LOG)) {
-                logger.warn(line);
-            } else if (line.toUpperCase().contains(DEBUG_LOG)) {
-                logger.debug(line);
-            } else {
-                logger.info(line);
+            switch (OutputLineClassifier.classify(line)) {
+                case ERROR:
+                    logger.error("{}{}", linePrefix, line);
+                    break;
+                case WARN:
+                    logger.warn("{}{}", linePrefix, line);
+                    break;
+                case DEBUG:
+                    logger.debug("{}{}", linePrefix, line);
+                    break;
+                default:
+                    logger.info("{}{}", linePrefix, line);
             }
         }
     }
@@ -206,13 +299,32 @@ public class ProcessExecutor {
      * Helper method that logs the given process output at the error level if its
      * content is not blank.
      *
-     * @param output
+     * @param outputAsStr
      * @param logger
      */
-    protected void displayProcessOutputForException(ByteArrayOutputStream output, Logger logger) {
-        String outputAsStr = output.toString();
+    protected void displayProcessOutputForException(String outputAsStr, Logger logger) {
         if (StringUtils.isNotBlank(outputAsStr)) {
-            logger.error(outputAsStr);
+            logger.error(logLinePrefix + outputAsStr);
+        }
+    }
+
+    /**
+     * Returns at most the last {@link TailOutputStream#DEFAULT_CAPACITY} bytes of the given output, so that error
+     * messages remain bounded even for very verbose commands.
+     *
+     * @param output captured output
+     * @return tail of the captured output
+     */
+    private static String tail(ByteArrayOutputStream output) {
+        if (output.size() <= TailOutputStream.DEFAULT_CAPACITY) {
+            return output.toString();
+        }
+        TailOutputStream tail = new TailOutputStream();
+        try {
+            output.writeTo(tail);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
+        return tail.toString();
     }
 }
@@ -0,0 +1,55 @@
+package org.technologybrewery.habushu.exec;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Tracks the module on whose behalf external processes are launched so that their output can be attributed to it
+ * when multiple modules are built concurrently. The context is inherited by threads created while it is set (i.e.
+ * the worker used by {@link PoetryCommandHelper#executePoetryCommandAndLogAfterTimeout}), and is captured by each
+ * {@link ProcessExecutor} when it is created.
+ */
+public final class ProcessLogContext {
+
+    private static final InheritableThreadLocal<String> MODULE = new InheritableThreadLocal<>();
+
+    private ProcessLogContext() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Attributes processes launched from the current thread to the given module.
+     *
+     * @param moduleName name of the module, or {@code null} to stop attributing output
+     */
+    public static void setModule(String moduleName) {
+        if (moduleName == null) {
+            MODULE.remove();
+        } else {
+            MODULE.set(moduleName);
+        }
+    }
+
+    /**
+     * @return name of the module to which processes launched from the current thread are attributed, or {@code null}
+     */
+    public static String getModule() {
+        return MODULE.get();
+    }
+
+    /**
+     * Stops attributing processes launched from the current thread to a module.
+     */
+    public static void clear() {
+        MODULE.remove();
+    }
+
+    /**
+     * Returns the prefix that should be applied to each line of process output logged from the current thread.
+     *
+     * @return line prefix (i.e. {@code [my-module] }), or an empty string if no module is set
+     */
+    public static String getLinePrefix() {
+        String moduleName = MODULE.get();
+        return StringUtils.isNotEmpty(moduleName) ? "[" + moduleName + "] " : StringUtils.EMPTY;
+    }
+}
@@ -12,6 +12,7 @@ import org.apache.maven.plugin.logging.Log;
 import org.slf4j.event.Level;
 import org.technologybrewery.habushu.HabushuException;
 import org.technologybrewery.habushu.util.HabushuUtil;
+import org.technologybrewery.habushu.util.InterProcessLock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -23,11 +24,25 @@ public class PyenvCommandHelper {
 
     private static final String PYENV_COMMAND = "pyenv";
     private static final Logger logger = LoggerFactory.getLogger(PyenvCommandHelper.class);
+    private static final String PYENV_INSTALL_LOCK = "pyenv-install";
 
     private File workingDirectory;
 
+    private ToolchainProbeCache probeCache;
+
     public PyenvCommandHelper(File workingDirectory) {
+        this(workingDirectory, null);
+    }
+
+    /**
+     * New instance that reuses cached toolchain probe results, such as {@code pyenv version-name}, where possible.
+     *
+     * @param workingDirectory directory from which pyenv commands are executed
+     * @param probeCache       cache of toolchain probe results, or {@code null} to always execute probes
+     */
+    public PyenvCommandHelper(File workingDirectory, ToolchainProbeCache probeCache) {
         this.workingDirectory = workingDirectory;
+        this.probeCache = probeCache;
     }
 
     /**
@@ -35,7 +50,7 @@ public class PyenvCommandHelper {
      */
     public boolean isPyenvInstalled() {
         try {
-            String foundVersion = executeWithDebugLogging(Arrays.asList("--version"));
+            String foundVersion = probe(Arrays.asList("--version"));
             logger.debug("Found " + foundVersion);
         } catch (Throwable e) {
             return false;
@@ -51,7 +66,7 @@ public class PyenvCommandHelper {
      * @return
      */
     public String getCurrentPythonVersion() throws MojoExecutionException {
-        return executeWithDebugLogging(Arrays.asList("version-name"));
+        return probe(Arrays.asList("version-name"));
     }
 
     /**
@@ -75,10 +90,16 @@ public class PyenvCommandHelper {
      *                           the {@link File} that will be
      */
     public void updatePythonVersion(String targetVersion, File patchInstallScript) throws MojoExecutionException {
-        List<String> installedPythonVersions = getInstalledPythonVersions();
-        if (!installedPythonVersions.contains(targetVersion)) {
-            logger.info("Could not find Python version {} in following versions [{}] that are installed via pyenv. Installing version {} now...", targetVersion, StringUtils.join(installedPythonVersions, ", "), targetVersion);
-            installPythonVersion(targetVersion, patchInstallScript);
+        if (!getInstalledPythonVersions().contains(targetVersion)) {
+            // installations are machine-wide, so serialize them across modules and builds and re-check once the
+            // lock is held in case another module or build installed this version while we were waiting:
+            try (InterProcessLock lock = InterProcessLock.acquire(PYENV_INSTALL_LOCK)) {
+                List<String> installedPythonVersions = getInstalledPythonVersions();
+                if (!installedPythonVersions.contains(targetVersion)) {
+                    logger.info("Could not find Python version {} in following versions [{}] that are installed via pyenv. Installing version {} now...", targetVersion, StringUtils.join(installedPythonVersions, ", "), targetVersion);
+                    installPythonVersion(targetVersion, patchInstallScript);
+                }
+            }
         }
 
         execute(Arrays.asList("local", targetVersion));
@@ -173,13 +194,30 @@ public class PyenvCommandHelper {
         return execute(arguments, Level.DEBUG);
     }
 
+    /**
+     * Executes a side-effect free pyenv command, reusing a previously cached result if the toolchain has not changed.
+     *
+     * @param arguments
+     * @return
+     */
+    private String probe(List<String> arguments) {
+        if (probeCache == null) {
+            return execute(arguments, Level.DEBUG);
+        }
+
+        List<String> fullCommandArgs = new ArrayList<>();
+        fullCommandArgs.add(PYENV_COMMAND);
+        fullCommandArgs.addAll(arguments);
+        return probeCache.probe(workingDirectory, fullCommandArgs, () -> execute(arguments, Level.DEBUG));
+    }
+
     private String execute(List<String> arguments, Level logLevel) {
         ProcessExecutor executor = createPyenvExecutor(arguments);
         if (Level.DEBUG.equals(logLevel) && logger.isDebugEnabled()) {
             logger.debug("Executing pyenv command: {} {}", PYENV_COMMAND, StringUtils.join(arguments, " "));
 
         } else if (Level.INFO.equals(logLevel) && logger.isInfoEnabled()) {
-            logger.info("Executing pyenv command: {} {}", PYENV_COMMAND, StringUtils.join(arguments, " "));
+            logger.info("{}Executing pyenv command: {} {}", ProcessLogContext.getLinePrefix(), PYENV_COMMAND, StringUtils.join(arguments, " "));
 
         }
 
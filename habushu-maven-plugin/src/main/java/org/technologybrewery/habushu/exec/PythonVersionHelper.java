@@ -27,12 +27,25 @@ public class PythonVersionHelper {
 
     private final String desiredPythonVersion;
     private final File workingDirectory;
+    private final ToolchainProbeCache probeCache;
 
     public PythonVersionHelper(File workingDirectory, String desiredPythonVersion) {
+        this(workingDirectory, desiredPythonVersion, null);
+    }
+
+    /**
+     * New instance that reuses cached toolchain probe results, such as {@code python --version}, where possible.
+     *
+     * @param workingDirectory     directory from which Python is executed
+     * @param desiredPythonVersion version of Python that is expected
+     * @param probeCache           cache of toolchain probe results, or {@code null} to always execute probes
+     */
+    public PythonVersionHelper(File workingDirectory, String desiredPythonVersion, ToolchainProbeCache probeCache) {
         Validate.notNull(desiredPythonVersion);
 
         this.workingDirectory = workingDirectory;
         this.desiredPythonVersion = desiredPythonVersion;
+        this.probeCache = probeCache;
     }
 
     /**
@@ -42,7 +55,7 @@ public class PythonVersionHelper {
      * @return
      */
     public String getCurrentPythonVersion() throws MojoExecutionException {
-        String version = quietlyExecute(Collections.singletonList("--version"));
+        String version = probeVersion(getPythonCommand());
         return version.replaceAll(EXTRACT_VERSION_REGEX, "");
     }
 
@@ -79,17 +92,11 @@ public class PythonVersionHelper {
      * @throws MojoExecutionException
      */
     private String execute(List<String> arguments, Level logLevel) throws MojoExecutionException {
-        ProcessExecutor executor;
-        String pythonCommand;
-
-        if (desiredPythonVersion.matches(PYTHON_VERSION_3_REGEX) && isPython3Installed()) {
-            executor = createPythonExecutor(PYTHON_3_COMMAND, arguments);
-            pythonCommand = PYTHON_3_COMMAND;
+        return execute(getPythonCommand(), arguments, logLevel);
+    }
 
-        } else {
-            executor = createPythonExecutor(PYTHON_COMMAND, arguments);
-            pythonCommand = PYTHON_COMMAND;
-        }
+    private String execute(String pythonCommand, List<String> arguments, Level logLevel) {
+        ProcessExecutor executor = createPythonExecutor(pythonCommand, arguments);
 
         if (logger.isInfoEnabled() || logger.isDebugEnabled()) {
             String logStatement = String.format("Executing command: %s %s", pythonCommand, StringUtils.join(arguments, " "));
@@ -110,13 +117,36 @@ public class PythonVersionHelper {
         return new ProcessExecutor(workingDirectory, fullCommandArgs, Platform.guess(), null);
     }
 
+    private String getPythonCommand() {
+        return desiredPythonVersion.matches(PYTHON_VERSION_3_REGEX) && isPython3Installed() ? PYTHON_3_COMMAND
+                : PYTHON_COMMAND;
+    }
+
     private boolean isPython3Installed() {
         try {
-            ProcessExecutor executor = createPythonExecutor(PYTHON_3_COMMAND, Collections.singletonList("--version"));
-            executor.executeAndGetResult(logger);
+            probeVersion(PYTHON_3_COMMAND);
         } catch (Throwable e) {
             return false;
         }
         return true;
     }
+
+    /**
+     * Executes {@code --version} against the given Python command, reusing a previously cached result if the
+     * toolchain has not changed.
+     *
+     * @param pythonCommand
+     * @return
+     */
+    private String probeVersion(String pythonCommand) {
+        List<String> arguments = Collections.singletonList("--version");
+        if (probeCache == null) {
+            return execute(pythonCommand, arguments, Level.DEBUG);
+        }
+
+        List<String> fullCommandArgs = new ArrayList<>();
+        fullCommandArgs.add(pythonCommand);
+        fullCommandArgs.addAll(arguments);
+        return probeCache.probe(workingDirectory, fullCommandArgs, () -> execute(pythonCommand, arguments, Level.DEBUG));
+    }
 }
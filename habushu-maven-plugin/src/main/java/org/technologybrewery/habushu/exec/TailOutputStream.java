@@ -0,0 +1,110 @@
+package org.technologybrewery.habushu.exec;
+
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * {@link OutputStream} that retains only the most recently written bytes within a fixed-size ring buffer. Used to
+ * capture process output for error reporting without holding the entire (potentially very large) output in memory.
+ */
+public class TailOutputStream extends OutputStream {
+
+    /**
+     * Default number of trailing bytes that are retained.
+     */
+    public static final int DEFAULT_CAPACITY = 256 * 1024;
+
+    private final byte[] buffer;
+    private long totalBytes;
+
+    /**
+     * New instance that retains the last {@link #DEFAULT_CAPACITY} bytes.
+     */
+    public TailOutputStream() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * New instance that retains the given number of trailing bytes.
+     *
+     * @param capacity number of bytes to retain
+     */
+    public TailOutputStream(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.buffer = new byte[capacity];
+    }
+
+    @Override
+    public synchronized void write(int b) {
+        buffer[(int) (totalBytes % buffer.length)] = (byte) b;
+        totalBytes++;
+    }
+
+    @Override
+    public synchronized void write(byte[] bytes, int offset, int length) {
+        if (length >= buffer.length) {
+            // only the end of this write will be retained:
+            offset += length - buffer.length;
+            totalBytes += length - buffer.length;
+            length = buffer.length;
+        }
+
+        int position = (int) (totalBytes % buffer.length);
+        int firstChunk = Math.min(length, buffer.length - position);
+        System.arraycopy(bytes, offset, buffer, position, firstChunk);
+        System.arraycopy(bytes, offset + firstChunk, buffer, 0, length - firstChunk);
+        totalBytes += length;
+    }
+
+    /**
+     * Returns the total number of bytes written, including those that are no longer retained.
+     *
+     * @return total bytes written
+     */
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Returns whether earlier output has been discarded.
+     *
+     * @return {@code true} if more bytes were written than are retained
+     */
+    public synchronized boolean isTruncated() {
+        return totalBytes > buffer.length;
+    }
+
+    /**
+     * Returns the retained bytes, in the order in which they were written.
+     *
+     * @return retained bytes
+     */
+    public synchronized byte[] toByteArray() {
+        if (!isTruncated()) {
+            byte[] bytes = new byte[(int) totalBytes];
+            System.arraycopy(buffer, 0, bytes, 0, bytes.length);
+            return bytes;
+        }
+
+        int position = (int) (totalBytes % buffer.length);
+        byte[] bytes = new byte[buffer.length];
+        System.arraycopy(buffer, position, bytes, 0, buffer.length - position);
+        System.arraycopy(buffer, 0, bytes, buffer.length - position, position);
+        return bytes;
+    }
+
+    /**
+     * Decodes the retained bytes using the platform's default charset, prefixed with a marker indicating how much
+     * earlier output was discarded, if any.
+     *
+     * @return retained output
+     */
+    @Override
+    public synchronized String toString() {
+        String tail = new String(toByteArray(), Charset.defaultCharset());
+        long discarded = getTotalBytes() - buffer.length;
+        return discarded > 0 ? String.format("[... %d earlier bytes omitted ...]%n%s", discarded, tail) : tail;
+    }
+}
@@ -0,0 +1,407 @@
+package org.technologybrewery.habushu.exec;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.HabushuException;
+
+/**
+ * Caches the output of cheap, side-effect free toolchain probes (i.e. {@code pyenv --version},
+ * {@code pyenv version-name}, {@code python --version}, and {@code poetry --version}) so that each module within a
+ * reactor, as well as subsequent builds, do not need to re-fork these processes.
+ * <p>
+ * Cached results are keyed on the probe command, the resolved location, modification time, and size of the
+ * invoked executable (following any symlinks), the environment variables that influence which interpreter is
+ * selected, and any pyenv version selection files that apply to the working directory. As {@code poetry self update}
+ * replaces Poetry's installed distribution without touching its launcher script, Poetry probes are also keyed on
+ * the launcher's interpreter and installed {@code poetry-*.dist-info}. Any change to these inputs (i.e. upgrading
+ * Poetry, running {@code pyenv local}, or switching {@code PATH}) results in a cache miss, after which the probe is
+ * re-executed and its new result stored. Only successful probes are cached.
+ * <p>
+ * Results are held in memory for the life of the build and persisted to a properties file so that repeat builds
+ * may reuse them as well.
+ */
+public final class ToolchainProbeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ToolchainProbeCache.class);
+
+    /**
+     * Environment variables that may change the executable or interpreter that a probe resolves to.
+     */
+    static final List<String> RELEVANT_ENVIRONMENT_VARIABLES = Arrays.asList("PATH", "PYENV_ROOT", "PYENV_VERSION",
+            "PYENV_DIR", "POETRY_HOME", "VIRTUAL_ENV", "CONDA_PREFIX");
+
+    private static final String PYTHON_VERSION_FILE = ".python-version";
+    private static final String POETRY_EXECUTABLE = "poetry";
+    private static final String POETRY_DIST_INFO_PREFIX = "poetry-";
+    private static final String DIST_INFO_SUFFIX = ".dist-info";
+    private static final String PATH_ENV_VAR = "PATH";
+    private static final String PATHEXT_ENV_VAR = "PATHEXT";
+    private static final String MISSING = "<missing>";
+
+    /**
+     * Upper bound on the number of entries persisted - stale entries accumulate as executables are upgraded, so the
+     * cache is simply reset once it grows beyond this size.
+     */
+    private static final int MAX_ENTRIES = 256;
+
+    private static final Map<File, ToolchainProbeCache> CACHES = new ConcurrentHashMap<>();
+
+    private final File cacheFile;
+    private final Properties entries = new Properties();
+    private boolean loaded;
+
+    private ToolchainProbeCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the build-wide probe cache that is backed by the given file.
+     *
+     * @param cacheFile properties file in which probe results are persisted
+     * @return shared cache instance for the given file
+     */
+    public static ToolchainProbeCache forFile(File cacheFile) {
+        return CACHES.computeIfAbsent(cacheFile.getAbsoluteFile(), ToolchainProbeCache::new);
+    }
+
+    /**
+     * Returns the cached result of the given probe command if all of its inputs are unchanged, otherwise executes
+     * the given probe and caches its result. Any exception raised by the probe is propagated and nothing is cached.
+     *
+     * @param workingDirectory directory from which the probe is executed
+     * @param command          full probe command, starting with the executable name
+     * @param probe            executes the probe and returns its output
+     * @return probe output
+     */
+    public String probe(File workingDirectory, List<String> command, Supplier<String> probe) {
+        String key = createKey(workingDirectory, command);
+
+        synchronized (this) {
+            load();
+            String cachedResult = entries.getProperty(key);
+            if (cachedResult != null) {
+                logger.debug("Using cached result of '{}': {}", StringUtils.join(command, " "), cachedResult);
+                return cachedResult;
+            }
+        }
+
+        String result = probe.get();
+
+        synchronized (this) {
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+            entries.setProperty(key, result);
+            store();
+        }
+
+        return result;
+    }
+
+    /**
+     * Forgets all build-wide cache instances, so that each is loaded from disk again, such as by a subsequent build.
+     */
+    static void reset() {
+        CACHES.clear();
+    }
+
+    /**
+     * Discards all cached probe results, both in memory and on disk.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        loaded = true;
+        store();
+    }
+
+    /**
+     * Resolves the given executable name against the current {@code PATH}, mirroring the lookup that the operating
+     * system performs when the executable is launched.
+     *
+     * @param executable executable name (i.e. {@code poetry}) or path
+     * @return the resolved executable, or {@code null} if it could not be found
+     */
+    public static File resolveExecutable(String executable) {
+        File candidate = new File(executable);
+        if (candidate.isAbsolute() || executable.contains(File.separator)) {
+            return candidate.isFile() ? candidate : null;
+        }
+
+        String path = System.getenv(PATH_ENV_VAR);
+        if (path == null) {
+            return null;
+        }
+
+        List<String> extensions = new ArrayList<>();
+        extensions.add(StringUtils.EMPTY);
+        if (Platform.guess().isWindows()) {
+            String pathExt = StringUtils.defaultIfBlank(System.getenv(PATHEXT_ENV_VAR), ".COM;.EXE;.BAT;.CMD");
+            extensions.addAll(Arrays.asList(StringUtils.split(pathExt.toLowerCase(), ";")));
+        }
+
+        for (String directory : StringUtils.split(path, File.pathSeparator)) {
+            for (String extension : extensions) {
+                File file = new File(directory, executable + extension);
+                if (file.isFile() && file.canExecute()) {
+                    return file;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds a stable description of the given executable that changes whenever the executable is replaced or
+     * modified, following symlinks so that upgrades of the link target are detected.
+     *
+     * @param executable executable name or path
+     * @return description of the resolved executable
+     */
+    public static String describeExecutable(String executable) {
+        File resolved = resolveExecutable(executable);
+        if (resolved == null) {
+            return executable + "=" + MISSING;
+        }
+
+        StringBuilder description = new StringBuilder(executable).append('=').append(resolved.getAbsolutePath());
+        appendFileState(description, resolved.toPath());
+        try {
+            Path realPath = resolved.toPath().toRealPath();
+            if (!realPath.equals(resolved.toPath())) {
+                description.append("->").append(realPath);
+                appendFileState(description, realPath);
+            }
+        } catch (IOException e) {
+            description.append("->").append(MISSING);
+        }
+
+        return description.toString();
+    }
+
+    /**
+     * Returns the interpreter command declared by the shebang line of the given script, i.e.
+     * {@code [/usr/bin/env, python3]}.
+     *
+     * @param script script file
+     * @return interpreter command, or an empty list if the file is not a script or cannot be read
+     */
+    static List<String> readShebang(File script) {
+        String firstLine;
+        try (BufferedReader reader = Files.newBufferedReader(script.toPath(), StandardCharsets.UTF_8)) {
+            firstLine = reader.readLine();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not read the first line of {}", script, e);
+            return Collections.emptyList();
+        }
+        if (firstLine == null || !firstLine.startsWith("#!")) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(StringUtils.split(firstLine.substring(2).trim()));
+    }
+
+    String createKey(File workingDirectory, List<String> command) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append("command=").append(StringUtils.join(command, " ")).append('\n');
+        fingerprint.append(describeExecutable(command.get(0))).append('\n');
+        File executable = resolveExecutable(command.get(0));
+        if (executable != null && isPoetry(executable)) {
+            fingerprint.append(describePoetryInstallation(executable)).append('\n');
+        }
+
+        for (String variable : RELEVANT_ENVIRONMENT_VARIABLES) {
+            fingerprint.append(variable).append('=').append(StringUtils.defaultString(System.getenv(variable)))
+                    .append('\n');
+        }
+
+        // pyenv shims always resolve to the same file, so capture the inputs pyenv uses to select a version:
+        fingerprint.append("local=").append(describeVersionFile(findLocalPythonVersionFile(workingDirectory)))
+                .append('\n');
+        fingerprint.append("global=").append(describeVersionFile(getGlobalPythonVersionFile())).append('\n');
+
+        return sha256(fingerprint.toString());
+    }
+
+    private static boolean isPoetry(File executable) {
+        String name = executable.getName().toLowerCase();
+        return name.equals(POETRY_EXECUTABLE) || name.startsWith(POETRY_EXECUTABLE + ".");
+    }
+
+    /**
+     * Describes the interpreter that runs the given Poetry launcher and the Poetry distribution installed for it,
+     * which is found within the site-packages of the environment that holds the interpreter (or the launcher, if it
+     * is not a script, as on Windows).
+     */
+    private static String describePoetryInstallation(File launcher) {
+        StringBuilder description = new StringBuilder("interpreter=");
+        File environmentBinDirectory = launcher.getAbsoluteFile().getParentFile();
+        List<String> shebang = readShebang(launcher);
+        if (shebang.isEmpty()) {
+            description.append(MISSING);
+        } else {
+            // i.e. #!/usr/bin/env python3 selects the interpreter from the PATH:
+            boolean viaEnv = new File(shebang.get(0)).getName().equals("env") && shebang.size() > 1;
+            String interpreterName = viaEnv ? shebang.get(1) : shebang.get(0);
+            description.append(describeExecutable(interpreterName));
+            File interpreter = resolveExecutable(interpreterName);
+            if (interpreter != null) {
+                environmentBinDirectory = interpreter.getAbsoluteFile().getParentFile();
+            }
+        }
+
+        description.append("\ndist=");
+        File environmentDirectory = environmentBinDirectory != null ? environmentBinDirectory.getParentFile() : null;
+        List<File> distInfoDirectories = findPoetryDistInfoDirectories(environmentDirectory);
+        if (distInfoDirectories.isEmpty()) {
+            description.append(MISSING);
+        }
+        for (File distInfoDirectory : distInfoDirectories) {
+            // RECORD lists every installed file, so it is rewritten whenever the distribution is reinstalled:
+            description.append(distInfoDirectory.getAbsolutePath());
+            appendFileState(description, new File(distInfoDirectory, "RECORD").toPath());
+            description.append(';');
+        }
+        return description.toString();
+    }
+
+    private static List<File> findPoetryDistInfoDirectories(File environmentDirectory) {
+        List<File> packageDirectories = new ArrayList<>();
+        if (environmentDirectory != null) {
+            // lib/pythonX.Y/site-packages on Unix, lib/python3/dist-packages for distribution packages, and
+            // Lib/site-packages on Windows:
+            File[] libDirectories = new File(environmentDirectory, "lib").listFiles(File::isDirectory);
+            for (File libDirectory : libDirectories != null ? libDirectories : new File[0]) {
+                packageDirectories.add(new File(libDirectory, "site-packages"));
+                packageDirectories.add(new File(libDirectory, "dist-packages"));
+            }
+            packageDirectories.add(new File(environmentDirectory, "Lib/site-packages"));
+        }
+
+        List<File> distInfoDirectories = new ArrayList<>();
+        for (File packageDirectory : packageDirectories) {
+            File[] matches = packageDirectory.listFiles(file -> file.isDirectory()
+                    && file.getName().toLowerCase().startsWith(POETRY_DIST_INFO_PREFIX)
+                    && file.getName().endsWith(DIST_INFO_SUFFIX)
+                    && Character.isDigit(file.getName().charAt(POETRY_DIST_INFO_PREFIX.length())));
+            if (matches != null) {
+                distInfoDirectories.addAll(Arrays.asList(matches));
+            }
+        }
+        distInfoDirectories.sort(Comparator.comparing(File::getAbsolutePath));
+        return distInfoDirectories;
+    }
+
+    private static File findLocalPythonVersionFile(File workingDirectory) {
+        File directory = workingDirectory != null ? workingDirectory.getAbsoluteFile() : null;
+        while (directory != null) {
+            File versionFile = new File(directory, PYTHON_VERSION_FILE);
+            if (versionFile.isFile()) {
+                return versionFile;
+            }
+            directory = directory.getParentFile();
+        }
+        return null;
+    }
+
+    private static File getGlobalPythonVersionFile() {
+        String pyenvRoot = System.getenv("PYENV_ROOT");
+        File root = StringUtils.isNotBlank(pyenvRoot) ? new File(pyenvRoot)
+                : new File(System.getProperty("user.home"), ".pyenv");
+        return new File(root, "version");
+    }
+
+    private static String describeVersionFile(File file) {
+        if (file == null || !file.isFile()) {
+            return MISSING;
+        }
+        StringBuilder description = new StringBuilder(file.getAbsolutePath());
+        appendFileState(description, file.toPath());
+        // version files are tiny and may be rewritten within the file system's timestamp resolution, so include
+        // their content as well:
+        try {
+            description.append('=').append(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).trim());
+        } catch (IOException e) {
+            description.append('=').append(MISSING);
+        }
+        return description.toString();
+    }
+
+    private static void appendFileState(StringBuilder description, Path path) {
+        try {
+            description.append('@').append(Files.getLastModifiedTime(path).toMillis())
+                    .append(':').append(Files.size(path));
+        } catch (IOException e) {
+            description.append('@').append(MISSING);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new HabushuException("SHA-256 is not available!", e);
+        }
+    }
+
+    private void load() {
+        if (!loaded) {
+            loaded = true;
+            if (cacheFile.isFile()) {
+                try (InputStream inputStream = Files.newInputStream(cacheFile.toPath())) {
+                    entries.load(inputStream);
+                } catch (IOException | IllegalArgumentException e) {
+                    logger.debug("Could not read toolchain probe cache {} - ignoring it", cacheFile, e);
+                    entries.clear();
+                }
+            }
+        }
+    }
+
+    private void store() {
+        Path directory = cacheFile.getParentFile().toPath();
+        try {
+            Files.createDirectories(directory);
+            Path tempFile = Files.createTempFile(directory, cacheFile.getName(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                entries.store(outputStream, "Habushu toolchain probe cache - safe to delete");
+            }
+            try {
+                Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // the cache is purely an optimization, so never fail the build because it cannot be written:
+            logger.debug("Could not write toolchain probe cache {}", cacheFile, e);
+        }
+    }
+}
@@ -2,23 +2,19 @@ package org.technologybrewery.habushu.migration;
 
 import com.electronwill.nightconfig.core.CommentedConfig;
 import com.electronwill.nightconfig.core.Config;
-import com.electronwill.nightconfig.core.file.FileConfig;
 import com.vdurmont.semver4j.Semver;
 import com.vdurmont.semver4j.Semver.SemverType;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.technologybrewery.baton.AbstractMigration;
-import org.technologybrewery.baton.BatonException;
-import org.technologybrewery.habushu.HabushuException;
+import org.technologybrewery.habushu.util.PyProjectDocument;
+import org.technologybrewery.habushu.util.TomlLineRewriter;
 import org.technologybrewery.habushu.util.TomlReplacementTuple;
 import org.technologybrewery.habushu.util.TomlUtils;
 import org.technologybrewery.habushu.util.PoetryUtil;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -42,18 +38,15 @@ public class CustomPoetrycoreVersionMigration extends AbstractMigration {
 
     @Override
     protected boolean shouldExecuteOnFile(File file) {
-        try (FileConfig tomlFileConfig = FileConfig.of(file)) {
-            tomlFileConfig.load();
-            Optional<Config> toolBuildSystem = tomlFileConfig.getOptional(TomlUtils.BUILD_SYSTEM);
-            if (toolBuildSystem.isPresent()) {
-                Config buildSystem = toolBuildSystem.get();
-                Map<String, Object> dependencyMap = buildSystem.valueMap();
-                for (Map.Entry<String, Object> dependency : dependencyMap.entrySet()) {
-                    // check if we need to upgrade the poetry-core version.
-                   if(isPoetrycoreUpgradeRequired(dependency)) {
-                       return true;
-                   }
-                }
+        Optional<Config> toolBuildSystem = PyProjectDocument.load(file).getConfig().getOptional(TomlUtils.BUILD_SYSTEM);
+        if (toolBuildSystem.isPresent()) {
+            Config buildSystem = toolBuildSystem.get();
+            Map<String, Object> dependencyMap = buildSystem.valueMap();
+            for (Map.Entry<String, Object> dependency : dependencyMap.entrySet()) {
+                // check if we need to upgrade the poetry-core version.
+               if(isPoetrycoreUpgradeRequired(dependency)) {
+                   return true;
+               }
             }
         }
         return false;
@@ -61,48 +54,38 @@ public class CustomPoetrycoreVersionMigration extends AbstractMigration {
 
     @Override
     protected boolean performMigration(File pyProjectTomlFile) {
-        String fileContent = StringUtils.EMPTY;
-        try (BufferedReader reader = new BufferedReader(new FileReader(pyProjectTomlFile))) {
-            String line = reader.readLine();
-            while (line != null) {
-                if (line.contains(StringUtils.SPACE) && line.contains(TomlUtils.EQUALS)) {
-                    String key = line.substring(0, line.indexOf(StringUtils.SPACE));
-                    if (key == null) {
-                        key = line.substring(0, line.indexOf(TomlUtils.EQUALS));
-                    } else {
-                        key = key.strip();
-                        TomlReplacementTuple matchedTuple = replacements.get(key);
-                        if ((matchedTuple != null) && (line.contains(TomlUtils.POETRY_CORE)) && (line.contains(TomlUtils.EQUALS))) {
-                            // update the poetry-core version if required.
-                            StringBuilder stringBuilder = new StringBuilder(line);
-
-                            if(isPoetryCoreVersionUpdateRequired){
-                                int versionIndex = line.lastIndexOf(TomlUtils.EQUALS) + 1;
-                                int endVersionIndex = line.lastIndexOf(TomlUtils.DOT) + 2;
-                                //This case will only occur when:
-                                // requires = ["poetry-core>=1"] where there is no dot after 1
-                                if(line.lastIndexOf(TomlUtils.DOT) == -1){
-                                    endVersionIndex = versionIndex + 1;
-                                }
-                                line = stringBuilder.replace(versionIndex, endVersionIndex, POETRY_CORE_REQUIRED_VERSION).toString();
-                                logger.info("Updating poetry-core version to {}.", POETRY_CORE_REQUIRED_VERSION);
+        PyProjectDocument pyProject = PyProjectDocument.load(pyProjectTomlFile);
+        TomlLineRewriter.rewrite(pyProject, (originalLine, output) -> {
+            String line = originalLine;
+            if (line.contains(StringUtils.SPACE) && line.contains(TomlUtils.EQUALS)) {
+                String key = line.substring(0, line.indexOf(StringUtils.SPACE));
+                if (key == null) {
+                    key = line.substring(0, line.indexOf(TomlUtils.EQUALS));
+                } else {
+                    key = key.strip();
+                    TomlReplacementTuple matchedTuple = replacements.get(key);
+                    if ((matchedTuple != null) && (line.contains(TomlUtils.POETRY_CORE)) && (line.contains(TomlUtils.EQUALS))) {
+                        // update the poetry-core version if required.
+                        StringBuilder stringBuilder = new StringBuilder(line);
+
+                        if(isPoetryCoreVersionUpdateRequired){
+                            int versionIndex = line.lastIndexOf(TomlUtils.EQUALS) + 1;
+                            int endVersionIndex = line.lastIndexOf(TomlUtils.DOT) + 2;
+                            //This case will only occur when:
+                            // requires = ["poetry-core>=1"] where there is no dot after 1
+                            if(line.lastIndexOf(TomlUtils.DOT) == -1){
+                                endVersionIndex = versionIndex + 1;
                             }
+                            line = stringBuilder.replace(versionIndex, endVersionIndex, POETRY_CORE_REQUIRED_VERSION).toString();
+                            logger.info("Updating poetry-core version to {}.", POETRY_CORE_REQUIRED_VERSION);
                         }
                     }
                 }
-                fileContent += line + "\n";
-                line = reader.readLine();
             }
+            output.writeLine(line);
+        });
 
-        } catch (IOException e) {
-            throw new HabushuException("Problem reading pyproject.toml while updating the build-sytem's Poetry-core version!", e);
-        }
-
-        try {
-            TomlUtils.writeTomlFile(pyProjectTomlFile, fileContent);
-        } catch (IOException e) {
-            throw new BatonException("Problem while writing dependencies to TomlFile while updating the build-system's Poetry-core version!", e);
-        }
+        pyProject.save();
         return true;
     }
 
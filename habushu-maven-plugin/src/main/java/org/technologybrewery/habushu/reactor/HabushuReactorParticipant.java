@@ -0,0 +1,250 @@
+package org.technologybrewery.habushu.reactor;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.PyenvAndPoetrySetup;
+import org.technologybrewery.habushu.exec.PoetryDaemon;
+import org.technologybrewery.habushu.exec.PoetryPluginManager;
+import org.technologybrewery.habushu.telemetry.BuildMetrics;
+import org.technologybrewery.habushu.telemetry.OtlpTraceExporter;
+import org.technologybrewery.habushu.util.PyProjectDocument;
+import org.technologybrewery.habushu.util.TomlUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coordinates the Habushu modules within a reactor so that independent modules may be built concurrently while
+ * modules that depend on one another are still built in order.
+ * <p>
+ * Local path dependencies declared within each Habushu module's pyproject.toml (i.e.
+ * {@code foo = {path = "../foo", develop = true}}) that refer to other Habushu modules in the reactor are added as
+ * {@code <type>habushu</type>} Maven dependencies, so that Maven's reactor ordering reflects the Poetry dependency
+ * graph without the need to duplicate it within each POM. If {@code habushu.reactor.threads} is set and the build
+ * was not already started with {@code -T}, the build is switched to Maven's multithreaded builder with the given
+ * number of workers.
+ * <p>
+ * Configuration is read from user properties (i.e. {@code -Dhabushu.reactor.threads=4}), system properties, or the
+ * properties of the top-level project, in that order.
+ * <p>
+ * Any Poetry daemons started during the build (see {@code habushu.usePoetryDaemon}) are stopped once the build ends.
+ * <p>
+ * If {@code habushu.traces.file} or {@code habushu.traces.endpoint} is set, the goals and processes recorded during
+ * the build are exported as an OpenTelemetry trace once the build ends.
+ */
+public class HabushuReactorParticipant extends AbstractMavenLifecycleParticipant {
+
+    private static final Logger logger = LoggerFactory.getLogger(HabushuReactorParticipant.class);
+
+    /**
+     * Enables inference of Maven dependencies from pyproject.toml path dependencies (default {@code true}).
+     */
+    public static final String INFER_PATH_DEPENDENCIES_PROPERTY = "habushu.reactor.inferPathDependencies";
+
+    /**
+     * Number of modules that may be built concurrently (default: unset, which leaves Maven's builder unchanged).
+     */
+    public static final String THREADS_PROPERTY = "habushu.reactor.threads";
+
+    /**
+     * File to which the trace of the build is appended as OTLP/JSON (default: unset).
+     */
+    public static final String TRACES_FILE_PROPERTY = "habushu.traces.file";
+
+    /**
+     * OTLP/HTTP endpoint of the collector to which the trace of the build is sent, i.e.
+     * {@code http://localhost:4318/v1/traces} (default: unset).
+     */
+    public static final String TRACES_ENDPOINT_PROPERTY = "habushu.traces.endpoint";
+
+    static final String HABUSHU_PACKAGING = "habushu";
+    static final String MULTITHREADED_BUILDER = "multithreaded";
+
+    /**
+     * Number of the slowest processes across all modules to include in the build metrics summary.
+     */
+    static final int SLOWEST_PROCESSES_IN_SUMMARY = 10;
+
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        List<MavenProject> habushuProjects = new ArrayList<>();
+        for (MavenProject project : session.getProjects()) {
+            if (HABUSHU_PACKAGING.equals(project.getPackaging())) {
+                habushuProjects.add(project);
+            }
+        }
+        if (habushuProjects.isEmpty()) {
+            return;
+        }
+
+        if (Boolean.parseBoolean(getProperty(session, INFER_PATH_DEPENDENCIES_PROPERTY, "true"))) {
+            inferPathDependencies(habushuProjects);
+        }
+
+        configureConcurrency(session, habushuProjects.size());
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+        PoetryDaemon.shutdownAll();
+        PyProjectDocument.clear();
+        PoetryPluginManager.clear();
+        PyenvAndPoetrySetup.clear();
+        exportTraces(getProperty(session, TRACES_FILE_PROPERTY, null),
+                getProperty(session, TRACES_ENDPOINT_PROPERTY, null));
+        logBuildMetricsSummary();
+    }
+
+    /**
+     * Exports the goals and processes recorded during the build as an OpenTelemetry trace. Failures to export are
+     * logged rather than failing the build.
+     *
+     * @param tracesFile     file to which to append the trace, if any
+     * @param tracesEndpoint OTLP/HTTP endpoint to which to send the trace, if any
+     */
+    protected void exportTraces(String tracesFile, String tracesEndpoint) {
+        OtlpTraceExporter exporter = OtlpTraceExporter.forCurrentBuild();
+        if (!exporter.hasSpans()) {
+            return;
+        }
+        if (StringUtils.isNotBlank(tracesFile)) {
+            try {
+                exporter.appendTo(new File(tracesFile));
+            } catch (IOException e) {
+                logger.warn("Could not write build trace to {}", tracesFile, e);
+            }
+        }
+        if (StringUtils.isNotBlank(tracesEndpoint)) {
+            try {
+                exporter.sendTo(URI.create(tracesEndpoint));
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not send build trace to {}", tracesEndpoint, e);
+            }
+        }
+    }
+
+    /**
+     * Logs the time spent in Habushu goals and processes by each module of the build, then forgets them.
+     */
+    protected void logBuildMetricsSummary() {
+        List<String> summary = BuildMetrics.formatReactorSummary(SLOWEST_PROCESSES_IN_SUMMARY);
+        if (!summary.isEmpty()) {
+            logger.info("Habushu build metrics (see target/habushu-metrics.json within each module for details):");
+            for (String line : summary) {
+                logger.info(line);
+            }
+        }
+        BuildMetrics.clear();
+    }
+
+    /**
+     * Adds Maven dependencies between Habushu modules that reflect the local path dependencies in their
+     * pyproject.toml files. Dependencies that are already declared are left untouched.
+     *
+     * @param habushuProjects Habushu modules within the reactor
+     */
+    protected void inferPathDependencies(List<MavenProject> habushuProjects) {
+        Map<File, MavenProject> projectsByDirectory = new HashMap<>();
+        for (MavenProject project : habushuProjects) {
+            projectsByDirectory.put(canonicalize(project.getBasedir()), project);
+        }
+
+        for (MavenProject project : habushuProjects) {
+            File pyProjectTomlFile = new File(project.getBasedir(), "pyproject.toml");
+            if (!pyProjectTomlFile.isFile()) {
+                continue;
+            }
+
+            List<File> pathDependencies;
+            try {
+                pathDependencies = TomlUtils.findPathDependencyDirectories(
+                        PyProjectDocument.load(pyProjectTomlFile).getConfig(), project.getBasedir());
+            } catch (RuntimeException e) {
+                logger.warn("Could not read {} - reactor ordering will not reflect its path dependencies",
+                        pyProjectTomlFile, e);
+                continue;
+            }
+
+            for (File pathDependency : pathDependencies) {
+                MavenProject upstream = projectsByDirectory.get(canonicalize(pathDependency));
+                if (upstream != null && upstream != project && !isDependencyDeclared(project, upstream)) {
+                    Dependency dependency = new Dependency();
+                    dependency.setGroupId(upstream.getGroupId());
+                    dependency.setArtifactId(upstream.getArtifactId());
+                    dependency.setVersion(upstream.getVersion());
+                    dependency.setType(HABUSHU_PACKAGING);
+                    project.getModel().addDependency(dependency);
+                    logger.info("Inferred dependency of {} on {} from pyproject.toml path dependency",
+                            project.getArtifactId(), upstream.getArtifactId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Switches the build to Maven's multithreaded builder when {@link #THREADS_PROPERTY} is set, there are multiple
+     * Habushu modules, and the degree of concurrency was not already specified via {@code -T}.
+     *
+     * @param session             current session
+     * @param habushuProjectCount number of Habushu modules within the reactor
+     */
+    protected void configureConcurrency(MavenSession session, int habushuProjectCount) {
+        int threads = NumberUtils.toInt(getProperty(session, THREADS_PROPERTY, null), 0);
+        MavenExecutionRequest request = session.getRequest();
+        if (threads <= 1 || habushuProjectCount <= 1) {
+            return;
+        }
+        if (request.getDegreeOfConcurrency() > 1) {
+            logger.info("Concurrency already set to {} thread(s) - ignoring {}", request.getDegreeOfConcurrency(),
+                    THREADS_PROPERTY);
+            return;
+        }
+
+        int workers = Math.min(threads, session.getProjects().size());
+        logger.info("Building up to {} modules concurrently ({}={})", workers, THREADS_PROPERTY, threads);
+        request.setDegreeOfConcurrency(workers);
+        request.setBuilderId(MULTITHREADED_BUILDER);
+    }
+
+    private static boolean isDependencyDeclared(MavenProject project, MavenProject upstream) {
+        for (Dependency dependency : project.getDependencies()) {
+            if (StringUtils.equals(dependency.getGroupId(), upstream.getGroupId())
+                    && StringUtils.equals(dependency.getArtifactId(), upstream.getArtifactId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getProperty(MavenSession session, String name, String defaultValue) {
+        String value = session.getUserProperties().getProperty(name);
+        if (value == null) {
+            value = session.getSystemProperties().getProperty(name);
+        }
+        if (value == null && session.getTopLevelProject() != null) {
+            value = session.getTopLevelProject().getProperties().getProperty(name);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    private static File canonicalize(File file) {
+        try {
+            return file.getCanonicalFile();
+        } catch (IOException e) {
+            return file.getAbsoluteFile();
+        }
+    }
+}
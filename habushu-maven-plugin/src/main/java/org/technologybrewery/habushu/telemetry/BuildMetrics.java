@@ -0,0 +1,246 @@
+package org.technologybrewery.habushu.telemetry;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Collects the time spent within each Habushu goal, and within each external process launched on its behalf, for
+ * every module of a build. The goal being executed is tracked per thread (and inherited by threads created while
+ * it is set, like {@link org.technologybrewery.habushu.exec.ProcessLogContext}) so that processes are attributed
+ * to the right module when modules are built concurrently. Metrics are held in memory until the end of the build,
+ * when {@link #formatReactorSummary(int)} may be used to summarize them before they are cleared.
+ */
+public final class BuildMetrics {
+
+    /**
+     * Module attribute holding the Maven artifactId of the module.
+     */
+    public static final String ARTIFACT_ID_ATTRIBUTE = "maven.project.artifact_id";
+
+    /**
+     * Module attribute holding the version of Python used to build the module.
+     */
+    public static final String PYTHON_VERSION_ATTRIBUTE = "habushu.python.version";
+
+    /**
+     * Module attribute holding the version of Poetry used to build the module.
+     */
+    public static final String POETRY_VERSION_ATTRIBUTE = "habushu.poetry.version";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Map<String, ModuleMetrics> MODULES = new ConcurrentHashMap<>();
+    private static final InheritableThreadLocal<GoalContext> CURRENT_GOAL = new InheritableThreadLocal<>();
+
+    private static volatile BuildTrace trace = new BuildTrace();
+
+    private BuildMetrics() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Returns the metrics of the given module, creating them if this is the first goal executed for the module.
+     *
+     * @param module      module identifier
+     * @param metricsFile file to which the module's metrics are written
+     * @return module metrics
+     */
+    public static ModuleMetrics getModule(String module, File metricsFile) {
+        return MODULES.computeIfAbsent(module, name -> new ModuleMetrics(name, metricsFile));
+    }
+
+    /**
+     * Attributes processes launched from the current thread to the given goal of the given module.
+     *
+     * @param module module metrics
+     * @param goal   goal being executed
+     * @return identifier of the trace span representing the goal
+     */
+    public static String startGoal(ModuleMetrics module, String goal) {
+        String spanId = newSpanId();
+        CURRENT_GOAL.set(new GoalContext(module, goal, spanId));
+        return spanId;
+    }
+
+    /**
+     * Sets an attribute (i.e. {@link #PYTHON_VERSION_ATTRIBUTE}) of the module whose goal is being executed on the
+     * current thread, if metrics are being recorded for it.
+     *
+     * @param name  attribute name
+     * @param value attribute value
+     */
+    public static void setModuleAttribute(String name, String value) {
+        GoalContext context = CURRENT_GOAL.get();
+        if (context != null) {
+            context.module.setAttribute(name, value);
+        }
+    }
+
+    /**
+     * Stops attributing processes launched from the current thread to a goal.
+     */
+    public static void endGoal() {
+        CURRENT_GOAL.remove();
+    }
+
+    /**
+     * Records a process launched from the current thread, if metrics are being recorded for its goal.
+     *
+     * @param command          command line, with any sensitive arguments masked
+     * @param startEpochMillis time at which the process was launched
+     * @param wallMillis       elapsed time until the process completed
+     * @param cpuMillis        CPU time consumed by the process, if known
+     * @param exitCode         exit code, if the process ran to completion
+     * @param stdoutBytes      bytes written to standard output
+     * @param stderrBytes      bytes written to standard error
+     */
+    public static void recordProcess(String command, long startEpochMillis, long wallMillis, Long cpuMillis,
+                                     Integer exitCode, long stdoutBytes, long stderrBytes) {
+        GoalContext context = CURRENT_GOAL.get();
+        if (context != null) {
+            context.module.recordProcess(new ProcessMetric(newSpanId(), context.spanId, context.goal, command,
+                    startEpochMillis, wallMillis, cpuMillis, exitCode, stdoutBytes, stderrBytes));
+        }
+    }
+
+    /**
+     * Returns whether processes launched from the current thread are being recorded.
+     *
+     * @return whether metrics are being recorded
+     */
+    public static boolean isRecording() {
+        return CURRENT_GOAL.get() != null;
+    }
+
+    /**
+     * Returns the metrics of all modules recorded during this build.
+     *
+     * @return module metrics
+     */
+    public static Collection<ModuleMetrics> getModules() {
+        return new ArrayList<>(MODULES.values());
+    }
+
+    /**
+     * Returns the trace to which the spans of all goals and processes recorded during this build belong.
+     *
+     * @return build trace
+     */
+    public static BuildTrace getTrace() {
+        return trace;
+    }
+
+    /**
+     * Forgets all recorded metrics and starts a new trace, such as at the end of a build.
+     */
+    public static void clear() {
+        MODULES.clear();
+        trace = new BuildTrace();
+    }
+
+    /**
+     * Generates a random identifier for a trace span, formatted as 16 hexadecimal characters.
+     *
+     * @return span identifier
+     */
+    public static String newSpanId() {
+        return randomHex(8);
+    }
+
+    private static String randomHex(int bytes) {
+        byte[] id = new byte[bytes];
+        RANDOM.nextBytes(id);
+        return Hex.encodeHexString(id);
+    }
+
+    /**
+     * Summarizes the recorded metrics with one line per module (slowest first) followed by the slowest processes
+     * across all modules.
+     *
+     * @param slowestProcesses number of slowest processes to include
+     * @return summary lines, which are empty if nothing was recorded
+     */
+    public static List<String> formatReactorSummary(int slowestProcesses) {
+        List<String> lines = new ArrayList<>();
+        List<ModuleMetrics> modules = getModules().stream()
+                .sorted(Comparator.comparingLong(ModuleMetrics::getTotalGoalMillis).reversed())
+                .collect(Collectors.toList());
+        if (modules.isEmpty()) {
+            return lines;
+        }
+
+        int moduleWidth = Math.max(6, modules.stream().mapToInt(module -> module.getModule().length()).max()
+                .orElse(0));
+        lines.add(String.format("%-" + moduleWidth + "s %10s %10s %9s", "Module", "Goals", "Processes", "Count"));
+        for (ModuleMetrics module : modules) {
+            lines.add(String.format("%-" + moduleWidth + "s %10s %10s %9d", module.getModule(),
+                    formatMillis(module.getTotalGoalMillis()), formatMillis(module.getTotalProcessMillis()),
+                    module.getProcesses().size()));
+        }
+
+        List<Map.Entry<String, ProcessMetric>> processes = new ArrayList<>();
+        for (ModuleMetrics module : modules) {
+            for (ProcessMetric process : module.getProcesses()) {
+                processes.add(Map.entry(module.getModule(), process));
+            }
+        }
+        processes.sort(Comparator.comparingLong(
+                (Map.Entry<String, ProcessMetric> entry) -> entry.getValue().getWallMillis()).reversed());
+        if (!processes.isEmpty() && slowestProcesses > 0) {
+            lines.add("Slowest processes:");
+            for (Map.Entry<String, ProcessMetric> entry : processes.subList(0,
+                    Math.min(slowestProcesses, processes.size()))) {
+                ProcessMetric process = entry.getValue();
+                lines.add(String.format("  %10s [%s] %s", formatMillis(process.getWallMillis()), entry.getKey(),
+                        StringUtils.abbreviate(process.getCommand(), 120)));
+            }
+        }
+        return lines;
+    }
+
+    private static String formatMillis(long millis) {
+        return String.format("%.3f s", millis / 1000.0);
+    }
+
+    private static final class GoalContext {
+        private final ModuleMetrics module;
+        private final String goal;
+        private final String spanId;
+
+        private GoalContext(ModuleMetrics module, String goal, String spanId) {
+            this.module = module;
+            this.goal = goal;
+            this.spanId = spanId;
+        }
+    }
+
+    /**
+     * Identifies the trace of a build and the root span under which the spans of all goals are nested.
+     */
+    public static final class BuildTrace {
+        private final String traceId = randomHex(16);
+        private final String rootSpanId = newSpanId();
+        private final long startEpochMillis = System.currentTimeMillis();
+
+        public String getTraceId() {
+            return traceId;
+        }
+
+        public String getRootSpanId() {
+            return rootSpanId;
+        }
+
+        public long getStartEpochMillis() {
+            return startEpochMillis;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.technologybrewery.habushu.telemetry;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Goal and process measurements collected for a single module over the course of a build.
+ */
+public class ModuleMetrics {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final String module;
+    private final File metricsFile;
+    private final List<MojoMetric> goals = new ArrayList<>();
+    private final List<ProcessMetric> processes = new ArrayList<>();
+    private final Map<String, String> attributes = new TreeMap<>();
+
+    /**
+     * @param module      module identifier (i.e. its artifactId)
+     * @param metricsFile file to which the metrics are written, or {@code null} to only keep them in memory
+     */
+    public ModuleMetrics(String module, File metricsFile) {
+        this.module = module;
+        this.metricsFile = metricsFile;
+    }
+
+    public String getModule() {
+        return module;
+    }
+
+    @JsonIgnore
+    public File getMetricsFile() {
+        return metricsFile;
+    }
+
+    /**
+     * Returns descriptive attributes of this module, such as the versions of Python and Poetry it was built with.
+     *
+     * @return attributes keyed by name
+     */
+    public synchronized Map<String, String> getAttributes() {
+        return new TreeMap<>(attributes);
+    }
+
+    public synchronized void setAttribute(String name, String value) {
+        if (value != null) {
+            attributes.put(name, value);
+        }
+    }
+
+    public synchronized List<MojoMetric> getGoals() {
+        return new ArrayList<>(goals);
+    }
+
+    public synchronized List<ProcessMetric> getProcesses() {
+        return new ArrayList<>(processes);
+    }
+
+    public synchronized long getTotalGoalMillis() {
+        return goals.stream().mapToLong(MojoMetric::getWallMillis).sum();
+    }
+
+    public synchronized long getTotalProcessMillis() {
+        return processes.stream().mapToLong(ProcessMetric::getWallMillis).sum();
+    }
+
+    public synchronized void recordGoal(MojoMetric goal) {
+        goals.add(goal);
+    }
+
+    public synchronized void recordProcess(ProcessMetric process) {
+        processes.add(process);
+    }
+
+    /**
+     * Writes the metrics collected so far to this module's metrics file as JSON, if one was given.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void write() throws IOException {
+        if (metricsFile != null) {
+            File parent = metricsFile.getAbsoluteFile().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+            MAPPER.writeValue(metricsFile, this);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.technologybrewery.habushu.telemetry;
+
+/**
+ * Measurements of a single Habushu goal executed for a module.
+ */
+public class MojoMetric {
+
+    private final String spanId;
+    private final String goal;
+    private final long startEpochMillis;
+    private final long wallMillis;
+    private final boolean succeeded;
+
+    /**
+     * @param spanId           identifier of the trace span representing this goal
+     * @param goal             executed goal (i.e. {@code install-dependencies})
+     * @param startEpochMillis time at which the goal started
+     * @param wallMillis       elapsed time of the goal
+     * @param succeeded        whether the goal completed without throwing an exception
+     */
+    public MojoMetric(String spanId, String goal, long startEpochMillis, long wallMillis, boolean succeeded) {
+        this.spanId = spanId;
+        this.goal = goal;
+        this.startEpochMillis = startEpochMillis;
+        this.wallMillis = wallMillis;
+        this.succeeded = succeeded;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public boolean isSucceeded() {
+        return succeeded;
+    }
+}
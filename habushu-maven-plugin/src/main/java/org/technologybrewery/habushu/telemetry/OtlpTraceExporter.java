@@ -0,0 +1,220 @@
+package org.technologybrewery.habushu.telemetry;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the goals and processes recorded by {@link BuildMetrics} as an OpenTelemetry trace, encoded as an OTLP/JSON
+ * {@code ExportTraceServiceRequest}. The build is represented by a root span, each goal execution by a child of the
+ * root span, and each process by a child of the goal that launched it.
+ * <p>
+ * Traces may either be appended to a file (one request per line, as written by the OpenTelemetry Collector's file
+ * exporter) or sent to the OTLP/HTTP traces endpoint of a collector (i.e. {@code http://localhost:4318/v1/traces}).
+ */
+public class OtlpTraceExporter {
+
+    static final String SERVICE_NAME = "habushu";
+    static final String SCOPE_NAME = "org.technologybrewery.habushu";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int SPAN_KIND_INTERNAL = 1;
+    private static final int STATUS_CODE_OK = 1;
+    private static final int STATUS_CODE_ERROR = 2;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final BuildMetrics.BuildTrace trace;
+    private final Collection<ModuleMetrics> modules;
+
+    public OtlpTraceExporter(BuildMetrics.BuildTrace trace, Collection<ModuleMetrics> modules) {
+        this.trace = trace;
+        this.modules = modules;
+    }
+
+    /**
+     * Creates an exporter for the goals and processes recorded so far in this build.
+     *
+     * @return exporter
+     */
+    public static OtlpTraceExporter forCurrentBuild() {
+        return new OtlpTraceExporter(BuildMetrics.getTrace(), BuildMetrics.getModules());
+    }
+
+    /**
+     * Returns whether any spans besides the root build span would be exported.
+     *
+     * @return whether any goals were recorded
+     */
+    public boolean hasSpans() {
+        return modules.stream().anyMatch(module -> !module.getGoals().isEmpty());
+    }
+
+    /**
+     * Appends the trace to the given file as a single line of OTLP/JSON, creating the file and its parent directories
+     * as needed.
+     *
+     * @param tracesFile file to which to append
+     * @throws IOException if the file cannot be written
+     */
+    public void appendTo(File tracesFile) throws IOException {
+        File parent = tracesFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        String line = MAPPER.writeValueAsString(toExportRequest()) + "\n";
+        Files.write(tracesFile.toPath(), line.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Sends the trace to the given OTLP/HTTP traces endpoint.
+     *
+     * @param endpoint collector endpoint (i.e. {@code http://localhost:4318/v1/traces})
+     * @throws IOException if the request cannot be sent
+     */
+    public void sendTo(URI endpoint) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(MAPPER.writeValueAsBytes(toExportRequest())))
+                .build();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending traces to " + endpoint, e);
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new HabushuException("Collector at " + endpoint + " rejected traces with status "
+                    + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    /**
+     * Builds the OTLP/JSON representation of the trace.
+     *
+     * @return {@code ExportTraceServiceRequest} JSON
+     */
+    public ObjectNode toExportRequest() {
+        ObjectNode request = MAPPER.createObjectNode();
+        ObjectNode resourceSpans = request.putArray("resourceSpans").addObject();
+        ArrayNode resourceAttributes = resourceSpans.putObject("resource").putArray("attributes");
+        addAttribute(resourceAttributes, "service.name", SERVICE_NAME);
+        ObjectNode scopeSpans = resourceSpans.putArray("scopeSpans").addObject();
+        scopeSpans.putObject("scope").put("name", SCOPE_NAME);
+        ArrayNode spans = scopeSpans.putArray("spans");
+
+        long buildStart = trace.getStartEpochMillis();
+        long buildEnd = System.currentTimeMillis();
+        boolean buildSucceeded = true;
+        for (ModuleMetrics module : modules) {
+            Map<String, String> moduleAttributes = module.getAttributes();
+            for (MojoMetric goal : module.getGoals()) {
+                buildStart = Math.min(buildStart, goal.getStartEpochMillis());
+                buildEnd = Math.max(buildEnd, goal.getStartEpochMillis() + goal.getWallMillis());
+                buildSucceeded &= goal.isSucceeded();
+                ObjectNode span = addSpan(spans, goal.getSpanId(), trace.getRootSpanId(),
+                        module.getModule() + ":" + goal.getGoal(), goal.getStartEpochMillis(), goal.getWallMillis(),
+                        goal.isSucceeded());
+                ArrayNode attributes = span.putArray("attributes");
+                addModuleAttributes(attributes, module, moduleAttributes);
+                addAttribute(attributes, "maven.goal", goal.getGoal());
+            }
+            for (ProcessMetric process : module.getProcesses()) {
+                boolean succeeded = process.getExitCode() == null || process.getExitCode() == 0;
+                ObjectNode span = addSpan(spans, process.getSpanId(), process.getParentSpanId(),
+                        getProcessSpanName(process.getCommand()), process.getStartEpochMillis(),
+                        process.getWallMillis(), succeeded);
+                ArrayNode attributes = span.putArray("attributes");
+                addModuleAttributes(attributes, module, moduleAttributes);
+                addAttribute(attributes, "process.command_line", process.getCommand());
+                if (process.getExitCode() != null) {
+                    addAttribute(attributes, "process.exit.code", process.getExitCode());
+                }
+                if (process.getCpuMillis() != null) {
+                    addAttribute(attributes, "habushu.process.cpu_millis", process.getCpuMillis());
+                }
+                addAttribute(attributes, "habushu.process.stdout_bytes", process.getStdoutBytes());
+                addAttribute(attributes, "habushu.process.stderr_bytes", process.getStderrBytes());
+            }
+        }
+
+        ObjectNode root = addSpan(spans, trace.getRootSpanId(), null, "maven build", buildStart,
+                buildEnd - buildStart, buildSucceeded);
+        root.putArray("attributes");
+        return request;
+    }
+
+    private ObjectNode addSpan(ArrayNode spans, String spanId, String parentSpanId, String name,
+                               long startEpochMillis, long wallMillis, boolean succeeded) {
+        ObjectNode span = spans.addObject();
+        span.put("traceId", trace.getTraceId());
+        span.put("spanId", spanId);
+        if (parentSpanId != null) {
+            span.put("parentSpanId", parentSpanId);
+        }
+        span.put("name", name);
+        span.put("kind", SPAN_KIND_INTERNAL);
+        span.put("startTimeUnixNano", toUnixNanos(startEpochMillis));
+        span.put("endTimeUnixNano", toUnixNanos(startEpochMillis + wallMillis));
+        span.putObject("status").put("code", succeeded ? STATUS_CODE_OK : STATUS_CODE_ERROR);
+        return span;
+    }
+
+    /**
+     * Names process spans by their executable and subcommand (i.e. {@code poetry install}) rather than by their full
+     * command line, which is only exported (as recorded, with any sensitive arguments masked) as an attribute.
+     */
+    static String getProcessSpanName(String command) {
+        String[] arguments = StringUtils.split(StringUtils.defaultString(command));
+        if (arguments.length == 0) {
+            return "process";
+        }
+        String executable = new File(arguments[0]).getName();
+        return arguments.length > 1 && !arguments[1].startsWith("-") && arguments[1].indexOf(File.separatorChar) < 0
+                ? executable + " " + arguments[1] : executable;
+    }
+
+    private static void addModuleAttributes(ArrayNode attributes, ModuleMetrics module,
+                                            Map<String, String> moduleAttributes) {
+        addAttribute(attributes, "maven.project.id", module.getModule());
+        for (Map.Entry<String, String> attribute : moduleAttributes.entrySet()) {
+            addAttribute(attributes, attribute.getKey(), attribute.getValue());
+        }
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, String value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        attribute.putObject("value").put("stringValue", value);
+    }
+
+    private static void addAttribute(ArrayNode attributes, String key, long value) {
+        ObjectNode attribute = attributes.addObject();
+        attribute.put("key", key);
+        // OTLP/JSON encodes 64 bit integers as strings
+        attribute.putObject("value").put("intValue", String.valueOf(value));
+    }
+
+    private static String toUnixNanos(long epochMillis) {
+        return String.valueOf(TimeUnit.MILLISECONDS.toNanos(epochMillis));
+    }
+}
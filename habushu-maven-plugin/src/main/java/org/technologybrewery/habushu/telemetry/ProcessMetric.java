@@ -0,0 +1,84 @@
+package org.technologybrewery.habushu.telemetry;
+
+/**
+ * Measurements of a single external process (or Poetry daemon request) launched during a build.
+ */
+public class ProcessMetric {
+
+    private final String spanId;
+    private final String parentSpanId;
+    private final String goal;
+    private final String command;
+    private final long startEpochMillis;
+    private final long wallMillis;
+    private final Long cpuMillis;
+    private final Integer exitCode;
+    private final long stdoutBytes;
+    private final long stderrBytes;
+
+    /**
+     * @param spanId           identifier of the trace span representing this process
+     * @param parentSpanId     identifier of the trace span of the goal that launched this process
+     * @param goal             goal on whose behalf the process was launched, if known
+     * @param command          command line, with any sensitive arguments masked
+     * @param startEpochMillis time at which the process was launched
+     * @param wallMillis       elapsed time until the process completed
+     * @param cpuMillis        CPU time consumed by the process and its descendants, if it could be measured
+     * @param exitCode         exit code of the process, or {@code null} if it could not be launched or was killed
+     * @param stdoutBytes      number of bytes written to standard output
+     * @param stderrBytes      number of bytes written to standard error
+     */
+    public ProcessMetric(String spanId, String parentSpanId, String goal, String command, long startEpochMillis, long wallMillis, Long cpuMillis,
+                         Integer exitCode, long stdoutBytes, long stderrBytes) {
+        this.spanId = spanId;
+        this.parentSpanId = parentSpanId;
+        this.goal = goal;
+        this.command = command;
+        this.startEpochMillis = startEpochMillis;
+        this.wallMillis = wallMillis;
+        this.cpuMillis = cpuMillis;
+        this.exitCode = exitCode;
+        this.stdoutBytes = stdoutBytes;
+        this.stderrBytes = stderrBytes;
+    }
+
+    public String getSpanId() {
+        return spanId;
+    }
+
+    public String getParentSpanId() {
+        return parentSpanId;
+    }
+
+    public String getGoal() {
+        return goal;
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public long getStartEpochMillis() {
+        return startEpochMillis;
+    }
+
+    public long getWallMillis() {
+        return wallMillis;
+    }
+
+    public Long getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public Integer getExitCode() {
+        return exitCode;
+    }
+
+    public long getStdoutBytes() {
+        return stdoutBytes;
+    }
+
+    public long getStderrBytes() {
+        return stderrBytes;
+    }
+}
@@ -6,6 +6,10 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.maven.settings.Server;
@@ -146,7 +150,9 @@ public final class HabushuUtil {
     }
 
     /**
-     * Copies specified file into specified path.
+     * Copies specified file into specified path. The file is first copied alongside the destination and then moved
+     * into place, so that concurrent readers of the destination (i.e. other modules of a parallel build) never
+     * observe a partially written file.
      * 
      * @param filePath the path to the file to copy
      * @param destinationFilePath the path to where the new copy should be created
@@ -154,8 +160,20 @@ public final class HabushuUtil {
     public static void copyFile(String sourceFilePath, String destinationFilePath) {
         try{
             File sourceFile = new File(sourceFilePath);
-            File destinationFile = new File(destinationFilePath);
-            FileUtils.copyFile(sourceFile, destinationFile);
+            File destinationFile = new File(destinationFilePath).getAbsoluteFile();
+            Files.createDirectories(destinationFile.getParentFile().toPath());
+            Path tempFile = Files.createTempFile(destinationFile.getParentFile().toPath(), destinationFile.getName(), ".tmp");
+            try {
+                FileUtils.copyFile(sourceFile, tempFile.toFile());
+                try {
+                    Files.move(tempFile, destinationFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, destinationFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
         } catch(IOException ioe){
             throw new HabushuException("Could not copy the file ["+ sourceFilePath +"] to [" + destinationFilePath +"]!", ioe);
         }
@@ -0,0 +1,183 @@
+package org.technologybrewery.habushu.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Named lock that serializes mutations of machine-wide toolchain state (i.e. {@code pyenv install},
+ * {@code poetry self add}, or Poetry's global configuration) across the threads of a parallel build as well as
+ * across concurrently running builds. Threads within the JVM coordinate via an in-memory lock, while separate
+ * processes coordinate via an OS-level lock on a file within the lock directory. Locks are reentrant for the owning
+ * thread.
+ * <p>
+ * Intended for use in a try-with-resources block:
+ * <pre>
+ * try (InterProcessLock lock = InterProcessLock.acquire("pyenv-install")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class InterProcessLock implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InterProcessLock.class);
+
+    /**
+     * Directory in which lock files are created by default.
+     */
+    public static final File DEFAULT_LOCK_DIRECTORY = new File(System.getProperty("user.home"), ".m2/habushu/locks");
+
+    private static final Map<File, HeldLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final HeldLock heldLock;
+
+    private InterProcessLock(HeldLock heldLock) {
+        this.heldLock = heldLock;
+    }
+
+    /**
+     * Blocks until the lock with the given name in the {@link #DEFAULT_LOCK_DIRECTORY} is acquired.
+     *
+     * @param name name of the lock, which must be usable as a file name
+     * @return acquired lock, which must be closed to release it
+     */
+    public static InterProcessLock acquire(String name) {
+        return acquire(DEFAULT_LOCK_DIRECTORY, name);
+    }
+
+    /**
+     * Blocks until the lock with the given name in the given directory is acquired.
+     *
+     * @param lockDirectory directory in which the lock file is created
+     * @param name          name of the lock, which must be usable as a file name
+     * @return acquired lock, which must be closed to release it
+     */
+    public static InterProcessLock acquire(File lockDirectory, String name) {
+        File lockFile = new File(lockDirectory, name + ".lock").getAbsoluteFile();
+        HeldLock heldLock = LOCKS.computeIfAbsent(lockFile, HeldLock::new);
+        heldLock.lock();
+        return new InterProcessLock(heldLock);
+    }
+
+    /**
+     * Acquires the lock with the given name in the given directory only if it is not held by another thread or
+     * process.
+     *
+     * @param lockDirectory directory in which the lock file is created
+     * @param name          name of the lock, which must be usable as a file name
+     * @return acquired lock, which must be closed to release it, or {@code null} if the lock is held elsewhere
+     */
+    public static InterProcessLock tryAcquire(File lockDirectory, String name) {
+        File lockFile = new File(lockDirectory, name + ".lock").getAbsoluteFile();
+        HeldLock heldLock = LOCKS.computeIfAbsent(lockFile, HeldLock::new);
+        return heldLock.tryLock() ? new InterProcessLock(heldLock) : null;
+    }
+
+    /**
+     * Returns whether the current thread holds this lock.
+     *
+     * @return {@code true} if held by the current thread
+     */
+    public boolean isHeldByCurrentThread() {
+        return heldLock.threadLock.isHeldByCurrentThread();
+    }
+
+    @Override
+    public void close() {
+        heldLock.unlock();
+    }
+
+    private static final class HeldLock {
+        private final File lockFile;
+        private final ReentrantLock threadLock = new ReentrantLock();
+        private FileChannel channel;
+        private FileLock fileLock;
+
+        private HeldLock(File lockFile) {
+            this.lockFile = lockFile;
+        }
+
+        private void lock() {
+            threadLock.lock();
+            if (threadLock.getHoldCount() > 1) {
+                // reentrant acquisition - the file lock is already held
+                return;
+            }
+
+            try {
+                Files.createDirectories(lockFile.getParentFile().toPath());
+                channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                fileLock = channel.tryLock();
+                if (fileLock == null) {
+                    logger.info("Waiting for another build to release {}...", lockFile);
+                    fileLock = channel.lock();
+                }
+            } catch (IOException | RuntimeException e) {
+                releaseFileLock();
+                threadLock.unlock();
+                throw new HabushuException("Could not acquire lock " + lockFile, e);
+            }
+        }
+
+        private boolean tryLock() {
+            if (!threadLock.tryLock()) {
+                return false;
+            }
+            if (threadLock.getHoldCount() > 1) {
+                return true;
+            }
+
+            try {
+                Files.createDirectories(lockFile.getParentFile().toPath());
+                channel = FileChannel.open(lockFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                fileLock = channel.tryLock();
+            } catch (IOException | RuntimeException e) {
+                releaseFileLock();
+                threadLock.unlock();
+                throw new HabushuException("Could not acquire lock " + lockFile, e);
+            }
+            if (fileLock == null) {
+                releaseFileLock();
+                threadLock.unlock();
+                return false;
+            }
+            return true;
+        }
+
+        private void unlock() {
+            try {
+                if (threadLock.getHoldCount() == 1) {
+                    releaseFileLock();
+                }
+            } finally {
+                threadLock.unlock();
+            }
+        }
+
+        private void releaseFileLock() {
+            try {
+                if (fileLock != null) {
+                    fileLock.release();
+                }
+                if (channel != null) {
+                    channel.close();
+                }
+            } catch (IOException e) {
+                logger.debug("Could not release lock {}", lockFile, e);
+            } finally {
+                fileLock = null;
+                channel = null;
+            }
+        }
+    }
+}
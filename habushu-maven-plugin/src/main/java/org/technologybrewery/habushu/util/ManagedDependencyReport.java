@@ -0,0 +1,142 @@
+package org.technologybrewery.habushu.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Structured record of how the dependencies within a pyproject.toml file compare to their managed dependency
+ * definitions, suitable for consumption by CI tooling that aggregates mismatches across many modules.
+ */
+public class ManagedDependencyReport {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * What was done about the mismatches that were found.
+     */
+    public enum Outcome {
+        /** No active mismatches were found. */
+        CONFORMING,
+        /** Mismatches were found and updated within pyproject.toml. */
+        UPDATED,
+        /** Mismatches were found and only logged. */
+        REPORTED,
+        /** Mismatches were found and the build was failed. */
+        FAILED
+    }
+
+    private final String pyProjectToml;
+    private final List<Mismatch> mismatches = new ArrayList<>();
+    private Outcome outcome = Outcome.CONFORMING;
+
+    public ManagedDependencyReport(File pyProjectTomlFile) {
+        this.pyProjectToml = pyProjectTomlFile.getPath();
+    }
+
+    /**
+     * Records a dependency that does not match its managed definition.
+     *
+     * @param mismatch mismatched dependency
+     */
+    public void addMismatch(Mismatch mismatch) {
+        mismatches.add(mismatch);
+    }
+
+    /**
+     * Returns whether any of the recorded mismatches are actively managed (i.e. should be acted upon).
+     *
+     * @return whether active mismatches were found
+     */
+    public boolean hasActiveMismatches() {
+        return mismatches.stream().anyMatch(Mismatch::isActive);
+    }
+
+    public String getPyProjectToml() {
+        return pyProjectToml;
+    }
+
+    public List<Mismatch> getMismatches() {
+        return Collections.unmodifiableList(mismatches);
+    }
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * Writes this report to the given file as JSON, creating its parent directories as needed.
+     *
+     * @param reportFile file to write
+     * @throws IOException if the report cannot be written
+     */
+    public void write(File reportFile) throws IOException {
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+        MAPPER.writeValue(reportFile, this);
+    }
+
+    /**
+     * A single dependency within a pyproject.toml section that does not match its managed definition.
+     */
+    public static class Mismatch {
+
+        private final String section;
+        private final String packageName;
+        private final String managedPackageName;
+        private final String currentOperatorAndVersion;
+        private final String managedOperatorAndVersion;
+        private final boolean active;
+
+        public Mismatch(String section, String packageName, String managedPackageName,
+                        String currentOperatorAndVersion, String managedOperatorAndVersion, boolean active) {
+            this.section = section;
+            this.packageName = packageName;
+            this.managedPackageName = managedPackageName;
+            this.currentOperatorAndVersion = currentOperatorAndVersion;
+            this.managedOperatorAndVersion = managedOperatorAndVersion;
+            this.active = active;
+        }
+
+        public String getSection() {
+            return section;
+        }
+
+        /**
+         * @return package name as it is written in pyproject.toml
+         */
+        public String getPackageName() {
+            return packageName;
+        }
+
+        /**
+         * @return package name as it is written in the managed dependency definition
+         */
+        public String getManagedPackageName() {
+            return managedPackageName;
+        }
+
+        public String getCurrentOperatorAndVersion() {
+            return currentOperatorAndVersion;
+        }
+
+        public String getManagedOperatorAndVersion() {
+            return managedOperatorAndVersion;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+    }
+}
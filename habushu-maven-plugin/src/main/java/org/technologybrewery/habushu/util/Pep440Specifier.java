@@ -0,0 +1,189 @@
+package org.technologybrewery.habushu.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Comma-separated set of <a href="https://peps.python.org/pep-0440/#version-specifiers">PEP 440 version clauses</a>
+ * (i.e. {@code >=1.2,<2.0,!=1.5.*}), all of which a version must satisfy to match. A bare version (i.e. {@code 1.2.0})
+ * is treated as {@code ==1.2.0}.
+ * <p>
+ * As with pip, pre-releases only match if a clause explicitly refers to a pre-release, unless
+ * {@link #filter(List) filtering} would otherwise leave no matching versions.
+ */
+public final class Pep440Specifier {
+
+    private static final Pattern CLAUSE_PATTERN = Pattern.compile("(===|~=|==|!=|<=|>=|<|>)?\\s*(\\S+)");
+    private static final String WILDCARD_SUFFIX = ".*";
+
+    private final String specifier;
+    private final List<Clause> clauses;
+
+    private Pep440Specifier(String specifier, List<Clause> clauses) {
+        this.specifier = specifier;
+        this.clauses = clauses;
+    }
+
+    /**
+     * Parses the given specifier.
+     *
+     * @param specifier comma-separated version clauses
+     * @return parsed specifier
+     * @throws HabushuException if the specifier does not conform to PEP 440
+     */
+    public static Pep440Specifier parse(String specifier) {
+        List<Clause> clauses = new ArrayList<>();
+        for (String clause : StringUtils.split(specifier, ',')) {
+            Matcher matcher = CLAUSE_PATTERN.matcher(clause.trim());
+            if (!matcher.matches()) {
+                throw new HabushuException("'" + clause.trim() + "' is not a valid PEP 440 version specifier");
+            }
+            String operator = matcher.group(1) != null ? matcher.group(1) : "==";
+            clauses.add(new Clause(operator, matcher.group(2)));
+        }
+        if (clauses.isEmpty()) {
+            throw new HabushuException("'" + specifier + "' does not specify any versions");
+        }
+        return new Pep440Specifier(specifier.trim(), Collections.unmodifiableList(clauses));
+    }
+
+    /**
+     * Returns whether the given version satisfies every clause of this specifier, excluding pre-releases unless a
+     * clause refers to a pre-release.
+     *
+     * @param version version
+     * @return whether the version matches
+     */
+    public boolean matches(Pep440Version version) {
+        return matches(version, allowsPreReleases());
+    }
+
+    /**
+     * Returns the given versions that satisfy this specifier. Pre-releases are included if a clause refers to a
+     * pre-release, or if no final release satisfies this specifier.
+     *
+     * @param versions candidate versions
+     * @return matching versions, in their original order
+     */
+    public List<Pep440Version> filter(List<Pep440Version> versions) {
+        List<Pep440Version> matching = new ArrayList<>();
+        for (Pep440Version version : versions) {
+            if (matches(version, allowsPreReleases())) {
+                matching.add(version);
+            }
+        }
+        if (matching.isEmpty() && !allowsPreReleases()) {
+            for (Pep440Version version : versions) {
+                if (matches(version, true)) {
+                    matching.add(version);
+                }
+            }
+        }
+        return matching;
+    }
+
+    private boolean matches(Pep440Version version, boolean includePreReleases) {
+        if (version.isPreRelease() && !includePreReleases) {
+            return false;
+        }
+        return clauses.stream().allMatch(clause -> clause.matches(version));
+    }
+
+    private boolean allowsPreReleases() {
+        return clauses.stream().anyMatch(Clause::refersToPreRelease);
+    }
+
+    @Override
+    public String toString() {
+        return specifier;
+    }
+
+    private static final class Clause {
+        private final String operator;
+        private final String rawVersion;
+        private final boolean wildcard;
+        private final Pep440Version version;
+
+        private Clause(String operator, String rawVersion) {
+            this.operator = operator;
+            this.rawVersion = rawVersion;
+            this.wildcard = rawVersion.endsWith(WILDCARD_SUFFIX);
+            if (wildcard && !"==".equals(operator) && !"!=".equals(operator)) {
+                throw new HabushuException("Wildcards are only permitted with == and != (" + operator + rawVersion
+                        + ")");
+            }
+            String versionToParse = wildcard
+                    ? rawVersion.substring(0, rawVersion.length() - WILDCARD_SUFFIX.length())
+                    : rawVersion;
+            this.version = "===".equals(operator) ? Pep440Version.tryParse(versionToParse)
+                    : Pep440Version.parse(versionToParse);
+            if ("~=".equals(operator) && version.getRelease().size() < 2) {
+                throw new HabushuException("~= requires a version with at least two release segments (~="
+                        + rawVersion + ")");
+            }
+        }
+
+        private boolean refersToPreRelease() {
+            return version != null && version.isPreRelease() && !"!=".equals(operator);
+        }
+
+        private boolean matches(Pep440Version candidate) {
+            switch (operator) {
+                case "===":
+                    return candidate.toString().equalsIgnoreCase(rawVersion)
+                            || (version != null && candidate.toString().equals(version.toString()));
+                case "==":
+                    return equalTo(candidate);
+                case "!=":
+                    return !equalTo(candidate);
+                case "~=":
+                    List<Long> prefix = version.getRelease().subList(0, version.getRelease().size() - 1);
+                    return candidate.compareTo(version) >= 0 && hasReleasePrefix(candidate, prefix);
+                case "<=":
+                    return candidate.getPublicVersion().compareTo(version) <= 0;
+                case ">=":
+                    return candidate.getPublicVersion().compareTo(version) >= 0;
+                case "<":
+                    // <1.0 excludes pre-releases of 1.0, unless 1.0 itself is a pre-release
+                    return candidate.compareTo(version) < 0
+                            && (version.isPreRelease() || !candidate.isPreRelease()
+                            || !candidate.getBaseVersion().equals(version.getBaseVersion()));
+                case ">":
+                    // >1.0 excludes post-releases and local versions of 1.0, unless 1.0 itself is a post-release
+                    return candidate.getPublicVersion().compareTo(version) > 0
+                            && (version.isPostRelease() || !candidate.isPostRelease()
+                            || !candidate.getBaseVersion().equals(version.getBaseVersion()));
+                default:
+                    throw new HabushuException("Unsupported version operator " + operator);
+            }
+        }
+
+        private boolean equalTo(Pep440Version candidate) {
+            if (wildcard) {
+                return hasReleasePrefix(candidate, version.getRelease());
+            }
+            Pep440Version comparable = version.hasLocal() ? candidate : candidate.getPublicVersion();
+            return comparable.compareTo(version) == 0;
+        }
+
+        private boolean hasReleasePrefix(Pep440Version candidate, List<Long> prefix) {
+            if (candidate.getEpoch() != version.getEpoch()) {
+                return false;
+            }
+            List<Long> release = candidate.getRelease();
+            for (int i = 0; i < prefix.size(); i++) {
+                long segment = i < release.size() ? release.get(i) : 0;
+                if (segment != prefix.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package org.technologybrewery.habushu.util;
+
+import org.technologybrewery.habushu.HabushuException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Python package version as defined by <a href="https://peps.python.org/pep-0440/">PEP 440</a>, ordered per the
+ * specification (i.e. {@code 1.0.dev1 < 1.0a1 < 1.0 < 1.0.post1}). Alternate spellings permitted by the
+ * specification (i.e. {@code 1.0-alpha.1} or {@code 1.0_dev1}, as used within wheel file names) are normalized.
+ */
+public final class Pep440Version implements Comparable<Pep440Version> {
+
+    private static final Pattern VERSION_PATTERN = Pattern.compile(
+            "v?(?:(?<epoch>[0-9]+)!)?"
+                    + "(?<release>[0-9]+(?:\\.[0-9]+)*)"
+                    + "(?<pre>[-_.]?(?<preLabel>alpha|a|beta|b|preview|pre|c|rc)[-_.]?(?<preNumber>[0-9]+)?)?"
+                    + "(?<post>-(?<postNumber1>[0-9]+)|[-_.]?(?<postLabel>post|rev|r)[-_.]?(?<postNumber2>[0-9]+)?)?"
+                    + "(?<dev>[-_.]?dev[-_.]?(?<devNumber>[0-9]+)?)?"
+                    + "(?:\\+(?<local>[a-z0-9]+(?:[-_.][a-z0-9]+)*))?",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final List<String> PRE_RELEASE_ORDER = Arrays.asList("a", "b", "rc");
+
+    private final int epoch;
+    private final List<Long> release;
+    private final String preLabel;
+    private final long preNumber;
+    private final Long postNumber;
+    private final Long devNumber;
+    private final List<String> local;
+
+    private Pep440Version(int epoch, List<Long> release, String preLabel, long preNumber, Long postNumber,
+                          Long devNumber, List<String> local) {
+        this.epoch = epoch;
+        this.release = release;
+        this.preLabel = preLabel;
+        this.preNumber = preNumber;
+        this.postNumber = postNumber;
+        this.devNumber = devNumber;
+        this.local = local;
+    }
+
+    /**
+     * Parses the given version.
+     *
+     * @param version version string
+     * @return parsed version
+     * @throws HabushuException if the version does not conform to PEP 440
+     */
+    public static Pep440Version parse(String version) {
+        Pep440Version parsed = tryParse(version);
+        if (parsed == null) {
+            throw new HabushuException("'" + version + "' is not a valid PEP 440 version");
+        }
+        return parsed;
+    }
+
+    /**
+     * Parses the given version, if possible.
+     *
+     * @param version version string
+     * @return parsed version, or {@code null} if the version does not conform to PEP 440
+     */
+    public static Pep440Version tryParse(String version) {
+        if (version == null) {
+            return null;
+        }
+        Matcher matcher = VERSION_PATTERN.matcher(version.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+
+        int epoch = matcher.group("epoch") != null ? Integer.parseInt(matcher.group("epoch")) : 0;
+        List<Long> release = new ArrayList<>();
+        for (String segment : matcher.group("release").split("\\.")) {
+            release.add(Long.parseLong(segment));
+        }
+
+        String preLabel = null;
+        long preNumber = 0;
+        if (matcher.group("pre") != null) {
+            preLabel = normalizePreLabel(matcher.group("preLabel").toLowerCase(Locale.ROOT));
+            preNumber = matcher.group("preNumber") != null ? Long.parseLong(matcher.group("preNumber")) : 0;
+        }
+
+        Long postNumber = null;
+        if (matcher.group("post") != null) {
+            String number = matcher.group("postNumber1") != null
+                    ? matcher.group("postNumber1")
+                    : matcher.group("postNumber2");
+            postNumber = number != null ? Long.parseLong(number) : 0L;
+        }
+
+        Long devNumber = null;
+        if (matcher.group("dev") != null) {
+            devNumber = matcher.group("devNumber") != null ? Long.parseLong(matcher.group("devNumber")) : 0L;
+        }
+
+        List<String> local = Collections.emptyList();
+        if (matcher.group("local") != null) {
+            local = Arrays.asList(matcher.group("local").toLowerCase(Locale.ROOT).split("[-_.]"));
+        }
+
+        return new Pep440Version(epoch, Collections.unmodifiableList(release), preLabel, preNumber, postNumber,
+                devNumber, local);
+    }
+
+    private static String normalizePreLabel(String label) {
+        switch (label) {
+            case "alpha":
+                return "a";
+            case "beta":
+                return "b";
+            case "c":
+            case "pre":
+            case "preview":
+                return "rc";
+            default:
+                return label;
+        }
+    }
+
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * @return release segments (i.e. {@code [1, 2, 0]} for {@code 1.2.0})
+     */
+    public List<Long> getRelease() {
+        return release;
+    }
+
+    /**
+     * @return whether this is a pre-release, including developmental releases (i.e. {@code 1.0a1} or
+     * {@code 1.0.dev1})
+     */
+    public boolean isPreRelease() {
+        return preLabel != null || devNumber != null;
+    }
+
+    public boolean isPostRelease() {
+        return postNumber != null;
+    }
+
+    public boolean hasLocal() {
+        return !local.isEmpty();
+    }
+
+    /**
+     * Returns this version without its local version label (i.e. {@code 1.0} for {@code 1.0+ubuntu.1}).
+     *
+     * @return public version
+     */
+    public Pep440Version getPublicVersion() {
+        return hasLocal()
+                ? new Pep440Version(epoch, release, preLabel, preNumber, postNumber, devNumber,
+                Collections.emptyList())
+                : this;
+    }
+
+    /**
+     * Returns the epoch and release segments of this version (i.e. {@code 1.0} for {@code 1.0rc1.post2.dev3}).
+     *
+     * @return base version
+     */
+    public Pep440Version getBaseVersion() {
+        return new Pep440Version(epoch, release, null, 0, null, null, Collections.emptyList());
+    }
+
+    @Override
+    public int compareTo(Pep440Version other) {
+        int result = Integer.compare(epoch, other.epoch);
+        if (result == 0) {
+            result = compareRelease(release, other.release);
+        }
+        if (result == 0) {
+            result = Integer.compare(preReleaseRank(), other.preReleaseRank());
+        }
+        if (result == 0 && preLabel != null) {
+            result = Long.compare(preNumber, other.preNumber);
+        }
+        if (result == 0) {
+            // no post-release sorts before any post-release
+            result = Long.compare(postNumber != null ? postNumber : -1,
+                    other.postNumber != null ? other.postNumber : -1);
+        }
+        if (result == 0) {
+            // no developmental release sorts after any developmental release
+            result = Long.compare(devNumber != null ? devNumber : Long.MAX_VALUE,
+                    other.devNumber != null ? other.devNumber : Long.MAX_VALUE);
+        }
+        if (result == 0) {
+            result = compareLocal(local, other.local);
+        }
+        return result;
+    }
+
+    /**
+     * Ranks the pre-release phase of this version, such that developmental releases of a final release (i.e.
+     * {@code 1.0.dev1}) sort before its pre-releases, which sort before the final release.
+     */
+    private int preReleaseRank() {
+        if (preLabel != null) {
+            return PRE_RELEASE_ORDER.indexOf(preLabel);
+        }
+        return devNumber != null && postNumber == null ? -1 : PRE_RELEASE_ORDER.size();
+    }
+
+    static int compareRelease(List<Long> release, List<Long> otherRelease) {
+        // trailing zeros are insignificant, i.e. 1.0 == 1.0.0
+        for (int i = 0; i < Math.max(release.size(), otherRelease.size()); i++) {
+            long segment = i < release.size() ? release.get(i) : 0;
+            long otherSegment = i < otherRelease.size() ? otherRelease.get(i) : 0;
+            int result = Long.compare(segment, otherSegment);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+
+    private static int compareLocal(List<String> local, List<String> otherLocal) {
+        for (int i = 0; i < Math.min(local.size(), otherLocal.size()); i++) {
+            String segment = local.get(i);
+            String otherSegment = otherLocal.get(i);
+            boolean numeric = segment.chars().allMatch(Character::isDigit);
+            boolean otherNumeric = otherSegment.chars().allMatch(Character::isDigit);
+            int result;
+            if (numeric && otherNumeric) {
+                result = Long.compare(Long.parseLong(segment), Long.parseLong(otherSegment));
+            } else if (numeric != otherNumeric) {
+                // numeric segments sort after alphanumeric ones
+                result = numeric ? 1 : -1;
+            } else {
+                result = segment.compareTo(otherSegment);
+            }
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Integer.compare(local.size(), otherLocal.size());
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Pep440Version && compareTo((Pep440Version) other) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        List<Long> significantRelease = new ArrayList<>(release);
+        while (significantRelease.size() > 1 && significantRelease.get(significantRelease.size() - 1) == 0L) {
+            significantRelease.remove(significantRelease.size() - 1);
+        }
+        return Objects.hash(epoch, significantRelease, preLabel, preNumber, postNumber, devNumber, local);
+    }
+
+    /**
+     * @return normalized form of this version (i.e. {@code 1.0rc1.post2.dev3+ubuntu.1})
+     */
+    @Override
+    public String toString() {
+        StringBuilder version = new StringBuilder();
+        if (epoch != 0) {
+            version.append(epoch).append('!');
+        }
+        for (int i = 0; i < release.size(); i++) {
+            version.append(i > 0 ? "." : "").append(release.get(i));
+        }
+        if (preLabel != null) {
+            version.append(preLabel).append(preNumber);
+        }
+        if (postNumber != null) {
+            version.append(".post").append(postNumber);
+        }
+        if (devNumber != null) {
+            version.append(".dev").append(devNumber);
+        }
+        if (hasLocal()) {
+            version.append('+').append(String.join(".", local));
+        }
+        return version.toString();
+    }
+}
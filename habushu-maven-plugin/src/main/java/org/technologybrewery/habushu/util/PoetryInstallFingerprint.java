@@ -0,0 +1,173 @@
+package org.technologybrewery.habushu.util;
+
+import com.electronwill.nightconfig.core.Config;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Fingerprints the state of a Poetry virtual environment after a successful {@code poetry install} so that subsequent
+ * builds may skip re-installing when nothing that affects the installation has changed.
+ * <p>
+ * The fingerprint covers the poetry.lock and pyproject.toml contents, the install options (selected groups and
+ * whether {@code --sync} is used), the interpreter version recorded in the virtual environment's
+ * {@code pyvenv.cfg}, the virtual environment path, and the sources of any local path dependencies (which Poetry
+ * reinstalls from their sources on every {@code poetry install}). It is stored within the virtual environment itself, so
+ * deleting or recreating the virtual environment always results in a fresh install.
+ */
+public class PoetryInstallFingerprint {
+
+    /**
+     * Name of the file within the virtual environment in which the fingerprint is recorded.
+     */
+    public static final String FINGERPRINT_FILE_NAME = ".habushu-install.fingerprint";
+
+    private static final String PYVENV_CFG = "pyvenv.cfg";
+    private static final String FINGERPRINT = "fingerprint";
+
+    private final File projectDirectory;
+    private final File virtualEnvDirectory;
+
+    /**
+     * New instance.
+     *
+     * @param projectDirectory    directory containing the Poetry project's pyproject.toml and poetry.lock
+     * @param virtualEnvDirectory virtual environment into which Poetry installs the project
+     */
+    public PoetryInstallFingerprint(File projectDirectory, File virtualEnvDirectory) {
+        this.projectDirectory = projectDirectory;
+        this.virtualEnvDirectory = virtualEnvDirectory;
+    }
+
+    /**
+     * Computes the fingerprint of the current installation inputs.
+     *
+     * @param installArguments arguments passed to {@code poetry install}, i.e. selected groups
+     * @return hex-encoded SHA-256 fingerprint
+     */
+    public String computeFingerprint(List<String> installArguments) {
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append("lock=").append(digestFile(new File(projectDirectory, "poetry.lock"))).append('\n');
+        fingerprint.append("pyproject=").append(digestFile(new File(projectDirectory, "pyproject.toml")))
+                .append('\n');
+        fingerprint.append("arguments=").append(StringUtils.join(installArguments, " ")).append('\n');
+        fingerprint.append("interpreter=").append(getInterpreterVersion()).append('\n');
+        fingerprint.append("venv=").append(virtualEnvDirectory.getAbsolutePath()).append('\n');
+
+        // path dependencies are reinstalled from their sources by every poetry install:
+        File pyProjectTomlFile = new File(projectDirectory, "pyproject.toml");
+        if (pyProjectTomlFile.isFile()) {
+            Config pyProjectConfig = PyProjectDocument.load(pyProjectTomlFile).getConfig();
+            for (File pathDependency : TomlUtils.findPathDependencyDirectories(pyProjectConfig, projectDirectory)) {
+                fingerprint.append("path:").append(pathDependency.getPath()).append('=')
+                        .append(SourceTreeDigest.compute(pathDependency)).append('\n');
+            }
+        }
+        return DigestUtils.sha256Hex(fingerprint.toString());
+    }
+
+    /**
+     * Determines whether the virtual environment is intact and was installed from the given fingerprint.
+     *
+     * @param fingerprint fingerprint of the current installation inputs
+     * @return {@code true} if {@code poetry install} may be safely skipped
+     */
+    public boolean isInstallCurrent(String fingerprint) {
+        File fingerprintFile = getFingerprintFile();
+        if (!isVirtualEnvIntact() || !fingerprintFile.isFile()) {
+            return false;
+        }
+
+        Properties recorded = new Properties();
+        try (InputStream inputStream = Files.newInputStream(fingerprintFile.toPath())) {
+            recorded.load(inputStream);
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+        return fingerprint.equals(recorded.getProperty(FINGERPRINT));
+    }
+
+    /**
+     * Records the fingerprint of a successful installation.
+     *
+     * @param fingerprint fingerprint of the installation inputs
+     */
+    public void record(String fingerprint) {
+        Properties recorded = new Properties();
+        recorded.setProperty(FINGERPRINT, fingerprint);
+        try (OutputStream outputStream = Files.newOutputStream(getFingerprintFile().toPath())) {
+            recorded.store(outputStream, "Generated by habushu-maven-plugin - safe to delete");
+        } catch (IOException e) {
+            throw new HabushuException("Could not record poetry install fingerprint!", e);
+        }
+    }
+
+    /**
+     * Removes any recorded fingerprint so that the next build re-installs dependencies.
+     */
+    public void invalidate() {
+        try {
+            Files.deleteIfExists(getFingerprintFile().toPath());
+        } catch (IOException e) {
+            throw new HabushuException("Could not remove stale poetry install fingerprint!", e);
+        }
+    }
+
+    /**
+     * Checks that the virtual environment still contains its configuration and Python interpreter.
+     *
+     * @return whether the virtual environment appears usable
+     */
+    protected boolean isVirtualEnvIntact() {
+        return new File(virtualEnvDirectory, PYVENV_CFG).isFile()
+                && (new File(virtualEnvDirectory, "bin/python").exists()
+                || new File(virtualEnvDirectory, "Scripts/python.exe").exists());
+    }
+
+    /**
+     * Reads the version of the interpreter the virtual environment was created with from its pyvenv.cfg.
+     *
+     * @return interpreter version, or an empty string if it could not be determined
+     */
+    protected String getInterpreterVersion() {
+        File pyvenvCfg = new File(virtualEnvDirectory, PYVENV_CFG);
+        if (!pyvenvCfg.isFile()) {
+            return StringUtils.EMPTY;
+        }
+        try {
+            for (String line : Files.readAllLines(pyvenvCfg.toPath())) {
+                String key = StringUtils.substringBefore(line, "=").trim();
+                // virtualenv writes version_info while venv writes version:
+                if ("version".equals(key) || "version_info".equals(key)) {
+                    return StringUtils.substringAfter(line, "=").trim();
+                }
+            }
+        } catch (IOException e) {
+            return StringUtils.EMPTY;
+        }
+        return StringUtils.EMPTY;
+    }
+
+    protected File getFingerprintFile() {
+        return new File(virtualEnvDirectory, FINGERPRINT_FILE_NAME);
+    }
+
+    private static String digestFile(File file) {
+        if (!file.isFile()) {
+            return "<missing>";
+        }
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            return DigestUtils.sha256Hex(inputStream);
+        } catch (IOException e) {
+            throw new HabushuException("Could not compute digest of " + file, e);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.technologybrewery.habushu.util;
+
+import com.electronwill.nightconfig.core.Config;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Tracks whether a Poetry project's {@code poetry.lock} is current with respect to the inputs that influence
+ * dependency resolution, so that an expensive {@code poetry lock} may be skipped when nothing relevant has changed.
+ * <p>
+ * The digest covers the dependency-relevant sections of {@code pyproject.toml} (dependencies, dependency groups,
+ * extras, and package sources), the {@code pyproject.toml} of any local path dependencies, and any additional inputs
+ * provided by the caller (i.e. managed dependencies). It is recorded alongside a digest of the resulting
+ * {@code poetry.lock} in a small hidden file next to the lock file.
+ */
+public class PoetryLockDigest {
+
+    /**
+     * Name of the file, next to {@code poetry.lock}, in which digests are recorded.
+     */
+    public static final String DIGEST_FILE_NAME = ".habushu-poetry-lock.digest";
+
+    private static final String PYPROJECT_TOML = "pyproject.toml";
+    private static final String POETRY_LOCK = "poetry.lock";
+    private static final String INPUT_DIGEST = "inputDigest";
+    private static final String LOCK_DIGEST = "lockDigest";
+
+    /**
+     * Sections of pyproject.toml that influence the contents of poetry.lock.
+     */
+    private static final List<String> DEPENDENCY_SECTIONS = Arrays.asList("tool.poetry.dependencies",
+            "tool.poetry.dev-dependencies", "tool.poetry.group", "tool.poetry.extras", "tool.poetry.source",
+            "project.dependencies", "project.optional-dependencies", "project.requires-python");
+
+    private final File projectDirectory;
+
+    /**
+     * New instance.
+     *
+     * @param projectDirectory directory containing the Poetry project's pyproject.toml and poetry.lock
+     */
+    public PoetryLockDigest(File projectDirectory) {
+        this.projectDirectory = projectDirectory;
+    }
+
+    /**
+     * Computes a digest of all inputs that influence the contents of poetry.lock.
+     *
+     * @param additionalInputs additional values that should invalidate the lock when changed
+     * @return hex-encoded SHA-256 digest
+     */
+    public String computeInputDigest(Collection<String> additionalInputs) {
+        StringBuilder canonical = new StringBuilder();
+        File pyProjectTomlFile = new File(projectDirectory, PYPROJECT_TOML);
+        Config pyProjectConfig = PyProjectDocument.load(pyProjectTomlFile).getConfig();
+        for (String section : DEPENDENCY_SECTIONS) {
+            Optional<Object> value = pyProjectConfig.getOptional(section);
+            canonical.append(section).append('=');
+            value.ifPresent(v -> appendCanonical(canonical, v));
+            canonical.append('\n');
+        }
+
+        // path dependencies contribute their own dependencies to poetry.lock:
+        for (File pathDependency : TomlUtils.findPathDependencyDirectories(pyProjectConfig, projectDirectory)) {
+            canonical.append("path:").append(pathDependency.getPath()).append('=')
+                    .append(digestFile(new File(pathDependency, PYPROJECT_TOML))).append('\n');
+        }
+
+        if (additionalInputs != null) {
+            for (String input : additionalInputs) {
+                canonical.append("input=").append(input).append('\n');
+            }
+        }
+
+        return DigestUtils.sha256Hex(canonical.toString());
+    }
+
+    /**
+     * Determines whether poetry.lock exists and was produced from the given inputs without having been modified
+     * since.
+     *
+     * @param inputDigest digest of the current lock inputs
+     * @return {@code true} if locking may be safely skipped
+     */
+    public boolean isLockCurrent(String inputDigest) {
+        File lockFile = getLockFile();
+        File digestFile = getDigestFile();
+        if (!lockFile.isFile() || !digestFile.isFile()) {
+            return false;
+        }
+
+        Properties recorded = new Properties();
+        try (InputStream inputStream = Files.newInputStream(digestFile.toPath())) {
+            recorded.load(inputStream);
+        } catch (IOException | IllegalArgumentException e) {
+            return false;
+        }
+
+        return inputDigest.equals(recorded.getProperty(INPUT_DIGEST))
+                && digestFile(lockFile).equals(recorded.getProperty(LOCK_DIGEST));
+    }
+
+    /**
+     * Records that poetry.lock is current with respect to the given inputs.
+     *
+     * @param inputDigest digest of the lock inputs that poetry.lock was resolved from
+     */
+    public void record(String inputDigest) {
+        Properties recorded = new Properties();
+        recorded.setProperty(INPUT_DIGEST, inputDigest);
+        recorded.setProperty(LOCK_DIGEST, digestFile(getLockFile()));
+        try (OutputStream outputStream = Files.newOutputStream(getDigestFile().toPath())) {
+            recorded.store(outputStream, "Generated by habushu-maven-plugin - safe to delete");
+        } catch (IOException e) {
+            throw new HabushuException("Could not record poetry.lock digest!", e);
+        }
+    }
+
+    /**
+     * Removes any recorded digest so that the next build re-resolves poetry.lock.
+     */
+    public void invalidate() {
+        try {
+            Files.deleteIfExists(getDigestFile().toPath());
+        } catch (IOException e) {
+            throw new HabushuException("Could not remove stale poetry.lock digest!", e);
+        }
+    }
+
+    protected File getLockFile() {
+        return new File(projectDirectory, POETRY_LOCK);
+    }
+
+    protected File getDigestFile() {
+        return new File(projectDirectory, DIGEST_FILE_NAME);
+    }
+
+    private static void appendCanonical(StringBuilder canonical, Object value) {
+        if (value instanceof Config) {
+            Map<String, Object> sorted = new TreeMap<>(((Config) value).valueMap());
+            canonical.append('{');
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                canonical.append(entry.getKey()).append('=');
+                appendCanonical(canonical, entry.getValue());
+                canonical.append(',');
+            }
+            canonical.append('}');
+        } else if (value instanceof List) {
+            canonical.append('[');
+            for (Object element : (List<?>) value) {
+                appendCanonical(canonical, element);
+                canonical.append(',');
+            }
+            canonical.append(']');
+        } else {
+            canonical.append(value);
+        }
+    }
+
+    private static String digestFile(File file) {
+        if (!file.isFile()) {
+            return "<missing>";
+        }
+        try (InputStream inputStream = Files.newInputStream(file.toPath())) {
+            return DigestUtils.sha256Hex(inputStream);
+        } catch (IOException e) {
+            throw new HabushuException("Could not compute digest of " + file, e);
+        }
+    }
+}
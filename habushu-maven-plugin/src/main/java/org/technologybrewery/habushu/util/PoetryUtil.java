@@ -1,5 +1,8 @@
 package org.technologybrewery.habushu.util;
 
+import java.util.Locale;
+import java.util.regex.Pattern;
+
 /**
  * Common utility methods for handling TOML Poetry.
  */
@@ -15,4 +18,23 @@ public final class PoetryUtil {
      * must be installed and available for Habushu to use.
      */
     public static final String POETRY_CORE_VERSION_REQUIREMENT = "^1.6.0";
-}
\ No newline at end of file
+
+    private static final Pattern PACKAGE_NAME_SEPARATORS = Pattern.compile("[-_.]+");
+
+    private PoetryUtil() {
+    }
+
+    /**
+     * Normalizes the given Python package name as described in PEP 503 (i.e. {@code Foo.Bar_baz} becomes
+     * {@code foo-bar-baz}) so that names may be compared regardless of how they were written.
+     *
+     * @param packageName package name to normalize
+     * @return normalized package name, or {@code null} if the given name was {@code null}
+     */
+    public static String normalizePackageName(String packageName) {
+        if (packageName == null) {
+            return null;
+        }
+        return PACKAGE_NAME_SEPARATORS.matcher(packageName.trim()).replaceAll("-").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,237 @@
+package org.technologybrewery.habushu.util;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.toml.TomlParser;
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of a pyproject.toml file that is shared by all of the mojos and migrations that inspect or update
+ * it during a build, so that the file is read and parsed once rather than by each of them.
+ * <p>
+ * The document retains the original text of the file, so edits are made to its lines (preserving formatting and
+ * comments), while the parsed TOML configuration is available for lookups. Documents are cached by canonical path
+ * and are transparently reloaded if the file is changed on disk by something else (i.e. {@code poetry add}). Edits
+ * are only written back by {@link #save()}, and only if they actually changed the content.
+ */
+public final class PyProjectDocument {
+
+    private static final Map<String, PyProjectDocument> DOCUMENTS = new ConcurrentHashMap<>();
+
+    private final File file;
+    private String content;
+    private List<String> lines;
+    private CommentedConfig config;
+    private Object fileState;
+    private boolean modified;
+
+    private PyProjectDocument(File file) {
+        this.file = file;
+        read();
+    }
+
+    /**
+     * Returns the shared document for the given pyproject.toml file, reading it if it has not been read yet during
+     * this build or if it has changed on disk since it was last read or saved.
+     *
+     * @param pyProjectTomlFile pyproject.toml file
+     * @return shared document
+     */
+    public static PyProjectDocument load(File pyProjectTomlFile) {
+        PyProjectDocument document = DOCUMENTS.computeIfAbsent(canonicalPath(pyProjectTomlFile),
+                path -> new PyProjectDocument(pyProjectTomlFile));
+        document.refreshIfChangedOnDisk();
+        return document;
+    }
+
+    /**
+     * Forgets all cached documents, such as at the end of a build.
+     */
+    public static void clear() {
+        DOCUMENTS.clear();
+    }
+
+    /**
+     * Returns the file backing this document.
+     *
+     * @return pyproject.toml file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the current content of this document, including any unsaved edits.
+     *
+     * @return TOML content
+     */
+    public synchronized String getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the lines of this document, split in the same manner as {@link java.io.BufferedReader#readLine()}.
+     *
+     * @return unmodifiable lines
+     */
+    public synchronized List<String> getLines() {
+        if (lines == null) {
+            lines = Collections.unmodifiableList(content.lines().collect(Collectors.toList()));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the parsed configuration of this document, which reflects any unsaved edits. The returned
+     * configuration must not be modified - edit the document's content instead.
+     *
+     * @return parsed TOML configuration
+     */
+    public synchronized CommentedConfig getConfig() {
+        if (config == null) {
+            config = new TomlParser().parse(content);
+        }
+        return config;
+    }
+
+    /**
+     * Returns the custom Poetry dependency group sections (i.e. {@code tool.poetry.group.monorepo.dependencies})
+     * declared in this document, in the order in which they appear.
+     *
+     * @return custom dependency group section names
+     */
+    public List<String> getCustomToolPoetryGroups() {
+        List<String> toolPoetryGroupSections = new ArrayList<>();
+        for (String line : getLines()) {
+            line = line.strip();
+            if (line.startsWith("[tool.poetry.group")) {
+                toolPoetryGroupSections.add(line.replace("[", StringUtils.EMPTY).replace("]", StringUtils.EMPTY));
+            }
+        }
+        return toolPoetryGroupSections;
+    }
+
+    /**
+     * Replaces the content of this document. Has no effect if the given content is unchanged.
+     *
+     * @param updatedContent new TOML content
+     */
+    public synchronized void setContent(String updatedContent) {
+        if (!Objects.equals(content, updatedContent)) {
+            content = updatedContent;
+            lines = null;
+            config = null;
+            modified = true;
+        }
+    }
+
+    /**
+     * Replaces the content of this document with the given lines, each of which is terminated with {@code \n}.
+     *
+     * @param updatedLines new lines
+     */
+    public void setLines(List<String> updatedLines) {
+        StringBuilder updatedContent = new StringBuilder(content.length() + 64);
+        for (String line : updatedLines) {
+            updatedContent.append(line).append('\n');
+        }
+        setContent(updatedContent.toString());
+    }
+
+    /**
+     * Returns whether this document has edits that have not yet been saved.
+     *
+     * @return whether there are unsaved edits
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Writes this document back to its file if it has been edited since it was read or last saved.
+     *
+     * @return whether the file was written
+     */
+    public boolean save() {
+        return save(false);
+    }
+
+    /**
+     * Writes this document back to its file if it has been edited since it was read or last saved and the edits
+     * leave it with different content than is on disk.
+     *
+     * @param forceToDisk whether to force the written content to the storage device before returning
+     * @return whether the file was written
+     * @see TomlUtils#writeTomlFile(File, String, boolean)
+     */
+    public synchronized boolean save(boolean forceToDisk) {
+        if (!modified) {
+            return false;
+        }
+        boolean written;
+        try {
+            written = TomlUtils.writeTomlFile(file, content, forceToDisk);
+            fileState = readFileState(file.toPath());
+        } catch (IOException e) {
+            throw new HabushuException("Could not write " + file, e);
+        }
+        modified = false;
+        return written;
+    }
+
+    private synchronized void refreshIfChangedOnDisk() {
+        if (!modified && !Objects.equals(fileState, readFileState(file.toPath()))) {
+            read();
+        }
+    }
+
+    private void read() {
+        try {
+            Path path = file.toPath();
+            fileState = readFileState(path);
+            // like NightConfig's FileConfig, a missing file is treated as an empty document:
+            content = fileState != null ? new String(Files.readAllBytes(path), Charset.defaultCharset())
+                    : StringUtils.EMPTY;
+        } catch (IOException e) {
+            throw new HabushuException("Could not read " + file, e);
+        }
+        lines = null;
+        config = null;
+        modified = false;
+    }
+
+    /**
+     * Captures the modification time (at full file system precision), size, and identity of the given file so that
+     * changes made outside of this document can be detected.
+     */
+    private static Object readFileState(Path path) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            return attributes.lastModifiedTime() + "|" + attributes.size() + "|" + attributes.fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+}
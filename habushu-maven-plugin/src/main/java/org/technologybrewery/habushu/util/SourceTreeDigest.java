@@ -0,0 +1,75 @@
+package org.technologybrewery.habushu.util;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Digests the sources of a Poetry project, such as a local path dependency, so that changes to any of them can be
+ * detected. Build outputs ({@code target}, {@code dist}), Python bytecode caches, and hidden files and directories
+ * (i.e. {@code .venv}, {@code .git}) are skipped, as they do not affect what Poetry installs from the project.
+ */
+public final class SourceTreeDigest {
+
+    private static final List<String> SKIPPED_DIRECTORIES = Arrays.asList("target", "dist", "__pycache__");
+
+    private SourceTreeDigest() {
+    }
+
+    /**
+     * Computes the digest of the sources within the given directory, which identifies files by their path relative
+     * to it so that the digest does not depend on where the project is checked out.
+     *
+     * @param directory project directory
+     * @return hex-encoded SHA-256 digest, or {@code <missing>} if the directory does not exist
+     */
+    public static String compute(File directory) {
+        Path root = directory.getAbsoluteFile().toPath().normalize();
+        if (!Files.isDirectory(root)) {
+            return "<missing>";
+        }
+
+        Map<String, String> fileDigests = new TreeMap<>();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    String name = dir.getFileName().toString();
+                    return !dir.equals(root) && (name.startsWith(".") || SKIPPED_DIRECTORIES.contains(name))
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    String name = file.getFileName().toString();
+                    if (attrs.isRegularFile() && !name.startsWith(".") && !name.endsWith(".pyc")) {
+                        try (InputStream inputStream = Files.newInputStream(file)) {
+                            fileDigests.put(root.relativize(file).toString().replace(File.separatorChar, '/'),
+                                    DigestUtils.sha256Hex(inputStream));
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new HabushuException("Could not compute digest of the sources within " + directory, e);
+        }
+
+        StringBuilder digest = new StringBuilder();
+        fileDigests.forEach((path, fileDigest) -> digest.append(path).append('=').append(fileDigest).append('\n'));
+        return DigestUtils.sha256Hex(digest.toString());
+    }
+}
@@ -0,0 +1,101 @@
+package org.technologybrewery.habushu.util;
+
+import org.apache.commons.io.output.StringBuilderWriter;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Rewrites TOML content line by line in a single pass, streaming each line that a {@link LineHandler} emits to a
+ * {@link Writer}. This keeps rewrites linear in the size of the file (rather than repeatedly concatenating the
+ * content built so far) while preserving the formatting and comments of any lines that are passed through as-is.
+ */
+public final class TomlLineRewriter {
+
+    private static final char NEW_LINE = '\n';
+
+    private TomlLineRewriter() {
+        // prevent instantiation of all static class
+    }
+
+    /**
+     * Decides what to write in place of each line of the TOML content being rewritten.
+     */
+    @FunctionalInterface
+    public interface LineHandler {
+
+        /**
+         * Handles a single line of the original content by writing zero or more lines to the output in its place.
+         *
+         * @param line   original line, without its line terminator
+         * @param output output to which the replacement line(s) should be written
+         * @throws IOException if the output cannot be written
+         */
+        void handle(String line, Output output) throws IOException;
+    }
+
+    /**
+     * Output of a rewrite, to which each line is written with a {@code \n} terminator.
+     */
+    public static final class Output {
+
+        private final Writer writer;
+
+        Output(Writer writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Writes the given line followed by a line terminator.
+         *
+         * @param line line to write
+         * @return this output
+         * @throws IOException if the line cannot be written
+         */
+        public Output writeLine(String line) throws IOException {
+            writer.write(line);
+            writer.write(NEW_LINE);
+            return this;
+        }
+    }
+
+    /**
+     * Rewrites the given lines, streaming the result to the given writer.
+     *
+     * @param lines   original lines
+     * @param handler decides what to write for each line
+     * @param writer  destination of the rewritten content
+     * @throws IOException if the rewritten content cannot be written
+     */
+    public static void rewrite(Iterable<String> lines, LineHandler handler, Writer writer) throws IOException {
+        Output output = new Output(writer);
+        for (String line : lines) {
+            handler.handle(line, output);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Rewrites the content of the given pyproject.toml document in memory. As with any other edit, the document is
+     * only marked as modified if the rewritten content differs, and is written to disk when it is saved.
+     *
+     * @param document document to rewrite
+     * @param handler  decides what to write for each line
+     * @return whether the content of the document changed
+     */
+    public static boolean rewrite(PyProjectDocument document, LineHandler handler) {
+        String originalContent = document.getContent();
+        // leave some headroom so that small additions do not force the buffer to be copied:
+        StringBuilderWriter writer = new StringBuilderWriter(originalContent.length() + 256);
+        try {
+            rewrite(document.getLines(), handler, writer);
+        } catch (IOException e) {
+            throw new HabushuException("Could not rewrite " + document.getFile(), e);
+        }
+
+        String rewrittenContent = writer.toString();
+        document.setContent(rewrittenContent);
+        return !rewrittenContent.equals(originalContent);
+    }
+}
@@ -1,13 +1,25 @@
 package org.technologybrewery.habushu.util;
 
 import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.core.Config;
 import org.apache.commons.collections4.CollectionUtils;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -60,11 +72,92 @@ public final class TomlUtils {
         return (!valueToEscape.contains("{")) ? DOUBLE_QUOTE + valueToEscape + DOUBLE_QUOTE : valueToEscape;
     }
 
-    public static void writeTomlFile(File pyProjectTomlFile, String fileContent) throws IOException {
-        if (fileContent != null) {
-            try (Writer writer = new FileWriter(pyProjectTomlFile)) {
-                writer.write(fileContent);
+    /**
+     * Writes the given content to the given TOML file without forcing it to disk.
+     *
+     * @param pyProjectTomlFile file to write
+     * @param fileContent       content to write; nothing is written if null
+     * @return whether the file was written
+     * @throws IOException if the file cannot be written
+     * @see #writeTomlFile(File, String, boolean)
+     */
+    public static boolean writeTomlFile(File pyProjectTomlFile, String fileContent) throws IOException {
+        return writeTomlFile(pyProjectTomlFile, fileContent, false);
+    }
+
+    /**
+     * Writes the given content to the given TOML file. The content is written to a temporary file alongside the
+     * target, which then atomically replaces the target (where supported by the file system) so that a killed or
+     * interrupted build never leaves a truncated pyproject.toml behind. If the file already contains exactly the
+     * given content, nothing is written so that its modification time is left untouched for incremental checks.
+     *
+     * @param pyProjectTomlFile file to write
+     * @param fileContent       content to write; nothing is written if null
+     * @param forceToDisk       whether to force the new content (and its directory entry) to the storage device
+     *                          before returning, so that it also survives an operating system crash or power loss
+     * @return whether the file was written
+     * @throws IOException if the file cannot be written
+     */
+    public static boolean writeTomlFile(File pyProjectTomlFile, String fileContent, boolean forceToDisk)
+            throws IOException {
+        if (fileContent == null) {
+            return false;
+        }
+
+        Path target = pyProjectTomlFile.toPath().toAbsolutePath();
+        byte[] bytes = fileContent.getBytes(Charset.defaultCharset());
+        if (hasContent(target, bytes)) {
+            return false;
+        }
+
+        Path temporary = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                if (forceToDisk) {
+                    channel.force(true);
+                }
             }
+            copyPosixPermissions(target, temporary);
+            try {
+                Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        if (forceToDisk) {
+            forceDirectoryToDisk(target.getParent());
+        }
+        return true;
+    }
+
+    private static boolean hasContent(Path file, byte[] content) throws IOException {
+        return Files.isRegularFile(file) && Files.size(file) == content.length
+                && Arrays.equals(Files.readAllBytes(file), content);
+    }
+
+    /**
+     * Persists the directory entry created by renaming a file into the given directory. Not all platforms allow
+     * directories to be opened (i.e. Windows), in which case the rename is already durable once it returns.
+     */
+    private static void forceDirectoryToDisk(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // not supported on this platform
+        }
+    }
+
+    private static void copyPosixPermissions(Path source, Path target) throws IOException {
+        if (Files.exists(source) && Files.getFileStore(source).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
         }
     }
 
@@ -110,6 +203,47 @@ public final class TomlUtils {
         return sb.toString();
     }
 
+    /**
+     * Finds the directories of all local path dependencies (i.e. {@code foo = {path = "../foo", develop = true}})
+     * declared in the main, dev, and custom group dependency sections of the given pyproject.toml configuration.
+     * Paths that do not exist are ignored.
+     *
+     * @param pyProjectConfig  loaded pyproject.toml configuration
+     * @param projectDirectory directory containing the pyproject.toml, against which relative paths are resolved
+     * @return path dependency directories
+     */
+    public static List<File> findPathDependencyDirectories(Config pyProjectConfig, File projectDirectory) {
+        List<File> pathDependencies = new ArrayList<>();
+        collectPathDependencies(pyProjectConfig.getOptional(TOOL_POETRY_DEPENDENCIES), projectDirectory,
+                pathDependencies);
+        collectPathDependencies(pyProjectConfig.getOptional("tool.poetry.dev-dependencies"), projectDirectory,
+                pathDependencies);
+        Optional<Config> groups = pyProjectConfig.getOptional("tool.poetry.group");
+        if (groups.isPresent()) {
+            for (Object group : groups.get().valueMap().values()) {
+                if (group instanceof Config) {
+                    collectPathDependencies(((Config) group).getOptional("dependencies"), projectDirectory,
+                            pathDependencies);
+                }
+            }
+        }
+        return pathDependencies;
+    }
+
+    private static void collectPathDependencies(Optional<Config> dependencies, File projectDirectory,
+                                                List<File> pathDependencies) {
+        if (dependencies.isPresent()) {
+            for (Object dependency : dependencies.get().valueMap().values()) {
+                if (dependency instanceof Config && ((Config) dependency).contains(PATH)) {
+                    File path = new File(projectDirectory, ((Config) dependency).get(PATH).toString());
+                    if (path.isDirectory()) {
+                        pathDependencies.add(path);
+                    }
+                }
+            }
+        }
+    }
+
     private static void addCommaBetweenValues(int valuesRemaining, StringBuilder sb) {
         if (valuesRemaining > 0) {
             sb.append(", ");
@@ -0,0 +1,100 @@
+package org.technologybrewery.habushu.wheels;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry within the {@link WheelStore} index that maps a wheel cached for an artifactId to the content-addressed blob
+ * holding its bytes.
+ */
+public class CachedWheel {
+
+    private String fileName;
+    private String version;
+    private List<String> tags = new ArrayList<>();
+    private String sha256;
+    private long size;
+    private long cachedAtEpochMillis;
+    private long lastRetrievedEpochMillis;
+
+    public CachedWheel() {
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * @return wheel version, or {@code null} if it could not be determined from the file name
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public void setVersion(String version) {
+        this.version = version;
+    }
+
+    /**
+     * @return expanded {@code python-abi-platform} tags of the wheel
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<String> tags) {
+        this.tags = tags;
+    }
+
+    /**
+     * @return hex-encoded SHA-256 digest of the wheel, which identifies its blob within the store
+     */
+    public String getSha256() {
+        return sha256;
+    }
+
+    public void setSha256(String sha256) {
+        this.sha256 = sha256;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public void setSize(long size) {
+        this.size = size;
+    }
+
+    public long getCachedAtEpochMillis() {
+        return cachedAtEpochMillis;
+    }
+
+    public void setCachedAtEpochMillis(long cachedAtEpochMillis) {
+        this.cachedAtEpochMillis = cachedAtEpochMillis;
+    }
+
+    /**
+     * @return when the wheel was last retrieved, or {@code 0} if it has not been retrieved since it was cached
+     */
+    public long getLastRetrievedEpochMillis() {
+        return lastRetrievedEpochMillis;
+    }
+
+    public void setLastRetrievedEpochMillis(long lastRetrievedEpochMillis) {
+        this.lastRetrievedEpochMillis = lastRetrievedEpochMillis;
+    }
+
+    /**
+     * @return when the wheel was last cached or retrieved, whichever is later
+     */
+    @JsonIgnore
+    public long getLastUsedEpochMillis() {
+        return Math.max(cachedAtEpochMillis, lastRetrievedEpochMillis);
+    }
+}
@@ -0,0 +1,46 @@
+package org.technologybrewery.habushu.wheels;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * {@link WheelCacheBackend} held in a {@link WheelStore} within a directory that is shared across machines (i.e. on a
+ * network file system), such that its lock serializes publishing across builds.
+ */
+public class DirectoryWheelCacheBackend implements WheelCacheBackend {
+
+    private final WheelStore store;
+
+    public DirectoryWheelCacheBackend(File directory) {
+        this.store = new WheelStore(directory);
+    }
+
+    @Override
+    public List<CachedWheel> getWheels(String artifactId) {
+        return store.getWheels(artifactId);
+    }
+
+    @Override
+    public void download(CachedWheel wheel, Path target) throws IOException {
+        File blob = store.getBlob(wheel.getSha256());
+        if (!blob.isFile()) {
+            throw new NoSuchFileException(blob.getPath());
+        }
+        Files.copy(blob.toPath(), target, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Override
+    public void publish(String artifactId, CachedWheel wheel, File blob) {
+        store.importWheel(artifactId, wheel, blob);
+    }
+
+    @Override
+    public String toString() {
+        return store.getStoreDirectory().getPath();
+    }
+}
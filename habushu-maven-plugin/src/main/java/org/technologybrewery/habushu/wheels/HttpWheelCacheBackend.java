@@ -0,0 +1,136 @@
+package org.technologybrewery.habushu.wheels;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * {@link WheelCacheBackend} held on an HTTP server that serves files via {@code GET} and stores them via {@code PUT}
+ * (i.e. a raw/generic repository of an artifact server, or a web server with WebDAV enabled), optionally
+ * authenticating via HTTP basic authentication.
+ * <p>
+ * The index of an artifactId is read, amended, and written back when publishing, so concurrent publishing of the same
+ * artifactId by multiple builds may drop an entry; it is added back the next time the wheel is cached.
+ */
+public class HttpWheelCacheBackend implements WheelCacheBackend {
+
+    private final URI baseUri;
+    private final Duration requestTimeout;
+    private final String authorization;
+    private final HttpClient client;
+
+    /**
+     * @param baseUri        URI of the directory holding the cache
+     * @param connectTimeout maximum time to wait to connect to the server
+     * @param requestTimeout maximum time to wait for each request to complete, including transferring the wheel
+     * @param username       username with which to authenticate, or {@code null} to not authenticate
+     * @param password       password with which to authenticate
+     */
+    public HttpWheelCacheBackend(URI baseUri, Duration connectTimeout, Duration requestTimeout, String username,
+                                 String password) {
+        String uri = baseUri.toString();
+        this.baseUri = URI.create(uri.endsWith("/") ? uri : uri + "/");
+        this.requestTimeout = requestTimeout;
+        this.authorization = StringUtils.isNotEmpty(username)
+                ? "Basic " + Base64.getEncoder().encodeToString((username + ":" + StringUtils.defaultString(password))
+                .getBytes(StandardCharsets.UTF_8))
+                : null;
+        // plain HTTP/2 (h2c) upgrades are not supported by many artifact servers, while HTTP/2 over TLS is
+        // negotiated regardless:
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public List<CachedWheel> getWheels(String artifactId) throws IOException {
+        HttpResponse<InputStream> response = send(request(indexPath(artifactId)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() == 404) {
+                return Collections.emptyList();
+            }
+            checkStatus(response);
+            return WheelStore.readIndex(body);
+        }
+    }
+
+    @Override
+    public void download(CachedWheel wheel, Path target) throws IOException {
+        HttpResponse<Path> response = send(request(WheelStore.getBlobPath(wheel.getSha256())).GET().build(),
+                HttpResponse.BodyHandlers.ofFile(target));
+        checkStatus(response);
+    }
+
+    @Override
+    public void publish(String artifactId, CachedWheel wheel, File blob) throws IOException {
+        String blobPath = WheelStore.getBlobPath(wheel.getSha256());
+        HttpResponse<Void> head = send(request(blobPath).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (head.statusCode() == 404) {
+            checkStatus(send(request(blobPath).PUT(HttpRequest.BodyPublishers.ofFile(blob.toPath())).build(),
+                    HttpResponse.BodyHandlers.discarding()));
+        } else {
+            checkStatus(head);
+        }
+
+        List<CachedWheel> wheels = new ArrayList<>(getWheels(artifactId));
+        wheels.removeIf(existing -> existing.getFileName().equals(wheel.getFileName()));
+        wheels.add(wheel);
+        HttpRequest putIndex = request(indexPath(artifactId))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(WheelStore.toIndexBytes(wheels)))
+                .build();
+        checkStatus(send(putIndex, HttpResponse.BodyHandlers.discarding()));
+    }
+
+    private static String indexPath(String artifactId) {
+        return WheelStore.getIndexPath(URLEncoder.encode(artifactId, StandardCharsets.UTF_8));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(requestTimeout);
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return request;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        try {
+            return client.send(request, bodyHandler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while sending " + request.method() + " " + request.uri(), e);
+        }
+    }
+
+    private static void checkStatus(HttpResponse<?> response) throws IOException {
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new IOException(response.request().method() + " " + response.request().uri() + " returned HTTP "
+                    + response.statusCode());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return baseUri.toString();
+    }
+}
@@ -0,0 +1,47 @@
+package org.technologybrewery.habushu.wheels;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Wheel cache shared across machines (i.e. CI agents), through which wheels cached by one build may be retrieved by
+ * builds on other machines. Wheels are always retrieved from the local {@link WheelStore}; a backend is published to
+ * as wheels are cached and populates the local store with the wheels it is missing.
+ * <p>
+ * Backends share the layout of a {@link WheelStore}, holding a JSON index per artifactId
+ * ({@code index/<artifactId>.json}) and a blob per distinct wheel ({@code blobs/sha256/<xx>/<digest>.whl}).
+ */
+public interface WheelCacheBackend {
+
+    /**
+     * Returns the wheels cached for the given artifactId.
+     *
+     * @param artifactId artifactId
+     * @return cached wheels, which is empty if none have been cached
+     * @throws IOException if the backend could not be read
+     */
+    List<CachedWheel> getWheels(String artifactId) throws IOException;
+
+    /**
+     * Writes the bytes of the given cached wheel to the given file, replacing it if it exists. The bytes are not
+     * verified against the wheel's digest, which is left to {@link WheelStore#importWheel(String, CachedWheel, File)}.
+     *
+     * @param wheel  cached wheel
+     * @param target file to which to write the wheel
+     * @throws IOException if the wheel could not be read
+     */
+    void download(CachedWheel wheel, Path target) throws IOException;
+
+    /**
+     * Adds the given wheel to the backend under the given artifactId, replacing any wheel previously cached for the
+     * artifactId with the same file name. The blob is only written if the backend does not already hold it.
+     *
+     * @param artifactId artifactId under which to cache the wheel
+     * @param wheel      index entry of the wheel
+     * @param blob       file holding the bytes of the wheel
+     * @throws IOException if the wheel could not be written
+     */
+    void publish(String artifactId, CachedWheel wheel, File blob) throws IOException;
+}
@@ -0,0 +1,51 @@
+package org.technologybrewery.habushu.wheels;
+
+import java.time.Duration;
+
+/**
+ * Bounds on the size and age of a {@link WheelStore}. Wheels that have not been cached or retrieved within the
+ * maximum age are evicted first, after which the least recently used wheels are evicted until the blobs that remain
+ * fit within the maximum size.
+ */
+public final class WheelCacheEvictionPolicy {
+
+    /**
+     * Policy that never evicts wheels (but still removes blobs that are no longer referenced by any index).
+     */
+    public static final WheelCacheEvictionPolicy UNBOUNDED = new WheelCacheEvictionPolicy(0, Duration.ZERO);
+
+    private final long maxBytes;
+    private final Duration maxAge;
+
+    /**
+     * @param maxBytes maximum total size of the stored blobs, or {@code 0} for no limit
+     * @param maxAge   maximum time since a wheel was last cached or retrieved, or {@link Duration#ZERO} for no limit
+     */
+    public WheelCacheEvictionPolicy(long maxBytes, Duration maxAge) {
+        this.maxBytes = maxBytes;
+        this.maxAge = maxAge;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Returns whether this policy limits the size or age of the store.
+     *
+     * @return whether any limit is set
+     */
+    public boolean isBounded() {
+        return maxBytes > 0 || !maxAge.isZero();
+    }
+
+    @Override
+    public String toString() {
+        return "maxBytes=" + (maxBytes > 0 ? maxBytes : "unbounded")
+                + ", maxAge=" + (maxAge.isZero() ? "unbounded" : maxAge);
+    }
+}
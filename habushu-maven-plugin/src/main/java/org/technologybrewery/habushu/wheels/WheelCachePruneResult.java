@@ -0,0 +1,47 @@
+package org.technologybrewery.habushu.wheels;
+
+/**
+ * Outcome of pruning a {@link WheelStore}.
+ */
+public final class WheelCachePruneResult {
+
+    private final int evictedWheels;
+    private final int deletedBlobs;
+    private final long freedBytes;
+    private final long remainingBytes;
+
+    public WheelCachePruneResult(int evictedWheels, int deletedBlobs, long freedBytes, long remainingBytes) {
+        this.evictedWheels = evictedWheels;
+        this.deletedBlobs = deletedBlobs;
+        this.freedBytes = freedBytes;
+        this.remainingBytes = remainingBytes;
+    }
+
+    /**
+     * @return number of index entries removed
+     */
+    public int getEvictedWheels() {
+        return evictedWheels;
+    }
+
+    /**
+     * @return number of blobs deleted, including those no longer referenced prior to pruning
+     */
+    public int getDeletedBlobs() {
+        return deletedBlobs;
+    }
+
+    public long getFreedBytes() {
+        return freedBytes;
+    }
+
+    public long getRemainingBytes() {
+        return remainingBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("evicted %d wheel(s) and deleted %d blob(s), freeing %d bytes (%d bytes remain)",
+                evictedWheels, deletedBlobs, freedBytes, remainingBytes);
+    }
+}
@@ -0,0 +1,91 @@
+package org.technologybrewery.habushu.wheels;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Components of a wheel file name, as defined by the
+ * <a href="https://packaging.python.org/en/latest/specifications/binary-distribution-format/">binary distribution
+ * format</a>: {@code {distribution}-{version}(-{build tag})?-{python tag}-{abi tag}-{platform tag}.whl}. Compressed
+ * tag sets (i.e. {@code py2.py3-none-any}) are expanded into each of the tags they represent.
+ */
+public final class WheelFileName {
+
+    private static final String WHEEL_EXTENSION = ".whl";
+
+    private final String fileName;
+    private final String distribution;
+    private final String version;
+    private final List<String> tags;
+
+    private WheelFileName(String fileName, String distribution, String version, List<String> tags) {
+        this.fileName = fileName;
+        this.distribution = distribution;
+        this.version = version;
+        this.tags = tags;
+    }
+
+    /**
+     * Parses the given wheel file name. Names that do not follow the wheel naming convention are tolerated, but have
+     * no distribution, version, or tags.
+     *
+     * @param fileName wheel file name
+     * @return parsed file name
+     */
+    public static WheelFileName parse(String fileName) {
+        String baseName = fileName.endsWith(WHEEL_EXTENSION)
+                ? fileName.substring(0, fileName.length() - WHEEL_EXTENSION.length())
+                : fileName;
+        String[] parts = baseName.split("-");
+        if (parts.length != 5 && parts.length != 6) {
+            return new WheelFileName(fileName, null, null, Collections.emptyList());
+        }
+
+        int tagsStart = parts.length - 3;
+        List<String> tags = new ArrayList<>();
+        for (String pythonTag : parts[tagsStart].split("\\.")) {
+            for (String abiTag : parts[tagsStart + 1].split("\\.")) {
+                for (String platformTag : parts[tagsStart + 2].split("\\.")) {
+                    tags.add(pythonTag + "-" + abiTag + "-" + platformTag);
+                }
+            }
+        }
+        return new WheelFileName(fileName, parts[0], parts[1], Collections.unmodifiableList(tags));
+    }
+
+    /**
+     * Returns whether the given file name is that of a wheel.
+     *
+     * @param fileName file name
+     * @return whether it ends with {@code .whl}
+     */
+    public static boolean isWheel(String fileName) {
+        return fileName.endsWith(WHEEL_EXTENSION);
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    /**
+     * @return distribution name, or {@code null} if the file name does not follow the wheel naming convention
+     */
+    public String getDistribution() {
+        return distribution;
+    }
+
+    /**
+     * @return version, or {@code null} if the file name does not follow the wheel naming convention
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return expanded {@code python-abi-platform} tags
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+}
@@ -0,0 +1,111 @@
+package org.technologybrewery.habushu.wheels;
+
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.util.Pep440Specifier;
+import org.technologybrewery.habushu.util.Pep440Version;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Selects the cached wheels of an artifact that match a version and a set of tags.
+ * <p>
+ * The version may be {@value #LATEST} (the default), which selects the wheels of the highest cached version; an exact
+ * version (i.e. {@code 1.2.0}); or a PEP 440 specifier (i.e. {@code >=1.2,<2}), which selects the wheels of the highest
+ * cached version that satisfies it. Wheels whose file names do not contain a valid PEP 440 version are only selected
+ * if no cached wheel has one.
+ * <p>
+ * Tags select wheels that have at least one matching tag, where each given tag may either be a complete
+ * {@code python-abi-platform} tag (i.e. {@code cp311-cp311-manylinux_2_17_x86_64}) or only a platform tag (i.e.
+ * {@code manylinux_2_17_x86_64} or {@code any}). If no tags are given, wheels are selected regardless of their tags.
+ */
+public final class WheelSelector {
+
+    /**
+     * Version that selects the wheels of the highest cached version.
+     */
+    public static final String LATEST = "latest";
+
+    private final String version;
+    private final Pep440Specifier specifier;
+    private final List<String> tags;
+
+    /**
+     * @param version {@value #LATEST}, an exact version, or a PEP 440 specifier; {@code null} is treated as
+     *                {@value #LATEST}
+     * @param tags    tags of which wheels must have at least one, or {@code null} to select wheels regardless of tags
+     */
+    public WheelSelector(String version, Collection<String> tags) {
+        this.version = StringUtils.isBlank(version) ? LATEST : version.trim();
+        this.specifier = LATEST.equalsIgnoreCase(this.version) ? null : Pep440Specifier.parse(this.version);
+        this.tags = tags != null ? new ArrayList<>(tags) : Collections.emptyList();
+    }
+
+    /**
+     * Returns the given candidates whose file names match this selector.
+     *
+     * @param candidates candidate wheels
+     * @param fileName   function providing the file name of a candidate
+     * @param <T>        candidate type
+     * @return matching candidates, in their original order
+     */
+    public <T> List<T> select(List<T> candidates, Function<T, String> fileName) {
+        Map<T, Pep440Version> versions = new LinkedHashMap<>();
+        List<T> unversioned = new ArrayList<>();
+        for (T candidate : candidates) {
+            WheelFileName wheelFileName = WheelFileName.parse(fileName.apply(candidate));
+            if (!matchesTags(wheelFileName)) {
+                continue;
+            }
+            Pep440Version candidateVersion = Pep440Version.tryParse(wheelFileName.getVersion());
+            if (candidateVersion != null) {
+                versions.put(candidate, candidateVersion);
+            } else {
+                unversioned.add(candidate);
+            }
+        }
+        if (versions.isEmpty()) {
+            return unversioned;
+        }
+
+        List<Pep440Version> eligible = new ArrayList<>(versions.values());
+        if (specifier != null) {
+            eligible = specifier.filter(eligible);
+        }
+        Pep440Version selected = eligible.stream().max(Pep440Version::compareTo).orElse(null);
+        List<T> selectedCandidates = new ArrayList<>();
+        if (selected != null) {
+            versions.forEach((candidate, candidateVersion) -> {
+                if (candidateVersion.equals(selected)) {
+                    selectedCandidates.add(candidate);
+                }
+            });
+        }
+        return selectedCandidates;
+    }
+
+    private boolean matchesTags(WheelFileName wheelFileName) {
+        if (tags.isEmpty()) {
+            return true;
+        }
+        for (String wheelTag : wheelFileName.getTags()) {
+            String platformTag = wheelTag.substring(wheelTag.lastIndexOf('-') + 1);
+            for (String tag : tags) {
+                if (tag.equals(wheelTag) || tag.equals(platformTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "version " + version + (tags.isEmpty() ? "" : " with tags " + tags);
+    }
+}
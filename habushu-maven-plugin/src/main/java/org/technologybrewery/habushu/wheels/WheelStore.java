@@ -0,0 +1,575 @@
+package org.technologybrewery.habushu.wheels;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.HabushuException;
+import org.technologybrewery.habushu.util.InterProcessLock;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store of the wheels cached by {@code cache-wheels} and retrieved by {@code retrieve-wheels}.
+ * <p>
+ * The bytes of each wheel are held once, regardless of how many artifactIds or file names refer to them, in a blob
+ * named by their SHA-256 digest ({@code blobs/sha256/<first two characters>/<digest>.whl}). A small JSON index per
+ * artifactId ({@code index/<artifactId>.json}) maps the file name, version, and tags of each cached wheel to its blob.
+ * <p>
+ * Blobs are made read-only and hard linked into place when retrieved, falling back to a copy when the store and the
+ * target directory are on different file systems. Mutations of the store are serialized across threads and builds via
+ * an {@link InterProcessLock} within the store directory. Wheels are {@link #markRetrieved(String, Collection) marked
+ * as retrieved} before they are retrieved, without holding the lock, and pruning never evicts wheels marked within
+ * the last {@link #RETRIEVAL_LEASE}, so that they are not evicted mid-retrieval.
+ * <p>
+ * The size and age of the store may be bounded by {@link #prune(WheelCacheEvictionPolicy) pruning} it. Wheels cached
+ * on other machines may be {@link #importWheel(String, CachedWheel, File) imported} from a {@link WheelCacheBackend},
+ * which shares the same layout.
+ */
+public class WheelStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WheelStore.class);
+
+    static final String BLOBS_DIRECTORY = "blobs/sha256";
+    static final String INDEX_DIRECTORY = "index";
+    static final String LOCK_NAME = "wheel-store";
+
+    /**
+     * Period after a wheel is marked as retrieved during which it may still be being retrieved, and so is not evicted.
+     */
+    static final Duration RETRIEVAL_LEASE = Duration.ofMinutes(10);
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String INDEX_FILE_SUFFIX = ".json";
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private static final TypeReference<List<CachedWheel>> INDEX_TYPE = new TypeReference<List<CachedWheel>>() {
+    };
+
+    private final File storeDirectory;
+
+    public WheelStore(File storeDirectory) {
+        this.storeDirectory = storeDirectory.getAbsoluteFile();
+    }
+
+    public File getStoreDirectory() {
+        return storeDirectory;
+    }
+
+    /**
+     * Adds the given wheel to the store under the given artifactId, replacing any wheel previously cached for the
+     * artifactId with the same file name. The wheel's bytes are only written if no blob with the same digest exists.
+     *
+     * @param artifactId artifactId under which to cache the wheel
+     * @param wheel      wheel file
+     * @return index entry of the cached wheel
+     */
+    public CachedWheel put(String artifactId, File wheel) {
+        try (InterProcessLock lock = lock()) {
+            String sha256 = sha256(wheel);
+            File blob = getBlob(sha256);
+            if (blob.isFile() && blob.length() == wheel.length()) {
+                logger.debug("{} is already stored as {}", wheel.getName(), blob);
+            } else {
+                writeBlob(wheel, sha256);
+            }
+
+            WheelFileName wheelFileName = WheelFileName.parse(wheel.getName());
+            CachedWheel cachedWheel = new CachedWheel();
+            cachedWheel.setFileName(wheel.getName());
+            cachedWheel.setVersion(wheelFileName.getVersion());
+            cachedWheel.setTags(new ArrayList<>(wheelFileName.getTags()));
+            cachedWheel.setSha256(sha256);
+            cachedWheel.setSize(wheel.length());
+            cachedWheel.setCachedAtEpochMillis(System.currentTimeMillis());
+            addToIndex(artifactId, cachedWheel);
+            return cachedWheel;
+        } catch (IOException e) {
+            throw new HabushuException("Could not store " + wheel + " in " + storeDirectory, e);
+        }
+    }
+
+    /**
+     * Adds a wheel cached elsewhere (i.e. in a {@link WheelCacheBackend}) to the store under the given artifactId,
+     * verifying that the given file has the digest recorded in its index entry.
+     *
+     * @param artifactId artifactId under which to cache the wheel
+     * @param wheel      index entry of the wheel
+     * @param file       file holding the bytes of the wheel, which may be {@code null} if the store already holds
+     *                   a blob with its digest
+     * @return index entry of the cached wheel
+     * @throws HabushuException if the index entry is not valid (see {@link #validate(CachedWheel)}) or the file does
+     *                          not have the expected digest
+     */
+    public CachedWheel importWheel(String artifactId, CachedWheel wheel, File file) {
+        validate(wheel);
+        try (InterProcessLock lock = lock()) {
+            if (!hasBlob(wheel.getSha256())) {
+                if (file == null) {
+                    throw new HabushuException("Wheel store " + storeDirectory + " does not hold the blob of "
+                            + wheel.getFileName() + " (" + wheel.getSha256() + ")");
+                }
+                writeBlob(file, wheel.getSha256());
+            }
+
+            CachedWheel cachedWheel = new CachedWheel();
+            cachedWheel.setFileName(wheel.getFileName());
+            cachedWheel.setVersion(wheel.getVersion());
+            cachedWheel.setTags(new ArrayList<>(wheel.getTags()));
+            cachedWheel.setSha256(wheel.getSha256());
+            cachedWheel.setSize(getBlob(wheel.getSha256()).length());
+            // the wheel was cached locally just now, regardless of when it was originally cached
+            cachedWheel.setCachedAtEpochMillis(System.currentTimeMillis());
+            addToIndex(artifactId, cachedWheel);
+            return cachedWheel;
+        } catch (IOException e) {
+            throw new HabushuException("Could not import " + wheel.getFileName() + " into " + storeDirectory, e);
+        }
+    }
+
+    private void addToIndex(String artifactId, CachedWheel cachedWheel) throws IOException {
+        List<CachedWheel> wheels = new ArrayList<>(getWheels(artifactId));
+        wheels.removeIf(existing -> existing.getFileName().equals(cachedWheel.getFileName()));
+        wheels.add(cachedWheel);
+        writeIndex(artifactId, wheels);
+    }
+
+    /**
+     * Returns the wheels cached for the given artifactId.
+     *
+     * @param artifactId artifactId
+     * @return cached wheels, which is empty if none have been cached
+     */
+    public List<CachedWheel> getWheels(String artifactId) {
+        File indexFile = getIndexFile(artifactId);
+        if (!indexFile.isFile()) {
+            return Collections.emptyList();
+        }
+        try {
+            return MAPPER.readValue(indexFile, INDEX_TYPE);
+        } catch (IOException e) {
+            throw new HabushuException("Could not read wheel store index " + indexFile, e);
+        }
+    }
+
+    /**
+     * Places the given cached wheel within the given directory under its file name, replacing any existing file
+     * unless it is identical to the cached wheel (i.e. has the same size and SHA-256 digest).
+     *
+     * @param wheel           cached wheel
+     * @param targetDirectory directory into which to place the wheel
+     * @return {@code true} if the wheel was placed, or {@code false} if an identical file was already present
+     */
+    public boolean retrieve(CachedWheel wheel, File targetDirectory) {
+        validate(wheel);
+        File blob = getBlob(wheel.getSha256());
+        if (!blob.isFile()) {
+            throw new HabushuException("Wheel store " + storeDirectory + " is missing the blob of "
+                    + wheel.getFileName() + " (" + wheel.getSha256() + ")");
+        }
+        File target = new File(targetDirectory, wheel.getFileName()).getAbsoluteFile();
+        try {
+            if (isIdentical(target, blob, wheel)) {
+                return false;
+            }
+            Files.createDirectories(target.getParentFile().toPath());
+            Path temp = tempSibling(target.toPath());
+            try {
+                linkOrCopy(blob.toPath(), temp);
+                moveIntoPlace(temp, target.toPath());
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new HabushuException("Could not retrieve " + wheel.getFileName() + " into " + targetDirectory, e);
+        }
+        return true;
+    }
+
+    private static boolean isIdentical(File target, File blob, CachedWheel wheel) throws IOException {
+        if (!target.isFile() || target.length() != blob.length()) {
+            return false;
+        }
+        // a link to the blob is identical without needing to hash it
+        return Files.isSameFile(target.toPath(), blob.toPath()) || wheel.getSha256().equals(sha256(target));
+    }
+
+    /**
+     * Records that the given wheels cached for the given artifactId are retrieved, so that they are the last to be
+     * evicted when the store is pruned, and are not evicted at all within the {@link #RETRIEVAL_LEASE}. Wheels should
+     * therefore be marked before they are retrieved.
+     *
+     * @param artifactId artifactId under which the wheels are cached
+     * @param retrieved  retrieved wheels
+     */
+    public void markRetrieved(String artifactId, Collection<CachedWheel> retrieved) {
+        if (retrieved.isEmpty()) {
+            return;
+        }
+        Set<String> retrievedFileNames = retrieved.stream().map(CachedWheel::getFileName).collect(Collectors.toSet());
+        long now = System.currentTimeMillis();
+        try (InterProcessLock lock = lock()) {
+            List<CachedWheel> wheels = getWheels(artifactId);
+            for (CachedWheel wheel : wheels) {
+                if (retrievedFileNames.contains(wheel.getFileName())) {
+                    wheel.setLastRetrievedEpochMillis(now);
+                }
+            }
+            writeIndex(artifactId, wheels);
+        } catch (IOException e) {
+            throw new HabushuException("Could not update wheel store index of " + artifactId, e);
+        }
+    }
+
+    /**
+     * Evicts wheels from the store per the given policy and deletes any blobs that are no longer referenced, waiting
+     * for any other build that is using the store to finish first.
+     *
+     * @param policy eviction policy
+     * @return outcome of pruning
+     */
+    public WheelCachePruneResult prune(WheelCacheEvictionPolicy policy) {
+        try (InterProcessLock lock = lock()) {
+            return pruneWhileLocked(policy);
+        }
+    }
+
+    /**
+     * Prunes the store per the given policy only if no other build is using it.
+     *
+     * @param policy eviction policy
+     * @return outcome of pruning, or {@code null} if the store is in use and was not pruned
+     */
+    public WheelCachePruneResult tryPrune(WheelCacheEvictionPolicy policy) {
+        try (InterProcessLock lock = InterProcessLock.tryAcquire(storeDirectory, LOCK_NAME)) {
+            return lock != null ? pruneWhileLocked(policy) : null;
+        }
+    }
+
+    private WheelCachePruneResult pruneWhileLocked(WheelCacheEvictionPolicy policy) {
+        try {
+            Map<String, Long> blobSizes = getBlobSizes();
+            Map<String, List<CachedWheel>> indices = new HashMap<>();
+            for (String artifactId : getArtifactIds()) {
+                indices.put(artifactId, new ArrayList<>(getWheels(artifactId)));
+            }
+            Set<String> modifiedIndices = new HashSet<>();
+            int evictedWheels = 0;
+
+            // drop entries whose blob has gone missing, as well as those that exceed the maximum age:
+            long now = System.currentTimeMillis();
+            long cutoff = policy.getMaxAge().isZero() ? Long.MIN_VALUE : now - policy.getMaxAge().toMillis();
+            for (Map.Entry<String, List<CachedWheel>> index : indices.entrySet()) {
+                int sizeBefore = index.getValue().size();
+                index.getValue().removeIf(wheel -> !blobSizes.containsKey(wheel.getSha256())
+                        || (wheel.getLastUsedEpochMillis() < cutoff && !isLeased(wheel, now)));
+                if (index.getValue().size() != sizeBefore) {
+                    evictedWheels += sizeBefore - index.getValue().size();
+                    modifiedIndices.add(index.getKey());
+                }
+            }
+
+            Map<String, Integer> references = new HashMap<>();
+            indices.values().forEach(wheels ->
+                    wheels.forEach(wheel -> references.merge(wheel.getSha256(), 1, Integer::sum)));
+            long referencedBytes = references.keySet().stream().mapToLong(blobSizes::get).sum();
+
+            // evict the least recently used entries until the referenced blobs fit within the maximum size:
+            if (policy.getMaxBytes() > 0 && referencedBytes > policy.getMaxBytes()) {
+                List<Map.Entry<String, CachedWheel>> leastRecentlyUsed = new ArrayList<>();
+                for (Map.Entry<String, List<CachedWheel>> index : indices.entrySet()) {
+                    for (CachedWheel wheel : index.getValue()) {
+                        leastRecentlyUsed.add(new AbstractMap.SimpleEntry<>(index.getKey(), wheel));
+                    }
+                }
+                leastRecentlyUsed.sort(Comparator.comparingLong(entry -> entry.getValue().getLastUsedEpochMillis()));
+                for (Map.Entry<String, CachedWheel> entry : leastRecentlyUsed) {
+                    if (referencedBytes <= policy.getMaxBytes()) {
+                        break;
+                    }
+                    CachedWheel wheel = entry.getValue();
+                    if (isLeased(wheel, now)) {
+                        continue;
+                    }
+                    indices.get(entry.getKey()).remove(wheel);
+                    modifiedIndices.add(entry.getKey());
+                    evictedWheels++;
+                    if (references.merge(wheel.getSha256(), -1, Integer::sum) == 0) {
+                        references.remove(wheel.getSha256());
+                        referencedBytes -= blobSizes.get(wheel.getSha256());
+                    }
+                }
+            }
+
+            for (String artifactId : modifiedIndices) {
+                List<CachedWheel> wheels = indices.get(artifactId);
+                if (wheels.isEmpty()) {
+                    Files.deleteIfExists(getIndexFile(artifactId).toPath());
+                } else {
+                    writeIndex(artifactId, wheels);
+                }
+            }
+
+            int deletedBlobs = 0;
+            long freedBytes = 0;
+            for (Map.Entry<String, Long> blob : blobSizes.entrySet()) {
+                if (!references.containsKey(blob.getKey())) {
+                    Files.deleteIfExists(getBlob(blob.getKey()).toPath());
+                    deletedBlobs++;
+                    freedBytes += blob.getValue();
+                }
+            }
+            deleteTempFiles();
+
+            return new WheelCachePruneResult(evictedWheels, deletedBlobs, freedBytes, referencedBytes);
+        } catch (IOException e) {
+            throw new HabushuException("Could not prune wheel store " + storeDirectory, e);
+        }
+    }
+
+    private static boolean isLeased(CachedWheel wheel, long now) {
+        return wheel.getLastRetrievedEpochMillis() > now - RETRIEVAL_LEASE.toMillis();
+    }
+
+    /**
+     * Returns the artifactIds for which wheels have been cached.
+     *
+     * @return artifactIds
+     */
+    public List<String> getArtifactIds() {
+        File[] indexFiles = new File(storeDirectory, INDEX_DIRECTORY)
+                .listFiles((directory, name) -> name.endsWith(INDEX_FILE_SUFFIX) && !name.startsWith("."));
+        if (indexFiles == null) {
+            return Collections.emptyList();
+        }
+        return Stream.of(indexFiles)
+                .map(file -> file.getName().substring(0, file.getName().length() - INDEX_FILE_SUFFIX.length()))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Long> getBlobSizes() throws IOException {
+        Map<String, Long> blobSizes = new HashMap<>();
+        Path blobsDirectory = new File(storeDirectory, BLOBS_DIRECTORY).toPath();
+        if (Files.isDirectory(blobsDirectory)) {
+            try (Stream<Path> blobs = Files.walk(blobsDirectory)) {
+                blobs.filter(Files::isRegularFile)
+                        .filter(blob -> WheelFileName.isWheel(blob.getFileName().toString()))
+                        .filter(blob -> !blob.getFileName().toString().startsWith("."))
+                        .forEach(blob -> {
+                            String name = blob.getFileName().toString();
+                            blobSizes.put(name.substring(0, name.lastIndexOf('.')), blob.toFile().length());
+                        });
+            }
+        }
+        return blobSizes;
+    }
+
+    /**
+     * Deletes temporary files left behind by builds that were interrupted while writing to the store. As all writes
+     * to the store happen while its lock is held, any temporary file found while holding the lock is stale.
+     */
+    private void deleteTempFiles() throws IOException {
+        for (String directory : Arrays.asList(BLOBS_DIRECTORY, INDEX_DIRECTORY)) {
+            Path path = new File(storeDirectory, directory).toPath();
+            if (Files.isDirectory(path)) {
+                List<Path> tempFiles;
+                try (Stream<Path> files = Files.walk(path)) {
+                    tempFiles = files.filter(file -> file.getFileName().toString().endsWith(TEMP_FILE_SUFFIX))
+                            .collect(Collectors.toList());
+                }
+                for (Path tempFile : tempFiles) {
+                    Files.deleteIfExists(tempFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the blob holding the bytes with the given digest, which may not exist.
+     *
+     * @param sha256 hex-encoded SHA-256 digest
+     * @return blob file
+     */
+    public File getBlob(String sha256) {
+        return new File(storeDirectory, getBlobPath(sha256));
+    }
+
+    /**
+     * Returns whether the store holds the blob with the given digest.
+     *
+     * @param sha256 hex-encoded SHA-256 digest
+     * @return whether the blob exists
+     */
+    public boolean hasBlob(String sha256) {
+        return getBlob(sha256).isFile();
+    }
+
+    /**
+     * Verifies that the given index entry, which may have been read from the index of a remote wheel cache, has a
+     * hex-encoded SHA-256 digest and the file name of a wheel without any path components, so that neither can
+     * address a file outside of the store or of the directory into which the wheel is retrieved.
+     *
+     * @param wheel index entry
+     * @throws HabushuException if the index entry is not valid
+     */
+    public static void validate(CachedWheel wheel) {
+        validateSha256(wheel.getSha256());
+        String fileName = wheel.getFileName();
+        if (fileName == null || fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0
+                || !WheelFileName.isWheel(fileName) || WheelFileName.parse(fileName).getDistribution() == null) {
+            throw new HabushuException("'" + fileName + "' is not a valid wheel file name");
+        }
+    }
+
+    private static void validateSha256(String sha256) {
+        if (sha256 == null || !SHA256_PATTERN.matcher(sha256).matches()) {
+            throw new HabushuException("'" + sha256 + "' is not a valid SHA-256 digest");
+        }
+    }
+
+    /**
+     * @return path of the blob with the given digest, relative to the root of a store
+     * @throws HabushuException if the digest is not a hex-encoded SHA-256 digest
+     */
+    static String getBlobPath(String sha256) {
+        validateSha256(sha256);
+        return BLOBS_DIRECTORY + "/" + sha256.substring(0, 2) + "/" + sha256 + ".whl";
+    }
+
+    /**
+     * @return path of the index of the given artifactId, relative to the root of a store
+     */
+    static String getIndexPath(String artifactId) {
+        return INDEX_DIRECTORY + "/" + artifactId + INDEX_FILE_SUFFIX;
+    }
+
+    /**
+     * Blocks until the lock serializing mutations of this store is acquired.
+     *
+     * @return acquired lock, which must be closed to release it
+     */
+    public InterProcessLock lock() {
+        return InterProcessLock.acquire(storeDirectory, LOCK_NAME);
+    }
+
+    File getIndexFile(String artifactId) {
+        return new File(storeDirectory, getIndexPath(artifactId));
+    }
+
+    void writeIndex(String artifactId, List<CachedWheel> wheels) throws IOException {
+        File indexFile = getIndexFile(artifactId);
+        Files.createDirectories(indexFile.getParentFile().toPath());
+        Path temp = tempSibling(indexFile.toPath());
+        try {
+            MAPPER.writeValue(temp.toFile(), wheels);
+            moveIntoPlace(temp, indexFile.toPath());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void writeBlob(File wheel, String expectedSha256) throws IOException {
+        File blob = getBlob(expectedSha256);
+        Files.createDirectories(blob.getParentFile().toPath());
+        Path temp = tempSibling(blob.toPath());
+        try {
+            MessageDigest digest = DigestUtils.getSha256Digest();
+            try (InputStream in = new DigestInputStream(Files.newInputStream(wheel.toPath()), digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                in.transferTo(out);
+            }
+            String actualSha256 = Hex.encodeHexString(digest.digest());
+            if (!expectedSha256.equals(actualSha256)) {
+                throw new HabushuException(wheel + " has SHA-256 digest " + actualSha256 + " rather than the expected "
+                        + expectedSha256);
+            }
+            temp.toFile().setWritable(false, false);
+            moveIntoPlace(temp, blob.toPath());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void linkOrCopy(Path blob, Path target) throws IOException {
+        try {
+            Files.createLink(target, blob);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (IOException | UnsupportedOperationException e) {
+            // i.e. the target is on a different file system than the store
+            logger.debug("Could not link {} to {}, copying it instead", target, blob, e);
+            Files.copy(blob, target);
+        }
+    }
+
+    private static Path tempSibling(Path file) {
+        return file.resolveSibling("." + file.getFileName() + "." + UUID.randomUUID() + TEMP_FILE_SUFFIX);
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Reads an index, as written by a store, from the given stream.
+     *
+     * @param in stream of the index
+     * @return wheels within the index
+     */
+    static List<CachedWheel> readIndex(InputStream in) throws IOException {
+        return MAPPER.readValue(in, INDEX_TYPE);
+    }
+
+    /**
+     * Serializes an index as it is written by a store.
+     *
+     * @param wheels wheels within the index
+     * @return serialized index
+     */
+    static byte[] toIndexBytes(List<CachedWheel> wheels) throws IOException {
+        return MAPPER.writeValueAsBytes(wheels);
+    }
+
+    static String sha256(File file) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return DigestUtils.sha256Hex(in);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+"""
+Long-lived Poetry helper used by Habushu when habushu.usePoetryDaemon is enabled.
+
+Poetry is imported once, after which each request received on stdin is executed in-process by a fresh Poetry console
+application. Requests and responses are single-line JSON documents:
+
+  ready:    {"ready": true, "poetry": "1.8.3"}
+  request:  {"id": 1, "cwd": "/path/to/module", "args": ["lock", "--no-update"]}
+  output:   {"id": 1, "stream": "out", "line": "Resolving dependencies..."}
+  result:   {"id": 1, "exit": 0}
+  failure:  {"id": 1, "error": "Traceback ..."}
+
+Anything that Poetry (or one of its plugins) writes directly to the process' stdout is redirected to stderr so that
+it cannot corrupt the protocol. A failure response tells Habushu to re-run the command with the Poetry CLI.
+"""
+import io
+import json
+import os
+import sys
+import threading
+import traceback
+
+_protocol = os.fdopen(os.dup(1), "w", encoding="utf-8", newline="\n")
+os.dup2(2, 1)
+_protocol_lock = threading.Lock()
+
+
+def _send(message):
+    with _protocol_lock:
+        _protocol.write(json.dumps(message) + "\n")
+        _protocol.flush()
+
+
+class _LineStream(io.TextIOBase):
+    """Text stream that forwards each complete line of command output as a protocol message."""
+
+    def __init__(self, request_id, stream):
+        super().__init__()
+        self._request_id = request_id
+        self._stream = stream
+        self._pending = ""
+
+    @property
+    def encoding(self):
+        return "utf-8"
+
+    def writable(self):
+        return True
+
+    def isatty(self):
+        return False
+
+    def write(self, text):
+        self._pending += text
+        while True:
+            index = self._pending.find("\n")
+            if index < 0:
+                break
+            self._emit(self._pending[:index])
+            self._pending = self._pending[index + 1:]
+        return len(text)
+
+    def finish(self):
+        if self._pending:
+            self._emit(self._pending)
+            self._pending = ""
+
+    def _emit(self, line):
+        _send({"id": self._request_id, "stream": self._stream, "line": line.rstrip("\r")})
+
+
+def _poetry_version():
+    try:
+        from poetry.__version__ import __version__
+        return __version__
+    except ImportError:
+        from importlib import metadata
+        return metadata.version("poetry")
+
+
+def _reload_config():
+    # configuration may be changed between requests (i.e. by "poetry config"), so do not reuse a cached copy:
+    try:
+        from poetry.config.config import Config
+        Config.create(reload=True)
+    except Exception:
+        pass
+
+
+def _handle(request, application_type, input_type, output_type):
+    request_id = request.get("id")
+    out = _LineStream(request_id, "out")
+    err = _LineStream(request_id, "err")
+    try:
+        os.chdir(request["cwd"])
+        _reload_config()
+        application = application_type()
+        application.auto_exits(False)
+        exit_code = application.run(input_type(["poetry"] + list(request["args"])), output_type(out),
+                                    output_type(err))
+    except SystemExit as e:
+        exit_code = e.code if isinstance(e.code, int) else (0 if e.code is None else 1)
+    except BaseException:
+        out.finish()
+        err.finish()
+        _send({"id": request_id, "error": traceback.format_exc()})
+        return
+
+    out.finish()
+    err.finish()
+    _send({"id": request_id, "exit": int(exit_code or 0)})
+
+
+def main():
+    try:
+        from cleo.io.inputs.argv_input import ArgvInput
+        from cleo.io.outputs.stream_output import StreamOutput
+        from poetry.console.application import Application
+        version = _poetry_version()
+    except Exception as e:
+        _send({"ready": False, "error": "Poetry could not be imported: %s" % e})
+        return 1
+
+    _send({"ready": True, "poetry": version})
+    for raw_request in sys.stdin:
+        raw_request = raw_request.strip()
+        if not raw_request:
+            continue
+        try:
+            request = json.loads(raw_request)
+        except ValueError as e:
+            _send({"error": "Malformed request: %s" % e})
+            continue
+        _handle(request, Application, ArgvInput, StreamOutput)
+    return 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
@@ -0,0 +1,56 @@
+package org.technologybrewery.habushu;
+
+import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the behave goal of a module with {@link #behaveImpactAnalysis} enabled, recording the behave commands it would
+ * execute rather than executing them, and set default Mojo values that would be done by Maven in normal use.
+ */
+public class BehaveImpactAnalysisTestMojo extends BehaveBddTestMojo {
+
+    private final File moduleDirectory;
+    private final List<List<String>> executedCommands = new ArrayList<>();
+
+    public BehaveImpactAnalysisTestMojo(File moduleDirectory, File behaveHistoryFile) {
+        this.moduleDirectory = moduleDirectory;
+        this.sourceDirectory = new File(moduleDirectory, "src");
+        this.testDirectory = new File(moduleDirectory, "tests");
+        this.behaveHistoryFile = behaveHistoryFile;
+        this.behaveImpactAnalysis = true;
+        this.useBehaveTestCache = false;
+    }
+
+    /**
+     * @return arguments of each Poetry command that ran behave
+     */
+    public List<List<String>> getExecutedCommands() {
+        return executedCommands;
+    }
+
+    @Override
+    protected File getPoetryProjectBaseDir() {
+        return moduleDirectory;
+    }
+
+    @Override
+    protected PoetryCommandHelper createPoetryCommandHelper() {
+        return new PoetryCommandHelper(moduleDirectory) {
+            @Override
+            public List<String> getMissingDependencies(Collection<String> packageNames) {
+                return Collections.emptyList();
+            }
+
+            @Override
+            public int executeAndLogOutput(List<String> arguments) {
+                executedCommands.add(new ArrayList<>(arguments));
+                return 0;
+            }
+        };
+    }
+}
@@ -1,5 +1,7 @@
 package org.technologybrewery.habushu;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.cucumber.java.Before;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
@@ -20,6 +22,7 @@ public class DependencyManagementSteps {
     private DependencyManagementTestMojo mojo;
     private File originalPyProjectToml = new File("target/orig.pyproject.toml");
     private File finalPyProjectToml = new File("target/final.pyproject.toml");
+    private File managedDependencyReportFile = new File("target/managed-dependency-report-test/report.json");
     private HabushuException encounteredException;
 
     @Before
@@ -27,6 +30,7 @@ public class DependencyManagementSteps {
         originalPyProjectToml.delete();
         finalPyProjectToml.delete();
         encounteredException = null;
+        FileUtils.deleteQuietly(managedDependencyReportFile);
 
         createPyProjectTomlFiles();
     }
@@ -65,6 +69,26 @@ public class DependencyManagementSteps {
         createMojoWithManagedDependency(packageName, operatorAndVersion, false);
     }
 
+    @Given("a Habushu configuration with SNAPSHOT managed dependencies of {string} and {string}")
+    public void a_habushu_configuration_with_snapshot_managed_dependencies_of_and(String firstPackage, String secondPackage) {
+        mojo = new DependencyManagementTestMojo(finalPyProjectToml);
+
+        List<PackageDefinition> managedDependencies = new ArrayList<>();
+        for (String packageName : new String[] {firstPackage, secondPackage}) {
+            PackageDefinition packageDefinition = new PackageDefinition();
+            packageDefinition.setPackageName(packageName);
+            packageDefinition.setOperatorAndVersion("5.0.0-SNAPSHOT");
+            managedDependencies.add(packageDefinition);
+        }
+
+        mojo.setManagedDependencies(managedDependencies);
+    }
+
+    @Given("a managed dependency report file is configured")
+    public void a_managed_dependency_report_file_is_configured() {
+        mojo.setManagedDependencyReportFile(managedDependencyReportFile);
+    }
+
     protected void createMojoWithManagedDependency(String packageName, String operatorAndVersion, boolean isActive) {
         mojo = new DependencyManagementTestMojo(finalPyProjectToml);
 
@@ -139,6 +163,29 @@ public class DependencyManagementSteps {
 
     }
 
+    @Then("the Poetry version was resolved {int} time(s)")
+    public void the_poetry_version_was_resolved_times(int expected) {
+        Assertions.assertEquals(expected, mojo.getPoetryVersionResolutions());
+    }
+
+    @Then("the managed dependency report has the outcome {string}")
+    public void the_managed_dependency_report_has_the_outcome(String outcome) throws IOException {
+        JsonNode report = new ObjectMapper().readTree(managedDependencyReportFile);
+        Assertions.assertEquals(outcome, report.get("outcome").asText());
+    }
+
+    @Then("the managed dependency report records {string} in {string} as {string} instead of {string}")
+    public void the_managed_dependency_report_records_in_as_instead_of(String packageName, String section,
+                                                                       String current, String managed) throws IOException {
+        JsonNode mismatches = new ObjectMapper().readTree(managedDependencyReportFile).get("mismatches");
+        Assertions.assertEquals(1, mismatches.size());
+        JsonNode mismatch = mismatches.get(0);
+        Assertions.assertEquals(packageName, mismatch.get("packageName").asText());
+        Assertions.assertEquals(section, mismatch.get("section").asText());
+        Assertions.assertEquals(current, mismatch.get("currentOperatorAndVersion").asText());
+        Assertions.assertEquals(managed, mismatch.get("managedOperatorAndVersion").asText());
+    }
+
     private void createPyProjectTomlFiles() throws IOException {
         File baseFile = new File("src/test/resources/base-test-pyproject.toml");
         FileUtils.copyFile(baseFile, originalPyProjectToml);
@@ -14,6 +14,8 @@ public class DependencyManagementTestMojo extends InstallDependenciesMojo {
 
     private Semver poetryVersion;
 
+    private int poetryVersionResolutions;
+
     public DependencyManagementTestMojo(File pyProjectTomlFile) {
         this.pyProjectTomlFile = pyProjectTomlFile;
 
@@ -34,15 +36,28 @@ public class DependencyManagementTestMojo extends InstallDependenciesMojo {
         this.failOnManagedDependenciesMismatches = shouldFail;
     }
 
+    void setManagedDependencyReportFile(File managedDependencyReportFile) {
+        this.managedDependencyReportFile = managedDependencyReportFile;
+    }
+
+    int getPoetryVersionResolutions() {
+        return poetryVersionResolutions;
+    }
+
     protected File getPoetryPyProjectTomlFile() {
         return pyProjectTomlFile;
     }
 
+    protected File getPoetryProjectBaseDir() {
+        return pyProjectTomlFile.getParentFile();
+    }
+
     protected void setPoetryVersion(String version) {
         this.poetryVersion = new Semver(version);
     }
 
     protected Semver getPoetryVersion() {
+        poetryVersionResolutions++;
         return poetryVersion != null ? poetryVersion : new Semver("1.5.0");
     }
 }
@@ -0,0 +1,53 @@
+package org.technologybrewery.habushu;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class InstallDependenciesSteps {
+
+    // matches the project and virtual environment set up by PoetryInstallFingerprintSteps:
+    private File testDirectory = new File("target/poetry-install-fingerprint-test");
+    private File projectDirectory = new File(testDirectory, "project");
+    private File virtualEnvDirectory = new File(testDirectory, "venv");
+    private List<List<String>> poetryCommands = new ArrayList<>();
+    private int virtualEnvResolutions;
+
+    @When("dependencies are installed by the install-dependencies goal with {string}")
+    public void dependencies_are_installed_by_the_install_dependencies_goal_with(String command) {
+        DependencyManagementTestMojo mojo = new DependencyManagementTestMojo(
+                new File(projectDirectory, "pyproject.toml"));
+        mojo.installDependencies(new PoetryCommandHelper(projectDirectory) {
+            @Override
+            public File getVirtualEnvironmentDirectory() {
+                virtualEnvResolutions++;
+                return virtualEnvDirectory;
+            }
+
+            @Override
+            public Integer executePoetryCommandAndLogAfterTimeout(List<String> arguments, int timeout,
+                                                                  TimeUnit timeUnit) {
+                poetryCommands.add(arguments);
+                return 0;
+            }
+        }, Arrays.asList(command.split(" ")));
+    }
+
+    @Then("Poetry runs {string}")
+    public void poetry_runs(String command) {
+        assertEquals(Arrays.asList(Arrays.asList(command.split(" "))), poetryCommands);
+    }
+
+    @Then("the location of the virtual environment is resolved {int} time(s)")
+    public void the_location_of_the_virtual_environment_is_resolved_times(int times) {
+        assertEquals(times, virtualEnvResolutions);
+    }
+}
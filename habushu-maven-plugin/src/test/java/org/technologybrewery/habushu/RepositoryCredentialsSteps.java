@@ -0,0 +1,72 @@
+package org.technologybrewery.habushu;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.technologybrewery.habushu.exec.Platform;
+import org.technologybrewery.habushu.exec.PoetryCommandHelper;
+import org.technologybrewery.habushu.exec.ProcessExecutor;
+import org.technologybrewery.habushu.telemetry.OutputWritingProcess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class RepositoryCredentialsSteps {
+
+    private int configurations;
+
+    @Before
+    public void startBuild() {
+        PyenvAndPoetrySetup.clear();
+        configurations = 0;
+    }
+
+    @When("the password {string} of user {string} is configured for repository {string}")
+    public void the_password_of_user_is_configured_for_repository(String password, String username,
+                                                                   String repositoryId) throws MojoExecutionException {
+        File workingDirectory = new File("target");
+        PyenvAndPoetrySetup setup = new PyenvAndPoetrySetup("3.11.4", false, null, workingDirectory, false,
+                username, password, repositoryId, new SystemStreamLog());
+        setup.configureRepositoryCredentials(new PoetryCommandHelper(workingDirectory) {
+            @Override
+            protected ProcessExecutor createPoetryExecutor(List<String> arguments) {
+                configurations++;
+                // stands in for Poetry, as only how the command is described matters:
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                List<String> command = Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                        OutputWritingProcess.class.getName(), "0", "0", "0");
+                return new ProcessExecutor(workingDirectory, command, Platform.guess(), Collections.emptyMap());
+            }
+        });
+    }
+
+    @When("a subsequent build configures the password {string} of user {string} for repository {string}")
+    public void a_subsequent_build_configures_the_password_of_user_for_repository(String password, String username,
+                                                                                 String repositoryId)
+            throws MojoExecutionException {
+        PyenvAndPoetrySetup.clear();
+        the_password_of_user_is_configured_for_repository(password, username, repositoryId);
+    }
+
+    @Then("Poetry is configured with repository credentials {int} time(s)")
+    public void poetry_is_configured_with_repository_credentials_times(int times) {
+        assertEquals(times, configurations);
+    }
+
+    @Then("the metrics file {string} does not contain {string}")
+    public void the_metrics_file_does_not_contain(String metricsFile, String secret) throws IOException {
+        String metrics = FileUtils.readFileToString(new File(metricsFile), StandardCharsets.UTF_8);
+        assertFalse(metrics.contains(secret), "Metrics should not contain the password: " + metrics);
+    }
+}
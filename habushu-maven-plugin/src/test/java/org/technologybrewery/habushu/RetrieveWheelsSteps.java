@@ -4,10 +4,20 @@ import io.cucumber.java.After;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.Assertions;
+import org.technologybrewery.habushu.wheels.CachedWheel;
+import org.technologybrewery.habushu.wheels.FakeArtifactServer;
+import org.technologybrewery.habushu.wheels.HttpWheelCacheBackend;
+import org.technologybrewery.habushu.wheels.WheelStore;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -16,10 +26,19 @@ public class RetrieveWheelsSteps {
 
     private RetrieveWheelsTestMojo mojo; 
     File sampleWheelFile = new File("src/test/resources/testCacheDirectory/base-test-wheel.whl");
+    private File testDirectory = new File("target/retrieve-wheels-test");
+    private File wheelStoreDirectory = new File(testDirectory, "wheel-store");
+    private File storeTargetDirectory = new File(testDirectory, "target");
+
+    private FakeArtifactServer remoteWheelCache;
 
     @After
-    public void cleanUp() {
+    public void cleanUp() throws IOException {
+        if (remoteWheelCache != null) {
+            remoteWheelCache.close();
+        }
         resetTargetDirectory();
+        FileUtils.deleteDirectory(testDirectory);
     }
 
     @Given("a Habushu configuration with no wheel dependencies entries")
@@ -39,6 +58,90 @@ public class RetrieveWheelsSteps {
         mojo.setWheelDependencies(wheelDependencies);
     }
 
+    @Given("{string} has been cached in the wheel store for {string}")
+    public void has_been_cached_in_the_wheel_store_for(String fileName, String artifactId) throws IOException {
+        File wheel = new File(testDirectory, "dist/" + fileName);
+        FileUtils.writeStringToFile(wheel, "wheel contents of " + fileName, StandardCharsets.UTF_8);
+        new WheelStore(wheelStoreDirectory).put(artifactId, wheel);
+    }
+
+    @Given("{string} has been published to the remote wheel cache for {string}")
+    public void has_been_published_to_the_remote_wheel_cache_for(String fileName, String artifactId)
+            throws IOException {
+        if (remoteWheelCache == null) {
+            remoteWheelCache = new FakeArtifactServer();
+        }
+        File wheel = new File(testDirectory, "remote-dist/" + fileName);
+        FileUtils.writeStringToFile(wheel, "wheel contents of " + fileName, StandardCharsets.UTF_8);
+        WheelStore publisherStore = new WheelStore(new File(testDirectory, "publisher-wheel-store"));
+        CachedWheel cachedWheel = publisherStore.put(artifactId, wheel);
+        new HttpWheelCacheBackend(remoteWheelCache.getUri(), Duration.ofSeconds(5), Duration.ofSeconds(10), null, null)
+                .publish(artifactId, cachedWheel, publisherStore.getBlob(cachedWheel.getSha256()));
+    }
+
+    @Given("the blobs within the remote wheel cache are corrupted")
+    public void the_blobs_within_the_remote_wheel_cache_are_corrupted() {
+        remoteWheelCache.getFiles().replaceAll((path, bytes) -> path.startsWith("blobs/")
+                ? "corrupted".getBytes(StandardCharsets.UTF_8)
+                : bytes);
+    }
+
+    @Given("the remote wheel cache is configured")
+    public void the_remote_wheel_cache_is_configured() {
+        if (remoteWheelCache == null) {
+            throw new IllegalStateException("No wheels have been published to the remote wheel cache");
+        }
+        mojo.setWheelCacheRemoteUrl(remoteWheelCache.getUri().toString());
+    }
+
+    @Given("an unreachable remote wheel cache is configured")
+    public void an_unreachable_remote_wheel_cache_is_configured() throws IOException {
+        // reserve a port and release it, so that nothing is listening on it
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        mojo.setWheelCacheRemoteUrl("http://localhost:" + port + "/wheels/");
+    }
+
+    @Given("a Habushu configuration with a wheel dependency on {string}")
+    public void a_habushu_configuration_with_a_wheel_dependency_on(String artifactId) {
+        mojo = new RetrieveWheelsTestMojo(sampleWheelFile);
+        mojo.setWheelStoreDirectory(wheelStoreDirectory);
+        WheelDependency wheelDependency = new WheelDependency();
+        wheelDependency.setArtifactId(artifactId);
+        wheelDependency.setTargetDirectory(storeTargetDirectory.getPath());
+        mojo.setWheelDependencies(new ArrayList<>(List.of(wheelDependency)));
+    }
+
+    @Given("a Habushu configuration with a wheel dependency on {string} version {string}")
+    public void a_habushu_configuration_with_a_wheel_dependency_on_version(String artifactId, String version) {
+        a_habushu_configuration_with_a_wheel_dependency_on(artifactId);
+        mojo.getWheelDependencies().get(0).setVersion(version);
+    }
+
+    @Given("a Habushu configuration with a wheel dependency on {string} with tags {string}")
+    public void a_habushu_configuration_with_a_wheel_dependency_on_with_tags(String artifactId, String tags) {
+        a_habushu_configuration_with_a_wheel_dependency_on(artifactId);
+        mojo.getWheelDependencies().get(0).setTags(Arrays.asList(tags.split(",")));
+    }
+
+    @Given("a Habushu configuration with wheel dependencies on {string} retrieved by {int} threads")
+    public void a_habushu_configuration_with_wheel_dependencies_on_retrieved_by_threads(String artifactIds,
+                                                                                        int threads) {
+        mojo = new RetrieveWheelsTestMojo(sampleWheelFile);
+        mojo.setWheelStoreDirectory(wheelStoreDirectory);
+        mojo.setWheelRetrievalThreads(threads);
+        List<WheelDependency> wheelDependencies = new ArrayList<>();
+        for (String artifactId : artifactIds.split(",")) {
+            WheelDependency wheelDependency = new WheelDependency();
+            wheelDependency.setArtifactId(artifactId);
+            wheelDependency.setTargetDirectory(storeTargetDirectory.getPath());
+            wheelDependencies.add(wheelDependency);
+        }
+        mojo.setWheelDependencies(wheelDependencies);
+    }
+
     @When("Habushu executes retrieve wheel dependencies")
     public void habushu_executes_retrieve_wheel_dependencies() throws Exception {
         mojo.processWheelDependencies();
@@ -62,6 +165,35 @@ public class RetrieveWheelsSteps {
         Assertions.assertTrue(checkIfWheelWasCopied(), "Expected the wheel artifact in the target directory, but didn't find it!");
     }
 
+    @Then("{string} is retrieved from the wheel store")
+    public void is_retrieved_from_the_wheel_store(String fileName) throws IOException {
+        File retrieved = new File(storeTargetDirectory, fileName);
+        Assertions.assertTrue(retrieved.exists(), "Expected " + fileName + " in the target directory, but didn't find it!");
+        Assertions.assertEquals("wheel contents of " + fileName,
+                FileUtils.readFileToString(retrieved, StandardCharsets.UTF_8));
+    }
+
+    @Then("no wheels are retrieved from the wheel store")
+    public void no_wheels_are_retrieved_from_the_wheel_store() {
+        String[] retrieved = storeTargetDirectory.list();
+        Assertions.assertTrue(retrieved == null || retrieved.length == 0,
+                "Expected no wheels to be retrieved, but found " + Arrays.toString(retrieved));
+    }
+
+    @Then("the wheel store holds {string} for {string}")
+    public void the_wheel_store_holds_for(String fileName, String artifactId) {
+        List<String> fileNames = new WheelStore(wheelStoreDirectory).getWheels(artifactId).stream()
+                .map(CachedWheel::getFileName)
+                .collect(Collectors.toList());
+        Assertions.assertEquals(List.of(fileName), fileNames);
+    }
+
+    @Then("only {string} is retrieved from the wheel store")
+    public void only_is_retrieved_from_the_wheel_store(String fileName) throws IOException {
+        is_retrieved_from_the_wheel_store(fileName);
+        Assertions.assertEquals(List.of(fileName), Arrays.asList(storeTargetDirectory.list()));
+    }
+
     private boolean checkIfWheelWasCopied(){
         boolean isWheelCopied = false;
         String artifactId = "";
@@ -6,6 +6,7 @@ import java.util.List;
 public class RetrieveWheelsTestMojo extends RetrieveWheelsMojo{
 
     private File sampleWheelFile;
+    private File wheelStoreDirectory = new File("target/retrieve-wheels-test/wheel-store");
 
     public RetrieveWheelsTestMojo(File sampleWheelFile) {
         this.sampleWheelFile = sampleWheelFile;
@@ -23,6 +24,23 @@ public class RetrieveWheelsTestMojo extends RetrieveWheelsMojo{
         return getPoetryCacheDirectory();
     }
 
+    void setWheelRetrievalThreads(int wheelRetrievalThreads) {
+        this.wheelRetrievalThreads = wheelRetrievalThreads;
+    }
+
+    void setWheelCacheRemoteUrl(String wheelCacheRemoteUrl) {
+        this.wheelCacheRemoteUrl = wheelCacheRemoteUrl;
+    }
+
+    void setWheelStoreDirectory(File wheelStoreDirectory) {
+        this.wheelStoreDirectory = wheelStoreDirectory;
+    }
+
+    @Override
+    protected File getWheelStoreDirectory() {
+        return wheelStoreDirectory;
+    }
+
     public File getCachedWheelDirectory(String artifactId){
         String baseDirectory = new File("").getAbsolutePath();
         return new File(baseDirectory+"/src/test/resources/" + artifactId);
@@ -0,0 +1,187 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class BehaveHistorySteps {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final long HOUR_MILLIS = 60 * 60 * 1000;
+
+    private File testDirectory = new File("target/behave-history-test");
+    private File featuresDirectory = new File(testDirectory, "features");
+    private File historyFile = new File(testDirectory, "behave-history.json");
+    private List<FeatureFile> featureFiles;
+    private BehaveHistory history;
+    private List<BehaveLocation> orderedLocations;
+    private long runTime;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+        history = new BehaveHistory();
+        // runs are spaced an hour apart, long after the feature files were last changed:
+        runTime = System.currentTimeMillis() - 10 * HOUR_MILLIS;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("behave feature files {string} with {int} scenarios each")
+    public void behave_feature_files_with_scenarios_each(String paths, int scenarios) throws IOException {
+        for (String path : paths.split(",")) {
+            StringBuilder contents = new StringBuilder("Feature: ").append(path).append("\n");
+            for (int i = 0; i < scenarios; i++) {
+                contents.append("\n  Scenario: scenario ").append(i + 1).append("\n    When it runs\n");
+            }
+            File file = new File(featuresDirectory, path);
+            FileUtils.writeStringToFile(file, contents.toString(), StandardCharsets.UTF_8);
+            file.setLastModified(runTime - HOUR_MILLIS);
+        }
+        featureFiles = FeatureFile.discover(featuresDirectory);
+    }
+
+    @Given("a behave run has results:")
+    public void a_behave_run_has_results(List<Map<String, String>> results) throws IOException {
+        Map<String, ArrayNode> elementsByFeature = new LinkedHashMap<>();
+        ArrayNode report = MAPPER.createArrayNode();
+        for (Map<String, String> result : results) {
+            ArrayNode elements = elementsByFeature.computeIfAbsent(result.get("feature"), feature -> {
+                ObjectNode node = report.addObject();
+                node.put("uri", "features/" + feature);
+                node.put("keyword", "Feature");
+                return node.putArray("elements");
+            });
+            ObjectNode scenario = elements.addObject();
+            scenario.put("type", "scenario");
+            scenario.put("line", Integer.parseInt(result.get("line")));
+            ArrayNode steps = scenario.putArray("steps");
+            // split the duration across two steps, in nanoseconds as per the Cucumber JSON format:
+            long nanos = Long.parseLong(result.get("duration")) * 1_000_000;
+            steps.addObject().putObject("result").put("status", "passed").put("duration", nanos / 2);
+            steps.addObject().putObject("result").put("status", result.get("status"))
+                    .put("duration", nanos - nanos / 2);
+        }
+        recordRun(report);
+    }
+
+    @Given("{int} behave runs in which {string} passes in {int} ms")
+    public void behave_runs_in_which_passes_in_ms(int runs, String path, int duration) throws IOException {
+        for (int i = 0; i < runs; i++) {
+            ArrayNode report = MAPPER.createArrayNode();
+            ObjectNode feature = report.addObject();
+            feature.put("uri", "features/" + path);
+            ObjectNode scenario = feature.putArray("elements").addObject();
+            scenario.put("type", "scenario");
+            scenario.put("line", 3);
+            scenario.putArray("steps").addObject().putObject("result").put("status", "passed")
+                    .put("duration", duration * 1_000_000L);
+            recordRun(report);
+        }
+    }
+
+    @Given("the behave feature file {string} is changed")
+    public void the_behave_feature_file_is_changed(String path) {
+        new File(featuresDirectory, path).setLastModified(runTime + HOUR_MILLIS);
+    }
+
+    @Given("a behave history file containing {string}")
+    public void a_behave_history_file_containing(String contents) throws IOException {
+        FileUtils.writeStringToFile(historyFile, contents, StandardCharsets.UTF_8);
+    }
+
+    @When("the behave feature files are ordered by their history")
+    public void the_behave_feature_files_are_ordered_by_their_history() {
+        List<BehaveLocation> locations = featureFiles.stream()
+                .map(BehaveLocation::ofFeature)
+                .collect(Collectors.toList());
+        orderedLocations = history.order(locations, featuresDirectory);
+    }
+
+    @When("the behave history is saved and loaded again")
+    public void the_behave_history_is_saved_and_loaded_again() {
+        history.save(historyFile);
+        history = BehaveHistory.load(historyFile);
+    }
+
+    @When("the behave history is loaded")
+    public void the_behave_history_is_loaded() {
+        history = BehaveHistory.load(historyFile);
+    }
+
+    @Then("the behave feature files are ordered {string}")
+    public void the_behave_feature_files_are_ordered(String expected) {
+        List<String> actual = new ArrayList<>();
+        orderedLocations.forEach(location ->
+                actual.add(BehaveHistory.getKey(featuresDirectory, location.getFeatureFile())));
+        assertEquals(Arrays.asList(expected.split(",")), actual);
+    }
+
+    @Then("the behave history holds {int} run(s)")
+    public void the_behave_history_holds_runs(int runs) {
+        assertEquals(runs, history.getRuns());
+    }
+
+    @Then("{string} took {long} ms and last failed in run {int}")
+    public void took_ms_and_last_failed_in_run(String path, long duration, int lastFailedRun) {
+        BehaveHistory.FeatureHistory featureHistory = history.getFeatures().get(path);
+        assertEquals(duration, featureHistory.getDurationMillis());
+        assertEquals(lastFailedRun, featureHistory.getLastFailedRun());
+    }
+
+    @Then("the scenario on line {int} of {string} took {long} ms and last failed in run {int}")
+    public void the_scenario_on_line_of_took_ms_and_last_failed_in_run(int line, String path, long duration,
+                                                                       int lastFailedRun) {
+        BehaveHistory.ScenarioHistory scenarioHistory = history.getFeatures().get(path).getScenarios().get(line);
+        assertEquals(duration, scenarioHistory.getDurationMillis());
+        assertEquals(lastFailedRun, scenarioHistory.getLastFailedRun());
+    }
+
+    @Then("{string} is estimated to take {long} ms")
+    public void is_estimated_to_take_ms(String path, long expected) {
+        BehaveLocation location = BehaveLocation.ofFeature(getFeatureFile(path));
+        assertEquals(expected, history.estimateMillis(location, featuresDirectory));
+    }
+
+    @Then("the scenario on line {int} of {string} is estimated to take {long} ms")
+    public void the_scenario_on_line_of_is_estimated_to_take_ms(int line, String path, long expected) {
+        BehaveLocation location = BehaveLocation.ofScenario(getFeatureFile(path), line);
+        assertEquals(expected, history.estimateMillis(location, featuresDirectory));
+    }
+
+    private FeatureFile getFeatureFile(String path) {
+        File file = new File(featuresDirectory, path).getAbsoluteFile();
+        return featureFiles.stream().filter(featureFile -> featureFile.getFile().equals(file)).findFirst()
+                .orElseThrow(() -> new AssertionError("Expected " + path + " to be discovered"));
+    }
+
+    private void recordRun(ArrayNode report) throws IOException {
+        File reportFile = new File(testDirectory, "cucumber-reports/cucumber.json");
+        reportFile.getParentFile().mkdirs();
+        MAPPER.writeValue(reportFile, report);
+        history.record(reportFile, uri -> BehaveHistory.getKey(featuresDirectory, new File(testDirectory, uri)),
+                runTime);
+        runTime += HOUR_MILLIS;
+    }
+}
@@ -0,0 +1,167 @@
+package org.technologybrewery.habushu.behave;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.technologybrewery.habushu.BehaveImpactAnalysisTestMojo;
+import org.technologybrewery.habushu.exec.GitCommandHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BehaveImpactAnalysisSteps {
+
+    private File moduleDirectory = new File("target/behave-impact-analysis-test").getAbsoluteFile();
+    private File featuresDirectory = new File(moduleDirectory, "tests/features");
+    private List<File> changedFiles;
+    private List<String> gitChangedFiles;
+    private BehaveImpactAnalysisTestMojo mojo;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(moduleDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(moduleDirectory);
+    }
+
+    @Given("a module file {string} containing {string}")
+    public void a_module_file_containing(String path, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(moduleDirectory, path), contents, StandardCharsets.UTF_8);
+    }
+
+    @Given("a module file {string} containing:")
+    public void a_module_file_containing_doc_string(String path, String contents) throws IOException {
+        a_module_file_containing(path, contents);
+    }
+
+    @Given("a git repository holding the module")
+    public void a_git_repository_holding_the_module() throws Exception {
+        git("init", "-q");
+        git("add", ".");
+        git("-c", "user.name=habushu", "-c", "user.email=habushu@example.com", "commit", "-q", "-m", "initial");
+    }
+
+    @Given("{string} is modified by a commit on another branch {string}")
+    public void is_modified_by_a_commit_on_another_branch(String path, String branch) throws Exception {
+        git("checkout", "-q", "-b", branch);
+        is_modified_without_committing(path);
+        git("-c", "user.name=habushu", "-c", "user.email=habushu@example.com", "commit", "-q", "-a", "-m", path);
+        git("checkout", "-q", "-");
+    }
+
+    @Given("{string} is modified without committing")
+    public void is_modified_without_committing(String path) throws IOException {
+        FileUtils.writeStringToFile(new File(moduleDirectory, path), "\n# modified\n", StandardCharsets.UTF_8, true);
+    }
+
+    @Given("an untracked module file {string}")
+    public void an_untracked_module_file(String path) throws IOException {
+        a_module_file_containing(path, "");
+    }
+
+    @When("{string} changes")
+    public void changes(String path) {
+        changedFiles = Collections.singletonList(new File(moduleDirectory, path));
+    }
+
+    @When("the files changed since {string} are determined")
+    public void the_files_changed_since_are_determined(String ref) {
+        gitChangedFiles = new GitCommandHelper(moduleDirectory).getChangedFiles(ref);
+    }
+
+    @When("the files changed since the fork point of {string} are determined")
+    public void the_files_changed_since_the_fork_point_of_are_determined(String ref) {
+        gitChangedFiles = new GitCommandHelper(moduleDirectory).getChangedFilesSinceForkPoint(ref);
+    }
+
+    @When("the behave goal runs with impact analysis since the last commit")
+    public void the_behave_goal_runs_with_impact_analysis_since_the_last_commit() throws Exception {
+        BehaveHistory history = new BehaveHistory();
+        history.setLastSuccessfulCommit(new GitCommandHelper(moduleDirectory).getHeadCommit());
+        File historyFile = new File(moduleDirectory, "target/behave-history.json");
+        history.save(historyFile);
+
+        mojo = new BehaveImpactAnalysisTestMojo(moduleDirectory, historyFile);
+        mojo.doExecute();
+    }
+
+    @Then("the affected features are {string}")
+    public void the_affected_features_are(String expected) {
+        assertNull(createImpactAnalysis().findGlobalChange(changedFiles));
+        assertEquals(Arrays.asList(expected.split(",")), getAffectedFeatures());
+    }
+
+    @Then("no features are affected")
+    public void no_features_are_affected() {
+        assertTrue(getAffectedFeatures().isEmpty());
+    }
+
+    @Then("no change affects every feature")
+    public void no_change_affects_every_feature() {
+        assertNull(createImpactAnalysis().findGlobalChange(changedFiles));
+    }
+
+    @Then("{string} affects every feature")
+    public void affects_every_feature(String path) {
+        assertEquals(new File(moduleDirectory, path), createImpactAnalysis().findGlobalChange(changedFiles));
+    }
+
+    @Then("no files changed")
+    public void no_files_changed() {
+        assertTrue(gitChangedFiles.isEmpty(), "Expected no changed files, but found " + gitChangedFiles);
+    }
+
+    @Then("the changed files are {string}")
+    public void the_changed_files_are(String expected) {
+        assertEquals(Arrays.asList(expected.split(",")), gitChangedFiles.stream().sorted().collect(Collectors.toList()));
+    }
+
+    @Then("behave runs only the features {string}")
+    public void behave_runs_only_the_features(String expected) {
+        assertEquals(1, mojo.getExecutedCommands().size());
+        List<String> arguments = mojo.getExecutedCommands().get(0);
+        List<String> features = arguments.stream()
+                .filter(argument -> argument.startsWith(featuresDirectory.getPath()))
+                .map(argument -> new File(argument).getName())
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(expected.split(",")), features,
+                "Expected behave to run the affected features only, but it ran " + arguments);
+    }
+
+    private List<String> getAffectedFeatures() {
+        return createImpactAnalysis().getAffectedFeatures(FeatureFile.discover(featuresDirectory), changedFiles)
+                .stream()
+                .map(featureFile -> featureFile.getFile().getName())
+                .collect(Collectors.toList());
+    }
+
+    private BehaveImpactAnalysis createImpactAnalysis() {
+        return new BehaveImpactAnalysis(featuresDirectory,
+                Arrays.asList(new File(moduleDirectory, "src"), new File(moduleDirectory, "tests")),
+                Arrays.asList(new File(moduleDirectory, "pyproject.toml"), new File(moduleDirectory, "poetry.lock")));
+    }
+
+    private void git(String... arguments) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        command.addAll(Arrays.asList(arguments));
+        Process process = new ProcessBuilder(command).directory(moduleDirectory).inheritIO().start();
+        assertEquals(0, process.waitFor(), "Expected " + command + " to succeed");
+    }
+}
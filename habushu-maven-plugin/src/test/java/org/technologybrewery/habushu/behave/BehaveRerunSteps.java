@@ -0,0 +1,150 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BehaveRerunSteps {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private File testDirectory = new File("target/behave-rerun-test").getAbsoluteFile();
+    private File reportFile = new File(testDirectory, "cucumber-reports/cucumber.json");
+    private File retryReportFile = new File(testDirectory, "cucumber-reports/retry/cucumber.json");
+    private List<BehaveLocation> failedScenarios;
+    private int replaced;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("a Cucumber report in which {string} has scenarios with results:")
+    public void a_cucumber_report_in_which_has_scenarios_with_results(String uri, List<Map<String, String>> results)
+            throws IOException {
+        writeReport(reportFile, uri, results);
+    }
+
+    @Given("a retry Cucumber report in which the absolute path of {string} has scenarios with results:")
+    public void a_retry_cucumber_report_in_which_the_absolute_path_of_has_scenarios_with_results(
+            String uri, List<Map<String, String>> results) throws IOException {
+        writeReport(retryReportFile, new File(testDirectory, uri).getPath(), results);
+    }
+
+    @Given("failed scenarios {string}")
+    public void failed_scenarios(String locations) {
+        failedScenarios = toLocations(locations);
+    }
+
+    @Given("a rerun file {string} containing:")
+    public void a_rerun_file_containing(String path, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(testDirectory, path), contents, StandardCharsets.UTF_8);
+    }
+
+    @When("the failed scenarios are read from the Cucumber report")
+    public void the_failed_scenarios_are_read_from_the_cucumber_report() {
+        failedScenarios = BehaveRerunFile.getFailedScenarios(reportFile, uri -> new File(testDirectory, uri));
+    }
+
+    @When("the failed scenarios are written to {string}")
+    public void the_failed_scenarios_are_written_to(String path) {
+        BehaveRerunFile.write(new File(testDirectory, path), failedScenarios, testDirectory);
+    }
+
+    @When("the retried scenarios replace those within the Cucumber report")
+    public void the_retried_scenarios_replace_those_within_the_cucumber_report() {
+        replaced = CucumberReportMerger.replaceScenarios(reportFile, retryReportFile, testDirectory);
+    }
+
+    @Then("the failed scenarios are {string}")
+    public void the_failed_scenarios_are(String expected) {
+        assertEquals(toLocations(expected), failedScenarios);
+    }
+
+    @Then("{string} contains lines {string}")
+    public void contains_lines(String path, String expected) throws IOException {
+        List<String> lines = Files.readAllLines(new File(testDirectory, path).toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(expected.split(",")), lines);
+    }
+
+    @Then("reading {string} returns the failed scenarios {string}")
+    public void reading_returns_the_failed_scenarios(String path, String expected) {
+        assertEquals(toLocations(expected), BehaveRerunFile.read(new File(testDirectory, path), testDirectory));
+    }
+
+    @Then("reading {string} returns no failed scenarios")
+    public void reading_returns_no_failed_scenarios(String path) {
+        assertNull(BehaveRerunFile.read(new File(testDirectory, path), testDirectory));
+    }
+
+    @Then("{int} retried scenario(s) is/are replaced")
+    public void retried_scenarios_are_replaced(int expected) {
+        assertEquals(expected, replaced);
+    }
+
+    @Then("the Cucumber report holds {string}")
+    public void the_cucumber_report_holds(String expected) throws IOException {
+        List<String> actual = new ArrayList<>();
+        for (JsonNode element : MAPPER.readTree(reportFile).get(0).path("elements")) {
+            actual.add(element.path("type").asText() + ":" + element.path("line").asInt() + ":"
+                    + element.path("steps").get(0).path("result").path("status").asText());
+        }
+        assertEquals(Arrays.asList(expected.split(",")), actual);
+    }
+
+    @Then("no failed scenarios are read from the Cucumber report")
+    public void no_failed_scenarios_are_read_from_the_cucumber_report() {
+        assertTrue(BehaveRerunFile.getFailedScenarios(reportFile, uri -> new File(testDirectory, uri)).isEmpty());
+    }
+
+    private List<BehaveLocation> toLocations(String locations) {
+        return Arrays.stream(locations.split(","))
+                .map(location -> BehaveLocation.ofScenario(
+                        new File(testDirectory, location.substring(0, location.lastIndexOf(':'))),
+                        Integer.parseInt(location.substring(location.lastIndexOf(':') + 1))))
+                .collect(Collectors.toList());
+    }
+
+    private static void writeReport(File file, String uri, List<Map<String, String>> results) throws IOException {
+        ArrayNode report = MAPPER.createArrayNode();
+        ObjectNode feature = report.addObject();
+        feature.put("uri", uri);
+        feature.put("keyword", "Feature");
+        ArrayNode elements = feature.putArray("elements");
+        for (Map<String, String> result : results) {
+            ObjectNode element = elements.addObject();
+            element.put("type", result.get("type"));
+            element.put("line", Integer.parseInt(result.get("line")));
+            element.putArray("steps").addObject().putObject("result").put("status", result.get("status"))
+                    .put("duration", 1_000_000L);
+        }
+        file.getParentFile().mkdirs();
+        MAPPER.writeValue(file, report);
+    }
+}
@@ -0,0 +1,171 @@
+package org.technologybrewery.habushu.behave;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class BehaveShardingSteps {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private File testDirectory = new File("target/behave-sharding-test");
+    private File featuresDirectory = new File(testDirectory, "features");
+    private File reportsDirectory = new File(testDirectory, "cucumber-reports");
+    private List<FeatureFile> featureFiles;
+    private List<List<Integer>> shards;
+    private int mergedFeatures;
+    private JsonNode mergedReport;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("a behave feature file {string} containing:")
+    public void a_behave_feature_file_containing(String path, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(featuresDirectory, path), contents, StandardCharsets.UTF_8);
+    }
+
+    @When("the behave feature files are discovered")
+    public void the_behave_feature_files_are_discovered() {
+        featureFiles = FeatureFile.discover(featuresDirectory);
+    }
+
+    @Then("the feature files {string} are discovered")
+    public void the_feature_files_are_discovered(String expected) {
+        List<String> discovered = featureFiles.stream()
+                .map(featureFile -> featuresDirectory.getAbsoluteFile().toPath().relativize(
+                        featureFile.getFile().toPath()).toString().replace(File.separatorChar, '/'))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(expected.split(",")), discovered);
+    }
+
+    @Then("{string} defines scenarios on lines {string}")
+    public void defines_scenarios_on_lines(String path, String lines) {
+        File file = new File(featuresDirectory, path).getAbsoluteFile();
+        FeatureFile featureFile = featureFiles.stream()
+                .filter(candidate -> candidate.getFile().equals(file))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(featureFile, "Expected " + path + " to be discovered");
+        assertEquals(toIntegers(lines), featureFile.getScenarioLines());
+    }
+
+    @When("items with costs {string} are planned into {int} shards")
+    public void items_with_costs_are_planned_into_shards(String costs, int shardCount) {
+        List<Integer> itemCosts = toIntegers(costs);
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < itemCosts.size(); i++) {
+            items.add(i);
+        }
+        shards = BehaveShardPlanner.plan(items, shardCount, itemCosts::get);
+    }
+
+    @Then("the shards hold items {string} and {string}")
+    public void the_shards_hold_items_and(String first, String second) {
+        assertEquals(Arrays.asList(toIntegers(first), toIntegers(second)), shards);
+    }
+
+    @Then("the shards hold items {string} and {string} and {string}")
+    public void the_shards_hold_items_and_and(String first, String second, String third) {
+        assertEquals(Arrays.asList(toIntegers(first), toIntegers(second), toIntegers(third)), shards);
+    }
+
+    @Given("a shard Cucumber report {string} holding scenarios on lines {string} of {string}")
+    public void a_shard_cucumber_report_holding_scenarios_on_lines_of(String report, String lines, String uri)
+            throws IOException {
+        writeShardReport(report, lines, uri, false);
+    }
+
+    @Given("a shard Cucumber report {string} holding scenarios with backgrounds on lines {string} of {string}")
+    public void a_shard_cucumber_report_holding_scenarios_with_backgrounds_on_lines_of(String report, String lines,
+                                                                                        String uri) throws IOException {
+        writeShardReport(report, lines, uri, true);
+    }
+
+    @When("the shard Cucumber reports {string} are merged")
+    public void the_shard_cucumber_reports_are_merged(String reports) throws IOException {
+        List<File> files = Arrays.stream(reports.split(","))
+                .map(report -> new File(reportsDirectory, "shards/" + report))
+                .collect(Collectors.toList());
+        File target = new File(reportsDirectory, "cucumber.json");
+        mergedFeatures = CucumberReportMerger.merge(files, target);
+        mergedReport = MAPPER.readTree(target);
+    }
+
+    @Then("the merged report holds {int} features")
+    public void the_merged_report_holds_features(int expected) {
+        assertEquals(expected, mergedFeatures);
+        assertEquals(expected, mergedReport.size());
+    }
+
+    @Then("the merged report holds scenarios on lines {string} of {string}")
+    public void the_merged_report_holds_scenarios_on_lines_of(String lines, String uri) {
+        List<Integer> actual = new ArrayList<>();
+        getMergedFeature(uri).path("elements").forEach(element -> actual.add(element.path("line").asInt()));
+        assertEquals(toIntegers(lines), actual);
+    }
+
+    @Then("the merged report holds elements {string} of {string}")
+    public void the_merged_report_holds_elements_of(String elements, String uri) {
+        List<String> actual = new ArrayList<>();
+        getMergedFeature(uri).path("elements").forEach(element ->
+                actual.add(element.path("type").asText() + ":" + element.path("line").asInt()));
+        assertEquals(Arrays.asList(elements.split(",")), actual);
+    }
+
+    private JsonNode getMergedFeature(String uri) {
+        for (JsonNode feature : mergedReport) {
+            if (uri.equals(feature.path("uri").asText())) {
+                return feature;
+            }
+        }
+        throw new AssertionError("Expected " + uri + " within the merged report");
+    }
+
+    private void writeShardReport(String report, String lines, String uri, boolean withBackgrounds)
+            throws IOException {
+        ArrayNode features = MAPPER.createArrayNode();
+        ObjectNode feature = features.addObject();
+        feature.put("uri", uri);
+        feature.put("id", uri.replace(".feature", ""));
+        feature.put("keyword", "Feature");
+        ArrayNode elements = feature.putArray("elements");
+        for (int line : toIntegers(lines)) {
+            if (withBackgrounds) {
+                elements.addObject().put("type", "background").put("line", 3);
+            }
+            elements.addObject().put("type", "scenario").put("line", line);
+        }
+        File file = new File(reportsDirectory, "shards/" + report);
+        file.getParentFile().mkdirs();
+        MAPPER.writeValue(file, features);
+    }
+
+    private static List<Integer> toIntegers(String values) {
+        return Arrays.stream(values.split(",")).map(String::trim).map(Integer::valueOf).collect(Collectors.toList());
+    }
+}
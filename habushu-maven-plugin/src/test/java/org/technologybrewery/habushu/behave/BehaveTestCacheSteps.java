@@ -0,0 +1,128 @@
+package org.technologybrewery.habushu.behave;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BehaveTestCacheSteps {
+
+    private File testDirectory = new File("target/behave-test-cache-test");
+    private File reportFile = new File(testDirectory, "cucumber-reports/cucumber.json");
+    private BehaveTestCache testCache = new BehaveTestCache(new File(testDirectory, "cache"));
+    private boolean restored;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("a module {string} with file {string} containing {string}")
+    public void a_module_with_file_containing(String module, String path, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(testDirectory, module + "/" + path), contents, StandardCharsets.UTF_8);
+    }
+
+    @Given("behave results for fingerprint {string} that passed with a Cucumber report containing {string}")
+    public void behave_results_for_fingerprint_that_passed(String fingerprint, String report) throws IOException {
+        FileUtils.writeStringToFile(reportFile, report, StandardCharsets.UTF_8);
+        testCache.store(fingerprint, reportFile);
+        FileUtils.delete(reportFile);
+    }
+
+    @Given("behave results for fingerprint {string} that failed were cached by a previous version")
+    public void behave_results_for_fingerprint_that_failed_were_cached_by_a_previous_version(String fingerprint)
+            throws IOException {
+        FileUtils.writeStringToFile(new File(testDirectory, "cache/cucumber.json"), "[{}]", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(testDirectory, "cache/result.properties"),
+                String.format("fingerprint=%s%npassed=false%nhasReport=true%n", fingerprint), StandardCharsets.UTF_8);
+    }
+
+    @Given("the cached behave results are invalidated")
+    public void the_cached_behave_results_are_invalidated() {
+        testCache.invalidate();
+    }
+
+    @When("the behave results for fingerprint {string} are restored")
+    public void the_behave_results_for_fingerprint_are_restored(String fingerprint) {
+        restored = testCache.restore(fingerprint, reportFile);
+    }
+
+    @Then("the behave test fingerprints of {string} and {string} are the same")
+    public void the_behave_test_fingerprints_of_and_are_the_same(String first, String second) {
+        assertEquals(fingerprint(first, "--no-skipped"), fingerprint(second, "--no-skipped"));
+    }
+
+    @Then("the behave test fingerprints of {string} and {string} differ")
+    public void the_behave_test_fingerprints_of_and_differ(String first, String second) {
+        assertNotEquals(fingerprint(first, "--no-skipped"), fingerprint(second, "--no-skipped"));
+    }
+
+    @Then("the behave test fingerprints of {string} and {string} with path dependency {string} are the same")
+    public void the_behave_test_fingerprints_with_path_dependency_are_the_same(String first, String second,
+                                                                              String pathDependency) {
+        assertEquals(fingerprint(first, "--no-skipped", Collections.singletonList(pathDependency)),
+                fingerprint(second, "--no-skipped", Collections.singletonList(pathDependency)));
+    }
+
+    @Then("the behave test fingerprints of {string} and {string} with path dependency {string} differ")
+    public void the_behave_test_fingerprints_with_path_dependency_differ(String first, String second,
+                                                                        String pathDependency) {
+        assertNotEquals(fingerprint(first, "--no-skipped", Collections.singletonList(pathDependency)),
+                fingerprint(second, "--no-skipped", Collections.singletonList(pathDependency)));
+    }
+
+    @Then("the behave test fingerprints of {string} with options {string} and {string} differ")
+    public void the_behave_test_fingerprints_with_options_differ(String module, String first, String second) {
+        assertNotEquals(fingerprint(module, first), fingerprint(module, second));
+    }
+
+    @Then("the restored behave results passed")
+    public void the_restored_behave_results_passed() {
+        assertTrue(restored);
+    }
+
+    @Then("the restored Cucumber report contains {string}")
+    public void the_restored_cucumber_report_contains(String expected) throws IOException {
+        assertEquals(expected, FileUtils.readFileToString(reportFile, StandardCharsets.UTF_8));
+    }
+
+    @Then("no behave results are restored")
+    public void no_behave_results_are_restored() {
+        assertFalse(restored);
+    }
+
+    private String fingerprint(String module, String options) {
+        return fingerprint(module, options, Collections.emptyList());
+    }
+
+    private String fingerprint(String module, String options, List<String> pathDependencies) {
+        File moduleDirectory = new File(testDirectory, module);
+        List<File> inputs = Arrays.asList(new File(moduleDirectory, "src"), new File(moduleDirectory, "tests"),
+                new File(moduleDirectory, "poetry.lock"));
+        List<File> pathDependencyDirectories = pathDependencies.stream()
+                .map(pathDependency -> new File(moduleDirectory, pathDependency))
+                .collect(Collectors.toList());
+        return BehaveTestCache.computeFingerprint(moduleDirectory, inputs, pathDependencyDirectories,
+                Collections.singletonList(options));
+    }
+}
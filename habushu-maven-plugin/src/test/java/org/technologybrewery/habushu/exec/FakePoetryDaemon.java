@@ -0,0 +1,93 @@
+package org.technologybrewery.habushu.exec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stands in for {@code poetry_daemon.py} (mode {@code daemon}) and the Poetry CLI (mode {@code cli}) so that the
+ * daemon protocol can be exercised without Python or Poetry. The first Poetry argument selects the behavior:
+ * {@code echo} prints the remaining arguments, {@code fail} exits with code 3, {@code pid} prints the process id,
+ * {@code env} prints the value of the given environment variable, {@code await} prints a line and then waits for the
+ * given file to be created, {@code garbage} violates the protocol, and {@code crash} terminates the daemon.
+ */
+public class FakePoetryDaemon {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        String mode = args[0];
+        if ("cli".equals(mode)) {
+            System.out.println("cli: " + String.join(" ", Arrays.asList(args).subList(1, args.length)));
+            return;
+        }
+        if ("no-poetry".equals(mode)) {
+            send(MAPPER.createObjectNode().put("ready", false).put("error", "Poetry could not be imported"));
+            return;
+        }
+
+        send(MAPPER.createObjectNode().put("ready", true).put("poetry", "0.0.0"));
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            JsonNode request = MAPPER.readTree(line);
+            long id = request.get("id").asLong();
+            List<String> arguments = new ArrayList<>();
+            request.get("args").forEach(argument -> arguments.add(argument.asText()));
+
+            switch (arguments.get(0)) {
+                case "echo":
+                    send(output(id, "out", String.join(" ", arguments.subList(1, arguments.size()))));
+                    send(MAPPER.createObjectNode().put("id", id).put("exit", 0));
+                    break;
+                case "fail":
+                    send(output(id, "err", "something went wrong"));
+                    send(MAPPER.createObjectNode().put("id", id).put("exit", 3));
+                    break;
+                case "pid":
+                    send(output(id, "out", String.valueOf(ProcessHandle.current().pid())));
+                    send(MAPPER.createObjectNode().put("id", id).put("exit", 0));
+                    break;
+                case "env":
+                    send(output(id, "out", String.valueOf(System.getenv(arguments.get(1)))));
+                    send(MAPPER.createObjectNode().put("id", id).put("exit", 0));
+                    break;
+                case "await":
+                    send(output(id, "out", "waiting for " + arguments.get(1)));
+                    File file = new File(arguments.get(1));
+                    for (int i = 0; i < 100 && !file.exists(); i++) {
+                        Thread.sleep(100);
+                    }
+                    send(MAPPER.createObjectNode().put("id", id).put("exit", file.exists() ? 0 : 4));
+                    break;
+                case "garbage":
+                    System.out.println("this is not JSON");
+                    System.out.flush();
+                    break;
+                case "crash":
+                    send(output(id, "out", "partial output"));
+                    System.exit(1);
+                    break;
+                default:
+                    send(MAPPER.createObjectNode().put("id", id).put("error", "unknown command"));
+            }
+        }
+    }
+
+    private static ObjectNode output(long id, String stream, String line) {
+        return MAPPER.createObjectNode().put("id", id).put("stream", stream).put("line", line);
+    }
+
+    private static void send(JsonNode message) throws Exception {
+        System.out.println(MAPPER.writeValueAsString(message));
+        System.out.flush();
+    }
+}
@@ -0,0 +1,180 @@
+package org.technologybrewery.habushu.exec;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.exec.ExecuteException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoetryDaemonSteps {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoetryDaemonSteps.class);
+
+    private String daemonMode = "daemon";
+    private Map<String, String> environment;
+    private String result;
+    private String previousResult;
+    private HabushuException failure;
+
+    @After
+    public void shutdownDaemons() {
+        PoetryDaemon.shutdownAll();
+    }
+
+    @Given("a Poetry daemon that cannot import Poetry")
+    public void a_poetry_daemon_that_cannot_import_poetry() {
+        daemonMode = "no-poetry";
+    }
+
+    @Given("a Poetry daemon that cannot be started")
+    public void a_poetry_daemon_that_cannot_be_started() {
+        daemonMode = null;
+    }
+
+    @Given("Poetry commands are executed with the environment variable {string} set to {string}")
+    public void poetry_commands_are_executed_with_the_environment_variable_set_to(String name, String value) {
+        environment = Collections.singletonMap(name, value);
+    }
+
+    @When("the Poetry command {string} is executed via the daemon")
+    public void the_poetry_command_is_executed_via_the_daemon(String command) {
+        result = createExecutor(command).executeAndGetResult(logger);
+    }
+
+    @When("the Poetry command {string} is executed via the daemon again")
+    public void the_poetry_command_is_executed_via_the_daemon_again(String command) {
+        previousResult = result;
+        the_poetry_command_is_executed_via_the_daemon(command);
+    }
+
+    @When("the Poetry command {string} is executed via the daemon and its output is logged")
+    public void the_poetry_command_is_executed_via_the_daemon_and_its_output_is_logged(String command) {
+        try {
+            createExecutor(command).executeAndRedirectOutput(logger);
+        } catch (HabushuException e) {
+            failure = e;
+        }
+    }
+
+    @When("the Poetry command {string} is executed via the daemon and its output is streamed")
+    public void the_poetry_command_is_executed_via_the_daemon_and_its_output_is_streamed(String command) {
+        // unlike the buffers used to capture results, streamed output cannot be taken back once written:
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try {
+            createExecutor(command).execute(logger, new FilterOutputStream(output), new FilterOutputStream(output));
+        } catch (HabushuException e) {
+            failure = e;
+        }
+        result = output.toString(StandardCharsets.UTF_8).trim();
+    }
+
+    @When("the Poetry command awaiting {string} is executed via the daemon, which creates it upon receiving output")
+    public void the_poetry_command_awaiting_is_executed_via_the_daemon_which_creates_it_upon_receiving_output(
+            String path) throws IOException {
+        File file = new File(path);
+        Files.deleteIfExists(file.toPath());
+        OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                if (!file.exists()) {
+                    Files.createFile(file.toPath());
+                }
+            }
+        };
+        try {
+            createExecutor("await " + file.getAbsolutePath()).execute(logger, output, output);
+        } catch (HabushuException e) {
+            failure = e;
+        } finally {
+            Files.deleteIfExists(file.toPath());
+        }
+    }
+
+    @When("all Poetry daemons are shut down")
+    public void all_poetry_daemons_are_shut_down() {
+        PoetryDaemon.shutdownAll();
+    }
+
+    @Then("the Poetry command {string} is supported by the daemon: {word}")
+    public void the_poetry_command_is_supported_by_the_daemon(String command, String supported) {
+        assertEquals(Boolean.parseBoolean(supported), PoetryDaemon.supports(Arrays.asList(StringUtils.split(command))));
+    }
+
+    @Then("the command result is {string}")
+    public void the_command_result_is(String expected) {
+        assertEquals(expected, result);
+    }
+
+    @Then("the command succeeded")
+    public void the_command_succeeded() {
+        assertNull(failure, "Command should have succeeded");
+    }
+
+    @Then("the command failed without being re-run with the CLI")
+    public void the_command_failed_without_being_re_run_with_the_cli() {
+        assertNotNull(failure, "Command should have failed");
+        assertFalse(result.contains("cli:"), "Command should not have been re-run with the CLI: " + result);
+    }
+
+    @Then("the command failed with exit code {int}")
+    public void the_command_failed_with_exit_code(int expected) {
+        assertNotNull(failure, "Command should have failed");
+        int executeExceptionIndex = ExceptionUtils.indexOfType(failure, ExecuteException.class);
+        assertTrue(executeExceptionIndex >= 0, "Failure should report the exit code");
+        assertEquals(expected,
+                ((ExecuteException) ExceptionUtils.getThrowableList(failure).get(executeExceptionIndex)).getExitValue());
+    }
+
+    @Then("both commands were executed by the same daemon")
+    public void both_commands_were_executed_by_the_same_daemon() {
+        assertEquals(previousResult, result);
+    }
+
+    @Then("the commands were executed by different daemons")
+    public void the_commands_were_executed_by_different_daemons() {
+        assertNotEquals(previousResult, result);
+    }
+
+    private PoetryDaemonProcessExecutor createExecutor(String command) {
+        List<String> poetryArguments = Arrays.asList(StringUtils.split(command));
+        List<String> cliCommand = javaCommand("cli");
+        cliCommand.addAll(poetryArguments);
+        List<String> launchCommand = daemonMode != null
+                ? javaCommand(daemonMode)
+                : Collections.singletonList("target/no-such-poetry-daemon");
+        return new PoetryDaemonProcessExecutor(new File("target"), poetryArguments, cliCommand, environment,
+                launchCommand);
+    }
+
+    private static List<String> javaCommand(String mode) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        return new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                FakePoetryDaemon.class.getName(), mode));
+    }
+}
@@ -0,0 +1,92 @@
+package org.technologybrewery.habushu.exec;
+
+import io.cucumber.java.After;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoetryDependencyInventorySteps {
+
+    private File projectDirectory;
+    private String showOutput;
+    private int listings;
+    private final List<String> additions = new ArrayList<>();
+    private PoetryCommandHelper poetryHelper;
+
+    @After
+    public void deleteProjectDirectory() throws Exception {
+        if (projectDirectory != null) {
+            Files.deleteIfExists(projectDirectory.toPath());
+        }
+    }
+
+    @Given("a Poetry project whose {string} output is:")
+    public void a_poetry_project_whose_output_is(String command, String output) throws Exception {
+        // each scenario uses its own directory as the inventory is cached for the build:
+        projectDirectory = Files.createTempDirectory(new File("target").toPath(), "inventory").toFile();
+        showOutput = output;
+        poetryHelper = new PoetryCommandHelper(projectDirectory) {
+            @Override
+            public String execute(List<String> arguments) {
+                if ("show".equals(arguments.get(0))) {
+                    listings++;
+                    return showOutput;
+                }
+                additions.add("poetry " + StringUtils.join(arguments, " "));
+                return "";
+            }
+        };
+    }
+
+    @When("the tool dependencies {string} are ensured")
+    public void the_tool_dependencies_are_ensured(String packages) throws Exception {
+        List<String> missing = poetryHelper.getMissingDependencies(Arrays.asList(StringUtils.split(packages, ", ")));
+        poetryHelper.installDevelopmentDependencies(missing);
+    }
+
+    @When("{string} is looked up")
+    public void is_looked_up(String packageName) {
+        poetryHelper.isDependencyInstalled(packageName);
+    }
+
+    @Then("{string} is a known dependency")
+    public void is_a_known_dependency(String packageName) {
+        assertTrue(poetryHelper.isDependencyInstalled(packageName));
+    }
+
+    @Then("{string} is not a known dependency")
+    public void is_not_a_known_dependency(String packageName) {
+        assertFalse(poetryHelper.isDependencyInstalled(packageName));
+    }
+
+    @Then("the dependencies were listed {int} time(s)")
+    public void the_dependencies_were_listed_times(int times) {
+        assertEquals(times, listings);
+    }
+
+    @Then("{string} is executed")
+    public void is_executed(String command) {
+        assertTrue(additions.contains(command), "Expected " + command + " in " + additions);
+    }
+
+    @Then("no other packages are added")
+    public void no_other_packages_are_added() {
+        assertEquals(1, additions.size());
+    }
+
+    @Then("no packages are added")
+    public void no_packages_are_added() {
+        assertTrue(additions.isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package org.technologybrewery.habushu.exec;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoetryPluginManagerSteps {
+
+    private File stateFile = new File("target/poetry-plugin-test/poetry-plugin-state.properties");
+    private Map<String, String> parsedPlugins;
+    private String installedPluginOutput;
+    private boolean offline;
+    private int listings;
+    private List<String> installations;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(stateFile.getParentFile());
+        installedPluginOutput = "";
+        offline = false;
+        listings = 0;
+        installations = new ArrayList<>();
+        startNewBuild();
+    }
+
+    @Given("{string} version {string} is installed")
+    public void version_is_installed(String plugin, String version) {
+        installedPluginOutput = String.format("  • %s (%s) Some Poetry plugin%n", plugin, version);
+    }
+
+    @Given("no Poetry plugins are installed")
+    public void no_poetry_plugins_are_installed() {
+        installedPluginOutput = "";
+    }
+
+    @Given("Maven is offline")
+    public void maven_is_offline() {
+        offline = true;
+    }
+
+    @When("the installed Poetry plugins are listed as:")
+    public void the_installed_poetry_plugins_are_listed_as(String output) {
+        parsedPlugins = PoetryPluginManager.parseInstalledPlugins(output);
+    }
+
+    @When("{string} version {string} is required")
+    public void version_is_required(String plugin, String version) throws MojoExecutionException {
+        createPluginManager().ensurePluginInstalled(plugin, version);
+    }
+
+    @When("{string} version {string} is required by {int} modules")
+    public void version_is_required_by_modules(String plugin, String version, int modules)
+            throws MojoExecutionException {
+        for (int i = 0; i < modules; i++) {
+            version_is_required(plugin, version);
+        }
+    }
+
+    @When("a subsequent build requires {string} version {string}")
+    public void a_subsequent_build_requires_version(String plugin, String version) throws MojoExecutionException {
+        startNewBuild();
+        version_is_required(plugin, version);
+    }
+
+    @Then("the installed version of {string} is {string}")
+    public void the_installed_version_of_is(String plugin, String version) {
+        assertEquals(version, parsedPlugins.get(plugin));
+    }
+
+    @Then("no plugin is installed")
+    public void no_plugin_is_installed() {
+        assertTrue(installations.isEmpty(), "Unexpected plugin installations: " + installations);
+    }
+
+    @Then("{string} is installed")
+    public void is_installed(String plugin) {
+        assertEquals(Collections.singletonList(plugin), installations);
+    }
+
+    @Then("{string} is installed {int} time(s)")
+    public void is_installed_times(String plugin, int times) {
+        assertEquals(times, Collections.frequency(installations, plugin));
+        assertEquals(times, installations.size());
+    }
+
+    @Then("the installed plugins are listed {int} time(s)")
+    public void the_installed_plugins_are_listed_times(int times) {
+        assertEquals(times, listings);
+    }
+
+    private PoetryPluginManager createPluginManager() {
+        PoetryCommandHelper poetryHelper = new PoetryCommandHelper(stateFile.getParentFile()) {
+            @Override
+            public String execute(List<String> arguments) {
+                listings++;
+                return installedPluginOutput;
+            }
+
+            @Override
+            public int installPoetryPlugin(String name) {
+                installations.add(name);
+                return 0;
+            }
+        };
+        return new PoetryPluginManager(poetryHelper, stateFile, 24, offline);
+    }
+
+    private void startNewBuild() {
+        PoetryPluginManager.clear();
+    }
+}
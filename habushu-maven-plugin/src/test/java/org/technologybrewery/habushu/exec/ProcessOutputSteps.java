@@ -0,0 +1,49 @@
+package org.technologybrewery.habushu.exec;
+
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProcessOutputSteps {
+
+    private byte[] written;
+    private TailOutputStream tail;
+
+    @Then("the output line {string} is logged at {string}")
+    public void the_output_line_is_logged_at(String line, String level) {
+        assertEquals(level, OutputLineClassifier.classify(line).name());
+    }
+
+    @When("{int} bytes of output are written to a tail buffer of {int} bytes in chunks of {int}")
+    public void bytes_of_output_are_written_to_a_tail_buffer_of_bytes_in_chunks_of(int total, int capacity,
+                                                                                  int chunkSize) {
+        written = new byte[total];
+        for (int i = 0; i < total; i++) {
+            written[i] = (byte) ('a' + (i % 26));
+        }
+
+        tail = new TailOutputStream(capacity);
+        for (int offset = 0; offset < total; offset += chunkSize) {
+            tail.write(written, offset, Math.min(chunkSize, total - offset));
+        }
+    }
+
+    @Then("the tail buffer retains the last {int} bytes")
+    public void the_tail_buffer_retains_the_last_bytes(int expected) {
+        assertEquals(written.length, tail.getTotalBytes());
+        assertArrayEquals(Arrays.copyOfRange(written, written.length - expected, written.length),
+                tail.toByteArray());
+    }
+
+    @Then("the tail buffer reports that earlier output was omitted")
+    public void the_tail_buffer_reports_that_earlier_output_was_omitted() {
+        assertTrue(tail.isTruncated());
+        assertTrue(tail.toString().startsWith("[... " + (written.length - tail.toByteArray().length)
+                + " earlier bytes omitted ...]"));
+    }
+}
@@ -0,0 +1,119 @@
+package org.technologybrewery.habushu.exec;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ToolchainProbeCacheSteps {
+
+    private File workingDirectory = new File("target/probe-cache-test/module");
+    private File cacheFile = new File("target/probe-cache-test/toolchain-probe-cache.properties");
+    private File poetryEnvironment = new File("target/probe-cache-test/poetry-venv");
+    private ToolchainProbeCache cache;
+    private int executions;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(new File("target/probe-cache-test"));
+        workingDirectory.mkdirs();
+        executions = 0;
+    }
+
+    @Given("an empty toolchain probe cache")
+    public void an_empty_toolchain_probe_cache() {
+        cache = ToolchainProbeCache.forFile(cacheFile);
+        cache.clear();
+    }
+
+    @Given("a local .python-version file containing {string}")
+    public void a_local_python_version_file_containing(String version) throws IOException {
+        FileUtils.writeStringToFile(new File(workingDirectory, ".python-version"), version, StandardCharsets.UTF_8);
+    }
+
+    @When("the local .python-version file is changed to {string}")
+    public void the_local_python_version_file_is_changed_to(String version) throws IOException {
+        File versionFile = new File(workingDirectory, ".python-version");
+        long lastModified = versionFile.lastModified();
+        FileUtils.writeStringToFile(versionFile, version, StandardCharsets.UTF_8);
+        // simulate a rewrite that lands within the file system's timestamp resolution:
+        versionFile.setLastModified(lastModified);
+    }
+
+    @When("the {string} probe is requested twice")
+    public void the_probe_is_requested_twice(String command) {
+        the_probe_is_requested(command);
+        the_probe_is_requested(command);
+    }
+
+    @When("the {string} probe is requested")
+    public void the_probe_is_requested(String command) {
+        cache.probe(workingDirectory, toCommand(command), () -> {
+            executions++;
+            return "result of " + command;
+        });
+    }
+
+    @When("the {string} probe fails")
+    public void the_probe_fails(String command) {
+        assertThrows(HabushuException.class, () -> cache.probe(workingDirectory, toCommand(command), () -> {
+            executions++;
+            throw new HabushuException("not installed");
+        }));
+    }
+
+    @When("the toolchain probe cache is reloaded from disk")
+    public void the_toolchain_probe_cache_is_reloaded_from_disk() {
+        ToolchainProbeCache.reset();
+        cache = ToolchainProbeCache.forFile(cacheFile);
+    }
+
+    @Given("a Poetry {string} installation")
+    public void a_poetry_installation(String version) throws IOException {
+        File python = new File(poetryEnvironment, "bin/python");
+        FileUtils.writeStringToFile(python, "", StandardCharsets.UTF_8);
+        python.setExecutable(true);
+        File poetry = new File(poetryEnvironment, "bin/poetry");
+        FileUtils.writeStringToFile(poetry, "#!" + python.getAbsolutePath() + "\nimport poetry\n",
+                StandardCharsets.UTF_8);
+        poetry.setExecutable(true);
+        writePoetryDistribution(version);
+    }
+
+    @When("that Poetry installation is updated to {string}")
+    public void that_poetry_installation_is_updated_to(String version) throws IOException {
+        FileUtils.deleteDirectory(new File(poetryEnvironment, "lib/python3.11/site-packages"));
+        writePoetryDistribution(version);
+    }
+
+    @When("the {string} probe of that Poetry installation is requested")
+    public void the_probe_of_that_poetry_installation_is_requested(String arguments) {
+        the_probe_is_requested(new File(poetryEnvironment, "bin/poetry").getAbsolutePath() + " " + arguments);
+    }
+
+    @Then("the probe is executed {int} time(s)")
+    public void the_probe_is_executed_times(int expectedExecutions) {
+        assertEquals(expectedExecutions, executions, "Unexpected number of probe executions!");
+    }
+
+    private void writePoetryDistribution(String version) throws IOException {
+        File distInfo = new File(poetryEnvironment, "lib/python3.11/site-packages/poetry-" + version + ".dist-info");
+        FileUtils.writeStringToFile(new File(distInfo, "RECORD"), "poetry/__init__.py,,\n", StandardCharsets.UTF_8);
+    }
+
+    private static List<String> toCommand(String command) {
+        return Arrays.asList(StringUtils.split(command));
+    }
+}
@@ -0,0 +1,161 @@
+package org.technologybrewery.habushu.reactor;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.project.MavenProject;
+import org.technologybrewery.habushu.exec.ProcessLogContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HabushuReactorParticipantSteps {
+
+    private File reactorDirectory = new File("target/reactor-test");
+    private Map<String, MavenProject> projects;
+    private MavenExecutionRequest request;
+    private Properties userProperties;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deleteDirectory(reactorDirectory);
+        projects = new LinkedHashMap<>();
+        request = new DefaultMavenExecutionRequest();
+        userProperties = request.getUserProperties();
+    }
+
+    @After
+    public void tearDown() {
+        ProcessLogContext.clear();
+    }
+
+    @Given("a Habushu module {string}")
+    public void a_habushu_module(String name) throws IOException {
+        createModule(name, "");
+    }
+
+    @Given("a Habushu module {string} with a path dependency on {string}")
+    public void a_habushu_module_with_a_path_dependency_on(String name, String upstream) throws IOException {
+        createModule(name, String.format("%s = {path = \"../%s\", develop = true}%n", upstream, upstream));
+    }
+
+    @Given("{string} already declares a dependency on {string}")
+    public void already_declares_a_dependency_on(String name, String upstream) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("org.example");
+        dependency.setArtifactId(upstream);
+        dependency.setVersion("1.0.0");
+        dependency.setType("habushu");
+        projects.get(name).getModel().addDependency(dependency);
+    }
+
+    @Given("the {string} property is {string}")
+    public void the_property_is(String name, String value) {
+        userProperties.setProperty(name, value);
+    }
+
+    @Given("the build was started with {int} threads")
+    public void the_build_was_started_with_threads(int threads) {
+        request.setDegreeOfConcurrency(threads);
+        request.setBuilderId(HabushuReactorParticipant.MULTITHREADED_BUILDER);
+    }
+
+    @Given("process output is attributed to module {string}")
+    public void process_output_is_attributed_to_module(String name) {
+        ProcessLogContext.setModule(name);
+    }
+
+    @SuppressWarnings("deprecation")
+    @When("the reactor is read")
+    public void the_reactor_is_read() throws Exception {
+        MavenSession session = new MavenSession(null, null, request, new DefaultMavenExecutionResult());
+        session.setProjects(new ArrayList<>(projects.values()));
+        new HabushuReactorParticipant().afterProjectsRead(session);
+    }
+
+    @Then("{string} depends on {string} with type {string}")
+    public void depends_on_with_type(String name, String upstream, String type) {
+        List<Dependency> matches = findDependencies(name, upstream);
+        assertEquals(1, matches.size());
+        assertEquals(type, matches.get(0).getType());
+        assertEquals("1.0.0", matches.get(0).getVersion());
+    }
+
+    @Then("{string} has no dependencies")
+    public void has_no_dependencies(String name) {
+        assertTrue(projects.get(name).getDependencies().isEmpty());
+    }
+
+    @Then("{string} has {int} dependency/dependencies on {string}")
+    public void has_dependencies_on(String name, int count, String upstream) {
+        assertEquals(count, findDependencies(name, upstream).size());
+    }
+
+    @Then("the build uses the multithreaded builder with {int} threads")
+    public void the_build_uses_the_multithreaded_builder_with_threads(int threads) {
+        assertEquals(HabushuReactorParticipant.MULTITHREADED_BUILDER, request.getBuilderId());
+        assertEquals(threads, request.getDegreeOfConcurrency());
+    }
+
+    @Then("the build uses {int} threads")
+    public void the_build_uses_threads(int threads) {
+        assertEquals(threads, request.getDegreeOfConcurrency());
+    }
+
+    @Then("process output lines are prefixed with {string}")
+    public void process_output_lines_are_prefixed_with(String prefix) {
+        assertEquals(prefix, ProcessLogContext.getLinePrefix());
+    }
+
+    @Then("a thread started by the module inherits the prefix {string}")
+    public void a_thread_started_by_the_module_inherits_the_prefix(String prefix) throws InterruptedException {
+        AtomicReference<String> inherited = new AtomicReference<>();
+        Thread thread = new Thread(() -> inherited.set(ProcessLogContext.getLinePrefix()));
+        thread.start();
+        thread.join();
+        assertEquals(prefix, inherited.get());
+    }
+
+    private void createModule(String name, String pathDependencies) throws IOException {
+        File moduleDirectory = new File(reactorDirectory, name);
+        FileUtils.writeStringToFile(new File(moduleDirectory, "pyproject.toml"),
+                String.format("[tool.poetry]%nname = \"%s\"%n%n[tool.poetry.dependencies]%npython = \"^3.11\"%n%s",
+                        name, pathDependencies), StandardCharsets.UTF_8);
+
+        MavenProject project = new MavenProject();
+        project.setGroupId("org.example");
+        project.setArtifactId(name);
+        project.setVersion("1.0.0");
+        project.setPackaging("habushu");
+        project.setFile(new File(moduleDirectory, "pom.xml"));
+        projects.put(name, project);
+    }
+
+    private List<Dependency> findDependencies(String name, String upstream) {
+        List<Dependency> matches = new ArrayList<>();
+        for (Dependency dependency : projects.get(name).getDependencies()) {
+            if (upstream.equals(dependency.getArtifactId())) {
+                matches.add(dependency);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,148 @@
+package org.technologybrewery.habushu.telemetry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.technologybrewery.habushu.HabushuException;
+import org.technologybrewery.habushu.exec.Platform;
+import org.technologybrewery.habushu.exec.ProcessExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BuildMetricsSteps {
+
+    private static final Logger logger = LoggerFactory.getLogger(BuildMetricsSteps.class);
+
+    private File testDirectory = new File("target/build-metrics-test");
+
+    @Before
+    public void cleanUp() throws IOException {
+        BuildMetrics.clear();
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void endGoal() {
+        BuildMetrics.endGoal();
+        BuildMetrics.clear();
+    }
+
+    @Given("the {string} goal of module {string} is being recorded")
+    public void the_goal_of_module_is_being_recorded(String goal, String module) {
+        BuildMetrics.startGoal(BuildMetrics.getModule(module, metricsFile(module)), goal);
+    }
+
+    @Given("module {string} spent {int} milliseconds in goals")
+    public void module_spent_milliseconds_in_goals(String module, int millis) {
+        BuildMetrics.getModule(module, null).recordGoal(new MojoMetric(BuildMetrics.newSpanId(), "install-dependencies",
+                System.currentTimeMillis(), millis, true));
+    }
+
+    @When("a process writing {int} bytes to stdout and {int} bytes to stderr exits with {int}")
+    public void a_process_writing_bytes_to_stdout_and_bytes_to_stderr_exits_with(int stdoutBytes, int stderrBytes,
+                                                                              int exitCode) {
+        try {
+            createExecutor(stdoutBytes, stderrBytes, exitCode).executeAndRedirectOutput(logger);
+        } catch (HabushuException e) {
+            // expected for non-zero exit codes
+        }
+    }
+
+    @When("a process recorded as {string} is executed")
+    public void a_process_recorded_as_is_executed(String command) {
+        ProcessExecutor executor = createExecutor(0, 0, 0);
+        executor.setCommandForMetrics(command);
+        executor.executeAndRedirectOutput(logger);
+    }
+
+    @When("the metrics of module {string} are written")
+    public void the_metrics_of_module_are_written(String module) throws IOException {
+        BuildMetrics.getModule(module, metricsFile(module)).write();
+    }
+
+    @Then("module {string} recorded {int} process(es) for the {string} goal")
+    public void module_recorded_process_for_the_goal(String module, int count, String goal) {
+        List<ProcessMetric> processes = BuildMetrics.getModule(module, null).getProcesses();
+        assertEquals(count, processes.size());
+        assertTrue(processes.stream().allMatch(process -> goal.equals(process.getGoal())));
+    }
+
+    @Then("the recorded process wrote {int} bytes to stdout and {int} bytes to stderr")
+    public void the_recorded_process_wrote_bytes_to_stdout_and_bytes_to_stderr(int stdoutBytes, int stderrBytes) {
+        ProcessMetric process = getRecordedProcess();
+        assertEquals(stdoutBytes, process.getStdoutBytes());
+        assertEquals(stderrBytes, process.getStderrBytes());
+    }
+
+    @Then("the recorded process exited with {int}")
+    public void the_recorded_process_exited_with(int exitCode) {
+        assertEquals(exitCode, getRecordedProcess().getExitCode());
+    }
+
+    @Then("the recorded process has its elapsed and CPU time")
+    public void the_recorded_process_has_its_elapsed_and_cpu_time() {
+        ProcessMetric process = getRecordedProcess();
+        assertTrue(process.getWallMillis() > 0, "Elapsed time should have been recorded");
+        assertNotNull(process.getCpuMillis(), "CPU time should have been recorded");
+    }
+
+    @Then("the recorded process command is {string}")
+    public void the_recorded_process_command_is(String command) {
+        assertEquals(command, getRecordedProcess().getCommand());
+    }
+
+    @Then("no processes were recorded")
+    public void no_processes_were_recorded() {
+        assertTrue(BuildMetrics.getModules().isEmpty());
+    }
+
+    @Then("the metrics file of module {string} lists {int} process(es)")
+    public void the_metrics_file_of_module_lists_process(String module, int count) throws IOException {
+        JsonNode metrics = new ObjectMapper().readTree(metricsFile(module));
+        assertEquals(module, metrics.get("module").asText());
+        assertEquals(count, metrics.get("processes").size());
+    }
+
+    @Then("the reactor summary lists {string} before {string}")
+    public void the_reactor_summary_lists_before(String first, String second) {
+        List<String> modules = BuildMetrics.formatReactorSummary(0).stream().skip(1)
+                .map(line -> line.substring(0, line.indexOf(' ')))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(first, second), modules);
+    }
+
+    private ProcessMetric getRecordedProcess() {
+        List<ProcessMetric> processes = BuildMetrics.getModules().iterator().next().getProcesses();
+        assertEquals(1, processes.size());
+        return processes.get(0);
+    }
+
+    private File metricsFile(String module) {
+        return new File(testDirectory, module + "/habushu-metrics.json");
+    }
+
+    private static ProcessExecutor createExecutor(int stdoutBytes, int stderrBytes, int exitCode) {
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        List<String> command = Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                OutputWritingProcess.class.getName(), String.valueOf(stdoutBytes), String.valueOf(stderrBytes),
+                String.valueOf(exitCode));
+        return new ProcessExecutor(new File("target"), command, Platform.guess(), Collections.emptyMap());
+    }
+}
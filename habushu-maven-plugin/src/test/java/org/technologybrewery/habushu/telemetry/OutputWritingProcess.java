@@ -0,0 +1,27 @@
+package org.technologybrewery.habushu.telemetry;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Stand-in for an external command that writes a given number of bytes to stdout and stderr and then exits with a
+ * given exit code. Usage: {@code OutputWritingProcess <stdout bytes> <stderr bytes> <exit code>}.
+ */
+public final class OutputWritingProcess {
+
+    private OutputWritingProcess() {
+    }
+
+    public static void main(String[] args) {
+        write(System.out, Integer.parseInt(args[0]));
+        write(System.err, Integer.parseInt(args[1]));
+        System.exit(Integer.parseInt(args[2]));
+    }
+
+    private static void write(PrintStream stream, int bytes) {
+        byte[] output = new byte[bytes];
+        Arrays.fill(output, (byte) 'x');
+        stream.write(output, 0, bytes);
+        stream.flush();
+    }
+}
@@ -0,0 +1,201 @@
+package org.technologybrewery.habushu.telemetry;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class TraceExportSteps {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private File testDirectory = new File("target/trace-export-test");
+    private ModuleMetrics module;
+    private String goal;
+    private String goalSpanId;
+    private long goalStart;
+    private HttpServer collector;
+    private String receivedContentType;
+    private byte[] receivedBody;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void stopCollector() {
+        if (collector != null) {
+            collector.stop(0);
+        }
+    }
+
+    @Given("the {string} goal of module {string} is traced")
+    public void the_goal_of_module_is_traced(String goal, String moduleId) {
+        this.goal = goal;
+        this.module = BuildMetrics.getModule(moduleId, null);
+        this.module.setAttribute(BuildMetrics.ARTIFACT_ID_ATTRIBUTE, moduleId.split(":")[1]);
+        this.goalStart = System.currentTimeMillis();
+        this.goalSpanId = BuildMetrics.startGoal(module, goal);
+    }
+
+    @Given("the module is built with Python {string} and Poetry {string}")
+    public void the_module_is_built_with_python_and_poetry(String pythonVersion, String poetryVersion) {
+        BuildMetrics.setModuleAttribute(BuildMetrics.PYTHON_VERSION_ATTRIBUTE, pythonVersion);
+        BuildMetrics.setModuleAttribute(BuildMetrics.POETRY_VERSION_ATTRIBUTE, poetryVersion);
+    }
+
+    @Given("a collector is listening for traces")
+    public void a_collector_is_listening_for_traces() throws IOException {
+        collector = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        collector.createContext("/v1/traces", exchange -> {
+            receivedContentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            receivedBody = IOUtils.toByteArray(exchange.getRequestBody());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        collector.start();
+    }
+
+    @When("the traced goal completes")
+    public void the_traced_goal_completes() {
+        BuildMetrics.endGoal();
+        module.recordGoal(new MojoMetric(goalSpanId, goal, goalStart, System.currentTimeMillis() - goalStart, true));
+    }
+
+    @When("the trace is appended to a file twice")
+    public void the_trace_is_appended_to_a_file_twice() throws IOException {
+        OtlpTraceExporter.forCurrentBuild().appendTo(tracesFile());
+        OtlpTraceExporter.forCurrentBuild().appendTo(tracesFile());
+    }
+
+    @When("the trace is sent to the collector")
+    public void the_trace_is_sent_to_the_collector() throws IOException {
+        URI endpoint = URI.create("http://localhost:" + collector.getAddress().getPort() + "/v1/traces");
+        OtlpTraceExporter.forCurrentBuild().sendTo(endpoint);
+    }
+
+    @Then("the exported trace contains {int} spans sharing a single trace id")
+    public void the_exported_trace_contains_spans_sharing_a_single_trace_id(int count) {
+        List<JsonNode> spans = getSpans(OtlpTraceExporter.forCurrentBuild().toExportRequest());
+        assertEquals(count, spans.size());
+        Set<String> traceIds = new HashSet<>();
+        spans.forEach(span -> traceIds.add(span.get("traceId").asText()));
+        assertEquals(1, traceIds.size());
+        assertEquals(32, traceIds.iterator().next().length());
+    }
+
+    @Then("the goal span is a child of the build span")
+    public void the_goal_span_is_a_child_of_the_build_span() {
+        assertEquals(BuildMetrics.getTrace().getRootSpanId(), getGoalSpan().get("parentSpanId").asText());
+    }
+
+    @Then("the process span is a child of the goal span")
+    public void the_process_span_is_a_child_of_the_goal_span() {
+        assertEquals(goalSpanId, getProcessSpan().get("parentSpanId").asText());
+    }
+
+    @Then("the process span has attribute {string} of {string}")
+    public void the_process_span_has_attribute_of(String key, String value) {
+        assertEquals(value, getAttribute(getProcessSpan(), key));
+    }
+
+    @Then("the process span is named {string}")
+    public void the_process_span_is_named(String name) {
+        assertEquals(name, getProcessSpan().get("name").asText());
+    }
+
+    @Then("the traces file does not contain {string}")
+    public void the_traces_file_does_not_contain(String secret) throws IOException {
+        String traces = FileUtils.readFileToString(tracesFile(), StandardCharsets.UTF_8);
+        assertFalse(traces.contains(secret), "Traces should not contain the password: " + traces);
+    }
+
+    @Then("the goal span has attribute {string} of {string}")
+    public void the_goal_span_has_attribute_of(String key, String value) {
+        assertEquals(value, getAttribute(getGoalSpan(), key));
+    }
+
+    @Then("the process span has status code {int}")
+    public void the_process_span_has_status_code(int code) {
+        assertEquals(code, getProcessSpan().get("status").get("code").asInt());
+    }
+
+    @Then("the traces file contains {int} export requests")
+    public void the_traces_file_contains_export_requests(int count) throws IOException {
+        List<String> lines = Files.readAllLines(tracesFile().toPath(), StandardCharsets.UTF_8);
+        assertEquals(count, lines.size());
+        for (String line : lines) {
+            assertEquals(2, getSpans(MAPPER.readTree(line)).size());
+        }
+    }
+
+    @Then("the collector received {int} spans as JSON")
+    public void the_collector_received_spans_as_json(int count) throws IOException {
+        assertNotNull(receivedBody, "Collector should have received a request");
+        assertEquals("application/json", receivedContentType);
+        assertEquals(count, getSpans(MAPPER.readTree(receivedBody)).size());
+    }
+
+    private JsonNode getGoalSpan() {
+        return getSpan(goalSpanId);
+    }
+
+    private JsonNode getProcessSpan() {
+        String processSpanId = module.getProcesses().get(0).getSpanId();
+        return getSpan(processSpanId);
+    }
+
+    private JsonNode getSpan(String spanId) {
+        for (JsonNode span : getSpans(OtlpTraceExporter.forCurrentBuild().toExportRequest())) {
+            if (spanId.equals(span.get("spanId").asText())) {
+                return span;
+            }
+        }
+        fail("No span found with id " + spanId);
+        return null;
+    }
+
+    private static List<JsonNode> getSpans(JsonNode exportRequest) {
+        List<JsonNode> spans = new ArrayList<>();
+        exportRequest.get("resourceSpans").get(0).get("scopeSpans").get(0).get("spans").forEach(spans::add);
+        return spans;
+    }
+
+    private static String getAttribute(JsonNode span, String key) {
+        for (JsonNode attribute : span.get("attributes")) {
+            if (key.equals(attribute.get("key").asText())) {
+                JsonNode value = attribute.get("value");
+                return value.has("stringValue") ? value.get("stringValue").asText() : value.get("intValue").asText();
+            }
+        }
+        fail("No attribute " + key + " found on span " + span.get("name").asText());
+        return null;
+    }
+
+    private File tracesFile() {
+        return new File(testDirectory, "traces.jsonl");
+    }
+}
@@ -0,0 +1,113 @@
+package org.technologybrewery.habushu.util;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InterProcessLockSteps {
+
+    private File lockDirectory = new File("target/inter-process-lock-test");
+    private AtomicInteger maxConcurrentHolders;
+    private boolean heldConcurrently;
+    private InterProcessLock outerLock;
+    private InterProcessLock innerLock;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(lockDirectory);
+        maxConcurrentHolders = new AtomicInteger();
+    }
+
+    @When("{int} threads each hold the {string} lock {int} times")
+    public void threads_each_hold_the_lock_times(int threads, String name, int times) throws Exception {
+        AtomicInteger holders = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < times; j++) {
+                    try (InterProcessLock lock = InterProcessLock.acquire(lockDirectory, name)) {
+                        maxConcurrentHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+                        Thread.sleep(2);
+                        holders.decrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+    }
+
+    @When("{int} threads hold the {string} and {string} locks at the same time")
+    public void threads_hold_the_and_locks_at_the_same_time(int threads, String first, String second)
+            throws Exception {
+        CountDownLatch bothHeld = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Future<Boolean> firstResult = executor.submit(() -> holdUntilBothHeld(first, bothHeld));
+        Future<Boolean> secondResult = executor.submit(() -> holdUntilBothHeld(second, bothHeld));
+        heldConcurrently = firstResult.get(30, TimeUnit.SECONDS) && secondResult.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    @When("a thread acquires the {string} lock twice")
+    public void a_thread_acquires_the_lock_twice(String name) {
+        outerLock = InterProcessLock.acquire(lockDirectory, name);
+        innerLock = InterProcessLock.acquire(lockDirectory, name);
+    }
+
+    @Then("at most {int} thread held the lock at a time")
+    public void at_most_thread_held_the_lock_at_a_time(int expected) {
+        assertEquals(expected, maxConcurrentHolders.get());
+    }
+
+    @Then("both threads held their lock concurrently")
+    public void both_threads_held_their_lock_concurrently() {
+        assertTrue(heldConcurrently, "Expected independent locks to be held at the same time");
+    }
+
+    @Then("the thread still holds the lock after releasing it once")
+    public void the_thread_still_holds_the_lock_after_releasing_it_once() {
+        innerLock.close();
+        assertTrue(outerLock.isHeldByCurrentThread());
+    }
+
+    @Then("another thread can acquire the lock once it is fully released")
+    public void another_thread_can_acquire_the_lock_once_it_is_fully_released() throws Exception {
+        outerLock.close();
+        assertFalse(outerLock.isHeldByCurrentThread());
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<Boolean> acquired = executor.submit(() -> {
+            try (InterProcessLock lock = InterProcessLock.acquire(lockDirectory, "poetry-config")) {
+                return lock.isHeldByCurrentThread();
+            }
+        });
+        assertTrue(acquired.get(30, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    private boolean holdUntilBothHeld(String name, CountDownLatch bothHeld) throws InterruptedException {
+        try (InterProcessLock lock = InterProcessLock.acquire(lockDirectory, name)) {
+            bothHeld.countDown();
+            return bothHeld.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package org.technologybrewery.habushu.util;
+
+import io.cucumber.java.en.Then;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class Pep440Steps {
+
+    @Then("version {string} is lower than {string}")
+    public void version_is_lower_than(String lower, String higher) {
+        Pep440Version lowerVersion = Pep440Version.parse(lower);
+        Pep440Version higherVersion = Pep440Version.parse(higher);
+        assertTrue(lowerVersion.compareTo(higherVersion) < 0, lower + " should be lower than " + higher);
+        assertTrue(higherVersion.compareTo(lowerVersion) > 0, higher + " should be higher than " + lower);
+    }
+
+    @Then("version {string} is normalized to {string}")
+    public void version_is_normalized_to(String version, String normalized) {
+        assertEquals(normalized, Pep440Version.parse(version).toString());
+    }
+
+    @Then("version {string} is equal to {string}")
+    public void version_is_equal_to(String version, String other) {
+        assertEquals(Pep440Version.parse(version), Pep440Version.parse(other));
+        assertEquals(Pep440Version.parse(version).hashCode(), Pep440Version.parse(other).hashCode());
+    }
+
+    @Then("version {string} matches {string}")
+    public void version_matches(String version, String specifier) {
+        assertTrue(Pep440Specifier.parse(specifier).matches(Pep440Version.parse(version)),
+                version + " should match " + specifier);
+    }
+
+    @Then("version {string} does not match {string}")
+    public void version_does_not_match(String version, String specifier) {
+        assertTrue(!Pep440Specifier.parse(specifier).matches(Pep440Version.parse(version)),
+                version + " should not match " + specifier);
+    }
+
+    @Then("filtering {string} by {string} selects {string}")
+    public void filtering_by_selects(String versions, String specifier, String expected) {
+        List<Pep440Version> candidates = Arrays.stream(versions.split(","))
+                .map(Pep440Version::parse)
+                .collect(Collectors.toList());
+        List<String> selected = Pep440Specifier.parse(specifier).filter(candidates).stream()
+                .map(Pep440Version::toString)
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(expected.split(",")), selected);
+    }
+
+    @Then("specifier {string} is rejected")
+    public void specifier_is_rejected(String specifier) {
+        assertThrows(HabushuException.class, () -> Pep440Specifier.parse(specifier));
+    }
+}
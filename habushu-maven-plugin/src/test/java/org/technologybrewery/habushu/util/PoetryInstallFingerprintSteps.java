@@ -0,0 +1,106 @@
+package org.technologybrewery.habushu.util;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoetryInstallFingerprintSteps {
+
+    private File testDirectory = new File("target/poetry-install-fingerprint-test");
+    private File projectDirectory = new File(testDirectory, "project");
+    private File virtualEnvDirectory = new File(testDirectory, "venv");
+    private PoetryInstallFingerprint fingerprint;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+        projectDirectory.mkdirs();
+        fingerprint = new PoetryInstallFingerprint(projectDirectory, virtualEnvDirectory);
+    }
+
+    @Given("a Poetry project with a poetry.lock")
+    public void a_poetry_project_with_a_poetry_lock() throws IOException {
+        FileUtils.writeStringToFile(new File(projectDirectory, "pyproject.toml"),
+                "[tool.poetry]\nname = \"project\"\n", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(projectDirectory, "poetry.lock"), "# lock\n", StandardCharsets.UTF_8);
+    }
+
+    @Given("a virtual environment created with Python {string}")
+    public void a_virtual_environment_created_with_python(String version) throws IOException {
+        FileUtils.writeStringToFile(new File(virtualEnvDirectory, "pyvenv.cfg"),
+                String.format("home = /usr/bin%ninclude-system-site-packages = false%nversion = %s%n", version),
+                StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(virtualEnvDirectory, "bin/python"), "", StandardCharsets.UTF_8);
+    }
+
+    @Given("the project has a local path dependency on {string}")
+    public void the_project_has_a_local_path_dependency_on(String name) throws IOException {
+        File pathDependency = new File(testDirectory, name);
+        FileUtils.writeStringToFile(new File(pathDependency, "pyproject.toml"),
+                String.format("[tool.poetry]%nname = \"%s\"%n", name), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(pathDependency, "src/" + name + "/__init__.py"), "VALUE = 1\n",
+                StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(projectDirectory, "pyproject.toml"),
+                String.format("[tool.poetry]%nname = \"project\"%n%n[tool.poetry.dependencies]%n"
+                        + "%s = {path = \"../%s\", develop = true}%n", name, name), StandardCharsets.UTF_8);
+    }
+
+    @Given("dependencies were installed with {string}")
+    public void dependencies_were_installed_with(String command) {
+        fingerprint.record(fingerprint.computeFingerprint(toArguments(command)));
+    }
+
+    @When("poetry.lock is changed")
+    public void poetry_lock_is_changed() throws IOException {
+        FileUtils.writeStringToFile(new File(projectDirectory, "poetry.lock"), "# relocked\n",
+                StandardCharsets.UTF_8);
+    }
+
+    @When("a source file of the local path dependency {string} is changed")
+    public void a_source_file_of_the_local_path_dependency_is_changed(String name) throws IOException {
+        FileUtils.writeStringToFile(new File(testDirectory, name + "/src/" + name + "/__init__.py"), "VALUE = 2\n",
+                StandardCharsets.UTF_8);
+    }
+
+    @When("the local path dependency {string} writes build output to {string}")
+    public void the_local_path_dependency_writes_build_output_to(String name, String path) throws IOException {
+        FileUtils.writeStringToFile(new File(testDirectory, name + "/" + path), "built", StandardCharsets.UTF_8);
+    }
+
+    @When("the virtual environment is recreated with Python {string}")
+    public void the_virtual_environment_is_recreated_with_python(String version) throws IOException {
+        a_virtual_environment_created_with_python(version);
+    }
+
+    @When("the virtual environment's Python interpreter is deleted")
+    public void the_virtual_environment_s_python_interpreter_is_deleted() {
+        new File(virtualEnvDirectory, "bin/python").delete();
+    }
+
+    @Then("installing with {string} is not required")
+    public void installing_with_is_not_required(String command) {
+        assertTrue(fingerprint.isInstallCurrent(fingerprint.computeFingerprint(toArguments(command))),
+                "Expected install to be skipped");
+    }
+
+    @Then("installing with {string} is required")
+    public void installing_with_is_required(String command) {
+        assertFalse(fingerprint.isInstallCurrent(fingerprint.computeFingerprint(toArguments(command))),
+                "Expected install to be required");
+    }
+
+    private List<String> toArguments(String command) {
+        return Arrays.asList(command.split(" "));
+    }
+}
@@ -0,0 +1,115 @@
+package org.technologybrewery.habushu.util;
+
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PoetryLockDigestSteps {
+
+    private File testDirectory = new File("target/poetry-lock-digest-test");
+    private File projectDirectory = new File(testDirectory, "project");
+    private File pathDependencyDirectory = new File(testDirectory, "path-dependency");
+    private String description;
+    private String dependencies;
+    private List<String> managedDependencies;
+    private PoetryLockDigest lockDigest;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+        projectDirectory.mkdirs();
+        description = "A project";
+        dependencies = "";
+        managedDependencies = new ArrayList<>(Arrays.asList("managed=requests ^2.31.0 true"));
+        lockDigest = new PoetryLockDigest(projectDirectory);
+    }
+
+    @Given("a Poetry project with a dependency on {string} version {string}")
+    public void a_poetry_project_with_a_dependency_on_version(String packageName, String version) throws IOException {
+        dependencies = String.format("python = \"^3.11\"%n%s = \"%s\"%n", packageName, version);
+        writePyProject();
+    }
+
+    @Given("the project depends on a local path dependency")
+    public void the_project_depends_on_a_local_path_dependency() throws IOException {
+        writePathDependencyPyProject("^1.0.0");
+        dependencies += "path-dependency = {path = \"../path-dependency\", develop = true}\n";
+        writePyProject();
+    }
+
+    @Given("poetry.lock has been resolved and its digest recorded")
+    public void poetry_lock_has_been_resolved_and_its_digest_recorded() throws IOException {
+        FileUtils.writeStringToFile(new File(projectDirectory, "poetry.lock"), "# resolved lock\n",
+                StandardCharsets.UTF_8);
+        lockDigest.record(lockDigest.computeInputDigest(managedDependencies));
+    }
+
+    @When("the project description is changed")
+    public void the_project_description_is_changed() throws IOException {
+        description = "A different description";
+        writePyProject();
+    }
+
+    @When("the dependency on {string} is changed to {string}")
+    public void the_dependency_on_is_changed_to(String packageName, String version) throws IOException {
+        a_poetry_project_with_a_dependency_on_version(packageName, version);
+    }
+
+    @When("poetry.lock is modified")
+    public void poetry_lock_is_modified() throws IOException {
+        FileUtils.writeStringToFile(new File(projectDirectory, "poetry.lock"), "# edited by hand\n",
+                StandardCharsets.UTF_8, true);
+    }
+
+    @When("the managed dependencies are changed")
+    public void the_managed_dependencies_are_changed() {
+        managedDependencies.add("managed=numpy ^1.26.0 true");
+    }
+
+    @When("the local path dependency's pyproject.toml is changed")
+    public void the_local_path_dependency_s_pyproject_toml_is_changed() throws IOException {
+        writePathDependencyPyProject("^2.0.0");
+    }
+
+    @When("the poetry.lock digest is invalidated")
+    public void the_poetry_lock_digest_is_invalidated() {
+        lockDigest.invalidate();
+    }
+
+    @Then("poetry.lock is current")
+    public void poetry_lock_is_current() {
+        assertTrue(lockDigest.isLockCurrent(lockDigest.computeInputDigest(managedDependencies)),
+                "Expected poetry.lock to be current");
+    }
+
+    @Then("poetry.lock is not current")
+    public void poetry_lock_is_not_current() {
+        assertFalse(lockDigest.isLockCurrent(lockDigest.computeInputDigest(managedDependencies)),
+                "Expected poetry.lock to require re-locking");
+    }
+
+    private void writePyProject() throws IOException {
+        String content = String.format("[tool.poetry]%nname = \"project\"%nversion = \"1.0.0\"%n"
+                + "description = \"%s\"%n%n[tool.poetry.dependencies]%n%s", description, dependencies);
+        FileUtils.writeStringToFile(new File(projectDirectory, "pyproject.toml"), content, StandardCharsets.UTF_8);
+    }
+
+    private void writePathDependencyPyProject(String version) throws IOException {
+        String content = String.format("[tool.poetry]%nname = \"path-dependency\"%nversion = \"1.0.0\"%n%n"
+                + "[tool.poetry.dependencies]%nnumpy = \"%s\"%n", version);
+        FileUtils.writeStringToFile(new File(pathDependencyDirectory, "pyproject.toml"), content,
+                StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,121 @@
+package org.technologybrewery.habushu.util;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.electronwill.nightconfig.toml.TomlParser;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class PyProjectDocumentSteps {
+
+    private static final FileTime ORIGINAL_MODIFIED_TIME = FileTime.fromMillis(1_000_000_000_000L);
+
+    private File testDirectory = new File("target/pyproject-document-test");
+    private File pyProjectTomlFile = new File(testDirectory, "pyproject.toml");
+    private PyProjectDocument document;
+    private CommentedConfig firstConfig;
+    private CommentedConfig secondConfig;
+
+    @Before
+    public void cleanUp() throws IOException {
+        PyProjectDocument.clear();
+        FileUtils.deleteDirectory(testDirectory);
+        testDirectory.mkdirs();
+    }
+
+    @After
+    public void clearDocuments() {
+        PyProjectDocument.clear();
+    }
+
+    @Given("a pyproject.toml with a dependency on {string} version {string}")
+    public void a_pyproject_toml_with_a_dependency_on_version(String packageName, String version) throws IOException {
+        FileUtils.writeStringToFile(pyProjectTomlFile, String.format("[tool.poetry]%nname = \"project\"%n%n"
+                + "[tool.poetry.dependencies]%npython = \"^3.11\"%n%s = \"%s\"%n", packageName, version),
+                StandardCharsets.UTF_8);
+        Files.setLastModifiedTime(pyProjectTomlFile.toPath(), ORIGINAL_MODIFIED_TIME);
+    }
+
+    @Given("the pyproject.toml document has been loaded")
+    public void the_pyproject_toml_document_has_been_loaded() {
+        document = PyProjectDocument.load(pyProjectTomlFile);
+        firstConfig = document.getConfig();
+    }
+
+    @When("the pyproject.toml document is loaded twice")
+    public void the_pyproject_toml_document_is_loaded_twice() {
+        firstConfig = PyProjectDocument.load(pyProjectTomlFile).getConfig();
+        secondConfig = PyProjectDocument.load(pyProjectTomlFile).getConfig();
+    }
+
+    @When("the dependency on {string} is changed to {string} outside of the document")
+    public void the_dependency_on_is_changed_to_outside_of_the_document(String packageName, String version)
+            throws IOException {
+        String content = FileUtils.readFileToString(pyProjectTomlFile, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(pyProjectTomlFile, replaceDependency(content, packageName, version),
+                StandardCharsets.UTF_8);
+    }
+
+    @When("the dependency on {string} is changed to {string} within the document")
+    public void the_dependency_on_is_changed_to_within_the_document(String packageName, String version) {
+        document.setContent(replaceDependency(document.getContent(), packageName, version));
+    }
+
+    @When("a dependency on {string} version {string} is added within the document")
+    public void a_dependency_on_version_is_added_within_the_document(String packageName, String version) {
+        List<String> lines = new ArrayList<>(document.getLines());
+        lines.add(String.format("%s = \"%s\"", packageName, version));
+        document.setLines(lines);
+    }
+
+    @When("the pyproject.toml document's lines are replaced with the same lines")
+    public void the_pyproject_toml_document_s_lines_are_replaced_with_the_same_lines() {
+        document.setLines(new ArrayList<>(document.getLines()));
+    }
+
+    @When("the pyproject.toml document is saved")
+    public void the_pyproject_toml_document_is_saved() {
+        document.save();
+    }
+
+    @Then("the same parsed configuration is returned both times")
+    public void the_same_parsed_configuration_is_returned_both_times() {
+        assertSame(firstConfig, secondConfig);
+    }
+
+    @Then("the pyproject.toml document has a dependency on {string} version {string}")
+    public void the_pyproject_toml_document_has_a_dependency_on_version(String packageName, String version) {
+        assertEquals(version, PyProjectDocument.load(pyProjectTomlFile).getConfig()
+                .get("tool.poetry.dependencies." + packageName));
+    }
+
+    @Then("pyproject.toml was not rewritten")
+    public void pyproject_toml_was_not_rewritten() throws IOException {
+        assertEquals(ORIGINAL_MODIFIED_TIME, Files.getLastModifiedTime(pyProjectTomlFile.toPath()));
+    }
+
+    @Then("pyproject.toml has a dependency on {string} version {string}")
+    public void pyproject_toml_has_a_dependency_on_version(String packageName, String version) throws IOException {
+        CommentedConfig config = new TomlParser().parse(
+                FileUtils.readFileToString(pyProjectTomlFile, StandardCharsets.UTF_8));
+        assertEquals(version, config.get("tool.poetry.dependencies." + packageName));
+    }
+
+    private static String replaceDependency(String content, String packageName, String version) {
+        return content.replaceAll("(?m)^" + packageName + " = \".*\"$", packageName + " = \"" + version + "\"");
+    }
+}
@@ -0,0 +1,156 @@
+package org.technologybrewery.habushu.util;
+
+import com.electronwill.nightconfig.core.Config;
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TomlLineRewriterSteps {
+
+    private static final String HEADER = "[tool.poetry]\nname = \"large-project\"\n\n[tool.poetry.dependencies]\n";
+    private static final String FOOTER = "\n[build-system]\nrequires = [\"poetry-core>=1.6.0\"]\n";
+    private static final FileTime LONG_AGO = FileTime.fromMillis(1_000_000_000_000L);
+    private static final Set<PosixFilePermission> OWNER_WRITABLE = PosixFilePermissions.fromString("rw-r--r--");
+
+    private File testDirectory = new File("target/toml-line-rewriter-test");
+    private File pyProjectTomlFile = new File(testDirectory, "pyproject.toml");
+    private PyProjectDocument document;
+    private String newContent;
+
+    @Before
+    public void cleanUp() throws IOException {
+        PyProjectDocument.clear();
+        FileUtils.deleteDirectory(testDirectory);
+        testDirectory.mkdirs();
+    }
+
+    @After
+    public void clearDocuments() {
+        PyProjectDocument.clear();
+    }
+
+    @Given("a pyproject.toml with {int} dependencies")
+    public void a_pyproject_toml_with_dependencies(int count) throws IOException {
+        FileUtils.writeStringToFile(pyProjectTomlFile, HEADER + dependencyLines(count, "^1.0.0") + FOOTER,
+                Charset.defaultCharset());
+        document = PyProjectDocument.load(pyProjectTomlFile);
+    }
+
+    @Given("a pyproject.toml with {int} dependencies that only its owner may write")
+    public void a_pyproject_toml_with_dependencies_that_only_its_owner_may_write(int count) throws IOException {
+        a_pyproject_toml_with_dependencies(count);
+        Files.setPosixFilePermissions(pyProjectTomlFile.toPath(), OWNER_WRITABLE);
+    }
+
+    @Given("a pyproject.toml with {int} dependencies that was last modified long ago")
+    public void a_pyproject_toml_with_dependencies_that_was_last_modified_long_ago(int count) throws IOException {
+        a_pyproject_toml_with_dependencies(count);
+        Files.setLastModifiedTime(pyProjectTomlFile.toPath(), LONG_AGO);
+    }
+
+    @When("every dependency version is rewritten from {string} to {string}")
+    public void every_dependency_version_is_rewritten_from_to(String original, String updated) {
+        String quotedOriginal = "\"" + original + "\"";
+        String quotedUpdated = "\"" + updated + "\"";
+        TomlLineRewriter.rewrite(document, (line, output) -> output.writeLine(line.endsWith(quotedOriginal)
+                ? line.replace(quotedOriginal, quotedUpdated) : line));
+    }
+
+    @When("the first dependency is replaced by two new dependencies")
+    public void the_first_dependency_is_replaced_by_two_new_dependencies() {
+        TomlLineRewriter.rewrite(document, (line, output) -> {
+            if (line.startsWith("package-0 ")) {
+                output.writeLine("new-a = \"^1.0.0\"").writeLine("new-b = \"^1.0.0\"");
+            } else {
+                output.writeLine(line);
+            }
+        });
+    }
+
+    @When("pyproject.toml is written with new content")
+    public void pyproject_toml_is_written_with_new_content() throws IOException {
+        newContent = HEADER + dependencyLines(1, "^3.0.0");
+        TomlUtils.writeTomlFile(pyProjectTomlFile, newContent);
+    }
+
+    @When("pyproject.toml is written with new content and forced to disk")
+    public void pyproject_toml_is_written_with_new_content_and_forced_to_disk() throws IOException {
+        newContent = HEADER + dependencyLines(1, "^3.0.0");
+        assertTrue(TomlUtils.writeTomlFile(pyProjectTomlFile, newContent, true));
+    }
+
+    @When("pyproject.toml is written with its current content")
+    public void pyproject_toml_is_written_with_its_current_content() throws IOException {
+        assertFalse(TomlUtils.writeTomlFile(pyProjectTomlFile,
+                FileUtils.readFileToString(pyProjectTomlFile, Charset.defaultCharset())));
+    }
+
+    @Then("pyproject.toml was left untouched")
+    public void pyproject_toml_was_left_untouched() throws IOException {
+        assertEquals(LONG_AGO, Files.getLastModifiedTime(pyProjectTomlFile.toPath()));
+    }
+
+    @Then("the pyproject.toml document contains {int} dependencies on version {string}")
+    public void the_pyproject_toml_document_contains_dependencies_on_version(int count, String version) {
+        assertEquals(count, document.getConfig().<Config>get(
+                "tool.poetry.dependencies").valueMap().values().stream().filter(version::equals).count());
+    }
+
+    @Then("the rest of the pyproject.toml document is unchanged")
+    public void the_rest_of_the_pyproject_toml_document_is_unchanged() {
+        assertTrue(document.getContent().startsWith(HEADER));
+        assertTrue(document.getContent().endsWith(FOOTER));
+    }
+
+    @Then("the pyproject.toml document lists the dependencies {string}")
+    public void the_pyproject_toml_document_lists_the_dependencies(String expected) {
+        List<String> dependencies = document.getLines().stream()
+                .filter(line -> line.endsWith("\"^1.0.0\""))
+                .map(line -> line.substring(0, line.indexOf(' ')))
+                .collect(Collectors.toList());
+        assertEquals(Arrays.asList(expected.split(", ")), dependencies);
+    }
+
+    @Then("pyproject.toml contains the new content")
+    public void pyproject_toml_contains_the_new_content() throws IOException {
+        assertEquals(newContent, FileUtils.readFileToString(pyProjectTomlFile, Charset.defaultCharset()));
+    }
+
+    @Then("pyproject.toml can still only be written by its owner")
+    public void pyproject_toml_can_still_only_be_written_by_its_owner() throws IOException {
+        assertEquals(OWNER_WRITABLE, Files.getPosixFilePermissions(pyProjectTomlFile.toPath()));
+    }
+
+    @Then("no temporary files are left next to pyproject.toml")
+    public void no_temporary_files_are_left_next_to_pyproject_toml() {
+        assertEquals(Arrays.asList("pyproject.toml"), Arrays.asList(testDirectory.list()));
+    }
+
+    private static String dependencyLines(int count, String version) {
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(String.format("package-%d = \"%s\"", i, version));
+        }
+        return String.join("\n", lines) + "\n";
+    }
+}
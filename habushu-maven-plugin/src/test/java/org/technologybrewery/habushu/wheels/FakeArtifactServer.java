@@ -0,0 +1,112 @@
+package org.technologybrewery.habushu.wheels;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * In-memory stand-in for an artifact server that serves files via {@code GET}/{@code HEAD} and stores them via
+ * {@code PUT}, for exercising {@link HttpWheelCacheBackend}.
+ */
+public class FakeArtifactServer implements Closeable {
+
+    private static final String CONTEXT = "/wheels/";
+
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final HttpServer server;
+    private volatile String requiredAuthorization;
+    private volatile long responseDelayMillis;
+
+    public FakeArtifactServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext(CONTEXT, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public URI getUri() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + CONTEXT);
+    }
+
+    public Map<String, byte[]> getFiles() {
+        return files;
+    }
+
+    /**
+     * @return requests received, i.e. {@code PUT blobs/sha256/ab/ab12.whl}
+     */
+    public List<String> getRequests() {
+        return new ArrayList<>(requests);
+    }
+
+    public void setRequiredAuthorization(String requiredAuthorization) {
+        this.requiredAuthorization = requiredAuthorization;
+    }
+
+    public void setResponseDelayMillis(long responseDelayMillis) {
+        this.responseDelayMillis = responseDelayMillis;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath().substring(CONTEXT.length());
+            String method = exchange.getRequestMethod();
+            requests.add(method + " " + path);
+            // the JDK's server intermittently resets connections that are reused after a HEAD request:
+            exchange.getResponseHeaders().add("Connection", "close");
+            if (requiredAuthorization != null
+                    && !requiredAuthorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+            if (responseDelayMillis > 0) {
+                Thread.sleep(responseDelayMillis);
+            }
+
+            byte[] file = files.get(path);
+            switch (method) {
+                case "GET":
+                    if (file == null) {
+                        exchange.sendResponseHeaders(404, -1);
+                    } else {
+                        exchange.sendResponseHeaders(200, file.length);
+                        try (OutputStream out = exchange.getResponseBody()) {
+                            out.write(file);
+                        }
+                    }
+                    break;
+                case "HEAD":
+                    exchange.sendResponseHeaders(file == null ? 404 : 200, -1);
+                    break;
+                case "PUT":
+                    files.put(path, exchange.getRequestBody().readAllBytes());
+                    exchange.sendResponseHeaders(201, -1);
+                    break;
+                default:
+                    exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,218 @@
+package org.technologybrewery.habushu.wheels;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.technologybrewery.habushu.HabushuException;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RemoteWheelCacheSteps {
+
+    private File testDirectory = new File("target/remote-wheel-cache-test");
+    private File distDirectory = new File(testDirectory, "dist");
+    private WheelStore localStore = new WheelStore(new File(testDirectory, "local-store"));
+    private WheelStore otherLocalStore = new WheelStore(new File(testDirectory, "other-local-store"));
+    private FakeArtifactServer server;
+    private WheelCacheBackend remoteCache;
+    private String username;
+    private String password;
+    private Duration requestTimeout = Duration.ofSeconds(10);
+    private List<Exception> failures = new ArrayList<>();
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("an HTTP wheel cache")
+    public void an_http_wheel_cache() throws IOException {
+        server = new FakeArtifactServer();
+    }
+
+    @Given("an HTTP wheel cache requiring user {string} with password {string}")
+    public void an_http_wheel_cache_requiring_user_with_password(String username, String password)
+            throws IOException {
+        an_http_wheel_cache();
+        server.setRequiredAuthorization("Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8)));
+        this.username = username;
+        this.password = password;
+    }
+
+    @Given("an HTTP wheel cache that takes {int} milliseconds to respond")
+    public void an_http_wheel_cache_that_takes_milliseconds_to_respond(int delayMillis) throws IOException {
+        an_http_wheel_cache();
+        server.setResponseDelayMillis(delayMillis);
+    }
+
+    @Given("a request timeout of {int} milliseconds")
+    public void a_request_timeout_of_milliseconds(int timeoutMillis) {
+        requestTimeout = Duration.ofMillis(timeoutMillis);
+    }
+
+    @Given("a directory wheel cache")
+    public void a_directory_wheel_cache() {
+        remoteCache = new DirectoryWheelCacheBackend(new File(testDirectory, "shared-store"));
+    }
+
+    @Given("{string} containing {string} is cached locally for {string}")
+    public void containing_is_cached_locally_for(String fileName, String contents, String artifactId)
+            throws IOException {
+        File wheel = new File(distDirectory, fileName);
+        FileUtils.writeStringToFile(wheel, contents, StandardCharsets.UTF_8);
+        localStore.put(artifactId, wheel);
+    }
+
+    @Given("the wheels cached locally for {string} are published to the remote wheel cache")
+    public void the_wheels_cached_locally_for_are_published_to_the_remote_wheel_cache(String artifactId)
+            throws IOException {
+        for (CachedWheel wheel : localStore.getWheels(artifactId)) {
+            getRemoteCache().publish(artifactId, wheel, localStore.getBlob(wheel.getSha256()));
+        }
+    }
+
+    @Given("the blob of {string} is corrupted within the HTTP wheel cache")
+    public void the_blob_of_is_corrupted_within_the_http_wheel_cache(String fileName) {
+        server.getFiles().replaceAll((path, bytes) -> path.startsWith(WheelStore.BLOBS_DIRECTORY)
+                ? "corrupted".getBytes(StandardCharsets.UTF_8)
+                : bytes);
+    }
+
+    @Given("the index entry of {string} within the HTTP wheel cache has the {word} {string}")
+    public void the_index_entry_of_within_the_http_wheel_cache_has_the(String fileName, String field, String value)
+            throws IOException {
+        String indexPath = WheelStore.getIndexPath("foo");
+        List<CachedWheel> wheels = WheelStore.readIndex(new ByteArrayInputStream(server.getFiles().get(indexPath)));
+        for (CachedWheel wheel : wheels) {
+            if (wheel.getFileName().equals(fileName)) {
+                if ("sha256".equals(field)) {
+                    wheel.setSha256(value);
+                } else {
+                    wheel.setFileName(value);
+                }
+            }
+        }
+        server.getFiles().put(indexPath, WheelStore.toIndexBytes(wheels));
+    }
+
+    @When("the wheels of {string} are downloaded from the remote wheel cache into another local store")
+    public void the_wheels_of_are_downloaded_from_the_remote_wheel_cache_into_another_local_store(String artifactId)
+            throws IOException {
+        for (CachedWheel wheel : getRemoteCache().getWheels(artifactId)) {
+            Path download = Files.createTempFile("habushu-wheel-", ".whl");
+            try {
+                getRemoteCache().download(wheel, download);
+                otherLocalStore.importWheel(artifactId, wheel, download.toFile());
+            } catch (HabushuException e) {
+                failures.add(e);
+            } finally {
+                Files.deleteIfExists(download);
+            }
+        }
+    }
+
+    @When("the wheels cached for {string} are listed from the remote wheel cache")
+    public void the_wheels_cached_for_are_listed_from_the_remote_wheel_cache(String artifactId) {
+        try {
+            getRemoteCache().getWheels(artifactId);
+        } catch (IOException e) {
+            failures.add(e);
+        }
+    }
+
+    @Then("the remote wheel cache lists {string} for {string}")
+    public void the_remote_wheel_cache_lists_for(String fileName, String artifactId) throws IOException {
+        List<String> fileNames = getRemoteCache().getWheels(artifactId).stream()
+                .map(CachedWheel::getFileName)
+                .collect(Collectors.toList());
+        assertTrue(fileNames.contains(fileName), "Expected " + fileName + " within " + fileNames);
+    }
+
+    @Then("the remote wheel cache holds {int} blob(s)")
+    public void the_remote_wheel_cache_holds_blob(int expected) {
+        long blobs = server.getFiles().keySet().stream()
+                .filter(path -> path.startsWith(WheelStore.BLOBS_DIRECTORY))
+                .count();
+        assertEquals(expected, blobs);
+    }
+
+    @Then("the HTTP wheel cache received {int} blob upload(s)")
+    public void the_http_wheel_cache_received_blob_upload(int expected) {
+        long uploads = server.getRequests().stream()
+                .filter(request -> request.startsWith("PUT " + WheelStore.BLOBS_DIRECTORY))
+                .count();
+        assertEquals(expected, uploads);
+    }
+
+    @Then("the other local store holds {string} containing {string} for {string}")
+    public void the_other_local_store_holds_containing_for(String fileName, String contents, String artifactId)
+            throws IOException {
+        CachedWheel wheel = otherLocalStore.getWheels(artifactId).stream()
+                .filter(cachedWheel -> cachedWheel.getFileName().equals(fileName))
+                .findFirst()
+                .orElse(null);
+        assertNotNull(wheel, "Expected " + fileName + " to have been imported");
+        assertEquals(contents, FileUtils.readFileToString(otherLocalStore.getBlob(wheel.getSha256()),
+                StandardCharsets.UTF_8));
+    }
+
+    @Then("the wheels are rejected for not matching their digest")
+    public void the_wheels_are_rejected_for_not_matching_their_digest() {
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).getMessage().contains("rather than the expected"), failures.get(0).getMessage());
+    }
+
+    @Then("the wheels are rejected as {string}")
+    public void the_wheels_are_rejected_as(String reason) {
+        assertEquals(1, failures.size());
+        assertTrue(failures.get(0).getMessage().contains(reason), failures.get(0).getMessage());
+    }
+
+    @Then("the other local store holds no wheels for {string}")
+    public void the_other_local_store_holds_no_wheels_for(String artifactId) {
+        assertTrue(otherLocalStore.getWheels(artifactId).isEmpty());
+        assertTrue(otherLocalStore.getArtifactIds().isEmpty());
+    }
+
+    @Then("listing the wheels fails with a timeout")
+    public void listing_the_wheels_fails_with_a_timeout() {
+        assertEquals(1, failures.size());
+        assertInstanceOf(HttpTimeoutException.class, failures.get(0));
+    }
+
+    private WheelCacheBackend getRemoteCache() {
+        if (remoteCache == null) {
+            remoteCache = new HttpWheelCacheBackend(server.getUri(), Duration.ofSeconds(5), requestTimeout, username,
+                    password);
+        }
+        return remoteCache;
+    }
+}
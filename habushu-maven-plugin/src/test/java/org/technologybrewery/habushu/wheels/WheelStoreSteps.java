@@ -0,0 +1,201 @@
+package org.technologybrewery.habushu.wheels;
+
+import io.cucumber.java.After;
+import io.cucumber.java.Before;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.technologybrewery.habushu.util.InterProcessLock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WheelStoreSteps {
+
+    private File testDirectory = new File("target/wheel-store-test");
+    private File distDirectory = new File(testDirectory, "dist");
+    private File targetDirectory = new File(testDirectory, "target");
+    private WheelStore wheelStore = new WheelStore(new File(testDirectory, "store"));
+    private FileTime originalBlobModifiedTime;
+    private WheelCachePruneResult pruneResult;
+    private List<Boolean> retrievals = new ArrayList<>();
+    private ExecutorService otherBuild;
+    private CountDownLatch otherBuildFinished;
+
+    @Before
+    public void cleanUp() throws IOException {
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (otherBuild != null) {
+            otherBuildFinished.countDown();
+            otherBuild.shutdown();
+        }
+        FileUtils.deleteDirectory(testDirectory);
+    }
+
+    @Given("a wheel {string} containing {string}")
+    public void a_wheel_containing(String fileName, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(distDirectory, fileName), contents, StandardCharsets.UTF_8);
+    }
+
+    @Given("a wheel {string} of {int} bytes")
+    public void a_wheel_of_bytes(String fileName, int size) throws IOException {
+        byte[] contents = new byte[size];
+        new Random(fileName.hashCode()).nextBytes(contents);
+        FileUtils.writeByteArrayToFile(new File(distDirectory, fileName), contents);
+    }
+
+    @Given("{string} cached for {string} was last used {int} days ago")
+    public void cached_for_was_last_used_days_ago(String fileName, String artifactId, int days) throws IOException {
+        long lastUsed = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days);
+        List<CachedWheel> wheels = wheelStore.getWheels(artifactId);
+        for (CachedWheel wheel : wheels) {
+            if (wheel.getFileName().equals(fileName)) {
+                wheel.setCachedAtEpochMillis(lastUsed);
+                wheel.setLastRetrievedEpochMillis(0);
+            }
+        }
+        wheelStore.writeIndex(artifactId, wheels);
+    }
+
+    @Given("another build is using the wheel cache")
+    public void another_build_is_using_the_wheel_cache() throws InterruptedException {
+        CountDownLatch lockAcquired = new CountDownLatch(1);
+        otherBuildFinished = new CountDownLatch(1);
+        otherBuild = Executors.newSingleThreadExecutor();
+        otherBuild.submit(() -> {
+            try (InterProcessLock lock = wheelStore.lock()) {
+                lockAcquired.countDown();
+                otherBuildFinished.await();
+            }
+            return null;
+        });
+        assertTrue(lockAcquired.await(10, TimeUnit.SECONDS), "Other build should have acquired the lock");
+    }
+
+    @When("the wheel cache is pruned to a maximum age of {int} days")
+    public void the_wheel_cache_is_pruned_to_a_maximum_age_of_days(int days) {
+        pruneResult = wheelStore.prune(new WheelCacheEvictionPolicy(0, Duration.ofDays(days)));
+    }
+
+    @When("the wheel cache is pruned to a maximum size of {int} bytes")
+    public void the_wheel_cache_is_pruned_to_a_maximum_size_of_bytes(int maxBytes) {
+        pruneResult = wheelStore.prune(new WheelCacheEvictionPolicy(maxBytes, Duration.ZERO));
+    }
+
+    @When("the wheel cache is pruned without bounds")
+    public void the_wheel_cache_is_pruned_without_bounds() {
+        pruneResult = wheelStore.prune(WheelCacheEvictionPolicy.UNBOUNDED);
+    }
+
+    @When("the wheel cache is opportunistically pruned to a maximum age of {int} days")
+    public void the_wheel_cache_is_opportunistically_pruned_to_a_maximum_age_of_days(int days) {
+        pruneResult = wheelStore.tryPrune(new WheelCacheEvictionPolicy(0, Duration.ofDays(days)));
+    }
+
+    @Then("pruning was skipped")
+    public void pruning_was_skipped() {
+        assertNull(pruneResult, "Pruning should have been skipped");
+    }
+
+    @Then("the wheel store index for {string} lists only {string}")
+    public void the_wheel_store_index_for_lists_only(String artifactId, String fileName) {
+        List<CachedWheel> wheels = wheelStore.getWheels(artifactId);
+        assertEquals(1, wheels.size());
+        assertEquals(fileName, wheels.get(0).getFileName());
+    }
+
+    @Given("{string} is cached for {string}")
+    public void is_cached_for(String fileName, String artifactId) throws IOException {
+        CachedWheel cachedWheel = wheelStore.put(artifactId, new File(distDirectory, fileName));
+        if (originalBlobModifiedTime == null) {
+            originalBlobModifiedTime = Files.getLastModifiedTime(wheelStore.getBlob(cachedWheel.getSha256()).toPath());
+        }
+    }
+
+    @Given("the target directory contains {string} containing {string}")
+    public void the_target_directory_contains_containing(String fileName, String contents) throws IOException {
+        FileUtils.writeStringToFile(new File(targetDirectory, fileName), contents, StandardCharsets.UTF_8);
+    }
+
+    @Given("a build is about to retrieve the wheels cached for {string}")
+    public void a_build_is_about_to_retrieve_the_wheels_cached_for(String artifactId) {
+        wheelStore.markRetrieved(artifactId, wheelStore.getWheels(artifactId));
+    }
+
+    @When("the wheels cached for {string} are retrieved")
+    public void the_wheels_cached_for_are_retrieved(String artifactId) {
+        List<CachedWheel> wheels = wheelStore.getWheels(artifactId);
+        wheelStore.markRetrieved(artifactId, wheels);
+        for (CachedWheel cachedWheel : wheels) {
+            retrievals.add(wheelStore.retrieve(cachedWheel, targetDirectory));
+        }
+    }
+
+    @Then("the wheel store holds {int} blob(s)")
+    public void the_wheel_store_holds_blob(int count) throws IOException {
+        File blobsDirectory = new File(wheelStore.getStoreDirectory(), WheelStore.BLOBS_DIRECTORY);
+        assertEquals(count, FileUtils.listFiles(blobsDirectory, new String[]{"whl"}, true).size());
+    }
+
+    @Then("the blob of {string} was not rewritten")
+    public void the_blob_of_was_not_rewritten(String fileName) throws IOException {
+        String sha256 = WheelStore.sha256(new File(distDirectory, fileName));
+        assertEquals(originalBlobModifiedTime, Files.getLastModifiedTime(wheelStore.getBlob(sha256).toPath()));
+    }
+
+    @Then("the wheel store index for {string} lists {int} wheel(s)")
+    public void the_wheel_store_index_for_lists_wheel(String artifactId, int count) {
+        assertEquals(count, wheelStore.getWheels(artifactId).size());
+    }
+
+    @Then("the wheel store index for {string} lists version {string} with tags {string}")
+    public void the_wheel_store_index_for_lists_version_with_tags(String artifactId, String version, String tags) {
+        List<CachedWheel> wheels = wheelStore.getWheels(artifactId);
+        assertEquals(1, wheels.size());
+        assertEquals(version, wheels.get(0).getVersion());
+        assertEquals(Arrays.asList(tags.split(",")), wheels.get(0).getTags());
+    }
+
+    @Then("the retrieved {string} contains {string}")
+    public void the_retrieved_contains(String fileName, String contents) throws IOException {
+        assertEquals(contents, FileUtils.readFileToString(new File(targetDirectory, fileName), StandardCharsets.UTF_8));
+    }
+
+    @Then("the retrieved {string} was left in place")
+    public void the_retrieved_was_left_in_place(String fileName) throws IOException {
+        assertEquals(1, retrievals.size());
+        assertFalse(retrievals.get(0), "Identical wheel should not have been replaced");
+        String sha256 = WheelStore.sha256(new File(distDirectory, fileName));
+        assertFalse(Files.isSameFile(wheelStore.getBlob(sha256).toPath(), new File(targetDirectory, fileName).toPath()),
+                "Identical wheel should not have been replaced by a link to its blob");
+    }
+
+    @Then("the retrieved {string} is the same file as its blob")
+    public void the_retrieved_is_the_same_file_as_its_blob(String fileName) throws IOException {
+        String sha256 = WheelStore.sha256(new File(distDirectory, fileName));
+        assertTrue(Files.isSameFile(wheelStore.getBlob(sha256).toPath(), new File(targetDirectory, fileName).toPath()),
+                "Retrieved wheel should be a link to its blob");
+    }
+}
@@ -0,0 +1,69 @@
+Feature: Behave features are ordered by the duration and outcome of their previous runs
+
+  Background:
+    Given behave feature files "slow.feature,fast.feature,flaky.feature,fresh.feature" with 2 scenarios each
+
+  Scenario: Durations and failures are recorded from the Cucumber report of a run
+    When a behave run has results:
+      | feature       | line | duration | status  |
+      | slow.feature  | 3    | 2000     | passed  |
+      | slow.feature  | 6    | 1500     | failed  |
+      | fast.feature  | 3    | 100      | passed  |
+    Then the behave history holds 1 run
+    And "slow.feature" took 3500 ms and last failed in run 1
+    And the scenario on line 6 of "slow.feature" took 1500 ms and last failed in run 1
+    And "fast.feature" took 100 ms and last failed in run 0
+
+  Scenario: Recently failed features run first, followed by new features, then from fastest to slowest
+    Given a behave run has results:
+      | feature       | line | duration | status  |
+      | slow.feature  | 3    | 5000     | passed  |
+      | fast.feature  | 3    | 100      | passed  |
+      | flaky.feature | 3    | 9000     | failed  |
+    When the behave feature files are ordered by their history
+    Then the behave feature files are ordered "flaky.feature,fresh.feature,fast.feature,slow.feature"
+
+  Scenario: Changed features run before unchanged ones
+    Given a behave run has results:
+      | feature       | line | duration | status  |
+      | slow.feature  | 3    | 5000     | passed  |
+      | fast.feature  | 3    | 100      | passed  |
+      | flaky.feature | 3    | 200      | passed  |
+      | fresh.feature | 3    | 300      | passed  |
+    And the behave feature file "slow.feature" is changed
+    When the behave feature files are ordered by their history
+    Then the behave feature files are ordered "slow.feature,fast.feature,flaky.feature,fresh.feature"
+
+  Scenario: Failures are no longer recent once a feature passes several runs in a row
+    Given a behave run has results:
+      | feature       | line | duration | status  |
+      | flaky.feature | 3    | 9000     | failed  |
+      | fast.feature  | 3    | 100      | passed  |
+      | slow.feature  | 3    | 5000     | passed  |
+      | fresh.feature | 3    | 300      | passed  |
+    And 3 behave runs in which "flaky.feature" passes in 9000 ms
+    When the behave feature files are ordered by their history
+    Then the behave feature files are ordered "fast.feature,fresh.feature,slow.feature,flaky.feature"
+
+  Scenario: Durations of features without history are estimated from other scenarios
+    Given a behave run has results:
+      | feature       | line | duration | status  |
+      | fast.feature  | 3    | 100      | passed  |
+      | fast.feature  | 6    | 300      | passed  |
+    Then "fast.feature" is estimated to take 400 ms
+    And "fresh.feature" is estimated to take 400 ms
+    And the scenario on line 6 of "fast.feature" is estimated to take 300 ms
+    And the scenario on line 6 of "fresh.feature" is estimated to take 200 ms
+
+  Scenario: Behave history is retained between builds
+    Given a behave run has results:
+      | feature       | line | duration | status  |
+      | slow.feature  | 3    | 5000     | failed  |
+    When the behave history is saved and loaded again
+    Then the behave history holds 1 run
+    And "slow.feature" took 5000 ms and last failed in run 1
+
+  Scenario: Unreadable behave history is discarded
+    Given a behave history file containing "{not json"
+    When the behave history is loaded
+    Then the behave history holds 0 runs
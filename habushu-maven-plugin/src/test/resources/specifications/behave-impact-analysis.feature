@@ -0,0 +1,134 @@
+Feature: Only the behave features affected by changed files are run
+
+  Background:
+    Given a module file "src/shop/__init__.py" containing ""
+    And a module file "src/shop/cart.py" containing:
+      """
+      class Cart:
+          pass
+      """
+    And a module file "src/shop/payment.py" containing:
+      """
+      from .currency import convert  # relative import
+      """
+    And a module file "src/shop/currency.py" containing:
+      """
+      def convert(amount):
+          return amount
+      """
+    And a module file "src/shop/unused.py" containing ""
+    And a module file "tests/features/steps/cart_steps.py" containing:
+      """
+      from behave import given, when, then
+      import shop.cart as cart
+
+
+      @given('a cart with {count:d} items')
+      def step_impl(context, count):
+          context.cart = cart.Cart()
+
+
+      @then("the cart is empty")
+      def step_impl(context):
+          pass
+      """
+    And a module file "tests/features/steps/payment_steps.py" containing:
+      """
+      from behave import when, use_step_matcher
+      from shop import (
+          payment,
+      )
+
+      use_step_matcher("re")
+
+
+      @when(r'I pay (?P<amount>\d+) by (card|cash)')
+      def step_impl(context, amount):
+          pass
+      """
+    And a module file "tests/features/environment.py" containing:
+      """
+      import logging
+      """
+    And a module file "tests/features/cart.feature" containing:
+      """
+      Feature: Cart
+        Scenario: Empty cart
+          Given a cart with 0 items
+          Then the cart is empty
+      """
+    And a module file "tests/features/payment.feature" containing:
+      """
+      Feature: Payment
+        Scenario: Paying
+          Given a cart with 2 items
+          When I pay 10 by card
+      """
+    And a module file "tests/features/typo.feature" containing:
+      """
+      Feature: Typo
+        Scenario: Undefined step
+          When something nobody implemented happens
+      """
+
+  Scenario: Features are affected by modules their step implementations import
+    When "src/shop/cart.py" changes
+    Then the affected features are "cart.feature,payment.feature,typo.feature"
+
+  Scenario: Features are affected by modules imported transitively via relative imports
+    When "src/shop/currency.py" changes
+    Then the affected features are "payment.feature,typo.feature"
+
+  Scenario: Features are affected by changes to their step implementations
+    When "tests/features/steps/payment_steps.py" changes
+    Then the affected features are "payment.feature,typo.feature"
+
+  Scenario: Features are affected by changes to themselves
+    When "tests/features/cart.feature" changes
+    Then the affected features are "cart.feature"
+
+  Scenario: Modules that no step implementation imports affect no features
+    When "src/shop/unused.py" changes
+    Then no features are affected
+    And no change affects every feature
+
+  Scenario: Files outside the module's sources and tests affect no features
+    When "README.md" changes
+    Then no features are affected
+    And no change affects every feature
+
+  Scenario Outline: Some changes affect every feature
+    When "<file>" changes
+    Then "<file>" affects every feature
+
+    Examples:
+      | file                                |
+      | poetry.lock                         |
+      | tests/features/environment.py       |
+      | tests/features/data/customers.csv   |
+      | src/shop/deleted.py                 |
+
+  Scenario: The behave goal runs only the features affected by files changed since the last successful run
+    Given a git repository holding the module
+    And "src/shop/currency.py" is modified without committing
+    When the behave goal runs with impact analysis since the last commit
+    Then behave runs only the features "payment.feature,typo.feature"
+
+  Scenario: Files changed since a git ref include uncommitted and untracked files
+    Given a git repository holding the module
+    And "src/shop/cart.py" is modified without committing
+    And an untracked module file "src/shop/new.py"
+    When the files changed since "HEAD" are determined
+    Then the changed files are "src/shop/cart.py,src/shop/new.py"
+
+  Scenario: Files changed since a commit on another branch include those only that branch changed
+    Given a git repository holding the module
+    And "src/shop/cart.py" is modified by a commit on another branch "last-successful-run"
+    When the files changed since "last-successful-run" are determined
+    Then the changed files are "src/shop/cart.py"
+
+  Scenario: Files changed since the fork point of a ref exclude those only the ref changed
+    Given a git repository holding the module
+    And "src/shop/cart.py" is modified by a commit on another branch "origin-main"
+    When the files changed since the fork point of "origin-main" are determined
+    Then no files changed
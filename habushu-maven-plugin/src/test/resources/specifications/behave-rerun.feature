@@ -0,0 +1,50 @@
+Feature: Failed behave scenarios are recorded so that they may be rerun
+
+  Scenario: Failed scenarios are read from a Cucumber report
+    Given a Cucumber report in which "features/checkout.feature" has scenarios with results:
+      | type       | line | status    |
+      | background | 3    | passed    |
+      | scenario   | 6    | passed    |
+      | background | 3    | passed    |
+      | scenario   | 10   | failed    |
+      | background | 3    | passed    |
+      | scenario   | 14   | undefined |
+      | background | 3    | failed    |
+      | scenario   | 18   | skipped   |
+      | scenario   | 22   | skipped   |
+    When the failed scenarios are read from the Cucumber report
+    Then the failed scenarios are "features/checkout.feature:10,features/checkout.feature:14,features/checkout.feature:18"
+
+  Scenario: Failed scenarios are written in the format of behave's rerun formatter
+    Given failed scenarios "features/checkout.feature:10,features/nested/login.feature:4"
+    When the failed scenarios are written to "rerun.features"
+    Then "rerun.features" contains lines "# -- RERUN: 2 failing scenarios during last test run.,features/checkout.feature:10,features/nested/login.feature:4"
+    And reading "rerun.features" returns the failed scenarios "features/checkout.feature:10,features/nested/login.feature:4"
+
+  Scenario: Comments and blank lines are ignored when reading failed scenarios
+    Given a rerun file "rerun.features" containing:
+      """
+      # -- RERUN: 1 failing scenarios during last test run.
+
+      features/checkout.feature:10
+      """
+    Then reading "rerun.features" returns the failed scenarios "features/checkout.feature:10"
+
+  Scenario: No failed scenarios are read when no run was recorded
+    Then reading "missing.features" returns no failed scenarios
+
+  Scenario: Results of retried scenarios replace their original results
+    Given a Cucumber report in which "features/checkout.feature" has scenarios with results:
+      | type       | line | status |
+      | background | 3    | passed |
+      | scenario   | 6    | passed |
+      | background | 3    | passed |
+      | scenario   | 10   | failed |
+    And a retry Cucumber report in which the absolute path of "features/checkout.feature" has scenarios with results:
+      | type       | line | status |
+      | background | 3    | passed |
+      | scenario   | 10   | passed |
+    When the retried scenarios replace those within the Cucumber report
+    Then 1 retried scenario is replaced
+    And the Cucumber report holds "background:3:passed,scenario:6:passed,background:3:passed,scenario:10:passed"
+    And no failed scenarios are read from the Cucumber report
@@ -0,0 +1,61 @@
+Feature: Behave features are split across shards that run concurrently
+
+  Scenario: Feature files and their scenarios are discovered
+    Given a behave feature file "checkout.feature" containing:
+      """
+      Feature: Checkout
+
+        Background:
+          Given a cart
+
+        Scenario: Paying by card
+          When I pay by card
+
+        # Scenario: commented out
+        Scenario Outline: Paying by <method>
+          When I pay by <method>
+
+          Examples:
+            | method |
+            | cash   |
+
+        Example: Paying by voucher
+          When I pay by voucher
+      """
+    And a behave feature file "nested/login.feature" containing:
+      """
+      Feature: Login
+        Scenario: Logging in
+          When I log in
+      """
+    When the behave feature files are discovered
+    Then the feature files "checkout.feature,nested/login.feature" are discovered
+    And "checkout.feature" defines scenarios on lines "6,10,17"
+    And "nested/login.feature" defines scenarios on lines "2"
+
+  Scenario: Shards are balanced by cost
+    When items with costs "5,3,3,2,1" are planned into 2 shards
+    Then the shards hold items "0,3" and "1,2,4"
+
+  Scenario: Items keep their relative order within each shard
+    When items with costs "1,1,1,1,1,1" are planned into 3 shards
+    Then the shards hold items "0,3" and "1,4" and "2,5"
+
+  Scenario: There are never more shards than items
+    When items with costs "4,2" are planned into 8 shards
+    Then the shards hold items "0" and "1"
+
+  Scenario: Cucumber reports of shards are merged into one report
+    Given a shard Cucumber report "cucumber-1.json" holding scenarios on lines "10,30" of "checkout.feature"
+    And a shard Cucumber report "cucumber-2.json" holding scenarios on lines "20" of "checkout.feature"
+    And a shard Cucumber report "cucumber-3.json" holding scenarios on lines "5" of "login.feature"
+    When the shard Cucumber reports "cucumber-1.json,cucumber-2.json,cucumber-3.json,cucumber-4.json" are merged
+    Then the merged report holds 2 features
+    And the merged report holds scenarios on lines "10,20,30" of "checkout.feature"
+    And the merged report holds scenarios on lines "5" of "login.feature"
+
+  Scenario: Backgrounds stay with their scenarios when reports are merged
+    Given a shard Cucumber report "cucumber-1.json" holding scenarios with backgrounds on lines "30" of "checkout.feature"
+    And a shard Cucumber report "cucumber-2.json" holding scenarios with backgrounds on lines "10" of "checkout.feature"
+    When the shard Cucumber reports "cucumber-1.json,cucumber-2.json" are merged
+    Then the merged report holds elements "background:3,scenario:10,background:3,scenario:30" of "checkout.feature"
@@ -0,0 +1,64 @@
+Feature: Behave results are cached while their inputs are unchanged
+
+  Scenario: Fingerprints do not depend on where a module is checked out
+    Given a module "checkout-1" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "src/app/main.py" containing "print('hello')"
+    Then the behave test fingerprints of "checkout-1" and "checkout-2" are the same
+
+  Scenario: Fingerprints change when a source file changes
+    Given a module "checkout-1" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "src/app/main.py" containing "print('goodbye')"
+    Then the behave test fingerprints of "checkout-1" and "checkout-2" differ
+
+  Scenario: Fingerprints change when a file is added
+    Given a module "checkout-1" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "tests/features/new.feature" containing "Feature: New"
+    Then the behave test fingerprints of "checkout-1" and "checkout-2" differ
+
+  Scenario: Python bytecode caches do not affect fingerprints
+    Given a module "checkout-1" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2" with file "src/app/__pycache__/main.cpython-311.pyc" containing "bytecode"
+    Then the behave test fingerprints of "checkout-1" and "checkout-2" are the same
+
+  Scenario: Fingerprints change when behave options change
+    Given a module "checkout-1" with file "src/app/main.py" containing "print('hello')"
+    Then the behave test fingerprints of "checkout-1" with options "--no-skipped" and "--no-skipped --stop" differ
+
+  Scenario: Fingerprints change when the sources of a local path dependency change
+    Given a module "checkout-1/app" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-1/common" with file "src/common/util.py" containing "VALUE = 1"
+    And a module "checkout-2/app" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2/common" with file "src/common/util.py" containing "VALUE = 2"
+    Then the behave test fingerprints of "checkout-1/app" and "checkout-2/app" with path dependency "../common" differ
+
+  Scenario: Build outputs of a local path dependency do not affect fingerprints
+    Given a module "checkout-1/app" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-1/common" with file "src/common/util.py" containing "VALUE = 1"
+    And a module "checkout-2/app" with file "src/app/main.py" containing "print('hello')"
+    And a module "checkout-2/common" with file "src/common/util.py" containing "VALUE = 1"
+    And a module "checkout-2/common" with file "target/common-1.0.0-py3-none-any.whl" containing "wheel"
+    Then the behave test fingerprints of "checkout-1/app" and "checkout-2/app" with path dependency "../common" are the same
+
+  Scenario: Passed results are restored along with their Cucumber report
+    Given behave results for fingerprint "abc" that passed with a Cucumber report containing "[]"
+    When the behave results for fingerprint "abc" are restored
+    Then the restored behave results passed
+    And the restored Cucumber report contains "[]"
+
+  Scenario: Failed results cached by a previous version are not restored
+    Given behave results for fingerprint "abc" that failed were cached by a previous version
+    When the behave results for fingerprint "abc" are restored
+    Then no behave results are restored
+
+  Scenario: Results of other inputs are not restored
+    Given behave results for fingerprint "abc" that passed with a Cucumber report containing "[]"
+    When the behave results for fingerprint "def" are restored
+    Then no behave results are restored
+
+  Scenario: Invalidated results are not restored
+    Given behave results for fingerprint "abc" that passed with a Cucumber report containing "[]"
+    And the cached behave results are invalidated
+    When the behave results for fingerprint "abc" are restored
+    Then no behave results are restored
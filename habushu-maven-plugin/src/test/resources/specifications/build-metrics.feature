@@ -0,0 +1,41 @@
+Feature: Time spent in Habushu goals and processes is recorded for each module
+
+  Scenario: Processes launched by a goal are recorded with their output volume and exit code
+    Given the "install-dependencies" goal of module "module-a" is being recorded
+    When a process writing 1000 bytes to stdout and 10 bytes to stderr exits with 0
+    Then module "module-a" recorded 1 process for the "install-dependencies" goal
+    And the recorded process wrote 1000 bytes to stdout and 10 bytes to stderr
+    And the recorded process exited with 0
+    And the recorded process has its elapsed and CPU time
+
+  Scenario: The exit code of failing processes is recorded
+    Given the "install-dependencies" goal of module "module-a" is being recorded
+    When a process writing 0 bytes to stdout and 0 bytes to stderr exits with 3
+    Then the recorded process exited with 3
+
+  Scenario: Processes are masked as requested when recorded
+    Given the "publish-to-pypi-repo" goal of module "module-a" is being recorded
+    When a process recorded as "poetry publish --password XXXX" is executed
+    Then the recorded process command is "poetry publish --password XXXX"
+
+  Scenario: Repository passwords are masked in the metrics file
+    Given the "install-dependencies" goal of module "module-a" is being recorded
+    When the password "s3cr3t-passw0rd" of user "deployer" is configured for repository "private-pypi"
+    And the metrics of module "module-a" are written
+    Then the recorded process command is "poetry config http-basic.private-pypi deployer XXXX"
+    And the metrics file "target/build-metrics-test/module-a/habushu-metrics.json" does not contain "s3cr3t-passw0rd"
+
+  Scenario: Processes launched outside of a goal are not recorded
+    When a process writing 10 bytes to stdout and 0 bytes to stderr exits with 0
+    Then no processes were recorded
+
+  Scenario: Module metrics are written as JSON
+    Given the "install-dependencies" goal of module "module-a" is being recorded
+    When a process writing 10 bytes to stdout and 0 bytes to stderr exits with 0
+    And the metrics of module "module-a" are written
+    Then the metrics file of module "module-a" lists 1 process
+
+  Scenario: The reactor summary lists the slowest modules first
+    Given module "fast-module" spent 100 milliseconds in goals
+    And module "slow-module" spent 5000 milliseconds in goals
+    Then the reactor summary lists "slow-module" before "fast-module"
@@ -105,4 +105,34 @@ Feature: Test dependency management capabilities to help align package versions
     Examples:
       | package                     | operatorAndVersion |
       | local-dev-package-example-a | 10-SNAPSHOT        |
-      | local-dev-package-example-b | 2.14.5-SNAPSHOT    |
\ No newline at end of file
+      | local-dev-package-example-b | 2.14.5-SNAPSHOT    |
+
+  Scenario Outline: Managed dependencies match pyproject.toml dependencies regardless of how their names are written
+    Given a Habushu configuration with a managed dependency of "<managedPackage>" and "<operatorAndVersion>"
+    When Habushu executes
+    Then the pyproject.toml file is updated to contain "<package>" and "<operatorAndVersion>"
+
+    Examples:
+      | managedPackage | package   | operatorAndVersion |
+      | Black          | black     | ^23.3.0            |
+      | package_a      | package-a | 2.0.0              |
+      | Package.B      | package-b | 3                  |
+
+  Scenario: The Poetry version is only resolved once when several SNAPSHOT dependencies are managed
+    Given a Habushu configuration with SNAPSHOT managed dependencies of "package-a" and "package-b"
+    When Habushu executes
+    Then the Poetry version was resolved 1 time
+
+  Scenario: Mismatches are recorded in a managed dependency report
+    Given a Habushu configuration with dependency management entries
+    And update managed dependencies when found is disabled
+    And a managed dependency report file is configured
+    When Habushu executes
+    Then the managed dependency report has the outcome "REPORTED"
+    And the managed dependency report records "black" in "tool.poetry.dev-dependencies" as "^18.0.0" instead of "^23.3.0"
+
+  Scenario: Conforming dependencies are recorded in the managed dependency report
+    Given a Habushu configuration with a managed dependency of "black" and "^18.0.0"
+    And a managed dependency report file is configured
+    When Habushu executes
+    Then the managed dependency report has the outcome "CONFORMING"
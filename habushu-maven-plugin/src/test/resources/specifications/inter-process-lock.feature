@@ -0,0 +1,14 @@
+Feature: Machine-wide toolchain mutations are serialized across modules and builds
+
+  Scenario: Threads holding the same lock never overlap
+    When 8 threads each hold the "pyenv-install" lock 5 times
+    Then at most 1 thread held the lock at a time
+
+  Scenario: Threads holding different locks run concurrently
+    When 2 threads hold the "poetry-self" and "poetry-config" locks at the same time
+    Then both threads held their lock concurrently
+
+  Scenario: A lock may be reacquired by the thread that holds it
+    When a thread acquires the "poetry-config" lock twice
+    Then the thread still holds the lock after releasing it once
+    And another thread can acquire the lock once it is fully released
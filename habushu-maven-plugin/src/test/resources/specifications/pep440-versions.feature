@@ -0,0 +1,66 @@
+Feature: Python package versions are ordered and matched per PEP 440
+
+  Scenario Outline: Versions are ordered per PEP 440
+    Then version "<lower>" is lower than "<higher>"
+
+    Examples:
+      | lower           | higher          |
+      | 1.0.dev1        | 1.0a1           |
+      | 1.0a1           | 1.0a2           |
+      | 1.0a2           | 1.0b1           |
+      | 1.0b1           | 1.0rc1          |
+      | 1.0rc1          | 1.0             |
+      | 1.0             | 1.0.post1       |
+      | 1.0.post1.dev1  | 1.0.post1       |
+      | 1.0             | 1.0+local.1     |
+      | 1.9             | 1.10            |
+      | 2.0             | 1!1.0           |
+      | 1.0.dev202310101200 | 1.0.dev202310101201 |
+
+  Scenario Outline: Alternate spellings of versions are normalized
+    Then version "<version>" is normalized to "<normalized>"
+
+    Examples:
+      | version         | normalized   |
+      | 1.0-alpha.1     | 1.0a1        |
+      | 1.0_dev1        | 1.0.dev1     |
+      | 1.0-1           | 1.0.post1    |
+      | v1.0.0-RC.2     | 1.0.0rc2     |
+      | 1.0c1           | 1.0rc1       |
+
+  Scenario: Trailing zeros do not affect equality
+    Then version "1.0" is equal to "1.0.0"
+
+  Scenario Outline: Versions are matched against specifiers
+    Then version "<version>" <matches> "<specifier>"
+
+    Examples:
+      | version    | matches          | specifier      |
+      | 1.2.0      | matches          | 1.2.0          |
+      | 1.2.0      | matches          | ==1.2          |
+      | 1.2.3      | matches          | ==1.2.*        |
+      | 1.3.0      | does not match   | ==1.2.*        |
+      | 1.2.3      | does not match   | !=1.2.*        |
+      | 1.4.5      | matches          | ~=1.4.2        |
+      | 1.5.0      | does not match   | ~=1.4.2        |
+      | 1.9        | matches          | ~=1.4          |
+      | 2.0        | does not match   | ~=1.4          |
+      | 1.5        | matches          | >=1.2,<2       |
+      | 2.0        | does not match   | >=1.2,<2       |
+      | 2.0rc1     | does not match   | <2.0           |
+      | 2.0rc1     | matches          | >=2.0rc1       |
+      | 1.0.post1  | does not match   | >1.0           |
+      | 1.0.post2  | matches          | >1.0.post1     |
+      | 1.0+local  | matches          | ==1.0          |
+      | 1.0        | does not match   | ==1.0+local    |
+      | 1.1.dev1   | does not match   | >=1.0          |
+
+  Scenario: Pre-releases are selected when no final release matches
+    Then filtering "1.0a1,1.0b2" by ">=1.0a0" selects "1.0a1,1.0b2"
+    And filtering "0.9,1.0b2" by ">=0.5" selects "0.9"
+    And filtering "1.0b2,1.1.dev1" by ">=1.0" selects "1.1.dev1"
+
+  Scenario: Invalid specifiers are rejected
+    Then specifier ">=1.2.*" is rejected
+    And specifier "~=1" is rejected
+    And specifier ">=not-a-version" is rejected
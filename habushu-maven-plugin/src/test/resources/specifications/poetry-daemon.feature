@@ -0,0 +1,69 @@
+Feature: Poetry commands may be executed by a long-lived daemon
+
+  Scenario Outline: Only commands that are safe to run in-process are sent to the daemon
+    Then the Poetry command "<command>" is supported by the daemon: <supported>
+
+    Examples:
+      | command              | supported |
+      | lock --no-update     | true      |
+      | install --sync       | true      |
+      | -vvv show pytest     | true      |
+      | env info --path      | true      |
+      | run behave           | false     |
+      | shell                | false     |
+      | self add my-plugin   | false     |
+      | --version            | false     |
+
+  Scenario: Output of a daemon command is captured like that of the CLI
+    When the Poetry command "echo hello world" is executed via the daemon
+    Then the command result is "hello world"
+
+  Scenario: A daemon command that exits with a non-zero code fails like the CLI
+    When the Poetry command "fail" is executed via the daemon and its output is logged
+    Then the command failed with exit code 3
+
+  Scenario: A daemon is reused by subsequent commands
+    When the Poetry command "pid" is executed via the daemon
+    And the Poetry command "pid" is executed via the daemon again
+    Then both commands were executed by the same daemon
+
+  Scenario: Daemons are replaced after they are shut down
+    When the Poetry command "pid" is executed via the daemon
+    And all Poetry daemons are shut down
+    And the Poetry command "pid" is executed via the daemon again
+    Then the commands were executed by different daemons
+
+  Scenario: Output of a daemon command is streamed as it is produced
+    When the Poetry command awaiting "target/poetry-daemon-output-received" is executed via the daemon, which creates it upon receiving output
+    Then the command succeeded
+
+  Scenario: Daemons execute commands with the environment of the CLI
+    Given Poetry commands are executed with the environment variable "HABUSHU_DAEMON_TEST" set to "first"
+    When the Poetry command "env HABUSHU_DAEMON_TEST" is executed via the daemon
+    Then the command result is "first"
+
+  Scenario: A daemon is not reused by commands executed with a different environment
+    Given Poetry commands are executed with the environment variable "HABUSHU_DAEMON_TEST" set to "first"
+    When the Poetry command "pid" is executed via the daemon
+    And Poetry commands are executed with the environment variable "HABUSHU_DAEMON_TEST" set to "second"
+    And the Poetry command "pid" is executed via the daemon again
+    Then the commands were executed by different daemons
+
+  Scenario Outline: Commands are not re-run with the CLI when the daemon fails while executing them
+    When the Poetry command "<command>" is executed via the daemon and its output is streamed
+    Then the command failed without being re-run with the CLI
+
+    Examples:
+      | command |
+      | garbage |
+      | crash   |
+
+  Scenario: Commands fall back to the CLI when the daemon cannot import Poetry
+    Given a Poetry daemon that cannot import Poetry
+    When the Poetry command "echo hello" is executed via the daemon
+    Then the command result is "cli: echo hello"
+
+  Scenario: Commands fall back to the CLI when the daemon cannot be started
+    Given a Poetry daemon that cannot be started
+    When the Poetry command "echo hello" is executed via the daemon
+    Then the command result is "cli: echo hello"
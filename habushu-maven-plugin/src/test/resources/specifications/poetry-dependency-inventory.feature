@@ -0,0 +1,30 @@
+Feature: Tool dependencies are looked up and installed in batches
+
+  Background:
+    Given a Poetry project whose "poetry show" output is:
+      """
+      behave                    1.2.6      behave is behaviour-driven development, Python style
+      black                 (!) 23.12.1    The uncompromising code formatter.
+      Parse_Type                0.6.2      Simplifies building parse types based on the parse module
+      """
+
+  Scenario: Installed packages are listed once for multiple lookups
+    Then "behave" is a known dependency
+    And "black" is a known dependency
+    And "parse-type" is a known dependency
+    And "Behave-Cucumber.Formatter" is not a known dependency
+    And the dependencies were listed 1 time
+
+  Scenario: Missing tool dependencies are added in a single command
+    When the tool dependencies "behave, behave-cucumber-formatter, pytest" are ensured
+    Then "poetry add behave-cucumber-formatter pytest --group dev" is executed
+    And no other packages are added
+
+  Scenario: Nothing is added when all tool dependencies are present
+    When the tool dependencies "behave, black" are ensured
+    Then no packages are added
+
+  Scenario: Adding dependencies refreshes the inventory
+    When the tool dependencies "pytest" are ensured
+    And "pytest" is looked up
+    Then the dependencies were listed 2 times
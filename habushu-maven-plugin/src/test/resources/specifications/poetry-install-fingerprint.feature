@@ -0,0 +1,50 @@
+Feature: poetry install is skipped when the virtual environment is up to date
+
+  Background:
+    Given a Poetry project with a poetry.lock
+    And a virtual environment created with Python "3.11.4"
+    And dependencies were installed with "install --with dev"
+
+  Scenario: The install is current when nothing has changed
+    Then installing with "install --with dev" is not required
+
+  Scenario: Changing poetry.lock requires an install
+    When poetry.lock is changed
+    Then installing with "install --with dev" is required
+
+  Scenario: Installing into an existing virtual environment resolves its location once
+    When poetry.lock is changed
+    And dependencies are installed by the install-dependencies goal with "install --with dev"
+    Then Poetry runs "install --with dev"
+    And the location of the virtual environment is resolved 1 time
+    And installing with "install --with dev" is not required
+
+  Scenario: Selecting different groups requires an install
+    Then installing with "install --with dev --without docs" is required
+
+  Scenario: Recreating the virtual environment with another interpreter requires an install
+    When the virtual environment is recreated with Python "3.12.1"
+    Then installing with "install --with dev" is required
+
+  Scenario: A virtual environment missing its interpreter requires an install
+    When the virtual environment's Python interpreter is deleted
+    Then installing with "install --with dev" is required
+
+  Scenario: Changing the sources of a local path dependency requires an install
+    Given the project has a local path dependency on "shared"
+    And dependencies were installed with "install --with dev"
+    When a source file of the local path dependency "shared" is changed
+    Then installing with "install --with dev" is required
+
+  Scenario Outline: Build outputs of a local path dependency do not require an install
+    Given the project has a local path dependency on "shared"
+    And dependencies were installed with "install --with dev"
+    When the local path dependency "shared" writes build output to "<output>"
+    Then installing with "install --with dev" is not required
+
+    Examples:
+      | output                              |
+      | target/habushu-metrics.json         |
+      | dist/shared-1.0.0-py3-none-any.whl  |
+      | src/shared/__pycache__/__init__.pyc |
+      | .venv/pyvenv.cfg                    |
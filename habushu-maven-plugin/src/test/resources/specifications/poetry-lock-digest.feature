@@ -0,0 +1,34 @@
+Feature: poetry lock is skipped when its inputs are unchanged
+
+  Background:
+    Given a Poetry project with a dependency on "requests" version "^2.31.0"
+    And poetry.lock has been resolved and its digest recorded
+
+  Scenario: poetry.lock is current when nothing has changed
+    Then poetry.lock is current
+
+  Scenario: Changes outside of dependency sections do not invalidate poetry.lock
+    When the project description is changed
+    Then poetry.lock is current
+
+  Scenario: Changing a dependency invalidates poetry.lock
+    When the dependency on "requests" is changed to "^2.32.0"
+    Then poetry.lock is not current
+
+  Scenario: Modifying poetry.lock invalidates its recorded digest
+    When poetry.lock is modified
+    Then poetry.lock is not current
+
+  Scenario: Changing managed dependencies invalidates poetry.lock
+    When the managed dependencies are changed
+    Then poetry.lock is not current
+
+  Scenario: Changing a local path dependency invalidates poetry.lock
+    Given the project depends on a local path dependency
+    And poetry.lock has been resolved and its digest recorded
+    When the local path dependency's pyproject.toml is changed
+    Then poetry.lock is not current
+
+  Scenario: A removed digest invalidates poetry.lock
+    When the poetry.lock digest is invalidated
+    Then poetry.lock is not current
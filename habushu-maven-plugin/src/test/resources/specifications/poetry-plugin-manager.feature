@@ -0,0 +1,48 @@
+Feature: Required Poetry plugins are only installed when needed
+
+  Scenario: Installed plugins are parsed from poetry self show plugins output
+    When the installed Poetry plugins are listed as:
+      """
+        • poetry-monorepo-dependency-plugin (1.2.1) Poetry plugin that rewrites path dependencies
+            2 application plugins
+
+            Dependencies
+              - poetry (>=1.5.0,<2.0.0)
+
+        • Poetry_Plugin.Export (1.6.0) Poetry plugin to export dependencies
+      """
+    Then the installed version of "poetry-monorepo-dependency-plugin" is "1.2.1"
+    And the installed version of "poetry-plugin-export" is "1.6.0"
+
+  Scenario: A pinned plugin version that is already installed is not reinstalled
+    Given "poetry-monorepo-dependency-plugin" version "1.2.1" is installed
+    When "poetry-monorepo-dependency-plugin" version "1.2.1" is required
+    Then no plugin is installed
+
+  Scenario: A pinned plugin version that differs from the installed version is installed
+    Given "poetry-monorepo-dependency-plugin" version "1.1.0" is installed
+    When "poetry-monorepo-dependency-plugin" version "1.2.1" is required
+    Then "poetry-monorepo-dependency-plugin==1.2.1" is installed
+
+  Scenario: Installed plugins are only inspected once per build
+    Given "poetry-monorepo-dependency-plugin" version "1.2.1" is installed
+    When "poetry-monorepo-dependency-plugin" version "1.2.1" is required by 3 modules
+    Then the installed plugins are listed 1 time
+
+  Scenario: Updates to the latest plugin version are only checked once per update check interval
+    Given "poetry-monorepo-dependency-plugin" version "1.2.1" is installed
+    When "poetry-monorepo-dependency-plugin" version "latest" is required
+    And a subsequent build requires "poetry-monorepo-dependency-plugin" version "latest"
+    Then "poetry-monorepo-dependency-plugin@latest" is installed 1 time
+
+  Scenario: A plugin removed within the update check interval is reinstalled
+    Given "poetry-monorepo-dependency-plugin" version "1.2.1" is installed
+    When "poetry-monorepo-dependency-plugin" version "latest" is required
+    And no Poetry plugins are installed
+    And a subsequent build requires "poetry-monorepo-dependency-plugin" version "latest"
+    Then "poetry-monorepo-dependency-plugin@latest" is installed 2 times
+
+  Scenario: Missing plugins are not installed when Maven is offline
+    Given Maven is offline
+    When "poetry-monorepo-dependency-plugin" version "latest" is required
+    Then no plugin is installed
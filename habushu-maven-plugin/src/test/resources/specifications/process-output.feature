@@ -0,0 +1,27 @@
+Feature: Process output is classified and captured efficiently
+
+  Scenario Outline: Lines of process output are logged at the level of the keyword they contain
+    Then the output line "<line>" is logged at "<level>"
+
+    Examples:
+      | line                                             | level |
+      | Installing dependencies from lock file           | INFO  |
+      | Warning: poetry.lock is not consistent           | WARN  |
+      | FileNotFoundError: [Errno 2] No such file        | ERROR |
+      | critical failure in behave                       | ERROR |
+      | [DEBUG] resolving dependencies                   | DEBUG |
+      | WARNING and an error in the same line            | ERROR |
+      | err                                              | INFO  |
+
+  Scenario: Only the tail of large output is retained
+    When 10000 bytes of output are written to a tail buffer of 4096 bytes in chunks of 1000
+    Then the tail buffer retains the last 4096 bytes
+    And the tail buffer reports that earlier output was omitted
+
+  Scenario: Small output is retained in full
+    When 100 bytes of output are written to a tail buffer of 4096 bytes in chunks of 7
+    Then the tail buffer retains the last 100 bytes
+
+  Scenario: A single write larger than the tail buffer keeps its end
+    When 10000 bytes of output are written to a tail buffer of 4096 bytes in chunks of 10000
+    Then the tail buffer retains the last 4096 bytes
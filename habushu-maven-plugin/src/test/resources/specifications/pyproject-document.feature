@@ -0,0 +1,33 @@
+Feature: pyproject.toml is parsed once and written back at most once per build
+
+  Background:
+    Given a pyproject.toml with a dependency on "requests" version "^2.31.0"
+
+  Scenario: An unchanged pyproject.toml is only read and parsed once
+    When the pyproject.toml document is loaded twice
+    Then the same parsed configuration is returned both times
+
+  Scenario: Changes made to pyproject.toml by other tools are picked up
+    Given the pyproject.toml document has been loaded
+    When the dependency on "requests" is changed to "^2.32.0" outside of the document
+    Then the pyproject.toml document has a dependency on "requests" version "^2.32.0"
+
+  Scenario: An unedited document is not written back
+    Given the pyproject.toml document has been loaded
+    When the pyproject.toml document is saved
+    Then pyproject.toml was not rewritten
+
+  Scenario: Edits that do not change the content are not written back
+    Given the pyproject.toml document has been loaded
+    When the pyproject.toml document's lines are replaced with the same lines
+    And the pyproject.toml document is saved
+    Then pyproject.toml was not rewritten
+
+  Scenario: Several edits are written back together
+    Given the pyproject.toml document has been loaded
+    When the dependency on "requests" is changed to "^2.32.0" within the document
+    And a dependency on "urllib3" version "^2.0.0" is added within the document
+    Then pyproject.toml was not rewritten
+    When the pyproject.toml document is saved
+    Then pyproject.toml has a dependency on "requests" version "^2.32.0"
+    And pyproject.toml has a dependency on "urllib3" version "^2.0.0"
@@ -0,0 +1,43 @@
+Feature: Habushu modules are scheduled according to their pyproject.toml path dependencies
+
+  Scenario: A path dependency on another Habushu module becomes a reactor dependency
+    Given a Habushu module "core"
+    And a Habushu module "service" with a path dependency on "core"
+    When the reactor is read
+    Then "service" depends on "core" with type "habushu"
+    And "core" has no dependencies
+
+  Scenario: Explicitly declared dependencies are not duplicated
+    Given a Habushu module "core"
+    And a Habushu module "service" with a path dependency on "core"
+    And "service" already declares a dependency on "core"
+    When the reactor is read
+    Then "service" has 1 dependency on "core"
+
+  Scenario: Path dependency inference can be disabled
+    Given a Habushu module "core"
+    And a Habushu module "service" with a path dependency on "core"
+    And the "habushu.reactor.inferPathDependencies" property is "false"
+    When the reactor is read
+    Then "service" has 0 dependencies on "core"
+
+  Scenario: Independent Habushu modules are built with a bounded worker pool
+    Given a Habushu module "core"
+    And a Habushu module "service" with a path dependency on "core"
+    And a Habushu module "tools"
+    And the "habushu.reactor.threads" property is "8"
+    When the reactor is read
+    Then the build uses the multithreaded builder with 3 threads
+
+  Scenario: An explicit degree of concurrency is left unchanged
+    Given a Habushu module "core"
+    And a Habushu module "tools"
+    And the build was started with 2 threads
+    And the "habushu.reactor.threads" property is "8"
+    When the reactor is read
+    Then the build uses 2 threads
+
+  Scenario: Process output is attributed to the module that launched it
+    Given process output is attributed to module "service"
+    Then process output lines are prefixed with "[service] "
+    And a thread started by the module inherits the prefix "[service] "
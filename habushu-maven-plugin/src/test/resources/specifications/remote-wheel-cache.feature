@@ -0,0 +1,79 @@
+Feature: Cached wheels are shared across machines via a remote wheel cache
+
+  Scenario: Cached wheels are published to an HTTP wheel cache
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    When the wheels cached locally for "foo" are published to the remote wheel cache
+    Then the remote wheel cache lists "foo-1.0.0-py3-none-any.whl" for "foo"
+    And the remote wheel cache holds 1 blob
+
+  Scenario: Blobs already held by an HTTP wheel cache are not uploaded again
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "shared" is cached locally for "foo"
+    And "bar-1.0.0-py3-none-any.whl" containing "shared" is cached locally for "bar"
+    When the wheels cached locally for "foo" are published to the remote wheel cache
+    And the wheels cached locally for "bar" are published to the remote wheel cache
+    Then the remote wheel cache lists "bar-1.0.0-py3-none-any.whl" for "bar"
+    And the HTTP wheel cache received 1 blob upload
+
+  Scenario: Publishing a new version keeps previously published versions
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "1.0.0" is cached locally for "foo"
+    And the wheels cached locally for "foo" are published to the remote wheel cache
+    And "foo-1.1.0-py3-none-any.whl" containing "1.1.0" is cached locally for "foo"
+    When the wheels cached locally for "foo" are published to the remote wheel cache
+    Then the remote wheel cache lists "foo-1.0.0-py3-none-any.whl" for "foo"
+    And the remote wheel cache lists "foo-1.1.0-py3-none-any.whl" for "foo"
+
+  Scenario: Wheels downloaded from an HTTP wheel cache are imported into another local store
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    And the wheels cached locally for "foo" are published to the remote wheel cache
+    When the wheels of "foo" are downloaded from the remote wheel cache into another local store
+    Then the other local store holds "foo-1.0.0-py3-none-any.whl" containing "foo" for "foo"
+
+  Scenario: Wheels whose downloaded bytes do not match their digest are not imported
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    And the wheels cached locally for "foo" are published to the remote wheel cache
+    And the blob of "foo-1.0.0-py3-none-any.whl" is corrupted within the HTTP wheel cache
+    When the wheels of "foo" are downloaded from the remote wheel cache into another local store
+    Then the wheels are rejected for not matching their digest
+    And the other local store holds no wheels for "foo"
+
+  Scenario Outline: Index entries that could address files outside of a store are rejected
+    Given an HTTP wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    And the wheels cached locally for "foo" are published to the remote wheel cache
+    And the index entry of "foo-1.0.0-py3-none-any.whl" within the HTTP wheel cache has the <field> "<value>"
+    When the wheels of "foo" are downloaded from the remote wheel cache into another local store
+    Then the wheels are rejected as "<reason>"
+    And the other local store holds no wheels for "foo"
+
+    Examples:
+      | field    | value                                                            | reason                      |
+      | sha256   | ../../../../index/foo                                            | not a valid SHA-256 digest  |
+      | sha256   | 2C26B46B68FFC68FF99B453C1D30413413422D706483BFA0F98A5E886266E7AE | not a valid SHA-256 digest  |
+      | fileName | ../../foo-1.0.0-py3-none-any.whl                                 | not a valid wheel file name |
+      | fileName | ..\\foo-1.0.0-py3-none-any.whl                                   | not a valid wheel file name |
+      | fileName | foo.whl                                                          | not a valid wheel file name |
+
+  Scenario: An HTTP wheel cache requiring credentials is authenticated with
+    Given an HTTP wheel cache requiring user "ci" with password "secret"
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    When the wheels cached locally for "foo" are published to the remote wheel cache
+    Then the remote wheel cache lists "foo-1.0.0-py3-none-any.whl" for "foo"
+
+  Scenario: Requests to an HTTP wheel cache that exceed the request timeout fail
+    Given an HTTP wheel cache that takes 2000 milliseconds to respond
+    And a request timeout of 200 milliseconds
+    When the wheels cached for "foo" are listed from the remote wheel cache
+    Then listing the wheels fails with a timeout
+
+  Scenario: Cached wheels are shared through a directory wheel cache
+    Given a directory wheel cache
+    And "foo-1.0.0-py3-none-any.whl" containing "foo" is cached locally for "foo"
+    And the wheels cached locally for "foo" are published to the remote wheel cache
+    When the wheels of "foo" are downloaded from the remote wheel cache into another local store
+    Then the remote wheel cache lists "foo-1.0.0-py3-none-any.whl" for "foo"
+    And the other local store holds "foo-1.0.0-py3-none-any.whl" containing "foo" for "foo"
@@ -0,0 +1,11 @@
+Feature: Repository credentials are written to Poetry's configuration once per build
+
+  Scenario: Repository credentials are only configured once per build
+    When the password "s3cr3t-passw0rd" of user "deployer" is configured for repository "shared-pypi"
+    And the password "s3cr3t-passw0rd" of user "deployer" is configured for repository "shared-pypi"
+    Then Poetry is configured with repository credentials 1 time
+
+  Scenario: Repository credentials are configured again by a subsequent build
+    When the password "s3cr3t-passw0rd" of user "deployer" is configured for repository "shared-pypi"
+    And a subsequent build configures the password "s3cr3t-passw0rd" of user "deployer" for repository "shared-pypi"
+    Then Poetry is configured with repository credentials 2 times
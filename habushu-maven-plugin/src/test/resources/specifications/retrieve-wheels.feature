@@ -8,4 +8,80 @@ Feature: Test wheel dependencies capabilities
   Scenario: Wheel dependencies are copied when specified
     Given a Habushu configuration with a wheel dependency
     When Habushu executes retrieve wheel dependencies
-    Then the wheel artifact is copied
\ No newline at end of file
+    Then the wheel artifact is copied
+
+  Scenario: Wheel dependencies are retrieved from the wheel store
+    Given "store-artifact-1.0.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And a Habushu configuration with a wheel dependency on "store-artifact"
+    When Habushu executes retrieve wheel dependencies
+    Then "store-artifact-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+
+  Scenario: Only the latest cached version is retrieved by default
+    Given "store_artifact-1.0.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And "store_artifact-1.1.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And a Habushu configuration with a wheel dependency on "store-artifact"
+    When Habushu executes retrieve wheel dependencies
+    Then only "store_artifact-1.1.0-py3-none-any.whl" is retrieved from the wheel store
+
+  Scenario Outline: Cached wheels are selected by version
+    Given "store_artifact-1.0.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And "store_artifact-1.1.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And "store_artifact-2.0.0-py3-none-any.whl" has been cached in the wheel store for "store-artifact"
+    And a Habushu configuration with a wheel dependency on "store-artifact" version "<version>"
+    When Habushu executes retrieve wheel dependencies
+    Then only "<retrieved>" is retrieved from the wheel store
+
+    Examples:
+      | version   | retrieved                             |
+      | latest    | store_artifact-2.0.0-py3-none-any.whl |
+      | 1.0.0     | store_artifact-1.0.0-py3-none-any.whl |
+      | >=1.0,<2  | store_artifact-1.1.0-py3-none-any.whl |
+      | ~=1.0     | store_artifact-1.1.0-py3-none-any.whl |
+
+  Scenario: Cached wheels are selected by platform tag
+    Given "native-1.0.0-cp311-cp311-manylinux_2_17_x86_64.whl" has been cached in the wheel store for "native"
+    And "native-1.0.0-cp311-cp311-macosx_11_0_arm64.whl" has been cached in the wheel store for "native"
+    And a Habushu configuration with a wheel dependency on "native" with tags "manylinux_2_17_x86_64"
+    When Habushu executes retrieve wheel dependencies
+    Then only "native-1.0.0-cp311-cp311-manylinux_2_17_x86_64.whl" is retrieved from the wheel store
+
+  Scenario: Wheels of several dependencies are retrieved concurrently
+    Given "first-1.0.0-py3-none-any.whl" has been cached in the wheel store for "first"
+    And "second-1.0.0-py3-none-any.whl" has been cached in the wheel store for "second"
+    And "third-1.0.0-py3-none-any.whl" has been cached in the wheel store for "third"
+    And a Habushu configuration with wheel dependencies on "first,second,third" retrieved by 2 threads
+    When Habushu executes retrieve wheel dependencies
+    Then "first-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+    And "second-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+    And "third-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+
+  Scenario: Wheels missing from the wheel store are fetched from the remote wheel cache
+    Given "remote_artifact-1.0.0-py3-none-any.whl" has been published to the remote wheel cache for "remote-artifact"
+    And a Habushu configuration with a wheel dependency on "remote-artifact"
+    And the remote wheel cache is configured
+    When Habushu executes retrieve wheel dependencies
+    Then only "remote_artifact-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+    And the wheel store holds "remote_artifact-1.0.0-py3-none-any.whl" for "remote-artifact"
+
+  Scenario: Newer wheels in the remote wheel cache take precedence over older local wheels
+    Given "remote_artifact-1.0.0-py3-none-any.whl" has been cached in the wheel store for "remote-artifact"
+    And "remote_artifact-1.1.0-py3-none-any.whl" has been published to the remote wheel cache for "remote-artifact"
+    And a Habushu configuration with a wheel dependency on "remote-artifact"
+    And the remote wheel cache is configured
+    When Habushu executes retrieve wheel dependencies
+    Then only "remote_artifact-1.1.0-py3-none-any.whl" is retrieved from the wheel store
+
+  Scenario: Local wheels are retrieved when the remote wheel cache is unreachable
+    Given "remote_artifact-1.0.0-py3-none-any.whl" has been cached in the wheel store for "remote-artifact"
+    And a Habushu configuration with a wheel dependency on "remote-artifact"
+    And an unreachable remote wheel cache is configured
+    When Habushu executes retrieve wheel dependencies
+    Then only "remote_artifact-1.0.0-py3-none-any.whl" is retrieved from the wheel store
+
+  Scenario: Wheels that do not match their digest are not fetched from the remote wheel cache
+    Given "remote_artifact-1.0.0-py3-none-any.whl" has been published to the remote wheel cache for "remote-artifact"
+    And the blobs within the remote wheel cache are corrupted
+    And a Habushu configuration with a wheel dependency on "remote-artifact"
+    And the remote wheel cache is configured
+    When Habushu executes retrieve wheel dependencies
+    Then no wheels are retrieved from the wheel store
@@ -0,0 +1,30 @@
+Feature: pyproject.toml files are rewritten in a single pass and replaced atomically
+
+  Scenario: Large pyproject.toml files are rewritten line by line
+    Given a pyproject.toml with 20000 dependencies
+    When every dependency version is rewritten from "^1.0.0" to "^2.0.0"
+    Then the pyproject.toml document contains 20000 dependencies on version "^2.0.0"
+    And the rest of the pyproject.toml document is unchanged
+
+  Scenario: Lines may be removed or added when rewriting
+    Given a pyproject.toml with 3 dependencies
+    When the first dependency is replaced by two new dependencies
+    Then the pyproject.toml document lists the dependencies "new-a, new-b, package-1, package-2"
+
+  Scenario: Writing pyproject.toml replaces the file without leaving temporary files behind
+    Given a pyproject.toml with 3 dependencies that only its owner may write
+    When pyproject.toml is written with new content
+    Then pyproject.toml contains the new content
+    And pyproject.toml can still only be written by its owner
+    And no temporary files are left next to pyproject.toml
+
+  Scenario: Writing unchanged content leaves pyproject.toml untouched
+    Given a pyproject.toml with 3 dependencies that was last modified long ago
+    When pyproject.toml is written with its current content
+    Then pyproject.toml was left untouched
+
+  Scenario: Writes may be forced to disk
+    Given a pyproject.toml with 3 dependencies
+    When pyproject.toml is written with new content and forced to disk
+    Then pyproject.toml contains the new content
+    And no temporary files are left next to pyproject.toml
@@ -0,0 +1,35 @@
+Feature: Toolchain probe results are cached across modules and builds
+
+  Scenario: A probe is only executed once while its inputs are unchanged
+    Given an empty toolchain probe cache
+    When the "poetry --version" probe is requested twice
+    Then the probe is executed 1 time
+
+  Scenario: A probe is executed again when the local pyenv version file changes
+    Given an empty toolchain probe cache
+    And a local .python-version file containing "3.11.4"
+    When the "python --version" probe is requested
+    And the local .python-version file is changed to "3.11.5"
+    And the "python --version" probe is requested
+    Then the probe is executed 2 times
+
+  Scenario: A Poetry probe is executed again when Poetry is updated without changing its launcher
+    Given an empty toolchain probe cache
+    And a Poetry "1.8.2" installation
+    When the "--version" probe of that Poetry installation is requested
+    And that Poetry installation is updated to "1.8.3"
+    And the "--version" probe of that Poetry installation is requested
+    Then the probe is executed 2 times
+
+  Scenario: Cached probe results are reused by subsequent builds
+    Given an empty toolchain probe cache
+    When the "pyenv version-name" probe is requested
+    And the toolchain probe cache is reloaded from disk
+    And the "pyenv version-name" probe is requested
+    Then the probe is executed 1 time
+
+  Scenario: Failed probes are not cached
+    Given an empty toolchain probe cache
+    When the "pyenv --version" probe fails
+    And the "pyenv --version" probe is requested
+    Then the probe is executed 2 times
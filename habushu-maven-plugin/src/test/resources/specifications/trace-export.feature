@@ -0,0 +1,49 @@
+Feature: Goals and processes are exported as an OpenTelemetry trace
+
+  Scenario: Processes are nested beneath the goal that launched them
+    Given the "install-dependencies" goal of module "org.example:module-a:habushu:1.0" is traced
+    When a process writing 10 bytes to stdout and 0 bytes to stderr exits with 0
+    And the traced goal completes
+    Then the exported trace contains 3 spans sharing a single trace id
+    And the goal span is a child of the build span
+    And the process span is a child of the goal span
+
+  Scenario: Spans are attributed with the module and the versions of Python and Poetry it was built with
+    Given the "install-dependencies" goal of module "org.example:module-a:habushu:1.0" is traced
+    And the module is built with Python "3.11.4" and Poetry "1.8.2"
+    When a process writing 10 bytes to stdout and 0 bytes to stderr exits with 0
+    And the traced goal completes
+    Then the process span has attribute "maven.project.artifact_id" of "module-a"
+    And the process span has attribute "habushu.python.version" of "3.11.4"
+    And the process span has attribute "habushu.poetry.version" of "1.8.2"
+    And the goal span has attribute "habushu.poetry.version" of "1.8.2"
+
+  Scenario: Failed processes are marked as errors
+    Given the "install-dependencies" goal of module "org.example:module-a:habushu:1.0" is traced
+    When a process writing 0 bytes to stdout and 0 bytes to stderr exits with 3
+    And the traced goal completes
+    Then the process span has status code 2
+    And the process span has attribute "process.exit.code" of "3"
+
+  Scenario: Only the masked command line of processes is exported
+    Given the "deploy" goal of module "org.example:module-a:habushu:1.0" is traced
+    When the password "tr4ced-passw0rd" of user "deployer" is configured for repository "traced-pypi"
+    And the traced goal completes
+    And the trace is appended to a file twice
+    Then the process span is named "poetry config"
+    And the process span has attribute "process.command_line" of "poetry config http-basic.traced-pypi deployer XXXX"
+    And the traces file does not contain "tr4ced-passw0rd"
+
+  Scenario: Traces are appended to a file
+    Given the "install-dependencies" goal of module "org.example:module-a:habushu:1.0" is traced
+    When the traced goal completes
+    And the trace is appended to a file twice
+    Then the traces file contains 2 export requests
+
+  Scenario: Traces are sent to an OTLP/HTTP collector
+    Given a collector is listening for traces
+    And the "install-dependencies" goal of module "org.example:module-a:habushu:1.0" is traced
+    When a process writing 10 bytes to stdout and 0 bytes to stderr exits with 0
+    And the traced goal completes
+    And the trace is sent to the collector
+    Then the collector received 3 spans as JSON
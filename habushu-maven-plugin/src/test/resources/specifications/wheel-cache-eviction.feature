@@ -0,0 +1,65 @@
+Feature: The size and age of the wheel cache can be bounded
+
+  Scenario: Wheels that have not been used within the maximum age are evicted
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo 1.0.0"
+    And a wheel "foo-2.0.0-py3-none-any.whl" containing "foo 2.0.0"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "foo-2.0.0-py3-none-any.whl" is cached for "foo"
+    And "foo-1.0.0-py3-none-any.whl" cached for "foo" was last used 10 days ago
+    When the wheel cache is pruned to a maximum age of 7 days
+    Then the wheel store index for "foo" lists only "foo-2.0.0-py3-none-any.whl"
+    And the wheel store holds 1 blob
+
+  Scenario: The least recently retrieved wheels are evicted to fit the maximum size
+    Given a wheel "foo-1.0.0-py3-none-any.whl" of 400 bytes
+    And a wheel "bar-1.0.0-py3-none-any.whl" of 400 bytes
+    And a wheel "baz-1.0.0-py3-none-any.whl" of 400 bytes
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "bar-1.0.0-py3-none-any.whl" is cached for "bar"
+    And "baz-1.0.0-py3-none-any.whl" is cached for "baz"
+    And "foo-1.0.0-py3-none-any.whl" cached for "foo" was last used 3 days ago
+    And "bar-1.0.0-py3-none-any.whl" cached for "bar" was last used 2 days ago
+    And "baz-1.0.0-py3-none-any.whl" cached for "baz" was last used 1 days ago
+    And the wheels cached for "foo" are retrieved
+    When the wheel cache is pruned to a maximum size of 1000 bytes
+    Then the wheel store index for "bar" lists 0 wheels
+    And the wheel store index for "foo" lists 1 wheel
+    And the wheel store index for "baz" lists 1 wheel
+    And the wheel store holds 2 blobs
+
+  Scenario: Wheels that a build is about to retrieve are not evicted
+    Given a wheel "foo-1.0.0-py3-none-any.whl" of 400 bytes
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "foo-1.0.0-py3-none-any.whl" cached for "foo" was last used 10 days ago
+    And a build is about to retrieve the wheels cached for "foo"
+    When the wheel cache is pruned to a maximum size of 100 bytes
+    Then the wheel store index for "foo" lists 1 wheel
+    And the wheel store holds 1 blob
+
+  Scenario: Blobs shared by several artifacts are kept while any of them refers to it
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "shared"
+    And a wheel "bar-1.0.0-py3-none-any.whl" containing "shared"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "bar-1.0.0-py3-none-any.whl" is cached for "bar"
+    And "foo-1.0.0-py3-none-any.whl" cached for "foo" was last used 10 days ago
+    When the wheel cache is pruned to a maximum age of 7 days
+    Then the wheel store index for "foo" lists 0 wheels
+    And the wheel store holds 1 blob
+
+  Scenario: Blobs no longer referenced by any wheel are deleted
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And a wheel "foo-1.0.0-py3-none-any.whl" containing "rebuilt foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    When the wheel cache is pruned without bounds
+    Then the wheel store holds 1 blob
+    And the wheel store index for "foo" lists 1 wheel
+
+  Scenario: Opportunistic pruning is skipped while another build uses the wheel cache
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "foo-1.0.0-py3-none-any.whl" cached for "foo" was last used 10 days ago
+    And another build is using the wheel cache
+    When the wheel cache is opportunistically pruned to a maximum age of 7 days
+    Then pruning was skipped
+    And the wheel store index for "foo" lists 1 wheel
@@ -0,0 +1,50 @@
+Feature: Cached wheels are held in a content-addressed store
+
+  Scenario: Identical wheels cached for different artifacts are stored once
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And a wheel "bar-1.0.0-py3-none-any.whl" containing "foo"
+    When "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And "bar-1.0.0-py3-none-any.whl" is cached for "bar"
+    Then the wheel store holds 1 blob
+
+  Scenario: Re-caching an unchanged wheel does not rewrite its blob
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    When "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    Then the blob of "foo-1.0.0-py3-none-any.whl" was not rewritten
+    And the wheel store index for "foo" lists 1 wheel
+
+  Scenario: The index records the version and tags of cached wheels
+    Given a wheel "foo-1.2.0-py2.py3-none-any.whl" containing "foo"
+    When "foo-1.2.0-py2.py3-none-any.whl" is cached for "foo"
+    Then the wheel store index for "foo" lists version "1.2.0" with tags "py2-none-any,py3-none-any"
+
+  Scenario: Rebuilt wheels replace their previous index entry
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And a wheel "foo-1.0.0-py3-none-any.whl" containing "rebuilt foo"
+    When "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    Then the wheel store index for "foo" lists 1 wheel
+    And the wheel store holds 2 blobs
+
+  Scenario: Retrieved wheels are linked to their blob
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    When the wheels cached for "foo" are retrieved
+    Then the retrieved "foo-1.0.0-py3-none-any.whl" contains "foo"
+    And the retrieved "foo-1.0.0-py3-none-any.whl" is the same file as its blob
+
+  Scenario: Identical wheels already in the target directory are left in place
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And the target directory contains "foo-1.0.0-py3-none-any.whl" containing "foo"
+    When the wheels cached for "foo" are retrieved
+    Then the retrieved "foo-1.0.0-py3-none-any.whl" was left in place
+
+  Scenario: Differing wheels already in the target directory are replaced
+    Given a wheel "foo-1.0.0-py3-none-any.whl" containing "foo"
+    And "foo-1.0.0-py3-none-any.whl" is cached for "foo"
+    And the target directory contains "foo-1.0.0-py3-none-any.whl" containing "bar"
+    When the wheels cached for "foo" are retrieved
+    Then the retrieved "foo-1.0.0-py3-none-any.whl" contains "foo"
+    And the retrieved "foo-1.0.0-py3-none-any.whl" is the same file as its blob